@@ -18,6 +18,7 @@ package com.alipay.sofa.rpc.bootstrap;
 
 import com.alipay.sofa.rpc.client.ClientProxyInvoker;
 import com.alipay.sofa.rpc.client.Cluster;
+import com.alipay.sofa.rpc.codec.CompressHelper;
 import com.alipay.sofa.rpc.codec.SerializerFactory;
 import com.alipay.sofa.rpc.common.RemotingConstants;
 import com.alipay.sofa.rpc.config.ConfigUniqueNameGenerator;
@@ -131,6 +132,11 @@ public class DefaultClientProxyInvoker extends ClientProxyInvoker {
         // 额外属性通过HEAD传递给服务端
         request.addRequestProp(RemotingConstants.HEAD_APP_NAME, consumerConfig.getAppName());
         request.addRequestProp(RemotingConstants.HEAD_PROTOCOL, consumerConfig.getProtocol());
+        // 告诉服务端可以接受的压缩算法
+        String compress = CompressHelper.resolveCompress(consumerConfig.getMethodCompress(request.getMethodName()));
+        if (compress != null) {
+            request.addRequestProp(RemotingConstants.HEAD_ACCEPT_COMPRESS, compress);
+        }
     }
 
     @Override
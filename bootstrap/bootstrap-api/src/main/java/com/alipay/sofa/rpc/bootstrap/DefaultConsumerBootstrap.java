@@ -31,6 +31,7 @@ import com.alipay.sofa.rpc.common.utils.StringUtils;
 import com.alipay.sofa.rpc.config.ConsumerConfig;
 import com.alipay.sofa.rpc.config.RegistryConfig;
 import com.alipay.sofa.rpc.context.RpcRuntimeContext;
+import com.alipay.sofa.rpc.context.StartupProfiler;
 import com.alipay.sofa.rpc.core.exception.SofaRpcRuntimeException;
 import com.alipay.sofa.rpc.dynamic.DynamicConfigKeys;
 import com.alipay.sofa.rpc.dynamic.DynamicConfigManager;
@@ -113,6 +114,7 @@ public class DefaultConsumerBootstrap<T> extends ConsumerBootstrap<T> {
             if (proxyIns != null) {
                 return proxyIns;
             }
+            long referBegin = StartupProfiler.begin();
             String key = consumerConfig.buildKey();
             String appName = consumerConfig.getAppName();
             // 检查参数
@@ -151,12 +153,18 @@ public class DefaultConsumerBootstrap<T> extends ConsumerBootstrap<T> {
                 consumerConfig.setConfigListener(buildConfigListener(this));
                 consumerConfig.setProviderInfoListener(buildProviderInfoListener(this));
                 // init cluster
+                long begin = StartupProfiler.begin();
                 cluster.init();
+                StartupProfiler.end(key, StartupProfiler.PHASE_CLUSTER_INIT, null, begin, true);
                 // 构造Invoker对象（执行链）
+                begin = StartupProfiler.begin();
                 proxyInvoker = buildClientProxyInvoker(this);
+                StartupProfiler.end(key, StartupProfiler.PHASE_REFER_INVOKER, null, begin, true);
                 // 创建代理类
+                begin = StartupProfiler.begin();
                 proxyIns = (T) ProxyFactory.buildProxy(consumerConfig.getProxy(), consumerConfig.getProxyClass(),
                     proxyInvoker);
+                StartupProfiler.end(key, StartupProfiler.PHASE_PROXY, consumerConfig.getProxy(), begin, true);
 
                 //动态配置
                 final String dynamicAlias = consumerConfig.getParameter(DynamicConfigKeys.DYNAMIC_ALIAS);
@@ -173,6 +181,7 @@ public class DefaultConsumerBootstrap<T> extends ConsumerBootstrap<T> {
                 consumerConfig.setConfigListener(null);
                 consumerConfig.setProviderInfoListener(null);
                 cnt.decrementAndGet(); // 发布失败不计数
+                StartupProfiler.end(key, StartupProfiler.PHASE_REFER, null, referBegin, false);
                 if (e instanceof SofaRpcRuntimeException) {
                     throw (SofaRpcRuntimeException) e;
                 } else {
@@ -183,6 +192,7 @@ public class DefaultConsumerBootstrap<T> extends ConsumerBootstrap<T> {
                 cluster.checkStateChange(false); // 状态变化通知监听器
             }
             RpcRuntimeContext.cacheConsumerConfig(this);
+            StartupProfiler.end(key, StartupProfiler.PHASE_REFER, null, referBegin, true);
             return proxyIns;
         }
     }
@@ -334,6 +344,7 @@ public class DefaultConsumerBootstrap<T> extends ConsumerBootstrap<T> {
         // 从注册中心订阅 {groupName: ProviderGroup}
         Map<String, ProviderGroup> tmpProviderInfoList = new HashMap<String, ProviderGroup>();
         for (RegistryConfig registryConfig : registryConfigs) {
+            long begin = StartupProfiler.begin();
             Registry registry = RegistryFactory.getRegistry(registryConfig);
             registry.init();
             registry.start();
@@ -351,6 +362,8 @@ public class DefaultConsumerBootstrap<T> extends ConsumerBootstrap<T> {
                         consumerConfig.setProviderInfoListener(listener);
                     }
                 }
+                StartupProfiler.end(consumerConfig.buildKey(), StartupProfiler.PHASE_REGISTRY_SUB,
+                    registryConfig.getProtocol() + "://" + registryConfig.getAddress(), begin, true);
                 if (current == null) {
                     continue; // 未同步返回结果
                 } else {
@@ -380,10 +393,13 @@ public class DefaultConsumerBootstrap<T> extends ConsumerBootstrap<T> {
             }
         }
         if (respondRegistries != null) {
+            long begin = StartupProfiler.begin();
             try {
                 respondRegistries.await(addressWaitTime, TimeUnit.MILLISECONDS);
             } catch (Exception ignore) { // NOPMD
             }
+            StartupProfiler.end(consumerConfig.buildKey(), StartupProfiler.PHASE_ADDRESS_WAIT, null, begin,
+                respondRegistries.getCount() <= 0);
         }
         return new ArrayList<ProviderGroup>(tmpProviderInfoList.values());
     }
@@ -23,6 +23,7 @@ import com.alipay.sofa.rpc.config.ProviderConfig;
 import com.alipay.sofa.rpc.config.RegistryConfig;
 import com.alipay.sofa.rpc.config.ServerConfig;
 import com.alipay.sofa.rpc.context.RpcRuntimeContext;
+import com.alipay.sofa.rpc.context.StartupProfiler;
 import com.alipay.sofa.rpc.core.exception.SofaRpcRuntimeException;
 import com.alipay.sofa.rpc.ext.Extension;
 import com.alipay.sofa.rpc.invoke.Invoker;
@@ -32,6 +33,7 @@ import com.alipay.sofa.rpc.log.Logger;
 import com.alipay.sofa.rpc.log.LoggerFactory;
 import com.alipay.sofa.rpc.registry.Registry;
 import com.alipay.sofa.rpc.registry.RegistryFactory;
+import com.alipay.sofa.rpc.server.InJvmProviderHolder;
 import com.alipay.sofa.rpc.server.ProviderProxyInvoker;
 import com.alipay.sofa.rpc.server.Server;
 
@@ -91,6 +93,7 @@ public class DefaultProviderBootstrap<T> extends ProviderBootstrap<T> {
     @Override
     public void export() {
         if (providerConfig.getDelay() > 0) { // 延迟加载,单位毫秒
+            final long delayBegin = StartupProfiler.begin();
             Thread thread = factory.newThread(new Runnable() {
                 @Override
                 public void run() {
@@ -98,6 +101,8 @@ public class DefaultProviderBootstrap<T> extends ProviderBootstrap<T> {
                         Thread.sleep(providerConfig.getDelay());
                     } catch (Throwable ignore) { // NOPMD
                     }
+                    StartupProfiler.end(providerConfig.buildKey(), StartupProfiler.PHASE_EXPORT_DELAY, null,
+                        delayBegin, true);
                     doExport();
                 }
             });
@@ -111,6 +116,7 @@ public class DefaultProviderBootstrap<T> extends ProviderBootstrap<T> {
         if (exported) {
             return;
         }
+        long exportBegin = StartupProfiler.begin();
 
         // 检查参数
         checkParameters();
@@ -155,7 +161,9 @@ public class DefaultProviderBootstrap<T> extends ProviderBootstrap<T> {
 
         try {
             // 构造请求调用器
+            long begin = StartupProfiler.begin();
             providerProxyInvoker = new ProviderProxyInvoker(providerConfig);
+            StartupProfiler.end(providerConfig.buildKey(), StartupProfiler.PHASE_EXPORT_INVOKER, null, begin, true);
 
             preProcessProviderTarget(providerConfig, (ProviderProxyInvoker) providerProxyInvoker);
             // 初始化注册中心
@@ -170,12 +178,15 @@ public class DefaultProviderBootstrap<T> extends ProviderBootstrap<T> {
             // 将处理器注册到server
             for (ServerConfig serverConfig : serverConfigs) {
                 try {
+                    begin = StartupProfiler.begin();
                     Server server = serverConfig.buildIfAbsent();
                     // 注册请求调用器
                     server.registerProcessor(providerConfig, providerProxyInvoker);
                     if (serverConfig.isAutoStart()) {
                         server.start();
                     }
+                    StartupProfiler.end(providerConfig.buildKey(), StartupProfiler.PHASE_SERVER_START,
+                        serverConfig.getProtocol() + ":" + serverConfig.getPort(), begin, true);
 
                 } catch (SofaRpcRuntimeException e) {
                     throw e;
@@ -185,11 +196,18 @@ public class DefaultProviderBootstrap<T> extends ProviderBootstrap<T> {
                 }
             }
 
+            // 同JVM内的服务引用可以直接调用
+            InJvmProviderHolder.register(providerConfig, (ProviderProxyInvoker) providerProxyInvoker);
+
             // 注册到注册中心
             providerConfig.setConfigListener(new ProviderAttributeListener());
             register();
         } catch (Exception e) {
             decrementCounter(hasExportedInCurrent);
+            if (providerProxyInvoker != null) {
+                InJvmProviderHolder.unregister(providerConfig, (ProviderProxyInvoker) providerProxyInvoker);
+            }
+            StartupProfiler.end(providerConfig.buildKey(), StartupProfiler.PHASE_EXPORT, null, exportBegin, false);
             if (e instanceof SofaRpcRuntimeException) {
                 throw e;
             }
@@ -199,6 +217,7 @@ public class DefaultProviderBootstrap<T> extends ProviderBootstrap<T> {
         // 记录一些缓存数据
         RpcRuntimeContext.cacheProviderConfig(this);
         exported = true;
+        StartupProfiler.end(providerConfig.buildKey(), StartupProfiler.PHASE_EXPORT, null, exportBegin, true);
     }
 
     /**
@@ -289,6 +308,9 @@ public class DefaultProviderBootstrap<T> extends ProviderBootstrap<T> {
             // 取消注册到注册中心
             unregister();
 
+            if (providerProxyInvoker != null) {
+                InJvmProviderHolder.unregister(providerConfig, (ProviderProxyInvoker) providerProxyInvoker);
+            }
             providerProxyInvoker = null;
 
             // 取消将处理器注册到server
@@ -335,14 +357,19 @@ public class DefaultProviderBootstrap<T> extends ProviderBootstrap<T> {
             List<RegistryConfig> registryConfigs = providerConfig.getRegistry();
             if (registryConfigs != null) {
                 for (RegistryConfig registryConfig : registryConfigs) {
+                    long begin = StartupProfiler.begin();
                     Registry registry = RegistryFactory.getRegistry(registryConfig);
                     registry.init();
                     registry.start();
                     try {
                         registry.register(providerConfig);
+                        StartupProfiler.end(providerConfig.buildKey(), StartupProfiler.PHASE_REGISTER,
+                            registryConfig.getProtocol() + "://" + registryConfig.getAddress(), begin, true);
                     } catch (SofaRpcRuntimeException e) {
                         throw e;
                     } catch (Throwable e) {
+                        StartupProfiler.end(providerConfig.buildKey(), StartupProfiler.PHASE_REGISTER,
+                            registryConfig.getProtocol() + "://" + registryConfig.getAddress(), begin, false);
                         String appName = providerConfig.getAppName();
                         if (LOGGER.isWarnEnabled(appName)) {
                             LOGGER.errorWithApp(appName,
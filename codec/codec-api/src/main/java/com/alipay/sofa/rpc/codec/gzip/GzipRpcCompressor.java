@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.codec.gzip;
+
+import com.alipay.sofa.rpc.codec.Compressor;
+import com.alipay.sofa.rpc.common.struct.UnsafeByteArrayInputStream;
+import com.alipay.sofa.rpc.common.struct.UnsafeByteArrayOutputStream;
+import com.alipay.sofa.rpc.core.exception.SofaRpcRuntimeException;
+import com.alipay.sofa.rpc.ext.Extension;
+
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 基于 JDK 自带 gzip 的压缩实现，压缩率比 snappy 高，但是更消耗 CPU
+ */
+@Extension(value = "gzip", code = 3)
+public final class GzipRpcCompressor implements Compressor {
+
+    private static final int BUFFER_SIZE = 4096;
+
+    @Override
+    public byte[] compress(byte[] src) {
+        UnsafeByteArrayOutputStream out = new UnsafeByteArrayOutputStream(src.length / 2 + 64);
+        try {
+            GZIPOutputStream gzip = new GZIPOutputStream(out, BUFFER_SIZE);
+            gzip.write(src);
+            gzip.close();
+        } catch (IOException e) {
+            throw new SofaRpcRuntimeException("Failed to compress data by gzip", e);
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public byte[] deCompress(byte[] src) {
+        UnsafeByteArrayOutputStream out = new UnsafeByteArrayOutputStream(src.length * 2);
+        try {
+            GZIPInputStream gzip = new GZIPInputStream(new UnsafeByteArrayInputStream(src), BUFFER_SIZE);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int n;
+            while ((n = gzip.read(buffer)) >= 0) {
+                out.write(buffer, 0, n);
+            }
+            gzip.close();
+        } catch (IOException e) {
+            throw new SofaRpcRuntimeException("Failed to decompress data by gzip", e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.codec.gzip;
+
+import com.alipay.sofa.rpc.codec.CompressHelper;
+import com.alipay.sofa.rpc.codec.CompressorFactory;
+import com.alipay.sofa.rpc.core.exception.SofaRpcRuntimeException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.UnsupportedEncodingException;
+import java.util.Random;
+
+public class GzipRpcCompressorTest {
+
+    @Test
+    public void testCompress() throws UnsupportedEncodingException {
+        GzipRpcCompressor compressor = new GzipRpcCompressor();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            sb.append("xxxxasdasdasd0as8d0asdkmasldjalsd");
+        }
+        String s = sb.toString();
+        byte[] bs = compressor.compress(s.getBytes("utf-8"));
+        Assert.assertTrue(bs.length < s.length());
+
+        String s1 = new String(compressor.deCompress(bs), "utf-8");
+        Assert.assertEquals(s, s1);
+    }
+
+    @Test
+    public void testBadDeCompress() {
+        GzipRpcCompressor compressor = new GzipRpcCompressor();
+        try {
+            compressor.deCompress(new byte[] { 1, 2, 3 });
+            Assert.fail();
+        } catch (SofaRpcRuntimeException e) {
+            Assert.assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testCompressHelper() throws UnsupportedEncodingException {
+        Assert.assertTrue(CompressorFactory.isSupport("gzip"));
+        Assert.assertTrue(CompressorFactory.isSupport("snappy"));
+        Assert.assertFalse(CompressorFactory.isSupport("xxx"));
+        Assert.assertEquals("gzip", CompressHelper.resolveCompress("gzip"));
+        Assert.assertNull(CompressHelper.resolveCompress("xxx"));
+
+        // 小于压缩基线不压缩
+        Assert.assertNull(CompressHelper.compressIfNecessary("gzip", "small".getBytes("utf-8")));
+
+        // 压缩后没有变小不压缩
+        byte[] random = new byte[4096];
+        new Random(1).nextBytes(random);
+        Assert.assertNull(CompressHelper.compressIfNecessary("snappy", random));
+
+        byte[] data = new byte[4096];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i % 16);
+        }
+        for (String compress : new String[] { "gzip", "snappy" }) {
+            byte[] compressed = CompressHelper.compressIfNecessary(compress, data);
+            Assert.assertNotNull(compressed);
+            Assert.assertTrue(compressed.length < data.length);
+            Assert.assertArrayEquals(data, CompressHelper.deCompress(compress, compressed));
+        }
+        Assert.assertArrayEquals(data, CompressHelper.deCompress(null, data));
+    }
+}
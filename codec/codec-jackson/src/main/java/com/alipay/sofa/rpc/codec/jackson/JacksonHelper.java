@@ -19,6 +19,7 @@ package com.alipay.sofa.rpc.codec.jackson;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import com.alipay.sofa.rpc.common.utils.ClassUtils;
 import com.alipay.sofa.rpc.config.ConfigUniqueNameGenerator;
@@ -26,23 +27,30 @@ import com.alipay.sofa.rpc.core.exception.SofaRpcRuntimeException;
 import com.alipay.sofa.rpc.log.LogCodes;
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 
 /**
  * @author <a href="mailto:zhiyuan.lzy@antfin.com">zhiyuan.lzy</a>
  */
 public class JacksonHelper {
 
-    private ObjectMapper                          mapper             = new ObjectMapper();
+    private final ObjectMapper                                              mapper;
 
     /**
-     * Request service and method cache {service+method:class}
+     * Request and response types of method cache {service:{method:types}}
      */
-    private ConcurrentHashMap<String, JavaType[]> requestClassCache  = new ConcurrentHashMap<String, JavaType[]>();
+    private final ConcurrentMap<String, ConcurrentMap<String, MethodTypes>> methodTypesCache = new ConcurrentHashMap<String, ConcurrentMap<String, MethodTypes>>();
+
+    public JacksonHelper() {
+        this(new ObjectMapper());
+    }
 
     /**
-     * Response service and method cache {service+method:class}
+     * @param mapper readers are created from this mapper, so they share its features and modules
      */
-    private ConcurrentHashMap<String, JavaType>   responseClassCache = new ConcurrentHashMap<String, JavaType>();
+    public JacksonHelper(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
 
     /**
      * Fetch request class for cache according  service and method
@@ -52,16 +60,7 @@ public class JacksonHelper {
      * @return request class
      */
     public JavaType[] getReqClass(String service, String methodName) {
-
-        String key = buildMethodKey(service, methodName);
-        Type[] reqClassList = requestClassCache.get(key);
-        if (reqClassList == null) {
-            //read interface and method from cache
-            String interfaceClass = ConfigUniqueNameGenerator.getInterfaceName(service);
-            Class clazz = ClassUtils.forName(interfaceClass, true);
-            loadClassToCache(key, clazz, methodName);
-        }
-        return requestClassCache.get(key);
+        return getMethodTypes(service, methodName).reqTypes;
     }
 
     /**
@@ -72,36 +71,66 @@ public class JacksonHelper {
      * @return response class
      */
     public JavaType getResClass(String service, String methodName) {
-        String key = service + "#" + methodName;
-        JavaType reqType = responseClassCache.get(key);
-        if (reqType == null) {
-            // 读取接口里的方法参数和返回值
-            String interfaceClass = ConfigUniqueNameGenerator.getInterfaceName(service);
-            Class clazz = ClassUtils.forName(interfaceClass, true);
-            loadClassToCache(key, clazz, methodName);
-        }
-        return responseClassCache.get(key);
+        return getMethodTypes(service, methodName).resType;
     }
 
     /**
-     * build cache key
+     * Fetch request readers bound to parameter types according service and method
      *
-     * @param serviceName interface name
-     * @param methodName  method name
-     * @return Key
+     * @param service    interface name
+     * @param methodName method name
+     * @return request readers
      */
-    private String buildMethodKey(String serviceName, String methodName) {
-        return serviceName + "#" + methodName;
+    public ObjectReader[] getReqReaders(String service, String methodName) {
+        return getMethodTypes(service, methodName).reqReaders;
     }
 
     /**
-     * load method paramters and return types to cache, will not pass through to next
+     * Fetch response reader bound to return type according service and method
+     *
+     * @param service    interface name
+     * @param methodName method name
+     * @return response reader
+     */
+    public ObjectReader getResReader(String service, String methodName) {
+        return getMethodTypes(service, methodName).resReader;
+    }
+
+    /**
+     * lookup by service then method, no need to build cache key every time
+     *
+     * @param service    interface name
+     * @param methodName method name
+     * @return types of method
+     */
+    private MethodTypes getMethodTypes(String service, String methodName) {
+        ConcurrentMap<String, MethodTypes> methodTypes = methodTypesCache.get(service);
+        if (methodTypes == null) {
+            methodTypes = new ConcurrentHashMap<String, MethodTypes>();
+            ConcurrentMap<String, MethodTypes> old = methodTypesCache.putIfAbsent(service, methodTypes);
+            if (old != null) {
+                methodTypes = old;
+            }
+        }
+        MethodTypes types = methodTypes.get(methodName);
+        if (types == null) {
+            //read interface and method from cache
+            String interfaceClass = ConfigUniqueNameGenerator.getInterfaceName(service);
+            Class clazz = ClassUtils.forName(interfaceClass, true);
+            types = loadMethodTypes(clazz, methodName);
+            methodTypes.put(methodName, types);
+        }
+        return types;
+    }
+
+    /**
+     * load method paramters and return types
      *
-     * @param key        key
      * @param clazz      interface name
      * @param methodName method name
+     * @return types of method
      */
-    private void loadClassToCache(String key, Class clazz, String methodName) {
+    private MethodTypes loadMethodTypes(Class clazz, String methodName) {
         Method jsonMethod = null;
         Method[] methods = clazz.getMethods();
         for (Method method : methods) {
@@ -118,11 +147,12 @@ public class JacksonHelper {
         // parse request types
         Type[] parameterTypes = jsonMethod.getGenericParameterTypes();
         JavaType[] javaTypes = new JavaType[parameterTypes.length];
+        ObjectReader[] readers = new ObjectReader[parameterTypes.length];
         for (int i = 0; i < parameterTypes.length; i++) {
             JavaType javaType = mapper.getTypeFactory().constructType(parameterTypes[i]);
             javaTypes[i] = javaType;
+            readers[i] = mapper.readerFor(javaType);
         }
-        requestClassCache.put(key, javaTypes);
 
         // parse response types
         Type resType = jsonMethod.getGenericReturnType();
@@ -130,6 +160,27 @@ public class JacksonHelper {
             throw new SofaRpcRuntimeException(LogCodes.getLog(LogCodes.ERROR_VOID_RETURN, "jackson", clazz.getName()));
         }
         JavaType resJavaType = mapper.getTypeFactory().constructType(resType);
-        responseClassCache.put(key, resJavaType);
+        return new MethodTypes(javaTypes, readers, resJavaType, mapper.readerFor(resJavaType));
+    }
+
+    /**
+     * Resolved types and readers of one method
+     */
+    private static class MethodTypes {
+
+        private final JavaType[]     reqTypes;
+
+        private final ObjectReader[] reqReaders;
+
+        private final JavaType       resType;
+
+        private final ObjectReader   resReader;
+
+        MethodTypes(JavaType[] reqTypes, ObjectReader[] reqReaders, JavaType resType, ObjectReader resReader) {
+            this.reqTypes = reqTypes;
+            this.reqReaders = reqReaders;
+            this.resType = resType;
+            this.resReader = resReader;
+        }
     }
 }
@@ -22,9 +22,14 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import com.alipay.sofa.rpc.codec.AbstractSerializer;
 import com.alipay.sofa.rpc.common.RemotingConstants;
+import com.alipay.sofa.rpc.common.RpcConfigs;
+import com.alipay.sofa.rpc.common.RpcOptions;
+import com.alipay.sofa.rpc.common.utils.ClassUtils;
 import com.alipay.sofa.rpc.common.utils.CodecUtils;
 import com.alipay.sofa.rpc.common.utils.StringUtils;
 import com.alipay.sofa.rpc.config.ConfigUniqueNameGenerator;
@@ -33,13 +38,19 @@ import com.alipay.sofa.rpc.core.exception.SofaRpcException;
 import com.alipay.sofa.rpc.core.request.SofaRequest;
 import com.alipay.sofa.rpc.core.response.SofaResponse;
 import com.alipay.sofa.rpc.ext.Extension;
+import com.alipay.sofa.rpc.log.Logger;
+import com.alipay.sofa.rpc.log.LoggerFactory;
 import com.alipay.sofa.rpc.transport.AbstractByteBuf;
 import com.alipay.sofa.rpc.transport.ByteArrayWrapperByteBuf;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JavaType;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.Module;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
 
 /**
@@ -64,13 +75,21 @@ import com.fasterxml.jackson.databind.SerializationFeature;
 @Extension(value = "json", code = 12)
 public class JacksonSerializer extends AbstractSerializer {
 
-    private ObjectMapper        mapper                        = new ObjectMapper();
+    private static final Logger                      LOGGER                        = LoggerFactory
+                                                                                       .getLogger(JacksonSerializer.class);
 
-    private JacksonHelper       jacksonHelper                 = new JacksonHelper();
+    private ObjectMapper                             mapper                        = new ObjectMapper();
 
-    private static final String DESERIALIZATIONFEATURE_PREFIX = "sofa.rpc.codec.jackson.DeserializationFeature.";
+    private JacksonHelper                            jacksonHelper                 = new JacksonHelper(mapper);
 
-    private static final String SERIALIZATIONFEATURE_PREFIX   = "sofa.rpc.codec.jackson.SerializationFeature.";
+    /**
+     * Writer cache {class:writer}
+     */
+    private final ConcurrentMap<Class, ObjectWriter> writerCache                   = new ConcurrentHashMap<Class, ObjectWriter>();
+
+    private static final String                      DESERIALIZATIONFEATURE_PREFIX = "sofa.rpc.codec.jackson.DeserializationFeature.";
+
+    private static final String                      SERIALIZATIONFEATURE_PREFIX   = "sofa.rpc.codec.jackson.SerializationFeature.";
 
     public JacksonSerializer() {
 
@@ -97,6 +116,57 @@ public class JacksonSerializer extends AbstractSerializer {
                 }
             }
         }
+        registerModules(RpcConfigs.getStringValue(RpcOptions.SERIALIZE_JACKSON_MODULES));
+    }
+
+    /**
+     * Register optional modules such as Afterburner or Blackbird, they are not dependencies of this codec
+     *
+     * @param modules class names of module, separated by comma
+     */
+    private void registerModules(String modules) {
+        if (StringUtils.isBlank(modules)) {
+            return;
+        }
+        for (String moduleClass : StringUtils.splitWithCommaOrSemicolon(modules)) {
+            try {
+                mapper.registerModule((Module) ClassUtils.newInstance(ClassUtils.forName(moduleClass)));
+            } catch (Exception e) {
+                LOGGER.warn("Failed to register jackson module: " + moduleClass, e);
+            }
+        }
+    }
+
+    /**
+     * Writer of class, the type of writer is the runtime class, the same as mapper.writeValueAsBytes
+     *
+     * @param clazz class of object
+     * @return writer
+     */
+    private ObjectWriter getWriter(Class clazz) {
+        ObjectWriter writer = writerCache.get(clazz);
+        if (writer == null) {
+            writer = mapper.writerFor(clazz);
+            ObjectWriter old = writerCache.putIfAbsent(clazz, writer);
+            if (old != null) {
+                writer = old;
+            }
+        }
+        return writer;
+    }
+
+    /**
+     * Parse byte array directly, others are parsed from stream, no copy
+     *
+     * @param data data
+     * @return parser
+     * @throws IOException create parser error
+     */
+    private JsonParser createParser(AbstractByteBuf data) throws IOException {
+        if (data instanceof ByteArrayWrapperByteBuf) {
+            return mapper.getFactory().createParser(data.array());
+        }
+        return mapper.getFactory().createParser(data.inputStream());
     }
 
     @Override
@@ -109,7 +179,8 @@ public class JacksonSerializer extends AbstractSerializer {
             return encodeSofaResponse((SofaResponse) object, context);
         } else {
             try {
-                return new ByteArrayWrapperByteBuf(mapper.writeValueAsBytes(object));
+                // buffers of generator are recycled by jackson itself
+                return new ByteArrayWrapperByteBuf(getWriter(object.getClass()).writeValueAsBytes(object));
             } catch (JsonProcessingException e) {
                 throw buildSerializeError(e.getMessage());
             }
@@ -153,10 +224,14 @@ public class JacksonSerializer extends AbstractSerializer {
         if (clazz == null) {
             throw buildDeserializeError("class is null!");
         } else {
+            JsonParser parser = null;
             try {
-                result = mapper.readValue(data.array(), clazz);
+                parser = createParser(data);
+                result = mapper.readValue(parser, clazz);
             } catch (IOException e) {
                 throw buildDeserializeError(e.getMessage());
+            } finally {
+                closeQuietly(parser);
             }
         }
 
@@ -211,12 +286,14 @@ public class JacksonSerializer extends AbstractSerializer {
 
         // according interface and method name to find parameter types
         JavaType[] requestClassList = jacksonHelper.getReqClass(targetService, sofaRequest.getMethodName());
-        Object[] reqList = decode(data, requestClassList);
+        ObjectReader[] readers = jacksonHelper.getReqReaders(targetService, sofaRequest.getMethodName());
+        Object[] reqList = decode(data, requestClassList, readers);
         sofaRequest.setMethodArgs(reqList);
         sofaRequest.setMethodArgSigs(parseArgSigs(requestClassList));
     }
 
-    private Object[] decode(AbstractByteBuf data, JavaType[] clazzList) throws SofaRpcException {
+    private Object[] decode(AbstractByteBuf data, JavaType[] clazzList, ObjectReader[] readers)
+        throws SofaRpcException {
 
         if (clazzList == null || clazzList.length == 0) {
             return new Object[0];
@@ -224,27 +301,34 @@ public class JacksonSerializer extends AbstractSerializer {
 
         Object[] args = new Object[clazzList.length];
 
+        JsonParser parser = null;
         try {
-
-            JsonNode node = mapper.readTree(data.array());
+            // read arguments from stream directly, do not build the whole tree
+            parser = createParser(data);
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                throw buildDeserializeError("JSON data is empty");
+            }
 
             // json data is json arry
-            if (node.isArray()) {
+            if (token == JsonToken.START_ARRAY) {
                 // first parameter is Array or Collection Type
                 if (clazzList.length == 1) {
                     if (!clazzList[0].isCollectionLikeType() && !clazzList[0].isArrayType()) {
                         throw buildDeserializeError("JSON data can't be json array");
                     }
-                    args[0] = mapper.readValue(node.traverse(), clazzList[0]);
+                    args[0] = readers[0].readValue(parser);
                     return args;
                 } else {
                     // if there is more than one parameter, but request json array size is not equal class type size.
-                    if (clazzList.length != node.size()) {
-                        throw buildDeserializeError("JSON Array size is not equal parameter size");
-                    }
-
                     for (int i = 0; i < clazzList.length; i++) {
-                        args[i] = mapper.readValue(node.get(i).traverse(), clazzList[i]);
+                        if (parser.nextToken() == JsonToken.END_ARRAY) {
+                            throw buildDeserializeError("JSON Array size is not equal parameter size");
+                        }
+                        args[i] = readers[i].readValue(parser);
+                    }
+                    if (parser.nextToken() != JsonToken.END_ARRAY) {
+                        throw buildDeserializeError("JSON Array size is not equal parameter size");
                     }
                 }
 
@@ -255,7 +339,7 @@ public class JacksonSerializer extends AbstractSerializer {
                 }
 
                 // json is other type(eg. map object string int...)
-                args[0] = mapper.readValue(node.traverse(), clazzList[0]);
+                args[0] = readers[0].readValue(parser);
             }
 
             return args;
@@ -263,10 +347,21 @@ public class JacksonSerializer extends AbstractSerializer {
             throw e;
         } catch (IOException e) {
             throw buildDeserializeError(e.getMessage());
+        } finally {
+            closeQuietly(parser);
         }
 
     }
 
+    private void closeQuietly(JsonParser parser) {
+        if (parser != null) {
+            try {
+                parser.close();
+            } catch (IOException ignore) { //NOPMD
+            }
+        }
+    }
+
     private String[] parseArgSigs(JavaType[] reqList) {
         List<String> argSigs = new ArrayList<String>();
         for (JavaType type : reqList) {
@@ -310,12 +405,16 @@ public class JacksonSerializer extends AbstractSerializer {
             sofaResponse.setErrorMsg(errorMessage);
         } else {
             // according interface and method name to find paramter types
-            JavaType respType = jacksonHelper.getResClass(targetService, methodName);
+            ObjectReader respReader = jacksonHelper.getResReader(targetService, methodName);
             Object result;
+            JsonParser parser = null;
             try {
-                result = mapper.readValue(data.array(), respType);
+                parser = createParser(data);
+                result = respReader.readValue(parser);
             } catch (IOException e) {
                 throw buildDeserializeError(e.getMessage());
+            } finally {
+                closeQuietly(parser);
             }
             sofaResponse.setAppResponse(result);
         }
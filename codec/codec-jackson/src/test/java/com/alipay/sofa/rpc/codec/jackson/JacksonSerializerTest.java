@@ -16,6 +16,7 @@
  */
 package com.alipay.sofa.rpc.codec.jackson;
 
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
@@ -29,7 +30,10 @@ import com.alipay.sofa.rpc.codec.jackson.model.DemoRequest2;
 import com.alipay.sofa.rpc.codec.jackson.model.DemoResponse;
 import com.alipay.sofa.rpc.codec.jackson.model.DemoService;
 import com.alipay.sofa.rpc.common.RemotingConstants;
+import com.alipay.sofa.rpc.common.RpcConfigs;
 import com.alipay.sofa.rpc.common.RpcConstants;
+import com.alipay.sofa.rpc.common.RpcOptions;
+import com.alipay.sofa.rpc.common.struct.UnsafeByteArrayOutputStream;
 import com.alipay.sofa.rpc.core.exception.SofaRpcException;
 import com.alipay.sofa.rpc.core.invoke.SofaResponseCallback;
 import com.alipay.sofa.rpc.core.request.RequestBase;
@@ -37,7 +41,12 @@ import com.alipay.sofa.rpc.core.request.SofaRequest;
 import com.alipay.sofa.rpc.core.response.SofaResponse;
 import com.alipay.sofa.rpc.transport.AbstractByteBuf;
 import com.alipay.sofa.rpc.transport.ByteArrayWrapperByteBuf;
+import com.alipay.sofa.rpc.transport.ByteStreamWrapperByteBuf;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -501,4 +510,68 @@ public class JacksonSerializerTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testStreamingDecode() throws Exception {
+        Map<String, String> head = new HashMap<String, String>();
+        head.put(RemotingConstants.HEAD_TARGET_SERVICE, DemoService.class.getCanonicalName() + ":1.0");
+        head.put(RemotingConstants.HEAD_METHOD_NAME, "say2");
+        byte[] json = "[{\"name\":\"stream\"},{\"abc\":\"123\"},456]".getBytes("UTF-8");
+        SofaRequest newRequest = new SofaRequest();
+        serializer.decode(streamBuf(json), newRequest, head);
+        Assert.assertEquals("stream", ((DemoRequest) newRequest.getMethodArgs()[0]).getName());
+        Assert.assertEquals("123", ((Map) newRequest.getMethodArgs()[1]).get("abc"));
+        Assert.assertEquals(456, newRequest.getMethodArgs()[2]);
+
+        // too many parameters
+        boolean error = false;
+        head.put(RemotingConstants.HEAD_TARGET_SERVICE, DemoService.class.getCanonicalName() + ":1.0");
+        head.put(RemotingConstants.HEAD_METHOD_NAME, "say2");
+        try {
+            serializer.decode(new ByteArrayWrapperByteBuf(
+                "[{\"name\":\"stream\"},{},456,789]".getBytes("UTF-8")), new SofaRequest(), head);
+        } catch (SofaRpcException e) {
+            error = true;
+        }
+        Assert.assertTrue(error);
+
+        head.put(RemotingConstants.HEAD_TARGET_SERVICE, DemoService.class.getCanonicalName() + ":1.0");
+        head.put(RemotingConstants.HEAD_METHOD_NAME, "say");
+        SofaResponse newResponse = new SofaResponse();
+        serializer.decode(streamBuf("{\"word\":\"result\"}".getBytes("UTF-8")), newResponse, head);
+        Assert.assertEquals("result", ((DemoResponse) newResponse.getAppResponse()).getWord());
+    }
+
+    @Test
+    public void testRegisterModules() {
+        RpcConfigs.putValue(RpcOptions.SERIALIZE_JACKSON_MODULES, DemoModule.class.getName() + ",not.exist.Module");
+        try {
+            JacksonSerializer serializer = new JacksonSerializer();
+            AbstractByteBuf data = serializer.encode(new DemoRequest2(), null);
+            Assert.assertEquals("\"demo\"", new String(data.array()));
+        } finally {
+            RpcConfigs.putValue(RpcOptions.SERIALIZE_JACKSON_MODULES, "");
+        }
+    }
+
+    public static class DemoModule extends SimpleModule {
+
+        public DemoModule() {
+            addSerializer(DemoRequest2.class, new JsonSerializer<DemoRequest2>() {
+                @Override
+                public void serialize(DemoRequest2 value, JsonGenerator gen, SerializerProvider serializers)
+                    throws IOException {
+                    gen.writeString("demo");
+                }
+            });
+        }
+    }
+
+    /**
+     * 不是 ByteArrayWrapperByteBuf，反序列化时走输入流
+     */
+    private static AbstractByteBuf streamBuf(byte[] data) throws IOException {
+        UnsafeByteArrayOutputStream outputStream = new UnsafeByteArrayOutputStream(data.length);
+        outputStream.write(data);
+        return new ByteStreamWrapperByteBuf(outputStream);
+    }
+}
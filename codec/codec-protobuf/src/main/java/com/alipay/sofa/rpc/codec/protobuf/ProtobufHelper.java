@@ -23,6 +23,7 @@ import com.alipay.sofa.rpc.config.ConfigUniqueNameGenerator;
 import com.alipay.sofa.rpc.core.exception.SofaRpcRuntimeException;
 import com.alipay.sofa.rpc.log.LogCodes;
 import com.google.protobuf.MessageLite;
+import com.google.protobuf.Parser;
 
 import java.lang.reflect.Method;
 import java.util.concurrent.ConcurrentHashMap;
@@ -36,28 +37,33 @@ public class ProtobufHelper {
     /**
      * Support multiple classloader?
      */
-    private static final boolean         MULTIPLE_CLASSLOADER = RpcConfigs
-                                                                  .getBooleanValue(RpcOptions.MULTIPLE_CLASSLOADER_ENABLE);
+    private static final boolean                                  MULTIPLE_CLASSLOADER        = RpcConfigs
+                                                                                                  .getBooleanValue(RpcOptions.MULTIPLE_CLASSLOADER_ENABLE);
+
+    /**
+     * Get default instance method name
+     */
+    private static final String                                   METHOD_GET_DEFAULT_INSTANCE = "getDefaultInstance";
 
     /**
      * Cache of parseFrom method
      */
-    ConcurrentMap<Class, Method>         parseFromMethodMap   = new ConcurrentHashMap<Class, Method>();
+    ConcurrentMap<Class, Method>                                  parseFromMethodMap          = new ConcurrentHashMap<Class, Method>();
 
     /**
      * Cache of toByteArray method
      */
-    ConcurrentMap<Class, Method>         toByteArrayMethodMap = new ConcurrentHashMap<Class, Method>();
+    ConcurrentMap<Class, Method>                                  toByteArrayMethodMap        = new ConcurrentHashMap<Class, Method>();
 
     /**
-     * 请求参数类型缓存 {service+method:class}
+     * Cache of message parser
      */
-    private ConcurrentMap<String, Class> requestClassCache    = new ConcurrentHashMap<String, Class>();
+    private ConcurrentMap<Class, Parser>                          parserMap                   = new ConcurrentHashMap<Class, Parser>();
 
     /**
-     * 返回结果类型缓存 {service+method:class}
+     * 请求参数和返回值类型缓存 {service:{method:[requestClass, responseClass]}}
      */
-    private ConcurrentMap<String, Class> responseClassCache   = new ConcurrentHashMap<String, Class>();
+    private ConcurrentMap<String, ConcurrentMap<String, Class[]>> methodClassCache            = new ConcurrentHashMap<String, ConcurrentMap<String, Class[]>>();
 
     /**
      * 从缓存中获取请求值类
@@ -67,16 +73,7 @@ public class ProtobufHelper {
      * @return 请求参数类
      */
     public Class getReqClass(String service, String methodName) {
-
-        String key = buildMethodKey(service, methodName);
-        Class reqClass = requestClassCache.get(key);
-        if (reqClass == null) {
-            // 读取接口里的方法参数和返回值
-            String interfaceClass = ConfigUniqueNameGenerator.getInterfaceName(service);
-            Class clazz = ClassUtils.forName(interfaceClass, true);
-            loadProtoClassToCache(key, clazz, methodName);
-        }
-        return requestClassCache.get(key);
+        return getMethodClasses(service, methodName)[0];
     }
 
     /**
@@ -87,36 +84,44 @@ public class ProtobufHelper {
      * @return 请求参数类
      */
     public Class getResClass(String service, String methodName) {
-        String key = service + "#" + methodName;
-        Class reqClass = responseClassCache.get(key);
-        if (reqClass == null) {
-            // 读取接口里的方法参数和返回值
-            String interfaceClass = ConfigUniqueNameGenerator.getInterfaceName(service);
-            Class clazz = ClassUtils.forName(interfaceClass, true);
-            loadProtoClassToCache(key, clazz, methodName);
-        }
-        return responseClassCache.get(key);
+        return getMethodClasses(service, methodName)[1];
     }
 
     /**
-     * 拼装缓存的key
+     * 按接口和方法两级查找，避免每次调用拼接缓存的key
      *
-     * @param serviceName 接口名
-     * @param methodName  方法名
-     * @return Key
+     * @param service    接口名
+     * @param methodName 方法名
+     * @return [请求参数类, 返回值类]
      */
-    private String buildMethodKey(String serviceName, String methodName) {
-        return serviceName + "#" + methodName;
+    private Class[] getMethodClasses(String service, String methodName) {
+        ConcurrentMap<String, Class[]> methodClasses = methodClassCache.get(service);
+        if (methodClasses == null) {
+            methodClasses = new ConcurrentHashMap<String, Class[]>();
+            ConcurrentMap<String, Class[]> old = methodClassCache.putIfAbsent(service, methodClasses);
+            if (old != null) {
+                methodClasses = old;
+            }
+        }
+        Class[] classes = methodClasses.get(methodName);
+        if (classes == null) {
+            // 读取接口里的方法参数和返回值
+            String interfaceClass = ConfigUniqueNameGenerator.getInterfaceName(service);
+            Class clazz = ClassUtils.forName(interfaceClass, true);
+            classes = loadProtoClass(clazz, methodName);
+            methodClasses.put(methodName, classes);
+        }
+        return classes;
     }
 
     /**
-     * 加载protobuf接口里方法的参数和返回值类型到缓存，不需要传递
+     * 加载protobuf接口里方法的参数和返回值类型
      *
-     * @param key        缓存的key
      * @param clazz      接口名
      * @param methodName 方法名
+     * @return [请求参数类, 返回值类]
      */
-    private void loadProtoClassToCache(String key, Class clazz, String methodName) {
+    private Class[] loadProtoClass(Class clazz, String methodName) {
         Method pbMethod = null;
         Method[] methods = clazz.getMethods();
         for (Method method : methods) {
@@ -137,12 +142,29 @@ public class ProtobufHelper {
                 clazz.getName()));
         }
         Class reqClass = parameterTypes[0];
-        requestClassCache.put(key, reqClass);
         Class resClass = pbMethod.getReturnType();
         if (resClass == void.class || !isProtoBufMessageClass(resClass)) {
             throw new SofaRpcRuntimeException(LogCodes.getLog(LogCodes.ERROR_PROTOBUF_RETURN, clazz.getName()));
         }
-        responseClassCache.put(key, resClass);
+        return new Class[] { reqClass, resClass };
+    }
+
+    /**
+     * 从缓存中获取消息的 Parser，只在第一次通过 getDefaultInstance 反射获取
+     *
+     * @param clazz 消息类，必须是当前 ClassLoader 下的 MessageLite
+     * @return Parser
+     * @throws Exception 找不到 getDefaultInstance 方法
+     */
+    Parser getParser(Class clazz) throws Exception {
+        Parser parser = parserMap.get(clazz);
+        if (parser == null) {
+            Method method = clazz.getMethod(METHOD_GET_DEFAULT_INSTANCE);
+            MessageLite defaultInstance = (MessageLite) method.invoke(null);
+            parser = defaultInstance.getParserForType();
+            parserMap.put(clazz, parser);
+        }
+        return parser;
     }
 
     /**
@@ -29,6 +29,10 @@ import com.alipay.sofa.rpc.core.response.SofaResponse;
 import com.alipay.sofa.rpc.ext.Extension;
 import com.alipay.sofa.rpc.transport.AbstractByteBuf;
 import com.alipay.sofa.rpc.transport.ByteArrayWrapperByteBuf;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.MessageLite;
+import com.google.protobuf.Parser;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
@@ -69,6 +73,8 @@ public class ProtobufSerializer extends AbstractSerializer {
      */
     private static final String  METHOD_PARSEFROM   = "parseFrom";
 
+    private static final byte[]  EMPTY_BYTES        = new byte[0];
+
     @Override
     public AbstractByteBuf encode(Object object, Map<String, String> context) throws SofaRpcException {
         if (object == null) {
@@ -77,7 +83,20 @@ public class ProtobufSerializer extends AbstractSerializer {
             return encodeSofaRequest((SofaRequest) object, context);
         } else if (object instanceof SofaResponse) {
             return encodeSofaResponse((SofaResponse) object, context);
+        } else if (object instanceof MessageLite) {
+            // 按序列化后的大小分配数组，直接写入，不再反射调用 toByteArray
+            MessageLite message = (MessageLite) object;
+            byte[] bytes = new byte[message.getSerializedSize()];
+            try {
+                CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+                message.writeTo(output);
+                output.checkNoSpaceLeft();
+            } catch (Exception e) {
+                throw buildSerializeError("Error when serialize " + object.getClass().getName() + ".", e);
+            }
+            return new ByteArrayWrapperByteBuf(bytes);
         } else if (protobufHelper.isProtoBufMessageObject(object)) {
+            // 多 ClassLoader 下不是同一个 MessageLite 类，只能反射调用
             Class clazz = object.getClass();
             Method method = protobufHelper.toByteArrayMethodMap.get(clazz);
             if (method == null) {
@@ -135,6 +154,16 @@ public class ProtobufSerializer extends AbstractSerializer {
     public Object decode(AbstractByteBuf data, Class clazz, Map<String, String> context) throws SofaRpcException {
         if (clazz == null) {
             throw buildDeserializeError("class is null!");
+        } else if (MessageLite.class.isAssignableFrom(clazz)) {
+            try {
+                Parser parser = protobufHelper.getParser(clazz);
+                CodedInputStream input = newCodedInputStream(data);
+                Object message = parser.parseFrom(input);
+                input.checkLastTagWas(0);
+                return message;
+            } catch (Exception e) {
+                throw buildDeserializeError("Error when parse " + clazz.getName() + ".", e);
+            }
         } else if (protobufHelper.isProtoBufMessageClass(clazz)) {
             if (data == null || data.readableBytes() == 0) {
                 try {
@@ -173,6 +202,22 @@ public class ProtobufSerializer extends AbstractSerializer {
         }
     }
 
+    /**
+     * 字节数组直接包装，其它的从输入流读取，都不需要拷贝
+     *
+     * @param data 数据
+     * @return CodedInputStream
+     */
+    private CodedInputStream newCodedInputStream(AbstractByteBuf data) {
+        if (data == null || data.readableBytes() == 0) {
+            return CodedInputStream.newInstance(EMPTY_BYTES);
+        }
+        if (data instanceof ByteArrayWrapperByteBuf) {
+            return CodedInputStream.newInstance(data.array());
+        }
+        return CodedInputStream.newInstance(data.inputStream());
+    }
+
     @Override
     public void decode(AbstractByteBuf data, Object template, Map<String, String> context) throws SofaRpcException {
         if (template == null) {
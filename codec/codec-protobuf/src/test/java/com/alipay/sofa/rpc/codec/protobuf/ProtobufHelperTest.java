@@ -16,6 +16,7 @@
  */
 package com.alipay.sofa.rpc.codec.protobuf;
 
+import com.google.protobuf.Parser;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -42,6 +43,14 @@ public class ProtobufHelperTest {
         Assert.assertTrue(res == EchoStrRes.class);
     }
 
+    @Test
+    public void getParser() throws Exception {
+        Parser parser = protobufHelper.getParser(EchoStrReq.class);
+        Assert.assertNotNull(parser);
+        Assert.assertSame(parser, protobufHelper.getParser(EchoStrReq.class));
+        Assert.assertSame(EchoStrReq.parser(), parser);
+    }
+
     @Test
     public void testJudgeProtoInterface() {
         EchoStrRes res = EchoStrRes.newBuilder().setS("xxxx").build();
@@ -18,6 +18,7 @@ package com.alipay.sofa.rpc.codec.protobuf;
 
 import com.alipay.sofa.rpc.common.RemotingConstants;
 import com.alipay.sofa.rpc.common.RpcConstants;
+import com.alipay.sofa.rpc.common.struct.UnsafeByteArrayOutputStream;
 import com.alipay.sofa.rpc.core.exception.SofaRpcException;
 import com.alipay.sofa.rpc.core.invoke.SofaResponseCallback;
 import com.alipay.sofa.rpc.core.request.RequestBase;
@@ -25,9 +26,11 @@ import com.alipay.sofa.rpc.core.request.SofaRequest;
 import com.alipay.sofa.rpc.core.response.SofaResponse;
 import com.alipay.sofa.rpc.transport.AbstractByteBuf;
 import com.alipay.sofa.rpc.transport.ByteArrayWrapperByteBuf;
+import com.alipay.sofa.rpc.transport.ByteStreamWrapperByteBuf;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.IOException;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -83,6 +86,38 @@ public class ProtobufSerializerTest {
         Assert.assertTrue(error);
     }
 
+    @Test
+    public void decodeFromStream() throws Exception {
+        EchoStrReq req = EchoStrReq.newBuilder().setS("xxxx").build();
+        AbstractByteBuf byteBuf = serializer.encode(req, null);
+        Assert.assertEquals(req.getSerializedSize(), byteBuf.readableBytes());
+
+        AbstractByteBuf streamBuf = streamBuf(byteBuf.array());
+        EchoStrReq req2 = (EchoStrReq) serializer.decode(streamBuf, EchoStrReq.class, null);
+        Assert.assertEquals(req.getS(), req2.getS());
+
+        EchoStrReq empty = (EchoStrReq) serializer.decode(new ByteArrayWrapperByteBuf(new byte[0]),
+            EchoStrReq.class, null);
+        Assert.assertEquals("", empty.getS());
+
+        boolean error = false;
+        try {
+            serializer.decode(new ByteArrayWrapperByteBuf(new byte[] { 0x0a, 0x05, 'x' }), EchoStrReq.class, null);
+        } catch (Exception e) {
+            error = true;
+        }
+        Assert.assertTrue(error);
+    }
+
+    /**
+     * 不是 ByteArrayWrapperByteBuf，反序列化时走输入流
+     */
+    private static AbstractByteBuf streamBuf(byte[] data) throws IOException {
+        UnsafeByteArrayOutputStream outputStream = new UnsafeByteArrayOutputStream(data.length);
+        outputStream.write(data);
+        return new ByteStreamWrapperByteBuf(outputStream);
+    }
+
     @Test
     public void testSofaRequest() throws Exception {
         SofaRequest request = buildRequest();
@@ -29,6 +29,8 @@ import com.alipay.hessian.generic.model.GenericCollection;
 import com.alipay.hessian.generic.model.GenericMap;
 import com.alipay.hessian.generic.model.GenericObject;
 import com.alipay.hessian.generic.util.ClassFilter;
+import com.alipay.sofa.rpc.common.RpcConfigs;
+import com.alipay.sofa.rpc.common.RpcOptions;
 import com.alipay.sofa.rpc.common.utils.StringUtils;
 import com.caucho.hessian.io.Deserializer;
 import com.caucho.hessian.io.HessianProtocolException;
@@ -47,11 +49,21 @@ public class GenericMultipleClassLoaderSofaSerializerFactory extends MultipleCla
 
     private static final ConcurrentMap<String, Deserializer> DESERIALIZER_MAP = new ConcurrentHashMap<String, Deserializer>();
 
+    /**
+     * 是否按类型缓存 GenericObject 的字段布局，要求每次都写类定义时不生效
+     */
+    private final boolean                                    descriptorEnable = RpcConfigs
+                                                                                  .getBooleanValue(RpcOptions.SERIALIZE_GENERIC_DESCRIPTOR_ENABLE)
+                                                                                  &&
+                                                                                  !Boolean
+                                                                                      .getBoolean("generic_hessian_write_definition_everytime");
+
     @Override
     public Serializer getSerializer(Class cl) throws HessianProtocolException {
 
         if (GenericObject.class == cl) {
-            return GenericObjectSerializer.getInstance();
+            return descriptorEnable ? GenericObjectDescriptorSerializer.getInstance() : GenericObjectSerializer
+                .getInstance();
         }
 
         if (GenericArray.class == cl) {
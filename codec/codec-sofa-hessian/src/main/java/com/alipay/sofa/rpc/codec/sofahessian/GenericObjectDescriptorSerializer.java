@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.codec.sofahessian;
+
+import com.alipay.hessian.generic.model.GenericObject;
+import com.caucho.hessian.io.AbstractHessianOutput;
+import com.caucho.hessian.io.AbstractSerializer;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 按类型缓存字段布局的 {@link GenericObject} 序列化器。
+ * <p>
+ * 输出和 {@link com.alipay.hessian.generic.io.GenericObjectSerializer} 一致，但不再为每个对象构造字段数组、
+ * 逐个字段按类型查找字段序列化器并按字段名回查字段值。只在一次输出中第一次写某类型（写类定义）时校验缓存的布局，
+ * 字段变化时刷新布局；之后同类型的对象不再比较字段名，直接按顺序写出字段值。
+ *
+ * @since 5.7.9
+ */
+public class GenericObjectDescriptorSerializer extends AbstractSerializer {
+
+    private static final GenericObjectDescriptorSerializer INSTANCE    = new GenericObjectDescriptorSerializer();
+
+    /**
+     * 类型 --> 字段布局
+     */
+    private static final ConcurrentMap<String, String[]>   DESCRIPTORS = new ConcurrentHashMap<String, String[]>();
+
+    public static GenericObjectDescriptorSerializer getInstance() {
+        return INSTANCE;
+    }
+
+    private GenericObjectDescriptorSerializer() {
+    }
+
+    /**
+     * 类型缓存的字段布局
+     *
+     * @param type 类型
+     * @return 字段名，没有缓存时为null
+     */
+    public static String[] getFieldNames(String type) {
+        return DESCRIPTORS.get(type);
+    }
+
+    @Override
+    public void writeObject(Object obj, AbstractHessianOutput out) throws IOException {
+        if (!(obj instanceof GenericObject)) {
+            throw new RuntimeException("the object must be a generic object");
+        }
+        if (out.addRef(obj)) {
+            return;
+        }
+        GenericObject genericObject = (GenericObject) obj;
+        String type = genericObject.getType();
+        // GenericObject 的字段是有序的 TreeMap，按布局顺序遍历即可得到字段值
+        Map<String, Object> fields = genericObject.getFields();
+        int ref = out.writeObjectBegin(type);
+        if (ref == -1) {
+            // 本次输出第一次写该类型，只在写类定义时按字段名校验一次布局，之后的对象直接复用这份类定义
+            String[] fieldNames = getDescriptor(type, fields.keySet());
+            out.writeClassFieldLength(fieldNames.length);
+            for (String fieldName : fieldNames) {
+                out.writeString(fieldName);
+            }
+            out.writeObjectBegin(type);
+        }
+        for (Object value : fields.values()) {
+            writeField(value, out);
+        }
+    }
+
+    private String[] getDescriptor(String type, Set<String> names) {
+        String[] fieldNames = DESCRIPTORS.get(type);
+        if (fieldNames == null || !matches(fieldNames, names)) {
+            fieldNames = names.toArray(new String[names.size()]);
+            DESCRIPTORS.put(type, fieldNames);
+        }
+        return fieldNames;
+    }
+
+    private boolean matches(String[] fieldNames, Set<String> names) {
+        if (fieldNames.length != names.size()) {
+            return false;
+        }
+        Iterator<String> it = names.iterator();
+        for (String fieldName : fieldNames) {
+            if (!fieldName.equals(it.next())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeField(Object value, AbstractHessianOutput out) throws IOException {
+        if (value instanceof String) {
+            out.writeString((String) value);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            out.writeInt(((Number) value).intValue());
+        } else if (value instanceof Long) {
+            out.writeLong((Long) value);
+        } else if (value instanceof Double || value instanceof Float) {
+            out.writeDouble(((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            out.writeBoolean((Boolean) value);
+        } else {
+            out.writeObject(value);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.codec.sofahessian;
+
+import com.alipay.sofa.rpc.common.RpcConfigs;
+import com.alipay.sofa.rpc.common.RpcOptions;
+import com.caucho.hessian.io.Hessian2Input;
+import com.caucho.hessian.io.Hessian2Output;
+import com.caucho.hessian.io.SerializerFactory;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Thread bound Hessian2Output and Hessian2Input. If the bound one is in use (nested serialization) or reuse is
+ * disabled, a new instance is created as before.
+ */
+public class HessianContextHolder {
+
+    private static final boolean                           REUSE_ENABLE = RpcConfigs
+                                                                            .getOrDefaultValue(
+                                                                                RpcOptions.SERIALIZE_HESSIAN_REUSE_ENABLE,
+                                                                                true);
+
+    private static final ThreadLocal<HessianContextHolder> HOLDER       = new ThreadLocal<HessianContextHolder>() {
+                                                                            @Override
+                                                                            protected HessianContextHolder initialValue() {
+                                                                                return new HessianContextHolder();
+                                                                            }
+                                                                        };
+
+    private ReusableHessian2Output                         output;
+
+    private boolean                                        outputInUse;
+
+    private ReusableHessian2Input                          input;
+
+    private boolean                                        inputInUse;
+
+    /**
+     * 获取绑定到输出流的 Hessian2Output，用完必须调用 {@link #releaseOutput(Hessian2Output)}
+     *
+     * @param os                输出流
+     * @param serializerFactory 序列化工厂
+     * @return Hessian2Output
+     */
+    public static Hessian2Output acquireOutput(OutputStream os, SerializerFactory serializerFactory) {
+        Hessian2Output output;
+        HessianContextHolder holder = REUSE_ENABLE && ReusableHessian2Output.isSupported() ? HOLDER.get() : null;
+        if (holder != null && !holder.outputInUse) {
+            if (holder.output == null) {
+                holder.output = new ReusableHessian2Output();
+            }
+            holder.output.init(os);
+            holder.outputInUse = true;
+            output = holder.output;
+        } else {
+            output = new Hessian2Output(os);
+        }
+        output.setSerializerFactory(serializerFactory);
+        return output;
+    }
+
+    /**
+     * 归还 Hessian2Output，没有正常 close 的不再复用
+     *
+     * @param output Hessian2Output
+     */
+    public static void releaseOutput(Hessian2Output output) {
+        if (!(output instanceof ReusableHessian2Output)) {
+            return;
+        }
+        HessianContextHolder holder = HOLDER.get();
+        if (holder.output == output) {
+            holder.outputInUse = false;
+            if (!((ReusableHessian2Output) output).isClosed()) {
+                holder.output = null;
+            }
+        }
+    }
+
+    /**
+     * 获取绑定到输入流的 Hessian2Input，用完必须调用 {@link #releaseInput(Hessian2Input)}
+     *
+     * @param is                输入流
+     * @param serializerFactory 序列化工厂
+     * @return Hessian2Input
+     */
+    public static Hessian2Input acquireInput(InputStream is, SerializerFactory serializerFactory) {
+        Hessian2Input input;
+        HessianContextHolder holder = REUSE_ENABLE ? HOLDER.get() : null;
+        if (holder != null && !holder.inputInUse) {
+            if (holder.input == null) {
+                holder.input = new ReusableHessian2Input();
+            }
+            holder.input.init(is);
+            holder.inputInUse = true;
+            input = holder.input;
+        } else {
+            input = new Hessian2Input(is);
+        }
+        input.setSerializerFactory(serializerFactory);
+        return input;
+    }
+
+    /**
+     * 归还 Hessian2Input，没有读完的不再复用
+     *
+     * @param input Hessian2Input
+     */
+    public static void releaseInput(Hessian2Input input) {
+        if (!(input instanceof ReusableHessian2Input)) {
+            return;
+        }
+        HessianContextHolder holder = HOLDER.get();
+        if (holder.input == input) {
+            holder.inputInUse = false;
+            if (!((ReusableHessian2Input) input).isDrained()) {
+                holder.input = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.codec.sofahessian;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Moving average of recent serialized sizes, used as the initial capacity of the output buffer so that it does not
+ * grow by doubling from 32 bytes for every call. Requests are keyed by service unique name and method, responses by
+ * the class of the app response.
+ */
+public class PayloadSizeEstimator {
+
+    /**
+     * 没有统计数据时的初始大小，和 UnsafeByteArrayOutputStream 默认值一致
+     */
+    static final int                                                          MIN_SIZE       = 32;
+
+    /**
+     * 预估值上限，偶尔的大包不会让后续请求都分配大数组
+     */
+    static final int                                                          MAX_SIZE       = 1024 * 1024;
+
+    /**
+     * 最多统计的方法数量，超过后新的方法使用初始大小
+     */
+    static final int                                                          MAX_KEYS       = 4096;
+
+    /**
+     * 服务唯一名 -> 方法名 -> 平均大小，两级 map 避免每次调用拼接 key
+     */
+    private final ConcurrentMap<String, ConcurrentMap<String, AtomicInteger>> methodAverages = new ConcurrentHashMap<String, ConcurrentMap<String, AtomicInteger>>();
+
+    /**
+     * 已统计的方法数量
+     */
+    private final AtomicInteger                                               methodCount    = new AtomicInteger();
+
+    /**
+     * 类 -> 平均大小，数据挂在类上，不会阻止类被卸载
+     */
+    private final ClassValue<AtomicInteger>                                   classAverages  = new ClassValue<AtomicInteger>() {
+                                                                                                 @Override
+                                                                                                 protected AtomicInteger computeValue(Class<?> type) {
+                                                                                                     return new AtomicInteger();
+                                                                                                 }
+                                                                                             };
+
+    /**
+     * 预估请求的序列化大小
+     *
+     * @param service 服务唯一名
+     * @param method  方法名
+     * @return 预估大小
+     */
+    public int estimate(String service, String method) {
+        if (service == null || method == null) {
+            return MIN_SIZE;
+        }
+        ConcurrentMap<String, AtomicInteger> methods = methodAverages.get(service);
+        return estimate(methods == null ? null : methods.get(method));
+    }
+
+    /**
+     * 记录一次请求序列化的实际大小
+     *
+     * @param service 服务唯一名
+     * @param method  方法名
+     * @param size    实际大小
+     */
+    public void record(String service, String method, int size) {
+        if (service == null || method == null) {
+            return;
+        }
+        ConcurrentMap<String, AtomicInteger> methods = methodAverages.get(service);
+        AtomicInteger average = methods == null ? null : methods.get(method);
+        if (average == null) {
+            if (methodCount.get() >= MAX_KEYS) {
+                return;
+            }
+            if (methods == null) {
+                ConcurrentMap<String, AtomicInteger> old = methodAverages.putIfAbsent(service,
+                    methods = new ConcurrentHashMap<String, AtomicInteger>());
+                if (old != null) {
+                    methods = old;
+                }
+            }
+            AtomicInteger old = methods.putIfAbsent(method, average = new AtomicInteger());
+            if (old != null) {
+                average = old;
+            } else {
+                methodCount.incrementAndGet();
+            }
+        }
+        record(average, size);
+    }
+
+    /**
+     * 预估对象的序列化大小
+     *
+     * @param type 对象的类
+     * @return 预估大小
+     */
+    public int estimate(Class<?> type) {
+        return type == null ? MIN_SIZE : estimate(classAverages.get(type));
+    }
+
+    /**
+     * 记录一次对象序列化的实际大小
+     *
+     * @param type 对象的类
+     * @param size 实际大小
+     */
+    public void record(Class<?> type, int size) {
+        if (type != null) {
+            record(classAverages.get(type), size);
+        }
+    }
+
+    private static int estimate(AtomicInteger average) {
+        int value = average == null ? 0 : average.get();
+        if (value <= 0) {
+            return MIN_SIZE;
+        }
+        // 留出 1/4 的余量，避免刚好差一点又要扩容
+        return Math.max(MIN_SIZE, Math.min(MAX_SIZE, value + (value >> 2)));
+    }
+
+    private static void record(AtomicInteger average, int size) {
+        int value = average.get();
+        if (value <= 0) {
+            // 第一个样本
+            average.lazySet(size);
+            return;
+        }
+        // 指数移动平均，权重 1/8，并发更新时丢失个别样本没有影响
+        average.lazySet(value + ((size - value) >> 3));
+    }
+}
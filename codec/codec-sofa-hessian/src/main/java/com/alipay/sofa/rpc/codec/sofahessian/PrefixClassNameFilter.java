@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.codec.sofahessian;
+
+import com.alipay.hessian.ClassNameFilter;
+import com.alipay.sofa.rpc.common.cache.ClassResolver;
+
+import java.io.IOException;
+
+/**
+ * Class name filter of hessian, checks class names with the allow/deny prefix tries of {@link ClassResolver}
+ * instead of caching every checked class name.
+ *
+ * @since 5.7.9
+ */
+public class PrefixClassNameFilter implements ClassNameFilter {
+
+    private final ClassResolver classResolver;
+
+    public PrefixClassNameFilter(ClassResolver classResolver) {
+        this.classResolver = classResolver;
+    }
+
+    @Override
+    public int order() {
+        return 0;
+    }
+
+    @Override
+    public String resolve(String className) throws IOException {
+        if (!classResolver.isAllowed(className)) {
+            if (classResolver.isInDenyList(className)) {
+                throw new IOException("Class " + className + " is in blacklist. ");
+            }
+            throw new IOException("Class " + className + " is not in allow list. ");
+        }
+        return className;
+    }
+}
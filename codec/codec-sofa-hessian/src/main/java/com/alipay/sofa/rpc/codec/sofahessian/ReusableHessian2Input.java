@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.codec.sofahessian;
+
+import com.caucho.hessian.io.Hessian2Input;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Hessian2Input which can be reused by one thread. It reads from a switchable stream, and the references, class
+ * definitions and types of last message are cleared before each use.
+ */
+public class ReusableHessian2Input extends Hessian2Input {
+
+    private final SwitchableInputStream stream;
+
+    public ReusableHessian2Input() {
+        this(new SwitchableInputStream());
+    }
+
+    private ReusableHessian2Input(SwitchableInputStream stream) {
+        super(stream);
+        this.stream = stream;
+    }
+
+    /**
+     * 绑定新的输入流，并清理上次反序列化留下的引用
+     *
+     * @param is 输入流
+     */
+    public void init(InputStream is) {
+        resetReferences();
+        if (_classDefs != null) {
+            _classDefs.clear();
+        }
+        if (_types != null) {
+            _types.clear();
+        }
+        stream.delegate = is;
+    }
+
+    /**
+     * 数据是否已经全部读完，有剩余数据时不能再复用，否则会被下一次反序列化读到
+     *
+     * @return 可以复用返回 true
+     */
+    public boolean isDrained() {
+        try {
+            return read() == -1;
+        } catch (IOException e) {
+            return false;
+        } finally {
+            stream.delegate = null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        // 父类会把输入流置空，这里只解除绑定
+        stream.delegate = null;
+    }
+
+    private static class SwitchableInputStream extends InputStream {
+
+        private InputStream delegate;
+
+        @Override
+        public int read() throws IOException {
+            return delegate == null ? -1 : delegate.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return delegate == null ? -1 : delegate.read(b, off, len);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return delegate == null ? 0 : delegate.available();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.codec.sofahessian;
+
+import com.caucho.hessian.io.Hessian2Output;
+
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.util.Map;
+
+/**
+ * Hessian2Output which can be reused by one thread. Every message must carry its own class definitions, so the
+ * class and type references are cleared before each use, while the 1K write buffer and the reference map are kept.
+ */
+public class ReusableHessian2Output extends Hessian2Output {
+
+    /**
+     * hessian 3.x 没有提供重置类定义的方法，只能反射清理；找不到字段时不复用
+     */
+    private static final Field CLASS_REFS_FIELD = getField("_classRefs");
+
+    private static final Field TYPE_REFS_FIELD  = getField("_typeRefs");
+
+    public ReusableHessian2Output() {
+        super(null);
+    }
+
+    /**
+     * 当前 hessian 版本是否支持复用
+     *
+     * @return 支持返回 true
+     */
+    public static boolean isSupported() {
+        return CLASS_REFS_FIELD != null && TYPE_REFS_FIELD != null;
+    }
+
+    /**
+     * 绑定新的输出流，并清理上次序列化留下的引用
+     *
+     * @param os 输出流
+     */
+    public void init(OutputStream os) {
+        resetReferences();
+        clear(CLASS_REFS_FIELD);
+        clear(TYPE_REFS_FIELD);
+        this._os = os;
+    }
+
+    /**
+     * 上次序列化是否正常结束，close 之后缓冲区已经写空，否则不能再复用
+     *
+     * @return 可以复用返回 true
+     */
+    public boolean isClosed() {
+        return _os == null;
+    }
+
+    private void clear(Field field) {
+        try {
+            Map map = (Map) field.get(this);
+            if (map != null) {
+                map.clear();
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Field getField(String name) {
+        try {
+            Field field = Hessian2Output.class.getDeclaredField(name);
+            if (!Map.class.isAssignableFrom(field.getType())) {
+                return null;
+            }
+            field.setAccessible(true);
+            return field;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
@@ -16,6 +16,7 @@
  */
 package com.alipay.sofa.rpc.codec.sofahessian;
 
+import com.alipay.sofa.rpc.common.cache.ClassResolver;
 import com.alipay.sofa.rpc.common.utils.StringUtils;
 import com.alipay.sofa.rpc.log.LogCodes;
 import com.alipay.sofa.rpc.log.Logger;
@@ -72,15 +73,15 @@ public class SingleClassLoaderSofaSerializerFactory extends SerializerFactory {
         } else {
             try {
                 ClassLoader appClassLoader = Thread.currentThread().getContextClassLoader();
-                Class<?> cl = Class.forName(type, true, appClassLoader);
-                deserializer = getDeserializer(cl);
-            } catch (Exception e) {
-                if (e instanceof ClassNotFoundException) {
-                    LOGGER.errorWithApp(null, LogCodes.getLog(LogCodes.ERROR_DECODE_CLASS_NOT_FOUND,
-                        getClass().getName(), type, Thread.currentThread().getContextClassLoader()));
+                Class<?> cl = ClassResolver.getInstance().resolve(type, appClassLoader);
+                if (cl != null) {
+                    deserializer = getDeserializer(cl);
                 } else {
-                    LOGGER.errorWithApp(null, e.toString(), e);
+                    LOGGER.errorWithApp(null, LogCodes.getLog(LogCodes.ERROR_DECODE_CLASS_NOT_FOUND,
+                        getClass().getName(), type, appClassLoader));
                 }
+            } catch (Exception e) {
+                LOGGER.errorWithApp(null, e.toString(), e);
             }
         }
 
@@ -17,7 +17,6 @@
 package com.alipay.sofa.rpc.codec.sofahessian;
 
 import com.alipay.hessian.ClassNameResolver;
-import com.alipay.hessian.NameBlackListFilter;
 import com.alipay.sofa.rpc.codec.AbstractSerializer;
 import com.alipay.sofa.rpc.codec.sofahessian.serialize.CustomHessianSerializer;
 import com.alipay.sofa.rpc.codec.sofahessian.serialize.SofaRequestHessianSerializer;
@@ -26,7 +25,7 @@ import com.alipay.sofa.rpc.common.RpcConfigs;
 import com.alipay.sofa.rpc.common.RpcOptions;
 import com.alipay.sofa.rpc.common.SofaConfigs;
 import com.alipay.sofa.rpc.common.SofaOptions;
-import com.alipay.sofa.rpc.common.struct.UnsafeByteArrayInputStream;
+import com.alipay.sofa.rpc.common.cache.ClassResolver;
 import com.alipay.sofa.rpc.common.struct.UnsafeByteArrayOutputStream;
 import com.alipay.sofa.rpc.common.utils.ClassUtils;
 import com.alipay.sofa.rpc.core.exception.SofaRpcException;
@@ -42,6 +41,7 @@ import com.caucho.hessian.io.Hessian2Output;
 import com.caucho.hessian.io.SerializerFactory;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.Map;
 
 /**
@@ -65,15 +65,19 @@ import java.util.Map;
 public class SofaHessianSerializer extends AbstractSerializer {
 
     /** Logger for SofaHessianSerializer **/
-    private static final Logger LOGGER = LoggerFactory.getLogger(SofaHessianSerializer.class);
+    private static final Logger          LOGGER        = LoggerFactory.getLogger(SofaHessianSerializer.class);
     /**
      * Normal Serializer Factory
      */
-    protected SerializerFactory serializerFactory;
+    protected SerializerFactory          serializerFactory;
     /**
      * Generic Serializer Factory
      */
-    protected SerializerFactory genericSerializerFactory;
+    protected SerializerFactory          genericSerializerFactory;
+    /**
+     * Estimate the initial size of output buffer
+     */
+    protected final PayloadSizeEstimator sizeEstimator = new PayloadSizeEstimator();
 
     /**
      * Instantiates a new Sofa hessian serializer.
@@ -92,10 +96,15 @@ public class SofaHessianSerializer extends AbstractSerializer {
         boolean enableMultipleClassLoader = RpcConfigs.getBooleanValue(RpcOptions.MULTIPLE_CLASSLOADER_ENABLE);
         serializerFactory = getSerializerFactory(enableMultipleClassLoader, false);
         genericSerializerFactory = getSerializerFactory(enableMultipleClassLoader, true);
-        if (RpcConfigs.getBooleanValue(RpcOptions.SERIALIZE_BLACKLIST_ENABLE) &&
-            SofaConfigs.getBooleanValue(SofaOptions.CONFIG_SERIALIZE_BLACKLIST, true)) {
+        ClassResolver classResolver = ClassResolver.getInstance();
+        boolean blacklistEnable = RpcConfigs.getBooleanValue(RpcOptions.SERIALIZE_BLACKLIST_ENABLE) &&
+            SofaConfigs.getBooleanValue(SofaOptions.CONFIG_SERIALIZE_BLACKLIST, true);
+        classResolver.setDenyList(blacklistEnable ? BlackListFileLoader.SOFA_SERIALIZE_BLACK_LIST : Collections
+            .<String> emptyList());
+        // 黑名单关闭时，配置了允许列表也需要过滤
+        if (blacklistEnable || classResolver.hasAllowList()) {
             ClassNameResolver resolver = new ClassNameResolver();
-            resolver.addFilter(new NameBlackListFilter(BlackListFileLoader.SOFA_SERIALIZE_BLACK_LIST, 8192));
+            resolver.addFilter(new PrefixClassNameFilter(classResolver));
             serializerFactory.setClassNameResolver(resolver);
             genericSerializerFactory.setClassNameResolver(resolver);
         } else {
@@ -132,15 +141,18 @@ public class SofaHessianSerializer extends AbstractSerializer {
         if (serializer != null) {
             return serializer.encodeObject(object, context);
         } else {
-            UnsafeByteArrayOutputStream byteArray = new UnsafeByteArrayOutputStream();
-            Hessian2Output output = new Hessian2Output(byteArray);
+            Class key = object == null ? null : object.getClass();
+            UnsafeByteArrayOutputStream byteArray = new UnsafeByteArrayOutputStream(sizeEstimator.estimate(key));
+            Hessian2Output output = HessianContextHolder.acquireOutput(byteArray, serializerFactory);
             try {
-                output.setSerializerFactory(serializerFactory);
                 output.writeObject(object);
                 output.close();
+                sizeEstimator.record(key, byteArray.size());
                 return new ByteStreamWrapperByteBuf(byteArray);
             } catch (Exception e) {
                 throw buildSerializeError(e.getMessage(), e);
+            } finally {
+                HessianContextHolder.releaseOutput(output);
             }
 
         }
@@ -155,15 +167,15 @@ public class SofaHessianSerializer extends AbstractSerializer {
             if (serializer != null) {
                 return serializer.decodeObject(data, context);
             } else {
+                Hessian2Input input = HessianContextHolder.acquireInput(data.inputStream(), serializerFactory);
                 try {
-                    UnsafeByteArrayInputStream inputStream = new UnsafeByteArrayInputStream(data.array());
-                    Hessian2Input input = new Hessian2Input(inputStream);
-                    input.setSerializerFactory(serializerFactory);
                     Object object = input.readObject();
                     input.close();
                     return object;
                 } catch (IOException e) {
                     throw buildDeserializeError(e.getMessage(), e);
+                } finally {
+                    HessianContextHolder.releaseInput(input);
                 }
             }
         }
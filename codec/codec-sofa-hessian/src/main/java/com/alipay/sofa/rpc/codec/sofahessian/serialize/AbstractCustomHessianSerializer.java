@@ -16,6 +16,7 @@
  */
 package com.alipay.sofa.rpc.codec.sofahessian.serialize;
 
+import com.alipay.sofa.rpc.codec.sofahessian.PayloadSizeEstimator;
 import com.alipay.sofa.rpc.common.RemotingConstants;
 import com.alipay.sofa.rpc.context.RpcInternalContext;
 import com.alipay.sofa.rpc.core.exception.RpcErrorType;
@@ -31,11 +32,15 @@ public abstract class AbstractCustomHessianSerializer<T> implements CustomHessia
     /**
      * Normal Serializer Factory
      */
-    protected SerializerFactory serializerFactory;
+    protected SerializerFactory          serializerFactory;
     /**
      * Generic Serializer Factory
      */
-    protected SerializerFactory genericSerializerFactory;
+    protected SerializerFactory          genericSerializerFactory;
+    /**
+     * Estimate the initial size of output buffer
+     */
+    protected final PayloadSizeEstimator sizeEstimator = new PayloadSizeEstimator();
 
     public AbstractCustomHessianSerializer(SerializerFactory serializerFactory,
                                            SerializerFactory genericSerializerFactory) {
@@ -16,8 +16,8 @@
  */
 package com.alipay.sofa.rpc.codec.sofahessian.serialize;
 
+import com.alipay.sofa.rpc.codec.sofahessian.HessianContextHolder;
 import com.alipay.sofa.rpc.common.RemotingConstants;
-import com.alipay.sofa.rpc.common.struct.UnsafeByteArrayInputStream;
 import com.alipay.sofa.rpc.common.struct.UnsafeByteArrayOutputStream;
 import com.alipay.sofa.rpc.common.utils.ClassTypeUtils;
 import com.alipay.sofa.rpc.config.ConfigUniqueNameGenerator;
@@ -45,10 +45,8 @@ public class SofaRequestHessianSerializer extends AbstractCustomHessianSerialize
     @Override
     public void decodeObjectByTemplate(AbstractByteBuf data, Map<String, String> context, SofaRequest template)
         throws SofaRpcException {
+        Hessian2Input input = HessianContextHolder.acquireInput(data.inputStream(), serializerFactory);
         try {
-            UnsafeByteArrayInputStream inputStream = new UnsafeByteArrayInputStream(data.array());
-            Hessian2Input input = new Hessian2Input(inputStream);
-            input.setSerializerFactory(serializerFactory);
             Object object = input.readObject();
             SofaRequest tmp = (SofaRequest) object;
             String targetServiceName = tmp.getTargetServiceUniqueName();
@@ -76,15 +74,15 @@ public class SofaRequestHessianSerializer extends AbstractCustomHessianSerialize
             input.close();
         } catch (IOException e) {
             throw buildDeserializeError(e.getMessage(), e);
+        } finally {
+            HessianContextHolder.releaseInput(input);
         }
     }
 
     @Override
     public SofaRequest decodeObject(AbstractByteBuf data, Map<String, String> context) throws SofaRpcException {
+        Hessian2Input input = HessianContextHolder.acquireInput(data.inputStream(), serializerFactory);
         try {
-            UnsafeByteArrayInputStream inputStream = new UnsafeByteArrayInputStream(data.array());
-            Hessian2Input input = new Hessian2Input(inputStream);
-            input.setSerializerFactory(serializerFactory);
             Object object = input.readObject();
             SofaRequest sofaRequest = (SofaRequest) object;
             String targetServiceName = sofaRequest.getTargetServiceUniqueName();
@@ -106,24 +104,23 @@ public class SofaRequestHessianSerializer extends AbstractCustomHessianSerialize
             return sofaRequest;
         } catch (IOException e) {
             throw buildDeserializeError(e.getMessage(), e);
+        } finally {
+            HessianContextHolder.releaseInput(input);
         }
     }
 
     @Override
     public AbstractByteBuf encodeObject(SofaRequest sofaRequest, Map<String, String> context) {
+        String serviceName = sofaRequest.getTargetServiceUniqueName();
+        String methodName = sofaRequest.getMethodName();
+        UnsafeByteArrayOutputStream outputStream = new UnsafeByteArrayOutputStream(
+            sizeEstimator.estimate(serviceName, methodName));
+        // 根据SerializeType信息决定序列化器
+        boolean genericSerialize = context != null &&
+            isGenericRequest(context.get(RemotingConstants.HEAD_GENERIC_TYPE));
+        Hessian2Output output = HessianContextHolder.acquireOutput(outputStream,
+            genericSerialize ? genericSerializerFactory : serializerFactory);
         try {
-            UnsafeByteArrayOutputStream outputStream = new UnsafeByteArrayOutputStream();
-            Hessian2Output output = new Hessian2Output(outputStream);
-
-            // 根据SerializeType信息决定序列化器
-            boolean genericSerialize = context != null &&
-                isGenericRequest(context.get(RemotingConstants.HEAD_GENERIC_TYPE));
-            if (genericSerialize) {
-                output.setSerializerFactory(genericSerializerFactory);
-            } else {
-                output.setSerializerFactory(serializerFactory);
-            }
-
             output.writeObject(sofaRequest);
             final Object[] args = sofaRequest.getMethodArgs();
             if (args != null) {
@@ -132,10 +129,13 @@ public class SofaRequestHessianSerializer extends AbstractCustomHessianSerialize
                 }
             }
             output.close();
+            sizeEstimator.record(serviceName, methodName, outputStream.size());
 
             return new ByteStreamWrapperByteBuf(outputStream);
         } catch (IOException e) {
             throw buildSerializeError(e.getMessage(), e);
+        } finally {
+            HessianContextHolder.releaseOutput(output);
         }
     }
 }
\ No newline at end of file
@@ -17,8 +17,8 @@
 package com.alipay.sofa.rpc.codec.sofahessian.serialize;
 
 import com.alipay.hessian.generic.model.GenericObject;
+import com.alipay.sofa.rpc.codec.sofahessian.HessianContextHolder;
 import com.alipay.sofa.rpc.common.RemotingConstants;
-import com.alipay.sofa.rpc.common.struct.UnsafeByteArrayInputStream;
 import com.alipay.sofa.rpc.common.struct.UnsafeByteArrayOutputStream;
 import com.alipay.sofa.rpc.core.exception.SofaRpcException;
 import com.alipay.sofa.rpc.core.response.SofaResponse;
@@ -44,9 +44,8 @@ public class SofaResponseHessianSerializer extends AbstractCustomHessianSerializ
     @Override
     public void decodeObjectByTemplate(AbstractByteBuf data, Map<String, String> context, SofaResponse template)
         throws SofaRpcException {
+        Hessian2Input input = HessianContextHolder.acquireInput(data.inputStream(), serializerFactory);
         try {
-            UnsafeByteArrayInputStream inputStream = new UnsafeByteArrayInputStream(data.array());
-            Hessian2Input input = new Hessian2Input(inputStream);
             // 根据SerializeType信息决定序列化器
             boolean genericSerialize = context != null && isGenericResponse(
                 context.get(RemotingConstants.HEAD_GENERIC_TYPE));
@@ -67,14 +66,15 @@ public class SofaResponseHessianSerializer extends AbstractCustomHessianSerializ
             input.close();
         } catch (IOException e) {
             throw buildDeserializeError(e.getMessage(), e);
+        } finally {
+            HessianContextHolder.releaseInput(input);
         }
     }
 
     @Override
     public SofaResponse decodeObject(AbstractByteBuf data, Map<String, String> context) throws SofaRpcException {
+        Hessian2Input input = HessianContextHolder.acquireInput(data.inputStream(), serializerFactory);
         try {
-            UnsafeByteArrayInputStream inputStream = new UnsafeByteArrayInputStream(data.array());
-            Hessian2Input input = new Hessian2Input(inputStream);
             // 根据SerializeType信息决定序列化器
             Object object;
             boolean genericSerialize = context != null && isGenericResponse(
@@ -95,20 +95,26 @@ public class SofaResponseHessianSerializer extends AbstractCustomHessianSerializ
             return (SofaResponse) object;
         } catch (IOException e) {
             throw buildDeserializeError(e.getMessage(), e);
+        } finally {
+            HessianContextHolder.releaseInput(input);
         }
     }
 
     @Override
     public AbstractByteBuf encodeObject(SofaResponse sofaResponse, Map<String, String> context) {
+        Object appResponse = sofaResponse.getAppResponse();
+        Class key = appResponse == null ? null : appResponse.getClass();
+        UnsafeByteArrayOutputStream byteArray = new UnsafeByteArrayOutputStream(sizeEstimator.estimate(key));
+        Hessian2Output output = HessianContextHolder.acquireOutput(byteArray, serializerFactory);
         try {
-            UnsafeByteArrayOutputStream byteArray = new UnsafeByteArrayOutputStream();
-            Hessian2Output output = new Hessian2Output(byteArray);
-            output.setSerializerFactory(serializerFactory);
             output.writeObject(sofaResponse);
             output.close();
+            sizeEstimator.record(key, byteArray.size());
             return new ByteStreamWrapperByteBuf(byteArray);
         } catch (IOException e) {
             throw buildSerializeError(e.getMessage(), e);
+        } finally {
+            HessianContextHolder.releaseOutput(output);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.codec.sofahessian;
+
+import com.alipay.hessian.generic.io.GenericObjectSerializer;
+import com.alipay.hessian.generic.model.GenericObject;
+import com.caucho.hessian.io.Hessian2Input;
+import com.caucho.hessian.io.Hessian2Output;
+import com.caucho.hessian.io.Serializer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+public class GenericObjectDescriptorSerializerTest {
+
+    private static final String TYPE = "com.alipay.sofa.rpc.codec.sofahessian.NotExistGenericBean";
+
+    @Test
+    public void testSameBytesAsGenericObjectSerializer() throws IOException {
+        GenericObject first = newObject("a", 1);
+        GenericObject second = newObject("b", 2);
+
+        byte[] expected = write(GenericObjectSerializer.getInstance(), first, second);
+        byte[] actual = write(GenericObjectDescriptorSerializer.getInstance(), first, second);
+        Assert.assertArrayEquals(expected, actual);
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        GenericObject origin = newObject("abc", 10);
+        origin.putField("flag", true);
+        origin.putField("score", 1.5d);
+        origin.putField("count", 100L);
+        origin.putField("none", null);
+        GenericObject inner = new GenericObject(TYPE + "Inner");
+        inner.putField("name", "inner");
+        origin.putField("inner", inner);
+
+        byte[] bytes = write(GenericObjectDescriptorSerializer.getInstance(), origin);
+        Hessian2Input input = new Hessian2Input(new ByteArrayInputStream(bytes));
+        input.setSerializerFactory(new GenericSingleClassLoaderSofaSerializerFactory());
+        GenericObject result = (GenericObject) input.readObject();
+
+        Assert.assertEquals(TYPE, result.getType());
+        Assert.assertEquals("abc", result.getField("name"));
+        Assert.assertEquals(10, result.getField("age"));
+        Assert.assertEquals(true, result.getField("flag"));
+        Assert.assertEquals(1.5d, result.getField("score"));
+        Assert.assertEquals(100L, result.getField("count"));
+        Assert.assertNull(result.getField("none"));
+        Assert.assertEquals("inner", ((GenericObject) result.getField("inner")).getField("name"));
+    }
+
+    @Test
+    public void testRefreshDescriptor() throws IOException {
+        write(GenericObjectDescriptorSerializer.getInstance(), newObject("a", 1));
+        Assert.assertEquals(Arrays.asList("age", "name"),
+            Arrays.asList(GenericObjectDescriptorSerializer.getFieldNames(TYPE)));
+
+        GenericObject changed = newObject("a", 1);
+        changed.putField("email", "a@b.c");
+        write(GenericObjectDescriptorSerializer.getInstance(), changed);
+        Assert.assertEquals(Arrays.asList("age", "email", "name"),
+            Arrays.asList(GenericObjectDescriptorSerializer.getFieldNames(TYPE)));
+    }
+
+    @Test
+    public void testDifferentFieldsInSameStream() throws IOException {
+        GenericObject first = newObject("a", 1);
+        GenericObject fewer = new GenericObject(TYPE);
+        fewer.putField("name", "b");
+        GenericObject more = newObject("c", 3);
+        more.putField("email", "c@d.e");
+
+        byte[] expected = write(GenericObjectSerializer.getInstance(), first, fewer, more);
+        byte[] actual = write(GenericObjectDescriptorSerializer.getInstance(), first, fewer, more);
+        Assert.assertArrayEquals(expected, actual);
+    }
+
+    private GenericObject newObject(String name, int age) {
+        GenericObject genericObject = new GenericObject(TYPE);
+        genericObject.putField("name", name);
+        genericObject.putField("age", age);
+        return genericObject;
+    }
+
+    private byte[] write(Serializer serializer, GenericObject... objects) throws IOException {
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        Hessian2Output output = new Hessian2Output(bout);
+        output.setSerializerFactory(new GenericSingleClassLoaderSofaSerializerFactory());
+        for (GenericObject object : objects) {
+            serializer.writeObject(object, output);
+        }
+        output.flush();
+        return bout.toByteArray();
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.codec.sofahessian;
+
+import com.alipay.hessian.generic.io.GenericObjectSerializer;
+import com.alipay.hessian.generic.model.GenericObject;
+import com.alipay.sofa.rpc.log.Logger;
+import com.alipay.sofa.rpc.log.LoggerFactory;
+import com.caucho.hessian.io.Hessian2Input;
+import com.caucho.hessian.io.Hessian2Output;
+import com.caucho.hessian.io.SerializerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * 对比普通调用和泛化调用（原字段序列化 / 缓存字段布局）的编解码耗时，直接运行 main 方法。
+ */
+public class GenericSerializeBenchmarkMain {
+
+    private static final Logger LOGGER     = LoggerFactory.getLogger(GenericSerializeBenchmarkMain.class);
+
+    private static final int    WARMUP     = 200000;
+
+    private static final int    ITERATIONS = 1000000;
+
+    public static void main(String[] args) throws IOException {
+        final TestGenericBean bean = new TestGenericBean().setName("benchmark").setAge(18);
+        final GenericObject genericObject = new GenericObject(TestGenericBean.class.getName());
+        genericObject.putField("name", "benchmark");
+        genericObject.putField("age", 18);
+
+        final SerializerFactory typedFactory = new SingleClassLoaderSofaSerializerFactory();
+        final SerializerFactory genericFactory = new GenericSingleClassLoaderSofaSerializerFactory();
+
+        for (int round = 0; round < 2; round++) {
+            int times = round == 0 ? WARMUP : ITERATIONS;
+            report("typed", times, new Codec() {
+                @Override
+                public void write(Hessian2Output output) throws IOException {
+                    output.writeObject(bean);
+                }
+            }, typedFactory);
+            report("generic", times, new Codec() {
+                @Override
+                public void write(Hessian2Output output) throws IOException {
+                    GenericObjectSerializer.getInstance().writeObject(genericObject, output);
+                }
+            }, genericFactory);
+            report("generic-descriptor", times, new Codec() {
+                @Override
+                public void write(Hessian2Output output) throws IOException {
+                    GenericObjectDescriptorSerializer.getInstance().writeObject(genericObject, output);
+                }
+            }, genericFactory);
+        }
+    }
+
+    private static void report(String name, int times, Codec codec, SerializerFactory factory) throws IOException {
+        ByteArrayOutputStream bout = new ByteArrayOutputStream(256);
+        long encode = 0;
+        long decode = 0;
+        for (int i = 0; i < times; i++) {
+            bout.reset();
+            long start = System.nanoTime();
+            Hessian2Output output = new Hessian2Output(bout);
+            output.setSerializerFactory(factory);
+            codec.write(output);
+            output.flush();
+            encode += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            Hessian2Input input = new Hessian2Input(new ByteArrayInputStream(bout.toByteArray()));
+            input.setSerializerFactory(factory);
+            input.readObject();
+            decode += System.nanoTime() - start;
+        }
+        if (times == ITERATIONS) {
+            LOGGER.info(String.format("%-20s encode: %6d ns/op, decode: %6d ns/op", name,
+                encode / times, decode / times));
+        }
+    }
+
+    private interface Codec {
+        void write(Hessian2Output output) throws IOException;
+    }
+}
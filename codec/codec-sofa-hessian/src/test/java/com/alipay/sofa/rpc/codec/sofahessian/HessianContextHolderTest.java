@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.codec.sofahessian;
+
+import com.alipay.sofa.rpc.common.struct.UnsafeByteArrayInputStream;
+import com.alipay.sofa.rpc.common.struct.UnsafeByteArrayOutputStream;
+import com.caucho.hessian.io.Hessian2Input;
+import com.caucho.hessian.io.Hessian2Output;
+import com.caucho.hessian.io.SerializerFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class HessianContextHolderTest {
+
+    private final SerializerFactory serializerFactory = new SingleClassLoaderSofaSerializerFactory();
+
+    @Test
+    public void testReuseOutput() throws Exception {
+        Assert.assertTrue(ReusableHessian2Output.isSupported());
+        byte[] first = write(new TestGenericBean().setName("a").setAge(1));
+        byte[] second = write(new TestGenericBean().setName("b").setAge(2));
+        // 复用的 output 每次都要带上类定义，可以被独立反序列化
+        Assert.assertEquals(first.length, second.length);
+        TestGenericBean bean = (TestGenericBean) read(second);
+        Assert.assertEquals("b", bean.getName());
+        Assert.assertEquals(2, bean.getAge());
+
+        Hessian2Output output = HessianContextHolder.acquireOutput(new UnsafeByteArrayOutputStream(),
+            serializerFactory);
+        // 嵌套使用时创建新的实例
+        Hessian2Output nested = HessianContextHolder.acquireOutput(new UnsafeByteArrayOutputStream(),
+            serializerFactory);
+        Assert.assertNotSame(output, nested);
+        Assert.assertFalse(nested instanceof ReusableHessian2Output);
+        HessianContextHolder.releaseOutput(nested);
+        // 没有正常关闭的不再复用
+        output.writeObject("xxx");
+        HessianContextHolder.releaseOutput(output);
+        Hessian2Output another = HessianContextHolder.acquireOutput(new UnsafeByteArrayOutputStream(),
+            serializerFactory);
+        Assert.assertNotSame(output, another);
+        another.close();
+        HessianContextHolder.releaseOutput(another);
+        Assert.assertSame(another, HessianContextHolder.acquireOutput(new UnsafeByteArrayOutputStream(),
+            serializerFactory));
+    }
+
+    @Test
+    public void testReuseInput() throws Exception {
+        byte[] data = write(new TestGenericBean().setName("a").setAge(1));
+        Hessian2Input input = HessianContextHolder.acquireInput(new UnsafeByteArrayInputStream(data),
+            serializerFactory);
+        Assert.assertEquals("a", ((TestGenericBean) input.readObject()).getName());
+        input.close();
+        HessianContextHolder.releaseInput(input);
+
+        Hessian2Input reused = HessianContextHolder.acquireInput(new UnsafeByteArrayInputStream(data),
+            serializerFactory);
+        Assert.assertSame(input, reused);
+        Assert.assertEquals("a", ((TestGenericBean) reused.readObject()).getName());
+        HessianContextHolder.releaseInput(reused);
+
+        // 有剩余数据的不再复用
+        byte[] twice = new byte[data.length * 2];
+        System.arraycopy(data, 0, twice, 0, data.length);
+        System.arraycopy(data, 0, twice, data.length, data.length);
+        input = HessianContextHolder.acquireInput(new UnsafeByteArrayInputStream(twice), serializerFactory);
+        Assert.assertEquals("a", ((TestGenericBean) input.readObject()).getName());
+        HessianContextHolder.releaseInput(input);
+        Assert.assertNotSame(input, HessianContextHolder.acquireInput(new UnsafeByteArrayInputStream(data),
+            serializerFactory));
+    }
+
+    @Test
+    public void testPayloadSizeEstimator() {
+        PayloadSizeEstimator estimator = new PayloadSizeEstimator();
+        Assert.assertEquals(PayloadSizeEstimator.MIN_SIZE, estimator.estimate("a.EchoService:1.0", "echo"));
+        estimator.record("a.EchoService:1.0", "echo", 1000);
+        Assert.assertEquals(1250, estimator.estimate("a.EchoService:1.0", "echo"));
+        for (int i = 0; i < 100; i++) {
+            estimator.record("a.EchoService:1.0", "echo", 200);
+        }
+        Assert.assertTrue(estimator.estimate("a.EchoService:1.0", "echo") < 300);
+        // 同名方法在不同服务里分开统计
+        Assert.assertEquals(PayloadSizeEstimator.MIN_SIZE, estimator.estimate("b.EchoService:1.0", "echo"));
+        estimator.record("a.EchoService:1.0", "big", Integer.MAX_VALUE >> 2);
+        Assert.assertEquals(PayloadSizeEstimator.MAX_SIZE, estimator.estimate("a.EchoService:1.0", "big"));
+        Assert.assertEquals(PayloadSizeEstimator.MIN_SIZE, estimator.estimate(null, "echo"));
+
+        Assert.assertEquals(PayloadSizeEstimator.MIN_SIZE, estimator.estimate(TestGenericBean.class));
+        estimator.record(TestGenericBean.class, 400);
+        Assert.assertEquals(500, estimator.estimate(TestGenericBean.class));
+        Assert.assertEquals(PayloadSizeEstimator.MIN_SIZE, estimator.estimate(String.class));
+        Assert.assertEquals(PayloadSizeEstimator.MIN_SIZE, estimator.estimate((Class) null));
+    }
+
+    private byte[] write(Object object) throws Exception {
+        UnsafeByteArrayOutputStream outputStream = new UnsafeByteArrayOutputStream();
+        Hessian2Output output = HessianContextHolder.acquireOutput(outputStream, serializerFactory);
+        try {
+            output.writeObject(object);
+            output.close();
+        } finally {
+            HessianContextHolder.releaseOutput(output);
+        }
+        return outputStream.toByteArray();
+    }
+
+    private Object read(byte[] data) throws Exception {
+        Hessian2Input input = new Hessian2Input(new UnsafeByteArrayInputStream(data));
+        input.setSerializerFactory(serializerFactory);
+        return input.readObject();
+    }
+}
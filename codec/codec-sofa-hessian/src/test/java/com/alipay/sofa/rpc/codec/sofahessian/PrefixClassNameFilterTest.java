@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.codec.sofahessian;
+
+import com.alipay.sofa.rpc.common.cache.ClassResolver;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class PrefixClassNameFilterTest {
+
+    @Test
+    public void testResolve() throws IOException {
+        ClassResolver classResolver = ClassResolver.getInstance();
+        classResolver.setDenyList(BlackListFileLoader.SOFA_SERIALIZE_BLACK_LIST);
+        PrefixClassNameFilter filter = new PrefixClassNameFilter(classResolver);
+
+        Assert.assertEquals("com.alipay.xx", filter.resolve("com.alipay.xx"));
+        long denied = classResolver.getDeniedCount();
+        try {
+            filter.resolve("com.sun.rowset.JdbcRowSetImpl");
+            Assert.fail();
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage().contains("com.sun.rowset.JdbcRowSetImpl"));
+            Assert.assertTrue(e.getMessage().contains("blacklist"));
+        }
+        Assert.assertEquals(denied + 1, classResolver.getDeniedCount());
+    }
+
+    @Test
+    public void testAllowList() throws IOException {
+        ClassResolver classResolver = ClassResolver.getInstance();
+        classResolver.setAllowList(Arrays.asList("com.alipay.", "java."));
+        try {
+            PrefixClassNameFilter filter = new PrefixClassNameFilter(classResolver);
+            Assert.assertEquals("com.alipay.xx", filter.resolve("com.alipay.xx"));
+            try {
+                filter.resolve("org.example.Dto");
+                Assert.fail();
+            } catch (IOException e) {
+                Assert.assertTrue(e.getMessage().contains("org.example.Dto"));
+                Assert.assertTrue(e.getMessage().contains("not in allow list"));
+            }
+        } finally {
+            classResolver.setAllowList(Collections.<String> emptyList());
+        }
+    }
+}
@@ -18,7 +18,10 @@ package com.alipay.sofa.rpc.codec.sofahessian;
 
 import com.alipay.hessian.generic.model.GenericObject;
 import com.alipay.sofa.rpc.common.RemotingConstants;
+import com.alipay.sofa.rpc.common.RpcConfigs;
 import com.alipay.sofa.rpc.common.RpcConstants;
+import com.alipay.sofa.rpc.common.RpcOptions;
+import com.alipay.sofa.rpc.common.cache.ClassResolver;
 import com.alipay.sofa.rpc.core.exception.SofaRpcException;
 import com.alipay.sofa.rpc.core.invoke.SofaResponseCallback;
 import com.alipay.sofa.rpc.core.request.RequestBase;
@@ -30,6 +33,7 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author <a href="mailto:zhanggeng.zg@antfin.com">GengZhang</a>
@@ -81,6 +85,26 @@ public class SofaHessianSerializerTest {
         Assert.assertTrue(error);
     }
 
+    @Test
+    public void allowListWithoutBlacklist() {
+        SofaResponse response = new SofaResponse();
+        response.setAppResponse(new AtomicInteger(1));
+        AbstractByteBuf data = serializer.encode(response, null);
+        boolean old = RpcConfigs.getBooleanValue(RpcOptions.SERIALIZE_BLACKLIST_ENABLE);
+        RpcConfigs.putValue(RpcOptions.SERIALIZE_BLACKLIST_ENABLE, false);
+        ClassResolver.getInstance().setAllowList(Collections.singletonList("com.alipay."));
+        try {
+            // 黑名单关闭时允许列表仍然生效，不在允许列表的类不会被实例化
+            SofaHessianSerializer serializer = new SofaHessianSerializer();
+            SofaResponse newResponse = (SofaResponse) serializer.decode(data, SofaResponse.class, null);
+            Assert.assertNotNull(newResponse.getAppResponse());
+            Assert.assertFalse(newResponse.getAppResponse() instanceof AtomicInteger);
+        } finally {
+            ClassResolver.getInstance().setAllowList(Collections.<String> emptyList());
+            RpcConfigs.putValue(RpcOptions.SERIALIZE_BLACKLIST_ENABLE, old);
+        }
+    }
+
     @Test
     public void encodeSofaRequest() throws Exception {
         SofaRequest request = buildRequest();
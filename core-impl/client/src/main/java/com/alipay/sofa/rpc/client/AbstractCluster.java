@@ -18,6 +18,7 @@ package com.alipay.sofa.rpc.client;
 
 import com.alipay.sofa.rpc.bootstrap.ConsumerBootstrap;
 import com.alipay.sofa.rpc.client.http.RpcHttpClient;
+import com.alipay.sofa.rpc.codec.CompressHelper;
 import com.alipay.sofa.rpc.common.MockMode;
 import com.alipay.sofa.rpc.common.RpcConstants;
 import com.alipay.sofa.rpc.common.json.JSON;
@@ -27,11 +28,14 @@ import com.alipay.sofa.rpc.common.utils.StringUtils;
 import com.alipay.sofa.rpc.config.ConsumerConfig;
 import com.alipay.sofa.rpc.context.AsyncRuntime;
 import com.alipay.sofa.rpc.context.RpcInternalContext;
+import com.alipay.sofa.rpc.context.RpcInvokeContext;
 import com.alipay.sofa.rpc.context.RpcRuntimeContext;
+import com.alipay.sofa.rpc.context.StartupProfiler;
 import com.alipay.sofa.rpc.core.exception.RpcErrorType;
 import com.alipay.sofa.rpc.core.exception.SofaRouteException;
 import com.alipay.sofa.rpc.core.exception.SofaRpcException;
 import com.alipay.sofa.rpc.core.exception.SofaRpcRuntimeException;
+import com.alipay.sofa.rpc.core.exception.SofaTimeOutException;
 import com.alipay.sofa.rpc.core.invoke.SofaResponseCallback;
 import com.alipay.sofa.rpc.core.request.SofaRequest;
 import com.alipay.sofa.rpc.core.response.SofaResponse;
@@ -46,11 +50,13 @@ import com.alipay.sofa.rpc.event.ProviderInfoUpdateAllEvent;
 import com.alipay.sofa.rpc.event.ProviderInfoUpdateEvent;
 import com.alipay.sofa.rpc.filter.ConsumerInvoker;
 import com.alipay.sofa.rpc.filter.FilterChain;
+import com.alipay.sofa.rpc.listener.AdaptiveTimeoutListener;
 import com.alipay.sofa.rpc.listener.ConsumerStateListener;
 import com.alipay.sofa.rpc.log.LogCodes;
 import com.alipay.sofa.rpc.log.Logger;
 import com.alipay.sofa.rpc.log.LoggerFactory;
 import com.alipay.sofa.rpc.message.ResponseFuture;
+import com.alipay.sofa.rpc.server.ProviderProxyInvoker;
 import com.alipay.sofa.rpc.transport.ClientTransport;
 
 import java.lang.reflect.Method;
@@ -63,8 +69,11 @@ import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.alipay.sofa.rpc.client.ProviderInfoAttrs.ATTR_TIMEOUT;
+import static com.alipay.sofa.rpc.common.RpcConfigs.getBooleanValue;
 import static com.alipay.sofa.rpc.common.RpcConfigs.getIntValue;
 import static com.alipay.sofa.rpc.common.RpcOptions.CONSUMER_INVOKE_TIMEOUT;
+import static com.alipay.sofa.rpc.common.RpcOptions.CONSUMER_TIMEOUT_ADAPTIVE_ENABLE;
+import static com.alipay.sofa.rpc.common.RpcOptions.CONSUMER_TIMEOUT_ADAPTIVE_PUBLISH;
 
 /**
  * Abstract cluster, contains router chain, filter chain, address holder, connection holder and load balancer.
@@ -90,44 +99,64 @@ public abstract class AbstractCluster extends Cluster {
     /**
      * 是否已启动(已建立连接)
      */
-    protected volatile boolean initialized   = false;
+    protected volatile boolean      initialized   = false;
 
     /**
      * 是否已经销毁（已经销毁不能再继续使用）
      */
-    protected volatile boolean destroyed     = false;
+    protected volatile boolean      destroyed     = false;
 
     /**
      * 当前Client正在发送的调用数量
      */
-    protected AtomicInteger    countOfInvoke = new AtomicInteger(0);
+    protected AtomicInteger         countOfInvoke = new AtomicInteger(0);
+
+    /**
+     * 同JVM内调用，本JVM内发布了对应服务时使用
+     */
+    private volatile InJvmInvoker   inJvmInvoker;
 
     /**
      * 路由列表
      */
-    protected RouterChain      routerChain;
+    protected RouterChain           routerChain;
     /**
      * 负载均衡接口
      */
-    protected LoadBalancer     loadBalancer;
+    protected LoadBalancer          loadBalancer;
     /**
      * 地址保持器
      */
-    protected AddressHolder    addressHolder;
+    protected AddressHolder         addressHolder;
     /**
      * 连接管理器
      */
-    protected ConnectionHolder connectionHolder;
+    protected ConnectionHolder      connectionHolder;
     /**
      * 过滤器链
      */
-    protected FilterChain      filterChain;
+    protected FilterChain           filterChain;
+
+    /**
+     * 是否开启自适应超时
+     */
+    private boolean                 adaptiveTimeout;
+    /**
+     * 自适应超时统计使用的服务唯一名，第一次计算超时时记录
+     */
+    private volatile String         adaptiveService;
+    /**
+     * 通过动态配置中心发布建议超时的监听器
+     */
+    private AdaptiveTimeoutListener adaptiveTimeoutPublisher;
 
     @Override
     public synchronized void init() {
         if (initialized) { // 已初始化
             return;
         }
+        String key = consumerConfig.buildKey();
+        long begin = StartupProfiler.begin();
         // 构造Router链
         routerChain = RouterChain.buildConsumerChain(consumerBootstrap);
         // 负载均衡策略 考虑是否可动态替换？
@@ -139,6 +168,8 @@ public abstract class AbstractCluster extends Cluster {
         // 构造Filter链,最底层是调用过滤器
         this.filterChain = FilterChain.buildConsumerChain(this.consumerConfig,
             new ConsumerInvoker(consumerBootstrap));
+        StartupProfiler.end(key, StartupProfiler.PHASE_FILTER_CHAIN, null, begin, true);
+        initAdaptiveTimeout();
 
         if (consumerConfig.isLazy()) { // 延迟连接
             if (LOGGER.isInfoEnabled(consumerConfig.getAppName())) {
@@ -150,10 +181,14 @@ public abstract class AbstractCluster extends Cluster {
         connectionHolder.init();
         try {
             // 得到服务端列表
+            begin = StartupProfiler.begin();
             List<ProviderGroup> all = consumerBootstrap.subscribe();
+            StartupProfiler.end(key, StartupProfiler.PHASE_SUBSCRIBE, null, begin, true);
             if (CommonUtils.isNotEmpty(all)) {
                 // 初始化服务端连接（建立长连接)
+                begin = StartupProfiler.begin();
                 updateAllProviders(all);
+                StartupProfiler.end(key, StartupProfiler.PHASE_CONNECT, null, begin, true);
             }
         } catch (SofaRpcRuntimeException e) {
             throw e;
@@ -170,6 +205,41 @@ public abstract class AbstractCluster extends Cluster {
         }
     }
 
+    /**
+     * 开启自适应超时时，按需通过动态配置中心发布方法的建议超时
+     */
+    private void initAdaptiveTimeout() {
+        adaptiveTimeout = getBooleanValue(CONSUMER_TIMEOUT_ADAPTIVE_ENABLE);
+        final String dynamicAlias = consumerConfig.getParameter(DynamicConfigKeys.DYNAMIC_ALIAS);
+        if (!adaptiveTimeout || !getBooleanValue(CONSUMER_TIMEOUT_ADAPTIVE_PUBLISH)
+            || StringUtils.isBlank(dynamicAlias)) {
+            return;
+        }
+        final DynamicConfigManager dynamicConfigManager = DynamicConfigManagerFactory.getDynamicManager(
+            consumerConfig.getAppName(), dynamicAlias);
+        if (dynamicConfigManager == null) {
+            return;
+        }
+        adaptiveTimeoutPublisher = new AdaptiveTimeoutListener() {
+            @Override
+            public void onChanged(AdaptiveTimeout timeout) {
+                if (!timeout.getService().equals(adaptiveService)) {
+                    return;
+                }
+                int suggested = AdaptiveTimeoutManager.getMaxTimeout(timeout.getService(), timeout.getMethod());
+                if (suggested > 0) {
+                    dynamicConfigManager.publishConsumerMethodProperty(consumerConfig.getInterfaceId(),
+                        timeout.getMethod(), DynamicConfigKeys.ADAPTIVE_TIMEOUT, String.valueOf(suggested));
+                }
+            }
+
+            @Override
+            public void onRemoved(AdaptiveTimeout timeout) {
+            }
+        };
+        AdaptiveTimeoutManager.addListener(adaptiveTimeoutPublisher);
+    }
+
     /**
      * 检测状态
      */
@@ -294,7 +364,13 @@ public abstract class AbstractCluster extends Cluster {
             checkClusterState();
             // 开始调用
             countOfInvoke.incrementAndGet(); // 计数+1
-            response = doInvoke(request);
+            ProviderProxyInvoker localInvoker = InJvmInvoker.findProviderInvoker(consumerConfig, request);
+            if (localInvoker != null) {
+                // 本JVM内有对应服务，不选择远程地址，直接走JVM内调用
+                response = filterChain(getInJvmInvoker(localInvoker).getProviderInfo(), request);
+            } else {
+                response = doInvoke(request);
+            }
             return response;
         } catch (SofaRpcException e) {
             // 客户端收到异常（客户端自己的异常）
@@ -304,6 +380,21 @@ public abstract class AbstractCluster extends Cluster {
         }
     }
 
+    /**
+     * 获取同JVM内调用，服务重新发布后重新构建
+     *
+     * @param providerInvoker 本JVM内的服务端调用器
+     * @return 同JVM内调用
+     */
+    private InJvmInvoker getInJvmInvoker(ProviderProxyInvoker providerInvoker) {
+        InJvmInvoker invoker = inJvmInvoker;
+        if (invoker == null || invoker.getProviderInvoker() != providerInvoker) {
+            invoker = new InJvmInvoker(consumerConfig, providerInvoker);
+            inJvmInvoker = invoker;
+        }
+        return invoker;
+    }
+
     protected SofaResponse doMockInvoke(SofaRequest request) {
         final String mockMode = consumerConfig.getMockMode();
         if (MockMode.LOCAL.equalsIgnoreCase(mockMode)) {
@@ -552,6 +643,10 @@ public abstract class AbstractCluster extends Cluster {
 
     @Override
     public SofaResponse sendMsg(ProviderInfo providerInfo, SofaRequest request) throws SofaRpcException {
+        InJvmInvoker invoker = inJvmInvoker;
+        if (invoker != null && invoker.getProviderInfo() == providerInfo) {
+            return invoker.invoke(request);
+        }
         ClientTransport clientTransport = connectionHolder.getAvailableClientTransport(providerInfo);
         if (clientTransport != null && clientTransport.isAvailable()) {
             return doSendMsg(providerInfo, clientTransport, request);
@@ -575,6 +670,7 @@ public abstract class AbstractCluster extends Cluster {
         RpcInternalContext.getContext().setRemoteAddress(providerInfo.getHost(), providerInfo.getPort());
         try {
             checkProviderVersion(providerInfo, request); // 根据服务端版本特殊处理
+            request.setCompressType(CompressHelper.resolveRequestCompress(providerInfo, request));
             String invokeType = request.getInvokeType();
             int timeout = resolveTimeout(request, consumerConfig, providerInfo);
 
@@ -582,13 +678,23 @@ public abstract class AbstractCluster extends Cluster {
             // 同步调用
             if (RpcConstants.INVOKER_TYPE_SYNC.equals(invokeType)) {
                 long start = RpcRuntimeContext.now();
+                boolean timedOut = false;
                 try {
                     response = transport.syncSend(request, timeout);
+                    CompressHelper.recordSupportCompress(providerInfo, response);
+                } catch (SofaTimeOutException e) {
+                    timedOut = true;
+                    throw e;
                 } finally {
+                    long elapsed = RpcRuntimeContext.now() - start;
                     if (RpcInternalContext.isAttachmentEnable()) {
-                        long elapsed = RpcRuntimeContext.now() - start;
                         context.setAttachment(RpcConstants.INTERNAL_KEY_CLIENT_ELAPSE, elapsed);
                     }
+                    // 超时的调用也要记录，否则服务变慢时只剩下快的样本
+                    if (adaptiveTimeout && (response != null || timedOut)) {
+                        AdaptiveTimeoutManager.record(request.getTargetServiceUniqueName(),
+                            request.getMethodName(), providerInfo, elapsed);
+                    }
                 }
             }
             // 单向调用
@@ -651,7 +757,7 @@ public abstract class AbstractCluster extends Cluster {
     }
 
     /**
-     * 决定超时时间
+     * 决定超时时间，不超过上游请求剩余的时间
      *
      * @param request        请求
      * @param consumerConfig 客户端配置
@@ -659,6 +765,32 @@ public abstract class AbstractCluster extends Cluster {
      * @return 调用超时
      */
     private int resolveTimeout(SofaRequest request, ConsumerConfig consumerConfig, ProviderInfo providerInfo) {
+        int timeout = resolveConfiguredTimeout(request, consumerConfig, providerInfo);
+        RpcInvokeContext invokeCtx = RpcInvokeContext.peekContext();
+        Long remaining = invokeCtx == null ? null : invokeCtx.getRemainingTimeout();
+        if (remaining != null) {
+            if (remaining <= 0) {
+                // 上游已经超时，不再发起调用
+                throw new SofaTimeOutException(LogCodes.getLog(LogCodes.ERROR_INVOKE_DEADLINE_EXCEEDED,
+                    request.getInterfaceName(), request.getMethodName(), -remaining));
+            }
+            if (timeout <= 0 || remaining < timeout) {
+                timeout = remaining.intValue();
+            }
+        }
+        return timeout;
+    }
+
+    /**
+     * 决定配置的超时时间
+     *
+     * @param request        请求
+     * @param consumerConfig 客户端配置
+     * @param providerInfo   服务提供者信息
+     * @return 调用超时
+     */
+    private int resolveConfiguredTimeout(SofaRequest request, ConsumerConfig consumerConfig,
+                                         ProviderInfo providerInfo) {
         // 动态配置优先
         final String dynamicAlias = consumerConfig.getParameter(DynamicConfigKeys.DYNAMIC_ALIAS);
         if (StringUtils.isNotBlank(dynamicAlias)) {
@@ -690,6 +822,14 @@ public abstract class AbstractCluster extends Cluster {
                     timeout = getIntValue(CONSUMER_INVOKE_TIMEOUT);
                 }
             }
+            // 按最近的耗时调整配置的超时
+            if (adaptiveTimeout) {
+                String service = request.getTargetServiceUniqueName();
+                if (adaptiveService == null) {
+                    adaptiveService = service;
+                }
+                timeout = AdaptiveTimeoutManager.resolve(service, request.getMethodName(), providerInfo, timeout);
+            }
         }
         return timeout;
     }
@@ -710,6 +850,7 @@ public abstract class AbstractCluster extends Cluster {
         if (connectionHolder != null) {
             connectionHolder.destroy(new GracefulDestroyHook());
         }
+        destroyAdaptiveTimeout();
         destroyed = true;
         initialized = false;
         if (hook != null) {
@@ -717,6 +858,19 @@ public abstract class AbstractCluster extends Cluster {
         }
     }
 
+    /**
+     * 清理自适应超时的监听器和统计
+     */
+    private void destroyAdaptiveTimeout() {
+        if (adaptiveTimeoutPublisher != null) {
+            AdaptiveTimeoutManager.removeListener(adaptiveTimeoutPublisher);
+            adaptiveTimeoutPublisher = null;
+        }
+        if (adaptiveService != null) {
+            AdaptiveTimeoutManager.remove(adaptiveService);
+        }
+    }
+
     /**
      * 关闭连接<br>
      * 注意：关闭有风险，可能有正在调用的请求，建议判断下isAvailable()
@@ -756,6 +910,15 @@ public abstract class AbstractCluster extends Cluster {
         }
     }
 
+    /**
+     * 是否已启动(已建立连接)
+     *
+     * @return 是否已启动
+     */
+    public boolean isInitialized() {
+        return initialized;
+    }
+
     @Override
     public boolean isAvailable() {
         if (destroyed || !initialized) {
@@ -17,6 +17,10 @@
 package com.alipay.sofa.rpc.client;
 
 import com.alipay.sofa.rpc.bootstrap.ConsumerBootstrap;
+import com.alipay.sofa.rpc.common.RpcConfigs;
+import com.alipay.sofa.rpc.common.RpcOptions;
+import com.alipay.sofa.rpc.common.utils.CommonUtils;
+import com.alipay.sofa.rpc.context.RpcRuntimeContext;
 import com.alipay.sofa.rpc.core.exception.SofaRouteException;
 import com.alipay.sofa.rpc.core.exception.SofaRpcException;
 import com.alipay.sofa.rpc.core.request.SofaRequest;
@@ -79,6 +83,48 @@ public abstract class AbstractLoadBalancer extends LoadBalancer {
      */
     protected int getWeight(ProviderInfo providerInfo) {
         // 从provider中或得到相关权重,默认值100
-        return providerInfo.getWeight() < 0 ? 0 : providerInfo.getWeight();
+        int weight = providerInfo.getWeight() < 0 ? 0 : providerInfo.getWeight();
+        // 已经处于注册中心下发的预热状态的，不再重复计算
+        if (weight > 0 && providerInfo.getStatus() != ProviderStatus.WARMING_UP) {
+            int warmupDuration = getWarmupDuration();
+            if (warmupDuration > 0) {
+                weight = calculateWarmupWeight(providerInfo, weight, warmupDuration);
+            }
+        }
+        return weight;
+    }
+
+    /**
+     * Gets warmup duration.
+     *
+     * @return the warmup duration, 0 means no warmup
+     */
+    protected int getWarmupDuration() {
+        return consumerConfig != null ? consumerConfig.getWarmupDuration()
+            : RpcConfigs.getIntValue(RpcOptions.CONSUMER_WARMUP_DURATION);
+    }
+
+    /**
+     * 根据服务端启动时间计算预热权重：启动后在预热时长内权重线性增长，最小为1
+     *
+     * @param providerInfo   the provider
+     * @param weight         the weight
+     * @param warmupDuration the warmup duration
+     * @return the warmup weight
+     */
+    protected int calculateWarmupWeight(ProviderInfo providerInfo, int weight, int warmupDuration) {
+        long startTime = CommonUtils.parseLong(providerInfo.getStaticAttr(ProviderInfoAttrs.ATTR_START_TIME), 0L);
+        if (startTime <= 0) {
+            return weight;
+        }
+        long uptime = RpcRuntimeContext.now() - startTime;
+        if (uptime >= warmupDuration) {
+            return weight;
+        }
+        if (uptime <= 0) {
+            return 1;
+        }
+        int warmupWeight = (int) (weight * uptime / warmupDuration);
+        return warmupWeight < 1 ? 1 : warmupWeight;
     }
 }
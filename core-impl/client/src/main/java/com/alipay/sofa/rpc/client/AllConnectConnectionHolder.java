@@ -31,6 +31,7 @@ import com.alipay.sofa.rpc.common.utils.StringUtils;
 import com.alipay.sofa.rpc.config.ConsumerConfig;
 import com.alipay.sofa.rpc.context.AsyncRuntime;
 import com.alipay.sofa.rpc.context.RpcInternalContext;
+import com.alipay.sofa.rpc.context.StartupProfiler;
 import com.alipay.sofa.rpc.ext.Extension;
 import com.alipay.sofa.rpc.listener.ConsumerStateListener;
 import com.alipay.sofa.rpc.log.LogCodes;
@@ -479,9 +480,25 @@ public class AllConnectConnectionHolder extends ConnectionHolder {
     }
 
     protected void initClientTransport(String interfaceId, ProviderInfo providerInfo, ClientTransport transport) {
+        // 只记录首次引用时建立的连接，之后地址推送和重连建立的连接不算启动耗时
+        boolean profile = isReferring();
+        String key = profile ? consumerConfig.buildKey() : null;
+        String address = profile ? providerInfo.getHost() + ":" + providerInfo.getPort() : null;
+        long connectBegin = StartupProfiler.begin();
+        long checkBegin = 0;
+        boolean connected = false;
         try {
             transport.connect();
-            if (doubleCheck(interfaceId, providerInfo, transport)) {
+            connected = true;
+            if (profile) {
+                StartupProfiler.end(key, StartupProfiler.PHASE_CONNECT_ONE, address, connectBegin, true);
+            }
+            checkBegin = StartupProfiler.begin();
+            boolean alive = doubleCheck(interfaceId, providerInfo, transport);
+            if (profile) {
+                StartupProfiler.end(key, StartupProfiler.PHASE_CHECK_ALIVE, address, checkBegin, alive);
+            }
+            if (alive) {
                 printSuccess(interfaceId, providerInfo, transport);
                 addAlive(providerInfo, transport);
             } else {
@@ -489,6 +506,13 @@ public class AllConnectConnectionHolder extends ConnectionHolder {
                 addRetry(providerInfo, transport);
             }
         } catch (Exception e) {
+            if (profile) {
+                if (connected) {
+                    StartupProfiler.end(key, StartupProfiler.PHASE_CHECK_ALIVE, address, checkBegin, false);
+                } else {
+                    StartupProfiler.end(key, StartupProfiler.PHASE_CONNECT_ONE, address, connectBegin, false);
+                }
+            }
             if (LOGGER.isDebugEnabled(consumerConfig.getAppName())) {
                 LOGGER.debugWithApp(consumerConfig.getAppName(), "Failed to connect " + providerInfo, e);
             }
@@ -497,6 +521,16 @@ public class AllConnectConnectionHolder extends ConnectionHolder {
         }
     }
 
+    /**
+     * 是否正在首次引用服务（集群还没初始化完成）
+     *
+     * @return 是否首次引用
+     */
+    private boolean isReferring() {
+        Cluster cluster = consumerBootstrap.getCluster();
+        return cluster instanceof AbstractCluster && !((AbstractCluster) cluster).isInitialized();
+    }
+
     public void removeNode(List<ProviderInfo> providerInfos) {
 
         //first update last all providers
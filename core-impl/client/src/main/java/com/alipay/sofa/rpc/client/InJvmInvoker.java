@@ -0,0 +1,239 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.client;
+
+import com.alipay.sofa.rpc.codec.Serializer;
+import com.alipay.sofa.rpc.codec.SerializerFactory;
+import com.alipay.sofa.rpc.common.RpcConstants;
+import com.alipay.sofa.rpc.common.SystemInfo;
+import com.alipay.sofa.rpc.common.Version;
+import com.alipay.sofa.rpc.common.cache.ReflectCache;
+import com.alipay.sofa.rpc.config.ConsumerConfig;
+import com.alipay.sofa.rpc.config.ProviderConfig;
+import com.alipay.sofa.rpc.context.RpcInternalContext;
+import com.alipay.sofa.rpc.context.RpcInvokeContext;
+import com.alipay.sofa.rpc.context.RpcRuntimeContext;
+import com.alipay.sofa.rpc.core.exception.RpcErrorType;
+import com.alipay.sofa.rpc.core.exception.SofaRpcException;
+import com.alipay.sofa.rpc.core.request.SofaRequest;
+import com.alipay.sofa.rpc.core.response.SofaResponse;
+import com.alipay.sofa.rpc.event.ClientAfterSendEvent;
+import com.alipay.sofa.rpc.event.ClientBeforeSendEvent;
+import com.alipay.sofa.rpc.event.ClientSyncReceiveEvent;
+import com.alipay.sofa.rpc.event.EventBus;
+import com.alipay.sofa.rpc.event.ServerReceiveEvent;
+import com.alipay.sofa.rpc.event.ServerSendEvent;
+import com.alipay.sofa.rpc.message.MessageBuilder;
+import com.alipay.sofa.rpc.server.InJvmProviderHolder;
+import com.alipay.sofa.rpc.server.ProviderProxyInvoker;
+import com.alipay.sofa.rpc.transport.AbstractByteBuf;
+
+import java.util.HashMap;
+
+/**
+ * 同JVM内调用：不经过序列化和网络，在当前线程直接执行服务端的Filter链和服务实现。
+ * <p>
+ * 客户端和服务端的上下文在调用前后切换，并照常发送客户端和服务端事件，所以Tracer和Metrics不受影响。
+ * 开启 {@link ConsumerConfig#isInJVMDeepCopy()} 后，参数和返回值会按客户端配置的序列化方式拷贝一份，
+ * 否则直接传引用。
+ */
+public class InJvmInvoker {
+
+    /**
+     * 服务端地址协议
+     */
+    public static final String         PROTOCOL_INJVM = "injvm";
+
+    /**
+     * 服务引用配置
+     */
+    private final ConsumerConfig       consumerConfig;
+
+    /**
+     * 本JVM内的服务端调用器
+     */
+    private final ProviderProxyInvoker providerInvoker;
+
+    /**
+     * 代表本JVM服务端的地址，放到调用上下文中
+     */
+    private final ProviderInfo         providerInfo;
+
+    public InJvmInvoker(ConsumerConfig consumerConfig, ProviderProxyInvoker providerInvoker) {
+        this.consumerConfig = consumerConfig;
+        this.providerInvoker = providerInvoker;
+        ProviderConfig providerConfig = providerInvoker.getProviderConfig();
+        this.providerInfo = new ProviderInfo().setProtocolType(PROTOCOL_INJVM)
+            .setHost(SystemInfo.getLocalHost()).setPort(0).setRpcVersion(Version.RPC_VERSION);
+        if (providerConfig.getAppName() != null) {
+            providerInfo.setStaticAttr(ProviderInfoAttrs.ATTR_APP_NAME, providerConfig.getAppName());
+        }
+    }
+
+    /**
+     * 是否可以走JVM内调用：开启了inJVM、本JVM内发布了同一个接口类的服务，且是同步调用
+     *
+     * @param consumerConfig 服务引用配置
+     * @param request        请求
+     * @return 本JVM内的服务端调用器，不能走JVM内调用时返回null
+     */
+    public static ProviderProxyInvoker findProviderInvoker(ConsumerConfig consumerConfig, SofaRequest request) {
+        if (!consumerConfig.isInJVM() || consumerConfig.isGeneric()) {
+            return null;
+        }
+        if (!RpcConstants.INVOKER_TYPE_SYNC.equals(request.getInvokeType())) {
+            return null;
+        }
+        ProviderProxyInvoker invoker = InJvmProviderHolder.getInvoker(request.getTargetServiceUniqueName());
+        if (invoker == null || invoker.getProviderConfig().getProxyClass() != consumerConfig.getProxyClass()) {
+            return null;
+        }
+        return invoker;
+    }
+
+    /**
+     * 调用本JVM内的服务端
+     *
+     * @param request 请求
+     * @return 响应
+     * @throws SofaRpcException rpc异常
+     */
+    public SofaResponse invoke(SofaRequest request) throws SofaRpcException {
+        RpcInternalContext context = RpcInternalContext.getContext();
+        context.setRemoteAddress(providerInfo.getHost(), providerInfo.getPort());
+        context.setLocalAddress(providerInfo.getHost(), providerInfo.getPort());
+        if (EventBus.isEnable(ClientBeforeSendEvent.class)) {
+            EventBus.post(new ClientBeforeSendEvent(request));
+        }
+        SofaResponse response = null;
+        SofaRpcException throwable = null;
+        long start = RpcRuntimeContext.now();
+        try {
+            response = invokeProvider(request);
+            return response;
+        } catch (SofaRpcException e) {
+            throwable = e;
+            throw e;
+        } catch (Exception e) {
+            throwable = new SofaRpcException(RpcErrorType.CLIENT_UNDECLARED_ERROR, e.getMessage(), e);
+            throw throwable;
+        } finally {
+            if (RpcInternalContext.isAttachmentEnable()) {
+                context.setAttachment(RpcConstants.INTERNAL_KEY_CLIENT_ELAPSE, RpcRuntimeContext.now() - start);
+            }
+            if (EventBus.isEnable(ClientAfterSendEvent.class)) {
+                EventBus.post(new ClientAfterSendEvent(request));
+            }
+            if (EventBus.isEnable(ClientSyncReceiveEvent.class)) {
+                EventBus.post(new ClientSyncReceiveEvent(consumerConfig, providerInfo, request, response, throwable));
+            }
+        }
+    }
+
+    /**
+     * 切换到服务端上下文后执行服务端Filter链
+     */
+    private SofaResponse invokeProvider(SofaRequest request) {
+        // 客户端上下文先存起来，服务端使用新的上下文
+        RpcInternalContext.pushContext();
+        RpcInvokeContext invokeContext = RpcInvokeContext.peekContext();
+        RpcInvokeContext.removeContext();
+        Object[] args = request.getMethodArgs();
+        ClassLoader rpcCl = Thread.currentThread().getContextClassLoader();
+        try {
+            RpcInternalContext providerContext = RpcInternalContext.getContext();
+            providerContext.setProviderSide(true);
+            providerContext.setRemoteAddress(providerInfo.getHost(), providerInfo.getPort());
+            if (EventBus.isEnable(ServerReceiveEvent.class)) {
+                EventBus.post(new ServerReceiveEvent(request));
+            }
+            SofaResponse response = null;
+            Throwable throwable = null;
+            try {
+                if (consumerConfig.isInJVMDeepCopy()) {
+                    request.setMethodArgs(copyArgs(request));
+                }
+                String serviceName = request.getTargetServiceUniqueName();
+                Thread.currentThread().setContextClassLoader(ReflectCache.getServiceClassLoader(serviceName));
+                response = providerInvoker.invoke(request);
+            } catch (Exception e) {
+                throwable = e;
+                response = MessageBuilder.buildSofaErrorResponse(e.getMessage());
+            } finally {
+                Thread.currentThread().setContextClassLoader(rpcCl);
+                request.setMethodArgs(args);
+                if (EventBus.isEnable(ServerSendEvent.class)) {
+                    EventBus.post(new ServerSendEvent(request, response, throwable));
+                }
+            }
+            if (consumerConfig.isInJVMDeepCopy() && !response.isError() && response.getAppResponse() != null) {
+                Object appResponse = response.getAppResponse();
+                response.setAppResponse(copy(appResponse, appResponse.getClass()));
+            }
+            return response;
+        } finally {
+            RpcInternalContext.removeContext();
+            RpcInternalContext.popContext();
+            if (invokeContext != null) {
+                RpcInvokeContext.setContext(invokeContext);
+            } else {
+                RpcInvokeContext.removeContext();
+            }
+        }
+    }
+
+    private Object[] copyArgs(SofaRequest request) {
+        Object[] args = request.getMethodArgs();
+        if (args == null || args.length == 0) {
+            return args;
+        }
+        Class[] types = request.getMethod().getParameterTypes();
+        Object[] copies = new Object[args.length];
+        for (int i = 0; i < args.length; i++) {
+            copies[i] = args[i] == null ? null : copy(args[i], types[i]);
+        }
+        return copies;
+    }
+
+    private Object copy(Object object, Class type) {
+        Serializer serializer = SerializerFactory.getSerializer(consumerConfig.getSerialization());
+        AbstractByteBuf data = serializer.encode(object, new HashMap<String, String>());
+        try {
+            return serializer.decode(data, type, new HashMap<String, String>());
+        } finally {
+            data.release();
+        }
+    }
+
+    /**
+     * 代表本JVM服务端的地址
+     *
+     * @return 服务端地址
+     */
+    public ProviderInfo getProviderInfo() {
+        return providerInfo;
+    }
+
+    /**
+     * 本JVM内的服务端调用器
+     *
+     * @return 服务端调用器
+     */
+    public ProviderProxyInvoker getProviderInvoker() {
+        return providerInvoker;
+    }
+}
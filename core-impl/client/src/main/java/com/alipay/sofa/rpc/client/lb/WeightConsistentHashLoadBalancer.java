@@ -55,14 +55,20 @@ public class WeightConsistentHashLoadBalancer extends AbstractLoadBalancer {
         String interfaceId = request.getInterfaceName();
         String method = request.getMethodName();
         String key = interfaceId + "#" + method;
-        // 判断是否同样的服务列表
+        // 判断是否同样的服务列表，有效权重（例如预热中）变化也需要重建
+        int size = providerInfos.size();
+        int[] weights = new int[size];
         int hashcode = providerInfos.hashCode();
+        for (int i = 0; i < size; i++) {
+            weights[i] = getWeight(providerInfos.get(i));
+            hashcode = 31 * hashcode + weights[i];
+        }
         Selector selector = selectorCache.get(key);
         // 原来没有
         if (selector == null ||
             // 或者服务列表已经变化
             selector.getHashCode() != hashcode) {
-            selector = new Selector(interfaceId, method, providerInfos, hashcode);
+            selector = new Selector(interfaceId, method, providerInfos, weights, hashcode);
             selectorCache.put(key, selector);
         }
         return selector.select(request);
@@ -101,7 +107,7 @@ public class WeightConsistentHashLoadBalancer extends AbstractLoadBalancer {
          * @param actualNodes the actual nodes
          */
         public Selector(String interfaceId, String method, List<ProviderInfo> actualNodes) {
-            this(interfaceId, method, actualNodes, actualNodes.hashCode());
+            this(interfaceId, method, actualNodes, weightsOf(actualNodes), actualNodes.hashCode());
         }
 
         /**
@@ -110,9 +116,11 @@ public class WeightConsistentHashLoadBalancer extends AbstractLoadBalancer {
          * @param interfaceId the interface id
          * @param method      the method
          * @param actualNodes the actual nodes
+         * @param weights     the effective weights of actual nodes
          * @param hashcode    the hashcode
          */
-        public Selector(String interfaceId, String method, List<ProviderInfo> actualNodes, int hashcode) {
+        public Selector(String interfaceId, String method, List<ProviderInfo> actualNodes, int[] weights,
+                        int hashcode) {
             this.interfaceId = interfaceId;
             this.method = method;
             this.hashcode = hashcode;
@@ -120,8 +128,9 @@ public class WeightConsistentHashLoadBalancer extends AbstractLoadBalancer {
             this.virtualNodes = new TreeMap<Long, ProviderInfo>();
             // 设置越大越慢，精度越高
             int num = 32;
-            for (ProviderInfo providerInfo : actualNodes) {
-                for (int i = 0; i < num * providerInfo.getWeight() / 4; i++) {
+            for (int j = 0; j < actualNodes.size(); j++) {
+                ProviderInfo providerInfo = actualNodes.get(j);
+                for (int i = 0; i < num * weights[j] / 4; i++) {
                     byte[] digest = HashUtils.messageDigest(providerInfo.getHost() + providerInfo.getPort() + i);
                     for (int h = 0; h < 4; h++) {
                         long m = HashUtils.hash(digest, h);
@@ -171,6 +180,20 @@ public class WeightConsistentHashLoadBalancer extends AbstractLoadBalancer {
             return entry.getValue();
         }
 
+        /**
+         * 原始权重
+         *
+         * @param actualNodes the actual nodes
+         * @return the weights
+         */
+        private static int[] weightsOf(List<ProviderInfo> actualNodes) {
+            int[] weights = new int[actualNodes.size()];
+            for (int i = 0; i < weights.length; i++) {
+                weights[i] = actualNodes.get(i).getWeight();
+            }
+            return weights;
+        }
+
         /**
          * Gets hash code.
          *
@@ -0,0 +1,254 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.client.router;
+
+import com.alipay.sofa.rpc.bootstrap.ConsumerBootstrap;
+import com.alipay.sofa.rpc.client.AddressHolder;
+import com.alipay.sofa.rpc.client.Cluster;
+import com.alipay.sofa.rpc.client.ConnectionHolder;
+import com.alipay.sofa.rpc.client.ProviderGroup;
+import com.alipay.sofa.rpc.client.ProviderInfo;
+import com.alipay.sofa.rpc.client.ProviderInfoAttrs;
+import com.alipay.sofa.rpc.client.ProviderStatus;
+import com.alipay.sofa.rpc.client.Router;
+import com.alipay.sofa.rpc.common.RpcConfigs;
+import com.alipay.sofa.rpc.common.RpcConstants;
+import com.alipay.sofa.rpc.common.RpcOptions;
+import com.alipay.sofa.rpc.common.SystemInfo;
+import com.alipay.sofa.rpc.common.annotation.JustForTest;
+import com.alipay.sofa.rpc.common.utils.CommonUtils;
+import com.alipay.sofa.rpc.common.utils.StringUtils;
+import com.alipay.sofa.rpc.config.ConsumerConfig;
+import com.alipay.sofa.rpc.core.request.SofaRequest;
+import com.alipay.sofa.rpc.ext.Extension;
+import com.alipay.sofa.rpc.transport.ClientTransport;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 按拓扑就近路由：把服务端分为同机、同区域（服务端静态属性zone）和其它三层，
+ * 优先选择最近的一层，该层健康容量百分比低于阈值时按比例溢出到更远的层。
+ * <p>
+ * 分层结果按地址分组缓存：地址分组每次变化都会替换内部的列表对象，传入的服务端数量和地址分组相同时
+ * （地址来源的路由器每次返回的是地址分组的副本）直接使用缓存，不再遍历全部服务端；
+ * 前面的路由器按请求过滤出更少的服务端时每次重新分层，且不替换缓存。需要在地址来源的路由器之后执行，
+ * 通过 consumerConfig.setRouter 配置别名 topology 开启。
+ */
+@Extension(value = "topology", order = -17000)
+public class TopologyRouter extends Router {
+
+    /**
+     * 路由路径：拓扑就近
+     */
+    public static final String  RPC_TOPOLOGY_ROUTER = "TOPOLOGY";
+
+    /**
+     * 服务消费者配置
+     */
+    protected ConsumerBootstrap consumerBootstrap;
+
+    /**
+     * 本机地址
+     */
+    protected String            localHost;
+
+    /**
+     * 本机所在区域
+     */
+    protected String            localZone;
+
+    /**
+     * 就近分层的健康容量百分比阈值
+     */
+    protected int               threshold;
+
+    /**
+     * 当前地址分组的分层结果
+     */
+    private volatile Topology   topology;
+
+    @Override
+    public void init(ConsumerBootstrap consumerBootstrap) {
+        this.consumerBootstrap = consumerBootstrap;
+        ConsumerConfig consumerConfig = consumerBootstrap.getConsumerConfig();
+        this.localHost = SystemInfo.getLocalHost();
+        String zone = consumerConfig.getParameter(ProviderInfoAttrs.ATTR_ZONE);
+        this.localZone = StringUtils.isNotBlank(zone) ? zone
+            : RpcConfigs.getStringValue(RpcOptions.CONSUMER_ROUTER_TOPOLOGY_ZONE);
+        this.threshold = RpcConfigs.getIntValue(RpcOptions.CONSUMER_ROUTER_TOPOLOGY_THRESHOLD);
+    }
+
+    @Override
+    public List<ProviderInfo> route(SofaRequest request, List<ProviderInfo> providerInfos) {
+        if (CommonUtils.isEmpty(providerInfos)) {
+            return providerInfos;
+        }
+        Topology current = getTopology(providerInfos);
+        if (current.tiers.size() <= 1) {
+            // 只有一层，不需要就近
+            return providerInfos;
+        }
+        ConnectionHolder connectionHolder = getConnectionHolder();
+        Map<ProviderInfo, ClientTransport> available = connectionHolder == null ? null
+            : connectionHolder.getAvailableConnections();
+        for (int i = 0; i < current.tiers.size() - 1; i++) {
+            List<ProviderInfo> tier = current.tiers.get(i);
+            int percent = healthyPercent(tier, available);
+            // 健康容量足够就留在本层，否则按健康容量和阈值的比例留下一部分流量
+            if (percent >= threshold || (percent > 0 && ThreadLocalRandom.current().nextInt(threshold) < percent)) {
+                recordRouterWay(RPC_TOPOLOGY_ROUTER);
+                // 后续负载均衡会修改列表，需要复制一份
+                return new ArrayList<ProviderInfo>(tier);
+            }
+        }
+        recordRouterWay(RPC_TOPOLOGY_ROUTER);
+        return new ArrayList<ProviderInfo>(current.tiers.get(current.tiers.size() - 1));
+    }
+
+    /**
+     * 得到传入列表对应的分层，地址分组没有变化且传入的是全部服务端时使用缓存
+     *
+     * @param providerInfos 前面路由器给出的服务端列表
+     * @return 分层结果
+     */
+    private Topology getTopology(List<ProviderInfo> providerInfos) {
+        List<ProviderInfo> groupInfos = getAddressVersion();
+        Topology current = topology;
+        if (current != null && current.size == providerInfos.size()
+            && (current.version == providerInfos || current.version == groupInfos)) {
+            return current;
+        }
+        if (groupInfos == null) {
+            // 拿不到地址分组时以传入的列表本身作为版本
+            current = new Topology(providerInfos, providerInfos, localHost, localZone);
+            topology = current;
+        } else if (groupInfos.size() == providerInfos.size()) {
+            current = new Topology(groupInfos, providerInfos, localHost, localZone);
+            topology = current;
+        } else {
+            // 按请求过滤过的列表只用于本次调用
+            current = new Topology(providerInfos, providerInfos, localHost, localZone);
+        }
+        return current;
+    }
+
+    /**
+     * 地址版本：地址分组每次变化都会替换内部的列表对象，所以列表对象本身就可以代表版本
+     *
+     * @return 地址分组内部的服务端列表，拿不到返回null
+     */
+    protected List<ProviderInfo> getAddressVersion() {
+        Cluster cluster = consumerBootstrap.getCluster();
+        AddressHolder addressHolder = cluster == null ? null : cluster.getAddressHolder();
+        if (addressHolder == null) {
+            return null;
+        }
+        String groupName = StringUtils.isNotBlank(consumerBootstrap.getConsumerConfig().getDirectUrl())
+            ? RpcConstants.ADDRESS_DIRECT_GROUP : RpcConstants.ADDRESS_DEFAULT_GROUP;
+        ProviderGroup providerGroup = addressHolder.getProviderGroup(groupName);
+        return providerGroup == null ? null : providerGroup.getProviderInfos();
+    }
+
+    @JustForTest
+    List<List<ProviderInfo>> getTiers() {
+        Topology current = topology;
+        return current == null ? null : current.tiers;
+    }
+
+    private ConnectionHolder getConnectionHolder() {
+        if (consumerBootstrap.getConsumerConfig().isLazy()) {
+            // 延迟建立连接时还没有连接，只看服务端状态
+            return null;
+        }
+        Cluster cluster = consumerBootstrap.getCluster();
+        return cluster == null ? null : cluster.getConnectionHolder();
+    }
+
+    /**
+     * 计算一层中健康服务端的权重占比
+     *
+     * @param tier      一层服务端
+     * @param available 可用连接，为空表示不检查连接
+     * @return 健康容量百分比
+     */
+    protected int healthyPercent(List<ProviderInfo> tier, Map<ProviderInfo, ClientTransport> available) {
+        long total = 0;
+        long healthy = 0;
+        for (ProviderInfo providerInfo : tier) {
+            int weight = providerInfo.getWeight();
+            total += weight;
+            ProviderStatus status = providerInfo.getStatus();
+            if ((status == ProviderStatus.AVAILABLE || status == ProviderStatus.WARMING_UP)
+                && (available == null || available.containsKey(providerInfo))) {
+                healthy += weight;
+            }
+        }
+        return total <= 0 ? 0 : (int) (healthy * 100 / total);
+    }
+
+    /**
+     * 某个服务端列表按就近程度划分的结果
+     */
+    private static class Topology {
+
+        /**
+         * 地址版本，地址分组内部的列表或者传入的列表本身
+         */
+        private final Object                   version;
+
+        /**
+         * 计算时的服务端数量
+         */
+        private final int                      size;
+
+        /**
+         * 由近到远的非空分层，最后一层是全部服务端
+         */
+        private final List<List<ProviderInfo>> tiers;
+
+        private Topology(Object version, List<ProviderInfo> providerInfos, String localHost, String localZone) {
+            this.version = version;
+            this.size = providerInfos.size();
+            List<ProviderInfo> sameHost = new ArrayList<ProviderInfo>();
+            List<ProviderInfo> sameZone = new ArrayList<ProviderInfo>();
+            for (ProviderInfo providerInfo : providerInfos) {
+                if (localHost != null && localHost.equals(providerInfo.getHost())) {
+                    sameHost.add(providerInfo);
+                } else if (StringUtils.isNotBlank(localZone)
+                    && localZone.equals(providerInfo.getStaticAttr(ProviderInfoAttrs.ATTR_ZONE))) {
+                    sameZone.add(providerInfo);
+                }
+            }
+            this.tiers = new ArrayList<List<ProviderInfo>>(3);
+            if (!sameHost.isEmpty() && sameHost.size() < size) {
+                tiers.add(sameHost);
+            }
+            if (StringUtils.isNotBlank(localZone) && !sameZone.isEmpty()) {
+                // 同区域包含同机的服务端
+                List<ProviderInfo> zone = new ArrayList<ProviderInfo>(sameHost);
+                zone.addAll(sameZone);
+                if (zone.size() < size) {
+                    tiers.add(zone);
+                }
+            }
+            tiers.add(new ArrayList<ProviderInfo>(providerInfos));
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.client.lb;
+
+import com.alipay.sofa.rpc.client.ProviderInfo;
+import com.alipay.sofa.rpc.client.ProviderInfoAttrs;
+import com.alipay.sofa.rpc.core.request.SofaRequest;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 测试按服务端启动时间预热权重
+ */
+public class WarmupWeightLoadBalancerTest extends BaseLoadBalancerTest {
+
+    private static final int WARMUP_DURATION = 600000;
+
+    @Test
+    public void testRandomWarmup() {
+        RandomLoadBalancer loadBalancer = new RandomLoadBalancer(null) {
+            @Override
+            protected int getWarmupDuration() {
+                return WARMUP_DURATION;
+            }
+        };
+        assertWarmup(loadBalancer);
+    }
+
+    @Test
+    public void testWeightConsistentHashWarmup() {
+        WeightConsistentHashLoadBalancer loadBalancer = new WeightConsistentHashLoadBalancer(null) {
+            @Override
+            protected int getWarmupDuration() {
+                return WARMUP_DURATION;
+            }
+        };
+        SofaRequest request = new SofaRequest();
+        request.setInterfaceName("com.alipay.sofa.rpc.test.HelloService");
+        request.setMethodName("sayHello");
+
+        List<ProviderInfo> providers = buildWarmupProviderList();
+        Map<Integer, Integer> cnt = new HashMap<Integer, Integer>();
+        int total = 10000;
+        for (int i = 0; i < total; i++) {
+            request.setMethodArgs(new Object[] { "key" + i });
+            int port = loadBalancer.doSelect(request, providers).getPort();
+            cnt.put(port, cnt.containsKey(port) ? cnt.get(port) + 1 : 1);
+        }
+        // 刚启动的节点只拿到很少的流量
+        Assert.assertTrue(!cnt.containsKey(9000) || cnt.get(9000) < total * 0.05);
+        Assert.assertTrue(cnt.get(9002) > cnt.get(9001));
+    }
+
+    @Test
+    public void testNoWarmup() {
+        RandomLoadBalancer loadBalancer = new RandomLoadBalancer(null);
+        SofaRequest request = new SofaRequest();
+        List<ProviderInfo> providers = buildWarmupProviderList();
+        Map<Integer, Integer> cnt = new HashMap<Integer, Integer>();
+        int total = 30000;
+        for (int i = 0; i < total; i++) {
+            int port = loadBalancer.doSelect(request, providers).getPort();
+            cnt.put(port, cnt.containsKey(port) ? cnt.get(port) + 1 : 1);
+        }
+        int avg = total / providers.size();
+        for (int count : cnt.values()) {
+            Assert.assertTrue(avg * 0.9 < count && avg * 1.1 > count);
+        }
+    }
+
+    private void assertWarmup(RandomLoadBalancer loadBalancer) {
+        SofaRequest request = new SofaRequest();
+        List<ProviderInfo> providers = buildWarmupProviderList();
+        Map<Integer, Integer> cnt = new HashMap<Integer, Integer>();
+        int total = 30000;
+        for (int i = 0; i < total; i++) {
+            int port = loadBalancer.doSelect(request, providers).getPort();
+            cnt.put(port, cnt.containsKey(port) ? cnt.get(port) + 1 : 1);
+        }
+        // 权重约为 1 : 50 : 100
+        Assert.assertTrue(!cnt.containsKey(9000) || cnt.get(9000) < total * 0.02);
+        int half = cnt.get(9001);
+        int full = cnt.get(9002);
+        Assert.assertTrue(full * 0.4 < half && full * 0.6 > half);
+    }
+
+    /**
+     * 三个节点：刚启动、预热到一半、已经预热完成
+     */
+    private List<ProviderInfo> buildWarmupProviderList() {
+        long now = System.currentTimeMillis();
+        long[] startTimes = new long[] { now, now - WARMUP_DURATION / 2, now - WARMUP_DURATION * 2L };
+        List<ProviderInfo> providers = new ArrayList<ProviderInfo>();
+        for (int i = 0; i < startTimes.length; i++) {
+            ProviderInfo provider = new ProviderInfo();
+            provider.setHost("127.0.0.2");
+            provider.setPort(9000 + i);
+            provider.setStaticAttr(ProviderInfoAttrs.ATTR_START_TIME, String.valueOf(startTimes[i]));
+            providers.add(provider);
+        }
+        return providers;
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.client.router;
+
+import com.alipay.sofa.rpc.bootstrap.ConsumerBootstrap;
+import com.alipay.sofa.rpc.client.AddressHolder;
+import com.alipay.sofa.rpc.client.Cluster;
+import com.alipay.sofa.rpc.client.FailoverCluster;
+import com.alipay.sofa.rpc.client.ProviderGroup;
+import com.alipay.sofa.rpc.client.ProviderInfo;
+import com.alipay.sofa.rpc.client.ProviderInfoAttrs;
+import com.alipay.sofa.rpc.client.ProviderStatus;
+import com.alipay.sofa.rpc.client.SingleGroupAddressHolder;
+import com.alipay.sofa.rpc.common.SystemInfo;
+import com.alipay.sofa.rpc.config.ConsumerConfig;
+import com.alipay.sofa.rpc.core.request.SofaRequest;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TopologyRouterTest {
+
+    @Test
+    public void testPreferClosest() {
+        TopologyRouter router = buildRouter("zone1");
+        List<ProviderInfo> providers = buildProviders(2, 3, 5);
+
+        List<ProviderInfo> result = router.route(new SofaRequest(), providers);
+        Assert.assertEquals(2, result.size());
+        for (ProviderInfo providerInfo : result) {
+            Assert.assertEquals(SystemInfo.getLocalHost(), providerInfo.getHost());
+        }
+        // 返回的是副本，修改不影响下次路由
+        result.clear();
+        Assert.assertEquals(2, router.route(new SofaRequest(), providers).size());
+
+        // 本机一半不健康，仍然不低于阈值
+        providers.get(0).setStatus(ProviderStatus.DISABLED);
+        Assert.assertEquals(2, router.route(new SofaRequest(), providers).size());
+
+        // 本机全部不健康，溢出到同区域
+        providers.get(1).setStatus(ProviderStatus.DISABLED);
+        result = router.route(new SofaRequest(), providers);
+        Assert.assertEquals(5, result.size());
+
+        // 同区域健康容量为 3/5，不低于阈值
+        Assert.assertEquals(5, router.route(new SofaRequest(), providers).size());
+    }
+
+    @Test
+    public void testSpillover() {
+        TopologyRouter router = buildRouter(null);
+        List<ProviderInfo> providers = buildProviders(3, 0, 5);
+        providers.get(0).setStatus(ProviderStatus.DISABLED);
+        providers.get(1).setStatus(ProviderStatus.DISABLED);
+
+        // 本机健康容量 33%，阈值 50%，约 2/3 的流量留在本机
+        int total = 10000;
+        int local = 0;
+        for (int i = 0; i < total; i++) {
+            List<ProviderInfo> result = router.route(new SofaRequest(), providers);
+            if (result.size() == 3) {
+                local++;
+            } else {
+                Assert.assertEquals(8, result.size());
+            }
+        }
+        Assert.assertTrue(local > total * 0.6 && local < total * 0.73);
+    }
+
+    @Test
+    public void testNoTopology() {
+        TopologyRouter router = buildRouter(null);
+        List<ProviderInfo> providers = buildProviders(0, 3, 5);
+        // 没有本机也没有区域信息，原样返回
+        Assert.assertSame(providers, router.route(new SofaRequest(), providers));
+
+        providers = buildProviders(3, 0, 0);
+        Assert.assertSame(providers, router.route(new SofaRequest(), providers));
+    }
+
+    @Test
+    public void testAddressChanged() {
+        TopologyRouter router = buildRouter("zone1");
+        List<ProviderInfo> providers = buildProviders(0, 2, 5);
+        Assert.assertEquals(2, router.route(new SofaRequest(), providers).size());
+
+        // 地址变化后重新分层
+        providers = new ArrayList<ProviderInfo>(providers);
+        providers.addAll(buildProviders(1, 0, 0));
+        Assert.assertEquals(1, router.route(new SofaRequest(), providers).size());
+
+        // 列表被原地修改
+        providers.remove(providers.size() - 1);
+        Assert.assertEquals(2, router.route(new SofaRequest(), providers).size());
+    }
+
+    @Test
+    public void testFilteredByPreviousRouter() {
+        TopologyRouter router = buildRouter("zone1");
+        List<ProviderInfo> local = buildProviders(2, 0, 0);
+        List<ProviderInfo> others = buildProviders(0, 3, 5);
+
+        // 前面的路由器按请求过滤，每次给出数量相同、内容不同的新列表
+        for (int i = 0; i < 3; i++) {
+            List<ProviderInfo> filtered = new ArrayList<ProviderInfo>(others);
+            List<ProviderInfo> result = router.route(new SofaRequest(), filtered);
+            Assert.assertEquals(3, result.size());
+            Assert.assertTrue(filtered.containsAll(result));
+
+            filtered = new ArrayList<ProviderInfo>(local);
+            filtered.addAll(others.subList(2, others.size()));
+            result = router.route(new SofaRequest(), filtered);
+            Assert.assertEquals(2, result.size());
+            Assert.assertTrue(local.containsAll(result));
+        }
+    }
+
+    @Test
+    public void testCachedByAddressGroup() {
+        SingleGroupAddressHolder addressHolder = new SingleGroupAddressHolder(null) {
+        };
+        addressHolder.updateProviders(new ProviderGroup(buildProviders(2, 3, 5)));
+        ConsumerBootstrap bootstrap = buildBootstrap("zone1", addressHolder);
+        RegistryRouter registryRouter = new RegistryRouter();
+        registryRouter.init(bootstrap);
+        TopologyRouter router = new TopologyRouter();
+        router.init(bootstrap);
+
+        // 注册中心路由每次返回地址分组的副本，分层结果复用
+        List<ProviderInfo> result = router.route(new SofaRequest(), registryRouter.route(new SofaRequest(), null));
+        Assert.assertEquals(2, result.size());
+        List<List<ProviderInfo>> tiers = router.getTiers();
+        result = router.route(new SofaRequest(), registryRouter.route(new SofaRequest(), null));
+        Assert.assertEquals(2, result.size());
+        Assert.assertSame(tiers, router.getTiers());
+
+        // 按请求过滤出的列表重新分层，但不替换缓存
+        List<ProviderInfo> filtered = registryRouter.route(new SofaRequest(), null);
+        filtered.remove(0);
+        Assert.assertEquals(1, router.route(new SofaRequest(), filtered).size());
+        Assert.assertSame(tiers, router.getTiers());
+
+        // 地址变化后重新分层
+        addressHolder.updateProviders(new ProviderGroup(buildProviders(0, 3, 5)));
+        result = router.route(new SofaRequest(), registryRouter.route(new SofaRequest(), null));
+        Assert.assertEquals(3, result.size());
+        Assert.assertNotSame(tiers, router.getTiers());
+    }
+
+    private TopologyRouter buildRouter(String zone) {
+        TopologyRouter router = new TopologyRouter();
+        router.init(buildBootstrap(zone));
+        return router;
+    }
+
+    private ConsumerBootstrap buildBootstrap(String zone) {
+        return buildBootstrap(zone, null);
+    }
+
+    private ConsumerBootstrap buildBootstrap(String zone, final AddressHolder holder) {
+        ConsumerConfig consumerConfig = new ConsumerConfig();
+        if (zone != null) {
+            consumerConfig.setParameter(ProviderInfoAttrs.ATTR_ZONE, zone);
+        }
+        return new ConsumerBootstrap(consumerConfig) {
+            @Override
+            public Object refer() {
+                return null;
+            }
+
+            @Override
+            public void unRefer() {
+            }
+
+            @Override
+            public Object getProxyIns() {
+                return null;
+            }
+
+            @Override
+            public Cluster getCluster() {
+                if (holder == null) {
+                    return null;
+                }
+                return new FailoverCluster(this) {
+                    @Override
+                    public AddressHolder getAddressHolder() {
+                        return holder;
+                    }
+                };
+            }
+
+            @Override
+            public List<ProviderGroup> subscribe() {
+                return null;
+            }
+
+            @Override
+            public boolean isSubscribed() {
+                return false;
+            }
+        };
+    }
+
+    private List<ProviderInfo> buildProviders(int sameHost, int sameZone, int others) {
+        List<ProviderInfo> providers = new ArrayList<ProviderInfo>();
+        int port = 12200;
+        for (int i = 0; i < sameHost; i++) {
+            providers.add(new ProviderInfo().setHost(SystemInfo.getLocalHost()).setPort(port++));
+        }
+        for (int i = 0; i < sameZone; i++) {
+            ProviderInfo providerInfo = new ProviderInfo().setHost("10.0.0.1").setPort(port++);
+            providerInfo.setStaticAttr(ProviderInfoAttrs.ATTR_ZONE, "zone1");
+            providers.add(providerInfo);
+        }
+        for (int i = 0; i < others; i++) {
+            ProviderInfo providerInfo = new ProviderInfo().setHost("10.0.1.1").setPort(port++);
+            providerInfo.setStaticAttr(ProviderInfoAttrs.ATTR_ZONE, "zone2");
+            providers.add(providerInfo);
+        }
+        return providers;
+    }
+}
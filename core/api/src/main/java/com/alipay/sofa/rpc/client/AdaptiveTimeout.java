@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.client;
+
+/**
+ * 一个服务方法在一个服务提供者上的自适应超时：最近的耗时分位数乘以倍数，再限定在最小值和最大值之间。
+ *
+ * @since 5.7.9
+ */
+public class AdaptiveTimeout {
+
+    /**
+     * 重新计算建议超时的间隔（毫秒）
+     */
+    static final long              REFRESH_INTERVAL = 1000;
+
+    private final String           service;
+    private final String           method;
+    private final String           provider;
+    private final double           percentile;
+    private final double           multiplier;
+    private final int              minTimeout;
+    private final int              maxTimeout;
+    private final int              minSamples;
+    private final long             windowMillis;
+    private final long             createTime;
+    private final LatencyHistogram histogram;
+
+    /**
+     * 最近一次计算的耗时分位数，-1 表示样本不足
+     */
+    private volatile long          latency          = -1;
+    /**
+     * 最近一次计算的建议超时，-1 表示样本不足
+     */
+    private volatile int           timeout          = -1;
+    /**
+     * 最近一次计算的时间
+     */
+    private volatile long          refreshTime;
+    /**
+     * 是否已经从管理器删除
+     */
+    private volatile boolean       removed;
+
+    public AdaptiveTimeout(String service, String method, String provider, double percentile, double multiplier,
+                           int minTimeout, int maxTimeout, int minSamples, long windowMillis, long now) {
+        this.service = service;
+        this.method = method;
+        this.provider = provider;
+        this.percentile = percentile;
+        this.multiplier = multiplier;
+        this.minTimeout = minTimeout;
+        this.maxTimeout = maxTimeout;
+        this.minSamples = minSamples;
+        this.windowMillis = windowMillis;
+        this.createTime = now;
+        this.histogram = new LatencyHistogram(windowMillis, now);
+        this.refreshTime = now;
+    }
+
+    /**
+     * 记录一次调用耗时
+     *
+     * @param elapsed 耗时（毫秒）
+     * @param now     当前时间
+     */
+    public void record(long elapsed, long now) {
+        histogram.record(elapsed, now);
+    }
+
+    /**
+     * 按最近一次计算的耗时分位数得到建议超时
+     *
+     * @param configured 配置的超时，未配置最大超时时作为上限
+     * @return 建议超时，样本不足时返回配置的超时
+     */
+    public int resolve(int configured) {
+        int timeout = this.timeout;
+        if (timeout < 0) {
+            return configured;
+        }
+        if (maxTimeout <= 0 && configured > 0 && timeout > configured) {
+            return configured;
+        }
+        return timeout;
+    }
+
+    /**
+     * 距上次计算是否已超过 {@link #REFRESH_INTERVAL}
+     *
+     * @param now 当前时间
+     * @return 是否需要重新计算
+     */
+    boolean needRefresh(long now) {
+        return now - refreshTime >= REFRESH_INTERVAL;
+    }
+
+    /**
+     * 重新计算耗时分位数
+     *
+     * @param now 当前时间
+     * @return 建议超时是否变化
+     */
+    boolean refresh(long now) {
+        refreshTime = now;
+        long latency = histogram.getCount(now) < minSamples ? -1 : histogram.getPercentile(percentile, now);
+        int timeout = latency < 0 ? -1 : (int) Math.max((long) Math.ceil(latency * multiplier), minTimeout);
+        if (maxTimeout > 0 && timeout > maxTimeout) {
+            timeout = maxTimeout;
+        }
+        this.latency = latency;
+        if (timeout != this.timeout) {
+            this.timeout = timeout;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 创建超过两个窗口，且最近两个窗口内没有调用
+     *
+     * @param now 当前时间
+     * @return 是否空闲
+     */
+    boolean isIdle(long now) {
+        return now - createTime >= 2 * windowMillis && histogram.getCount(now) == 0;
+    }
+
+    boolean isRemoved() {
+        return removed;
+    }
+
+    void setRemoved() {
+        this.removed = true;
+    }
+
+    public String getService() {
+        return service;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getProvider() {
+        return provider;
+    }
+
+    /**
+     * 最近一次计算的耗时分位数
+     *
+     * @return 耗时（毫秒），-1 表示样本不足
+     */
+    public long getLatency() {
+        return latency;
+    }
+
+    /**
+     * 最近一次计算的建议超时，未限定配置的超时上限
+     *
+     * @return 建议超时（毫秒），-1 表示样本不足
+     */
+    public int getTimeout() {
+        return timeout;
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.client;
+
+import com.alipay.sofa.rpc.common.RpcConfigs;
+import com.alipay.sofa.rpc.common.RpcOptions;
+import com.alipay.sofa.rpc.common.struct.NamedThreadFactory;
+import com.alipay.sofa.rpc.common.utils.ThreadPoolUtils;
+import com.alipay.sofa.rpc.context.RpcRuntimeContext;
+import com.alipay.sofa.rpc.listener.AdaptiveTimeoutListener;
+import com.alipay.sofa.rpc.log.Logger;
+import com.alipay.sofa.rpc.log.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 客户端的自适应超时统计，按 服务 --> 方法 --> 服务提供者 保存最近的调用耗时分布。
+ * <p>
+ * 只有调用过 {@link #resolve(String, String, ProviderInfo, int)} 的方法才会创建统计，
+ * {@link #record(String, String, ProviderInfo, long)} 不会创建统计，未开启时只有一次空表查找。
+ * 建议超时变化后在单独的通知线程里回调监听器，不占用调用线程。
+ *
+ * @since 5.7.9
+ */
+public final class AdaptiveTimeoutManager {
+
+    private static final Logger                                                                                     LOGGER    = LoggerFactory
+                                                                                                                                  .getLogger(AdaptiveTimeoutManager.class);
+
+    /**
+     * 服务 --> 方法 --> 服务提供者 --> 自适应超时
+     */
+    private static final ConcurrentMap<String, ConcurrentMap<String, ConcurrentMap<ProviderInfo, AdaptiveTimeout>>> TIMEOUTS  = new ConcurrentHashMap<String, ConcurrentMap<String, ConcurrentMap<ProviderInfo, AdaptiveTimeout>>>();
+
+    private static final List<AdaptiveTimeoutListener>                                                              LISTENERS = new CopyOnWriteArrayList<AdaptiveTimeoutListener>();
+
+    /**
+     * 通知监听器的线程池，单线程保证通知有序，队列满时丢弃（变化通知下次还会再发）
+     */
+    private static volatile ThreadPoolExecutor                                                                      notifyExecutor;
+
+    private AdaptiveTimeoutManager() {
+    }
+
+    /**
+     * 计算调用的超时，统计不存在时创建
+     *
+     * @param service    服务唯一名
+     * @param method     方法名
+     * @param provider   服务提供者
+     * @param configured 配置的超时
+     * @return 建议超时，样本不足时返回配置的超时
+     */
+    public static int resolve(String service, String method, ProviderInfo provider, int configured) {
+        long now = RpcRuntimeContext.now();
+        AdaptiveTimeout adaptiveTimeout = getOrCreate(service, method, provider, now);
+        if (adaptiveTimeout.needRefresh(now) && adaptiveTimeout.refresh(now) && !LISTENERS.isEmpty()) {
+            notifyListeners(adaptiveTimeout, false);
+        }
+        return adaptiveTimeout.resolve(configured);
+    }
+
+    private static void notifyRemoved(AdaptiveTimeout adaptiveTimeout) {
+        adaptiveTimeout.setRemoved();
+        if (!LISTENERS.isEmpty()) {
+            notifyListeners(adaptiveTimeout, true);
+        }
+    }
+
+    private static void notifyListeners(final AdaptiveTimeout adaptiveTimeout, final boolean removed) {
+        try {
+            getNotifyExecutor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    // 删除之后才执行的变化通知直接忽略，避免删除后又注册
+                    if (!removed && adaptiveTimeout.isRemoved()) {
+                        return;
+                    }
+                    for (AdaptiveTimeoutListener listener : LISTENERS) {
+                        try {
+                            if (removed) {
+                                listener.onRemoved(adaptiveTimeout);
+                            } else {
+                                listener.onChanged(adaptiveTimeout);
+                            }
+                        } catch (Exception e) {
+                            LOGGER.warn("Failed to notify adaptive timeout of " + adaptiveTimeout.getService() +
+                                "#" + adaptiveTimeout.getMethod(), e);
+                        }
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            if (removed) {
+                LOGGER.warn("Discard adaptive timeout removal of " + adaptiveTimeout.getService() + "#" +
+                    adaptiveTimeout.getMethod());
+            } else if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Discard adaptive timeout notification of " + adaptiveTimeout.getService() + "#" +
+                    adaptiveTimeout.getMethod());
+            }
+        }
+    }
+
+    private static ThreadPoolExecutor getNotifyExecutor() {
+        if (notifyExecutor == null) {
+            synchronized (AdaptiveTimeoutManager.class) {
+                if (notifyExecutor == null) {
+                    ThreadPoolExecutor executor = ThreadPoolUtils.newFixedThreadPool(1,
+                        ThreadPoolUtils.buildQueue(1024), new NamedThreadFactory("Adaptive-Timeout-Notify", true),
+                        new ThreadPoolExecutor.AbortPolicy());
+                    executor.setKeepAliveTime(60, TimeUnit.SECONDS);
+                    executor.allowCoreThreadTimeOut(true);
+                    notifyExecutor = executor;
+                }
+            }
+        }
+        return notifyExecutor;
+    }
+
+    /**
+     * 记录调用耗时，统计不存在时忽略
+     *
+     * @param service  服务唯一名
+     * @param method   方法名
+     * @param provider 服务提供者
+     * @param elapsed  耗时（毫秒）
+     */
+    public static void record(String service, String method, ProviderInfo provider, long elapsed) {
+        if (service == null || method == null || provider == null) {
+            return;
+        }
+        ConcurrentMap<String, ConcurrentMap<ProviderInfo, AdaptiveTimeout>> methods = TIMEOUTS.get(service);
+        if (methods == null) {
+            return;
+        }
+        ConcurrentMap<ProviderInfo, AdaptiveTimeout> providers = methods.get(method);
+        if (providers == null) {
+            return;
+        }
+        AdaptiveTimeout adaptiveTimeout = providers.get(provider);
+        if (adaptiveTimeout != null) {
+            adaptiveTimeout.record(elapsed, RpcRuntimeContext.now());
+        }
+    }
+
+    private static AdaptiveTimeout getOrCreate(String service, String method, ProviderInfo provider, long now) {
+        ConcurrentMap<String, ConcurrentMap<ProviderInfo, AdaptiveTimeout>> methods = TIMEOUTS.get(service);
+        if (methods == null) {
+            methods = new ConcurrentHashMap<String, ConcurrentMap<ProviderInfo, AdaptiveTimeout>>();
+            ConcurrentMap<String, ConcurrentMap<ProviderInfo, AdaptiveTimeout>> old = TIMEOUTS.putIfAbsent(service,
+                methods);
+            if (old != null) {
+                methods = old;
+            }
+        }
+        ConcurrentMap<ProviderInfo, AdaptiveTimeout> providers = methods.get(method);
+        if (providers == null) {
+            providers = new ConcurrentHashMap<ProviderInfo, AdaptiveTimeout>();
+            ConcurrentMap<ProviderInfo, AdaptiveTimeout> old = methods.putIfAbsent(method, providers);
+            if (old != null) {
+                providers = old;
+            }
+        }
+        AdaptiveTimeout adaptiveTimeout = providers.get(provider);
+        if (adaptiveTimeout == null) {
+            // 新的服务提供者出现时顺便清理已经下线（两个窗口内没有调用）的服务提供者
+            for (Iterator<AdaptiveTimeout> it = providers.values().iterator(); it.hasNext();) {
+                AdaptiveTimeout idle = it.next();
+                if (idle.isIdle(now)) {
+                    it.remove();
+                    notifyRemoved(idle);
+                }
+            }
+            adaptiveTimeout = new AdaptiveTimeout(service, method, provider.getHost() + ":" + provider.getPort(),
+                RpcConfigs.getOrDefaultValue(RpcOptions.CONSUMER_TIMEOUT_ADAPTIVE_PERCENTILE, 99d),
+                RpcConfigs.getOrDefaultValue(RpcOptions.CONSUMER_TIMEOUT_ADAPTIVE_MULTIPLIER, 2d),
+                RpcConfigs.getIntValue(RpcOptions.CONSUMER_TIMEOUT_ADAPTIVE_MIN),
+                RpcConfigs.getIntValue(RpcOptions.CONSUMER_TIMEOUT_ADAPTIVE_MAX),
+                RpcConfigs.getIntValue(RpcOptions.CONSUMER_TIMEOUT_ADAPTIVE_MIN_SAMPLES),
+                RpcConfigs.getIntValue(RpcOptions.CONSUMER_TIMEOUT_ADAPTIVE_WINDOW), now);
+            AdaptiveTimeout old = providers.putIfAbsent(provider, adaptiveTimeout);
+            if (old != null) {
+                adaptiveTimeout = old;
+            }
+        }
+        return adaptiveTimeout;
+    }
+
+    /**
+     * 方法在所有服务提供者上的最大建议超时
+     *
+     * @param service 服务唯一名
+     * @param method  方法名
+     * @return 建议超时，样本不足时返回-1
+     */
+    public static int getMaxTimeout(String service, String method) {
+        int max = -1;
+        Map<String, ConcurrentMap<ProviderInfo, AdaptiveTimeout>> methods = TIMEOUTS.get(service);
+        Map<ProviderInfo, AdaptiveTimeout> providers = methods == null ? null : methods.get(method);
+        if (providers != null) {
+            for (AdaptiveTimeout adaptiveTimeout : providers.values()) {
+                max = Math.max(max, adaptiveTimeout.getTimeout());
+            }
+        }
+        return max;
+    }
+
+    /**
+     * 当前所有的自适应超时
+     *
+     * @return 自适应超时列表
+     */
+    public static List<AdaptiveTimeout> getAdaptiveTimeouts() {
+        List<AdaptiveTimeout> result = new ArrayList<AdaptiveTimeout>();
+        for (Map<String, ConcurrentMap<ProviderInfo, AdaptiveTimeout>> methods : TIMEOUTS.values()) {
+            for (Map<ProviderInfo, AdaptiveTimeout> providers : methods.values()) {
+                result.addAll(providers.values());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 删除服务的统计
+     *
+     * @param service 服务唯一名
+     */
+    public static void remove(String service) {
+        Map<String, ConcurrentMap<ProviderInfo, AdaptiveTimeout>> methods = TIMEOUTS.remove(service);
+        if (methods != null) {
+            for (Map<ProviderInfo, AdaptiveTimeout> providers : methods.values()) {
+                for (AdaptiveTimeout adaptiveTimeout : providers.values()) {
+                    notifyRemoved(adaptiveTimeout);
+                }
+            }
+        }
+    }
+
+    public static void addListener(AdaptiveTimeoutListener listener) {
+        LISTENERS.add(listener);
+    }
+
+    public static void removeListener(AdaptiveTimeoutListener listener) {
+        LISTENERS.remove(listener);
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.client;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 无锁的耗时分布统计，按对数分桶（每个 2 的幂区间 16 个桶，误差约 6%），只保留最近两个时间窗口的数据。
+ *
+ * @since 5.7.9
+ */
+public class LatencyHistogram {
+
+    /**
+     * 小于该值的耗时每毫秒一个桶
+     */
+    private static final int LINEAR_BUCKETS = 32;
+    /**
+     * 每个 2 的幂区间的桶数（2^4）
+     */
+    private static final int SUB_BITS       = 4;
+    /**
+     * 记录的最大耗时（毫秒），超过的按该值记录
+     */
+    public static final long MAX_VALUE      = (1L << 24) - 1;
+    /**
+     * 桶数
+     */
+    public static final int  BUCKETS        = bucketOf(MAX_VALUE) + 1;
+
+    /**
+     * 窗口长度（毫秒）
+     */
+    private final long       windowMillis;
+    /**
+     * 当前窗口
+     */
+    private volatile Window  current;
+    /**
+     * 上一个窗口
+     */
+    private volatile Window  previous;
+
+    public LatencyHistogram(long windowMillis, long now) {
+        this.windowMillis = windowMillis;
+        this.current = new Window(now);
+        this.previous = new Window(now);
+    }
+
+    /**
+     * 记录一次耗时
+     *
+     * @param millis 耗时（毫秒）
+     * @param now    当前时间
+     */
+    public void record(long millis, long now) {
+        Window window = rotate(now);
+        int bucket = bucketOf(millis < 0 ? 0 : Math.min(millis, MAX_VALUE));
+        window.counts.incrementAndGet(bucket);
+    }
+
+    /**
+     * 最近两个窗口的记录数
+     *
+     * @param now 当前时间
+     * @return 记录数
+     */
+    public long getCount(long now) {
+        Window window = rotate(now);
+        Window last = previous;
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += window.counts.get(i) + last.counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * 最近两个窗口的分位数，取所在桶的上界
+     *
+     * @param percentile 百分位，例如 99
+     * @param now        当前时间
+     * @return 耗时（毫秒），没有记录时返回-1
+     */
+    public long getPercentile(double percentile, long now) {
+        Window window = rotate(now);
+        Window last = previous;
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = window.counts.get(i) + last.counts.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return -1;
+        }
+        long rank = (long) Math.ceil(total * Math.min(Math.max(percentile, 0d), 100d) / 100d);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank && counts[i] > 0) {
+                return upperBoundOf(i);
+            }
+        }
+        return upperBoundOf(BUCKETS - 1);
+    }
+
+    private Window rotate(long now) {
+        Window window = current;
+        if (now - window.start < windowMillis) {
+            return window;
+        }
+        synchronized (this) {
+            window = current;
+            if (now - window.start >= windowMillis) {
+                // 空闲超过两个窗口时上一个窗口也过期了
+                previous = now - window.start >= 2 * windowMillis ? new Window(now) : window;
+                window = new Window(now);
+                current = window;
+            }
+            return window;
+        }
+    }
+
+    /**
+     * 耗时所在的桶，耗时不能超过 {@link #MAX_VALUE}
+     *
+     * @param value 耗时（毫秒）
+     * @return 桶下标
+     */
+    public static int bucketOf(long value) {
+        if (value < LINEAR_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & ((1 << SUB_BITS) - 1);
+        return LINEAR_BUCKETS + ((exponent - 5) << SUB_BITS) + sub;
+    }
+
+    /**
+     * 桶内的最大耗时
+     *
+     * @param bucket 桶下标
+     * @return 耗时（毫秒）
+     */
+    public static long upperBoundOf(int bucket) {
+        if (bucket < LINEAR_BUCKETS) {
+            return bucket;
+        }
+        int exponent = ((bucket - LINEAR_BUCKETS) >>> SUB_BITS) + 5;
+        long sub = (bucket - LINEAR_BUCKETS) & ((1 << SUB_BITS) - 1);
+        long lower = (1L << exponent) + (sub << (exponent - SUB_BITS));
+        return lower + (1L << (exponent - SUB_BITS)) - 1;
+    }
+
+    private static final class Window {
+
+        private final long            start;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+        private Window(long start) {
+            this.start = start;
+        }
+    }
+}
@@ -66,6 +66,11 @@ public final class ProviderInfoAttrs {
      */
     public static final String ATTR_HOST_MACHINE          = "hostMachine";
 
+    /**
+     * 静态配置key:zone 所在区域
+     */
+    public static final String ATTR_ZONE                  = "zone";
+
     /*=====动态配置=====*/
     /**
      * 动态配置key:interface
@@ -107,4 +112,9 @@ public final class ProviderInfoAttrs {
      */
     public static final String ATTR_RC_PERIOD_COEFFICIENT = "reconnectCoefficient";
 
+    /**
+     * 动态配置key：supportCompress 服务端声明支持的压缩算法
+     */
+    public static final String ATTR_SUPPORT_COMPRESS      = "supportCompress";
+
 }
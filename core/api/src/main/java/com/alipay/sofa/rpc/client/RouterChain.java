@@ -26,7 +26,6 @@ import com.alipay.sofa.rpc.ext.ExtensionClass;
 import com.alipay.sofa.rpc.ext.ExtensionLoader;
 import com.alipay.sofa.rpc.ext.ExtensionLoaderFactory;
 import com.alipay.sofa.rpc.ext.ExtensionLoaderListener;
-import com.alipay.sofa.rpc.filter.AutoActive;
 import com.alipay.sofa.rpc.log.Logger;
 import com.alipay.sofa.rpc.log.LoggerFactory;
 
@@ -73,19 +72,18 @@ public class RouterChain {
         extensionLoader.addListener(new ExtensionLoaderListener<Router>() {
             @Override
             public void onLoad(ExtensionClass<Router> extensionClass) {
-                Class<? extends Router> implClass = extensionClass.getClazz();
-                // 读取自动加载的类列表。
-                AutoActive autoActive = implClass.getAnnotation(AutoActive.class);
-                if (autoActive != null) {
+                // 读取自动加载的类列表，不需要加载实现类
+                if (extensionClass.isProviderSideAutoActive() || extensionClass.isConsumerSideAutoActive()) {
                     String alias = extensionClass.getAlias();
-                    if (autoActive.providerSide()) {
+                    if (extensionClass.isProviderSideAutoActive()) {
                         PROVIDER_AUTO_ACTIVES.put(alias, extensionClass);
                     }
-                    if (autoActive.consumerSide()) {
+                    if (extensionClass.isConsumerSideAutoActive()) {
                         CONSUMER_AUTO_ACTIVES.put(alias, extensionClass);
                     }
                     if (LOGGER.isDebugEnabled()) {
-                        LOGGER.debug("Extension of interface " + Router.class + ", " + implClass + "(" + alias +
+                        LOGGER.debug("Extension of interface " + Router.class + ", " + extensionClass.getClassName() +
+                            "(" + alias +
                             ") will auto active");
                     }
                 }
@@ -153,7 +151,8 @@ public class RouterChain {
         // 解析自动加载的router
         if (!excludes.contains(StringUtils.ALL) && !excludes.contains(StringUtils.DEFAULT)) { // 配了-*和-default表示不加载内置
             for (Map.Entry<String, ExtensionClass<Router>> entry : CONSUMER_AUTO_ACTIVES.entrySet()) {
-                if (!excludes.contains(entry.getKey())) {
+                // 实现类加载失败的扩展不可用
+                if (!excludes.contains(entry.getKey()) && EXTENSION_LOADER.isAvailable(entry.getValue())) {
                     extensionRouters.add(entry.getValue());
                 }
             }
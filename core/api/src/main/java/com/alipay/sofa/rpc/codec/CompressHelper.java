@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.codec;
+
+import com.alipay.sofa.rpc.client.ProviderInfo;
+import com.alipay.sofa.rpc.client.ProviderInfoAttrs;
+import com.alipay.sofa.rpc.common.RemotingConstants;
+import com.alipay.sofa.rpc.common.RpcConfigs;
+import com.alipay.sofa.rpc.common.RpcOptions;
+import com.alipay.sofa.rpc.common.utils.StringUtils;
+import com.alipay.sofa.rpc.core.request.SofaRequest;
+import com.alipay.sofa.rpc.core.response.SofaResponse;
+
+/**
+ * 消息体压缩的辅助类，按协商好的压缩算法和大小基线决定是否压缩
+ */
+public final class CompressHelper {
+
+    private CompressHelper() {
+    }
+
+    /**
+     * 解析调用方使用的压缩算法，未配置时如果开启了全局压缩则使用默认压缩算法
+     *
+     * @param compress 接口或者方法级别配置的压缩算法
+     * @return 压缩算法，不压缩或者不支持该算法时返回null
+     */
+    public static String resolveCompress(String compress) {
+        if (StringUtils.isEmpty(compress)) {
+            if (!RpcConfigs.getBooleanValue(RpcOptions.COMPRESS_OPEN)) {
+                return null;
+            }
+            compress = RpcConfigs.getStringValue(RpcOptions.DEFAULT_COMPRESS);
+        }
+        return CompressorFactory.isSupport(compress) ? compress : null;
+    }
+
+    /**
+     * 决定请求体使用的压缩算法：只有服务端在之前的响应里声明支持该算法时才压缩，
+     * 否则老版本的服务端收到压缩过的请求体会无法解析
+     *
+     * @param providerInfo 服务提供者
+     * @param request      请求
+     * @return 请求体使用的压缩算法，不压缩时返回null
+     */
+    public static String resolveRequestCompress(ProviderInfo providerInfo, SofaRequest request) {
+        if (providerInfo == null) {
+            return null;
+        }
+        Object accept = request.getRequestProp(RemotingConstants.HEAD_ACCEPT_COMPRESS);
+        if (accept == null) {
+            return null;
+        }
+        Object support = providerInfo.getDynamicAttr(ProviderInfoAttrs.ATTR_SUPPORT_COMPRESS);
+        return accept.equals(support) ? (String) accept : null;
+    }
+
+    /**
+     * 记录服务端在响应里声明支持的压缩算法
+     *
+     * @param providerInfo 服务提供者
+     * @param response     响应
+     */
+    public static void recordSupportCompress(ProviderInfo providerInfo, SofaResponse response) {
+        if (providerInfo == null || response == null) {
+            return;
+        }
+        String support = response.getCompressType();
+        if (support != null && !support.equals(providerInfo.getDynamicAttr(ProviderInfoAttrs.ATTR_SUPPORT_COMPRESS))) {
+            providerInfo.setDynamicAttr(ProviderInfoAttrs.ATTR_SUPPORT_COMPRESS, support);
+        }
+    }
+
+    /**
+     * 数据达到压缩基线时进行压缩，压缩后没有变小则放弃压缩
+     *
+     * @param compress 压缩算法，为空代表不压缩
+     * @param data     原始数据
+     * @return 压缩后的数据，不需要压缩时返回null
+     */
+    public static byte[] compressIfNecessary(String compress, byte[] data) {
+        if (data == null || data.length < RpcConfigs.getIntValue(RpcOptions.COMPRESS_SIZE_BASELINE)
+            || !CompressorFactory.isSupport(compress)) {
+            return null;
+        }
+        byte[] compressed = CompressorFactory.getCompressor(compress).compress(data);
+        return compressed.length < data.length ? compressed : null;
+    }
+
+    /**
+     * 解压缩数据
+     *
+     * @param compress 压缩算法，为空代表未压缩
+     * @param data     收到的数据
+     * @return 解压缩后的数据
+     */
+    public static byte[] deCompress(String compress, byte[] data) {
+        if (StringUtils.isEmpty(compress) || data == null) {
+            return data;
+        }
+        return CompressorFactory.getCompressor(compress).deCompress(data);
+    }
+}
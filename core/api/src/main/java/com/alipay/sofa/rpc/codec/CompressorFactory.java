@@ -73,6 +73,16 @@ public final class CompressorFactory {
         return EXTENSION_LOADER.getExtension(alias);
     }
 
+    /**
+     * 是否存在该压缩算法
+     *
+     * @param alias 压缩算法
+     * @return 是否存在
+     */
+    public static boolean isSupport(String alias) {
+        return alias != null && EXTENSION_LOADER.getExtensionClass(alias) != null;
+    }
+
     /**
      * 按压缩编码返回协议对象
      *
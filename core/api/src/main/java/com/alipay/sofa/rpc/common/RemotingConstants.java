@@ -205,6 +205,42 @@ public class RemotingConstants {
      * @since 5.4.0
      */
     public static final String HEAD_SERIALIZE_TYPE        = "sofa_head_serialize_type";
+    /**
+     * 请求剩余的超时时间（毫秒），服务端据此计算本地截止时间
+     *
+     * @since 5.7.9
+     */
+    public static final String HEAD_TIMEOUT               = "sofa_head_timeout";
+    /**
+     * 消息体使用的压缩算法，为空代表未压缩
+     *
+     * @since 5.7.9
+     */
+    public static final String HEAD_COMPRESS_TYPE         = "sofa_head_compress_type";
+    /**
+     * 调用方可以接受的压缩算法，服务端据此决定是否压缩响应
+     *
+     * @since 5.7.9
+     */
+    public static final String HEAD_ACCEPT_COMPRESS       = "sofa_head_accept_compress";
+    /**
+     * 服务端支持的压缩算法，调用方收到后才会压缩发往该服务端的请求
+     *
+     * @since 5.7.9
+     */
+    public static final String HEAD_SUPPORT_COMPRESS      = "sofa_head_support_compress";
+    /**
+     * 批量请求的子请求是否在服务端并行执行
+     *
+     * @since 5.7.9
+     */
+    public static final String HEAD_BATCH_PARALLEL        = "sofa_head_batch_parallel";
+    /**
+     * 批量请求的方法名，一个批量请求里带着同一个服务的多个子请求
+     *
+     * @since 5.7.9
+     */
+    public static final String BATCH_METHOD_NAME          = "$batch";
 
     /**
      * RPC透传请求链路数据
@@ -34,6 +34,10 @@ public class RpcOptions {
      * 扩展点加载的路径
      */
     public static final String EXTENSION_LOAD_PATH                      = "extension.load.path";
+    /**
+     * 是否使用编译期生成的扩展点索引
+     */
+    public static final String EXTENSION_INDEX_ENABLE                   = "extension.index.enable";
     /**
      * 需要被加载的模块列表，多个用逗号隔开
      *
@@ -65,10 +69,30 @@ public class RpcOptions {
      * 是否支持多ClassLoader支持，如果是但ClassLoader环境，可以关闭提高性能
      */
     public static final String MULTIPLE_CLASSLOADER_ENABLE              = "multiple.classloader.enable";
+    /**
+     * 是否在线程内复用 hessian 序列化上下文，减少每次序列化的对象分配
+     */
+    public static final String SERIALIZE_HESSIAN_REUSE_ENABLE           = "serialize.hessian.reuse.enable";
+    /**
+     * 泛化调用序列化 GenericObject 时是否按类型缓存字段布局，字段变化时自动刷新
+     */
+    public static final String SERIALIZE_GENERIC_DESCRIPTOR_ENABLE      = "serialize.generic.descriptor.enable";
+    /**
+     * jackson 序列化额外注册的 Module 类名，多个逗号分隔，例如 Afterburner、Blackbird
+     */
+    public static final String SERIALIZE_JACKSON_MODULES                = "serialize.jackson.modules";
     /**
      * 是否允许请求和响应透传数据，关闭后，会提高性能
      */
     public static final String INVOKE_BAGGAGE_ENABLE                    = "invoke.baggage.enable";
+    /**
+     * 是否记录服务发布和引用各阶段的耗时
+     */
+    public static final String STARTUP_PROFILE_ENABLE                   = "startup.profile.enable";
+    /**
+     * 最多记录的启动阶段数，超过后丢弃
+     */
+    public static final String STARTUP_PROFILE_MAX_RECORDS              = "startup.profile.max.records";
 
     /**
      * 默认服务提供者启动器
@@ -295,6 +319,10 @@ public class RpcOptions {
      * 默认负载均衡算法
      */
     public static final String CONSUMER_LOAD_BALANCER                   = "consumer.loadBalancer";
+    /**
+     * 默认服务端预热时长（毫秒），在此时间内按启动时长线性放大权重，0表示不预热
+     */
+    public static final String CONSUMER_WARMUP_DURATION                 = "consumer.warmup.duration";
     /**
      * 默认失败重试次数
      */
@@ -315,6 +343,10 @@ public class RpcOptions {
      * 是否jvm内部调用（provider和consumer配置在同一个jvm内，则走本地jvm内部，不走远程）
      */
     public static final String CONSUMER_INJVM                           = "consumer.inJVM";
+    /**
+     * jvm内部调用时是否深拷贝参数和返回值，默认直接传引用
+     */
+    public static final String CONSUMER_INJVM_DEEP_COPY                 = "consumer.inJVM.deepCopy";
     /**
      * 是否强依赖（即没有服务节点就启动失败）
      */
@@ -323,6 +355,18 @@ public class RpcOptions {
      * 接口下每方法的最大可并行执行请求数
      */
     public static final String CONSUMER_CONCURRENTS                     = "consumer.concurrents";
+    /**
+     * 异步调用攒批发送的最大请求数，小于等于1表示不攒批
+     */
+    public static final String CONSUMER_BATCH_SIZE                      = "consumer.batch.size";
+    /**
+     * 异步调用攒批发送的最大等待时间（毫秒）
+     */
+    public static final String CONSUMER_BATCH_WINDOW                    = "consumer.batch.window";
+    /**
+     * 批量请求的子请求是否在服务端并行执行
+     */
+    public static final String CONSUMER_BATCH_PARALLEL                  = "consumer.batch.parallel";
     /**
      * 默认一个ip端口建立的长连接数量
      */
@@ -369,6 +413,48 @@ public class RpcOptions {
      * @since 5.5.0
      */
     public static final String CONCUMER_CONNECT_ELASTIC_SIZE            = "consumer.connect.elastic.size";
+    /**
+     * 拓扑路由：本机所在的区域（zone），服务端通过参数zone声明自己所在的区域
+     *
+     * @see com.alipay.sofa.rpc.client.ProviderInfoAttrs#ATTR_ZONE
+     */
+    public static final String CONSUMER_ROUTER_TOPOLOGY_ZONE            = "consumer.router.topology.zone";
+    /**
+     * 拓扑路由：就近分层的健康容量百分比不低于该值时流量都留在该分层，否则按比例溢出到更远的分层
+     */
+    public static final String CONSUMER_ROUTER_TOPOLOGY_THRESHOLD       = "consumer.router.topology.threshold";
+    /**
+     * 是否开启自适应超时：按最近的调用耗时分位数计算每个服务提供者的超时，调用级别和动态配置的超时优先
+     */
+    public static final String CONSUMER_TIMEOUT_ADAPTIVE_ENABLE         = "consumer.timeout.adaptive.enable";
+    /**
+     * 自适应超时：参考的耗时百分位，例如 99、99.9
+     */
+    public static final String CONSUMER_TIMEOUT_ADAPTIVE_PERCENTILE     = "consumer.timeout.adaptive.percentile";
+    /**
+     * 自适应超时：超时为耗时分位数的倍数
+     */
+    public static final String CONSUMER_TIMEOUT_ADAPTIVE_MULTIPLIER     = "consumer.timeout.adaptive.multiplier";
+    /**
+     * 自适应超时：最小超时（毫秒）
+     */
+    public static final String CONSUMER_TIMEOUT_ADAPTIVE_MIN            = "consumer.timeout.adaptive.min";
+    /**
+     * 自适应超时：最大超时（毫秒），不大于0时取配置的超时
+     */
+    public static final String CONSUMER_TIMEOUT_ADAPTIVE_MAX            = "consumer.timeout.adaptive.max";
+    /**
+     * 自适应超时：统计窗口内样本数不少于该值时才生效
+     */
+    public static final String CONSUMER_TIMEOUT_ADAPTIVE_MIN_SAMPLES    = "consumer.timeout.adaptive.min.samples";
+    /**
+     * 自适应超时：统计窗口（毫秒），保留最近两个窗口的耗时
+     */
+    public static final String CONSUMER_TIMEOUT_ADAPTIVE_WINDOW         = "consumer.timeout.adaptive.window";
+    /**
+     * 自适应超时：是否通过动态配置中心发布方法的建议超时
+     */
+    public static final String CONSUMER_TIMEOUT_ADAPTIVE_PUBLISH        = "consumer.timeout.adaptive.publish";
 
     /**
      * 默认回调线程池最小
@@ -394,6 +480,10 @@ public class RpcOptions {
      * 默认服务端 数据包限制
      */
     public static final String TRANSPORT_PAYLOAD_MAX                    = "transport.payload.max";
+    /**
+     * HTTP/2 服务端单个连接上缓存的未接收完的请求体总大小限制
+     */
+    public static final String TRANSPORT_SERVER_HTTP2_PENDING_MAX       = "transport.server.http2.pending.max";
     /**
      * 默认IO的buffer大小
      */
@@ -460,6 +550,36 @@ public class RpcOptions {
      * Whether the Http2 Cleartext protocol client uses Prior Knowledge to start Http2
      */
     public static final String TRANSPORT_CLIENT_H2C_USE_PRIOR_KNOWLEDGE = "transport.client.h2c.usePriorKnowledge";
+    /**
+     * h2/h2c客户端每个地址（host、port、是否TLS）共享的最大连接数
+     *
+     * @since 5.7.9
+     */
+    public static final String TRANSPORT_CLIENT_H2_POOL_MAX             = "transport.client.h2.pool.max";
+    /**
+     * h2/h2c客户端连接上活跃流达到对端 MAX_CONCURRENT_STREAMS 的百分比后，新建连接分担流量
+     *
+     * @since 5.7.9
+     */
+    public static final String TRANSPORT_CLIENT_H2_POOL_STREAMS_RATIO   = "transport.client.h2.pool.streams.ratio";
+    /**
+     * rest客户端的http引擎：default（基于连接池的阻塞引擎）或者 netty（共享IO线程的异步引擎）
+     *
+     * @since 5.7.9
+     */
+    public static final String TRANSPORT_CLIENT_REST_ENGINE             = "transport.client.rest.engine";
+    /**
+     * rest客户端 netty 引擎每个地址的最大连接数，小于等于0时和默认引擎一致
+     *
+     * @since 5.7.9
+     */
+    public static final String TRANSPORT_CLIENT_REST_POOL_MAX           = "transport.client.rest.pool.max";
+    /**
+     * rest客户端 netty 引擎的空闲连接回收时间（毫秒）
+     *
+     * @since 5.7.9
+     */
+    public static final String TRANSPORT_CLIENT_REST_IDLE_TIMEOUT       = "transport.client.rest.idle.timeout";
     /**
      * 是否开启压缩
      */
@@ -509,6 +629,14 @@ public class RpcOptions {
      * Whether to close lookout collection.
      */
     public static final String LOOKOUT_COLLECT_DISABLE                  = "lookout.collect.disable";
+    /**
+     * Whether to pre-aggregate invocation metrics locally before reporting to lookout.
+     */
+    public static final String LOOKOUT_AGGREGATE_ENABLE                 = "lookout.aggregate.enable";
+    /**
+     * Interval in milliseconds of flushing aggregated invocation metrics to lookout.
+     */
+    public static final String LOOKOUT_AGGREGATE_INTERVAL               = "lookout.aggregate.interval";
 
     /**
      * Automatic fault tolerance regulator
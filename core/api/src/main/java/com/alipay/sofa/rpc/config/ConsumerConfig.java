@@ -40,6 +40,9 @@ import static com.alipay.sofa.rpc.common.RpcConfigs.getIntValue;
 import static com.alipay.sofa.rpc.common.RpcConfigs.getStringValue;
 import static com.alipay.sofa.rpc.common.RpcOptions.CONSUMER_ADDRESS_HOLDER;
 import static com.alipay.sofa.rpc.common.RpcOptions.CONSUMER_ADDRESS_WAIT;
+import static com.alipay.sofa.rpc.common.RpcOptions.CONSUMER_BATCH_PARALLEL;
+import static com.alipay.sofa.rpc.common.RpcOptions.CONSUMER_BATCH_SIZE;
+import static com.alipay.sofa.rpc.common.RpcOptions.CONSUMER_BATCH_WINDOW;
 import static com.alipay.sofa.rpc.common.RpcOptions.CONSUMER_CHECK;
 import static com.alipay.sofa.rpc.common.RpcOptions.CONSUMER_CLUSTER;
 import static com.alipay.sofa.rpc.common.RpcOptions.CONSUMER_CONCURRENTS;
@@ -49,6 +52,7 @@ import static com.alipay.sofa.rpc.common.RpcOptions.CONSUMER_CONNECT_TIMEOUT;
 import static com.alipay.sofa.rpc.common.RpcOptions.CONSUMER_DISCONNECT_TIMEOUT;
 import static com.alipay.sofa.rpc.common.RpcOptions.CONSUMER_HEARTBEAT_PERIOD;
 import static com.alipay.sofa.rpc.common.RpcOptions.CONSUMER_INJVM;
+import static com.alipay.sofa.rpc.common.RpcOptions.CONSUMER_INJVM_DEEP_COPY;
 import static com.alipay.sofa.rpc.common.RpcOptions.CONSUMER_INVOKE_TYPE;
 import static com.alipay.sofa.rpc.common.RpcOptions.CONSUMER_LAZY;
 import static com.alipay.sofa.rpc.common.RpcOptions.CONSUMER_LOAD_BALANCER;
@@ -56,6 +60,7 @@ import static com.alipay.sofa.rpc.common.RpcOptions.CONSUMER_RECONNECT_PERIOD;
 import static com.alipay.sofa.rpc.common.RpcOptions.CONSUMER_REPEATED_REFERENCE_LIMIT;
 import static com.alipay.sofa.rpc.common.RpcOptions.CONSUMER_RETRIES;
 import static com.alipay.sofa.rpc.common.RpcOptions.CONSUMER_STICKY;
+import static com.alipay.sofa.rpc.common.RpcOptions.CONSUMER_WARMUP_DURATION;
 import static com.alipay.sofa.rpc.common.RpcOptions.DEFAULT_PROTOCOL;
 
 /**
@@ -121,6 +126,13 @@ public class ConsumerConfig<T> extends AbstractInterfaceConfig<T, ConsumerConfig
      */
     protected String                                loadBalancer       = getStringValue(CONSUMER_LOAD_BALANCER);
 
+    /**
+     * 服务端预热时长（毫秒），服务端启动后在此时间内权重从小到大线性增长，0表示不预热
+     *
+     * @see com.alipay.sofa.rpc.client.ProviderInfoAttrs#ATTR_START_TIME
+     */
+    protected int                                   warmupDuration     = getIntValue(CONSUMER_WARMUP_DURATION);
+
     /**
      * 是否延迟建立长连接（第一次调用时新建，注意此参数可能和check冲突，开启check后lazy自动失效）
      *
@@ -139,6 +151,11 @@ public class ConsumerConfig<T> extends AbstractInterfaceConfig<T, ConsumerConfig
      */
     protected boolean                               inJVM              = getBooleanValue(CONSUMER_INJVM);
 
+    /**
+     * jvm内部调用时是否深拷贝参数和返回值，默认直接传引用
+     */
+    protected boolean                               inJVMDeepCopy      = getBooleanValue(CONSUMER_INJVM_DEEP_COPY);
+
     /**
      * 是否强依赖（即没有服务节点就启动失败，注意此参数可能和lazy冲突，开启check后lazy自动失效)
      *
@@ -146,6 +163,21 @@ public class ConsumerConfig<T> extends AbstractInterfaceConfig<T, ConsumerConfig
      */
     protected boolean                               check              = getBooleanValue(CONSUMER_CHECK);
 
+    /**
+     * 异步调用攒批发送的最大请求数，小于等于1表示不攒批
+     */
+    protected int                                   batchSize          = getIntValue(CONSUMER_BATCH_SIZE);
+
+    /**
+     * 异步调用攒批发送的最大等待时间（毫秒）
+     */
+    protected int                                   batchWindow        = getIntValue(CONSUMER_BATCH_WINDOW);
+
+    /**
+     * 批量请求的子请求是否在服务端并行执行
+     */
+    protected boolean                               batchParallel      = getBooleanValue(CONSUMER_BATCH_PARALLEL);
+
     /**
      * 长连接个数，不是所有的框架都支持一个地址多个长连接
      */
@@ -493,6 +525,26 @@ public class ConsumerConfig<T> extends AbstractInterfaceConfig<T, ConsumerConfig
         return this;
     }
 
+    /**
+     * Gets warmup duration.
+     *
+     * @return the warmup duration
+     */
+    public int getWarmupDuration() {
+        return warmupDuration;
+    }
+
+    /**
+     * Sets warmup duration.
+     *
+     * @param warmupDuration the warmup duration
+     * @return the warmup duration
+     */
+    public ConsumerConfig<T> setWarmupDuration(int warmupDuration) {
+        this.warmupDuration = warmupDuration;
+        return this;
+    }
+
     /**
      * Is lazy boolean.
      *
@@ -553,6 +605,26 @@ public class ConsumerConfig<T> extends AbstractInterfaceConfig<T, ConsumerConfig
         return this;
     }
 
+    /**
+     * Is in jvm deep copy boolean.
+     *
+     * @return the boolean
+     */
+    public boolean isInJVMDeepCopy() {
+        return inJVMDeepCopy;
+    }
+
+    /**
+     * Sets in jvm deep copy.
+     *
+     * @param inJVMDeepCopy the in jvm deep copy
+     * @return the in jvm deep copy
+     */
+    public ConsumerConfig<T> setInJVMDeepCopy(boolean inJVMDeepCopy) {
+        this.inJVMDeepCopy = inJVMDeepCopy;
+        return this;
+    }
+
     /**
      * Is check boolean.
      *
@@ -573,6 +645,66 @@ public class ConsumerConfig<T> extends AbstractInterfaceConfig<T, ConsumerConfig
         return this;
     }
 
+    /**
+     * Gets batch size.
+     *
+     * @return the batch size
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Sets batch size.
+     *
+     * @param batchSize the batch size
+     * @return the batch size
+     */
+    public ConsumerConfig<T> setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Gets batch window.
+     *
+     * @return the batch window
+     */
+    public int getBatchWindow() {
+        return batchWindow;
+    }
+
+    /**
+     * Sets batch window.
+     *
+     * @param batchWindow the batch window
+     * @return the batch window
+     */
+    public ConsumerConfig<T> setBatchWindow(int batchWindow) {
+        this.batchWindow = batchWindow;
+        return this;
+    }
+
+    /**
+     * Is batch parallel boolean.
+     *
+     * @return the boolean
+     */
+    public boolean isBatchParallel() {
+        return batchParallel;
+    }
+
+    /**
+     * Sets batch parallel.
+     *
+     * @param batchParallel the batch parallel
+     * @return the batch parallel
+     */
+    public ConsumerConfig<T> setBatchParallel(boolean batchParallel) {
+        this.batchParallel = batchParallel;
+        return this;
+    }
+
     /**
      * Gets connectionNum.
      *
@@ -914,6 +1046,17 @@ public class ConsumerConfig<T> extends AbstractInterfaceConfig<T, ConsumerConfig
             getInvokeType());
     }
 
+    /**
+     * Gets the compress type corresponding to the method name
+     *
+     * @param methodName the method name
+     * @return the compress type
+     */
+    public String getMethodCompress(String methodName) {
+        return (String) getMethodConfigValue(methodName, RpcConstants.CONFIG_KEY_COMPRESS,
+            getCompress());
+    }
+
     /**
      * 引用服务
      *
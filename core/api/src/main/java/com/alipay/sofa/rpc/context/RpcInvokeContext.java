@@ -98,6 +98,13 @@ public class RpcInvokeContext {
      */
     protected Integer                       timeout;
 
+    /**
+     * 调用截止时间（本机时间戳，毫秒），服务端收到请求时根据客户端超时时间设置
+     *
+     * @since 5.7.9
+     */
+    protected Long                          deadline;
+
     /**
      * 用户自定义对方地址，单次调用生效
      */
@@ -157,6 +164,35 @@ public class RpcInvokeContext {
         return this;
     }
 
+    /**
+     * 得到调用截止时间
+     *
+     * @return 截止时间（本机时间戳，毫秒），为空表示没有截止时间
+     */
+    public Long getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * 设置调用截止时间，在此上下文中发起的下游调用超时时间不会超过剩余时间
+     *
+     * @param deadline 截止时间（本机时间戳，毫秒）
+     * @return 当前
+     */
+    public RpcInvokeContext setDeadline(Long deadline) {
+        this.deadline = deadline;
+        return this;
+    }
+
+    /**
+     * 得到距离截止时间的剩余时间
+     *
+     * @return 剩余时间（毫秒），可能小于等于0，为空表示没有截止时间
+     */
+    public Long getRemainingTimeout() {
+        return deadline == null ? null : deadline - RpcRuntimeContext.now();
+    }
+
     /**
      * 设置一个调用上下文数据
      *
@@ -398,6 +434,7 @@ public class RpcInvokeContext {
         final StringBuilder sb = new StringBuilder(128);
         sb.append(super.toString());
         sb.append("{timeout=").append(timeout);
+        sb.append(", deadline=").append(deadline);
         sb.append(", targetURL='").append(targetURL).append('\'');
         sb.append(", targetGroup='").append(targetGroup).append('\'');
         sb.append(", responseCallback=").append(responseCallback);
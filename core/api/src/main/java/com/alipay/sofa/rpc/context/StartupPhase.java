@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.context;
+
+/**
+ * 启动过程中某个阶段的耗时记录
+ */
+public class StartupPhase {
+
+    /**
+     * 所属的服务或引用，一般是配置的key
+     */
+    private final String  target;
+    /**
+     * 阶段名称
+     */
+    private final String  phase;
+    /**
+     * 阶段的补充信息，例如注册中心、服务端地址
+     */
+    private final String  detail;
+    /**
+     * 执行线程
+     */
+    private final String  threadName;
+    /**
+     * 开始时间（毫秒时间戳）
+     */
+    private final long    beginTime;
+    /**
+     * 开始时间（纳秒，只用于排序）
+     */
+    private final long    beginNanos;
+    /**
+     * 耗时（微秒）
+     */
+    private final long    elapsedMicros;
+    /**
+     * 是否成功
+     */
+    private final boolean success;
+
+    StartupPhase(String target, String phase, String detail, String threadName, long beginTime, long beginNanos,
+                 long elapsedMicros, boolean success) {
+        this.target = target;
+        this.phase = phase;
+        this.detail = detail;
+        this.threadName = threadName;
+        this.beginTime = beginTime;
+        this.beginNanos = beginNanos;
+        this.elapsedMicros = elapsedMicros;
+        this.success = success;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public String getPhase() {
+        return phase;
+    }
+
+    public String getDetail() {
+        return detail;
+    }
+
+    public String getThreadName() {
+        return threadName;
+    }
+
+    public long getBeginTime() {
+        return beginTime;
+    }
+
+    long getBeginNanos() {
+        return beginNanos;
+    }
+
+    public long getElapsedMicros() {
+        return elapsedMicros;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    @Override
+    public String toString() {
+        return "StartupPhase{" +
+            "target='" + target + '\'' +
+            ", phase='" + phase + '\'' +
+            ", detail='" + detail + '\'' +
+            ", threadName='" + threadName + '\'' +
+            ", beginTime=" + beginTime +
+            ", elapsedMicros=" + elapsedMicros +
+            ", success=" + success +
+            '}';
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.context;
+
+import com.alipay.sofa.rpc.common.RpcConfigs;
+import com.alipay.sofa.rpc.common.RpcOptions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 启动耗时记录器，记录服务发布和服务引用过程中各阶段的耗时，并按开始时间输出时间线。
+ * <p>
+ * 使用方式：
+ * <pre>
+ * long begin = StartupProfiler.begin();
+ * doSomething();
+ * StartupProfiler.end(key, StartupProfiler.PHASE_XXX, null, begin, true);
+ * </pre>
+ * 记录数达到上限后新的记录会被丢弃。
+ */
+public final class StartupProfiler {
+
+    /**
+     * 服务发布总耗时
+     */
+    public static final String                               PHASE_EXPORT         = "export";
+    /**
+     * 延迟发布的等待时间
+     */
+    public static final String                               PHASE_EXPORT_DELAY   = "export.delay";
+    /**
+     * 服务端调用器（含Filter链）构造
+     */
+    public static final String                               PHASE_EXPORT_INVOKER = "export.invoker";
+    /**
+     * 服务端构建并启动
+     */
+    public static final String                               PHASE_SERVER_START   = "export.server";
+    /**
+     * 注册到注册中心
+     */
+    public static final String                               PHASE_REGISTER       = "export.register";
+    /**
+     * 服务引用总耗时
+     */
+    public static final String                               PHASE_REFER          = "refer";
+    /**
+     * 集群初始化（含订阅与建立连接）
+     */
+    public static final String                               PHASE_CLUSTER_INIT   = "refer.cluster";
+    /**
+     * 路由链、负载均衡和Filter链构造
+     */
+    public static final String                               PHASE_FILTER_CHAIN   = "refer.chain";
+    /**
+     * 从注册中心或直连地址订阅服务列表
+     */
+    public static final String                               PHASE_SUBSCRIBE      = "refer.subscribe";
+    /**
+     * 从某个注册中心订阅服务列表
+     */
+    public static final String                               PHASE_REGISTRY_SUB   = "refer.subscribe.registry";
+    /**
+     * 等待注册中心异步推送服务列表
+     */
+    public static final String                               PHASE_ADDRESS_WAIT   = "refer.subscribe.wait";
+    /**
+     * 等待所有服务端连接建立
+     */
+    public static final String                               PHASE_CONNECT        = "refer.connect";
+    /**
+     * 建立到某个服务端的连接
+     */
+    public static final String                               PHASE_CONNECT_ONE    = "refer.connect.provider";
+    /**
+     * 连接建立后的存活检查
+     */
+    public static final String                               PHASE_CHECK_ALIVE    = "refer.checkAlive";
+    /**
+     * 客户端调用器构造
+     */
+    public static final String                               PHASE_REFER_INVOKER  = "refer.invoker";
+    /**
+     * 生成代理类
+     */
+    public static final String                               PHASE_PROXY          = "refer.proxy";
+
+    /**
+     * 已记录的阶段
+     */
+    private static final ConcurrentLinkedQueue<StartupPhase> PHASES               = new ConcurrentLinkedQueue<StartupPhase>();
+
+    /**
+     * 已记录的阶段数
+     */
+    private static final AtomicInteger                       SIZE                 = new AtomicInteger();
+
+    /**
+     * 超过上限被丢弃的阶段数
+     */
+    private static final AtomicInteger                       DROPPED              = new AtomicInteger();
+
+    private StartupProfiler() {
+    }
+
+    /**
+     * 是否开启启动耗时记录
+     *
+     * @return 是否开启
+     */
+    public static boolean isEnable() {
+        return RpcConfigs.getBooleanValue(RpcOptions.STARTUP_PROFILE_ENABLE);
+    }
+
+    /**
+     * 开始一个阶段
+     *
+     * @return 开始时间（纳秒）
+     */
+    public static long begin() {
+        return System.nanoTime();
+    }
+
+    /**
+     * 结束一个阶段并记录
+     *
+     * @param target     服务或引用的key
+     * @param phase      阶段名称
+     * @param detail     补充信息，可以为空
+     * @param beginNanos {@link #begin()} 的返回值
+     * @param success    是否成功
+     */
+    public static void end(String target, String phase, String detail, long beginNanos, boolean success) {
+        if (!isEnable()) {
+            return;
+        }
+        long elapsedNanos = System.nanoTime() - beginNanos;
+        if (SIZE.incrementAndGet() > RpcConfigs.getIntValue(RpcOptions.STARTUP_PROFILE_MAX_RECORDS)) {
+            SIZE.decrementAndGet();
+            DROPPED.incrementAndGet();
+            return;
+        }
+        long beginTime = System.currentTimeMillis() - elapsedNanos / 1000000L;
+        PHASES.add(new StartupPhase(target, phase, detail, Thread.currentThread().getName(), beginTime,
+            beginNanos, elapsedNanos / 1000L, success));
+    }
+
+    /**
+     * 按开始时间排序的全部阶段
+     *
+     * @return 时间线
+     */
+    public static List<StartupPhase> getTimeline() {
+        return getTimeline(null);
+    }
+
+    /**
+     * 按开始时间排序的阶段
+     *
+     * @param keyword 只返回服务或引用的key中包含此关键字的阶段，为空表示全部
+     * @return 时间线
+     */
+    public static List<StartupPhase> getTimeline(String keyword) {
+        List<StartupPhase> result = new ArrayList<StartupPhase>();
+        for (StartupPhase phase : PHASES) {
+            if (keyword == null || keyword.length() == 0
+                || (phase.getTarget() != null && phase.getTarget().contains(keyword))) {
+                result.add(phase);
+            }
+        }
+        Collections.sort(result, new TimelineComparator());
+        return result;
+    }
+
+    /**
+     * 超过上限被丢弃的阶段数
+     *
+     * @return 丢弃数
+     */
+    public static int getDroppedCount() {
+        return DROPPED.get();
+    }
+
+    /**
+     * 清空已记录的阶段
+     */
+    public static void clear() {
+        PHASES.clear();
+        SIZE.set(0);
+        DROPPED.set(0);
+    }
+
+    /**
+     * 按开始时间排序，开始时间相同时耗时长的（外层阶段）在前
+     */
+    private static class TimelineComparator implements Comparator<StartupPhase> {
+        @Override
+        public int compare(StartupPhase o1, StartupPhase o2) {
+            if (o1.getBeginNanos() != o2.getBeginNanos()) {
+                return o1.getBeginNanos() - o2.getBeginNanos() < 0 ? -1 : 1;
+            }
+            long diff = o2.getElapsedMicros() - o1.getElapsedMicros();
+            return diff == 0 ? 0 : (diff < 0 ? -1 : 1);
+        }
+    }
+}
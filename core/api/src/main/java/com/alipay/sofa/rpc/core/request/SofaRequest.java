@@ -164,6 +164,11 @@ public class SofaRequest extends RequestBase {
      */
     private transient Integer              timeout;
 
+    /**
+     * 请求体使用的压缩算法（客户端使用），服务端声明支持后才会设置
+     */
+    private transient String               compressType;
+
     /**
      * Gets method.
      *
@@ -280,6 +285,26 @@ public class SofaRequest extends RequestBase {
         return this;
     }
 
+    /**
+     * Gets compress type.
+     *
+     * @return the compress type
+     */
+    public String getCompressType() {
+        return compressType;
+    }
+
+    /**
+     * Sets compress type.
+     *
+     * @param compressType the compress type
+     * @return the compress type
+     */
+    public SofaRequest setCompressType(String compressType) {
+        this.compressType = compressType;
+        return this;
+    }
+
     /**
      * Gets data.
      *
@@ -63,6 +63,11 @@ public final class SofaResponse implements Serializable {
      */
     private transient AbstractByteBuf data;
 
+    /**
+     * 压缩算法：服务端响应达到压缩基线时按此算法压缩，客户端收到的是服务端声明支持的压缩算法
+     */
+    private transient String          compressType;
+
     /**
      * Gets app response.
      *
@@ -206,6 +211,26 @@ public final class SofaResponse implements Serializable {
         return this;
     }
 
+    /**
+     * Gets compress type.
+     *
+     * @return the compress type
+     */
+    public String getCompressType() {
+        return compressType;
+    }
+
+    /**
+     * Sets compress type.
+     *
+     * @param compressType the compress type
+     * @return the compress type
+     */
+    public SofaResponse setCompressType(String compressType) {
+        this.compressType = compressType;
+        return this;
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder(128);
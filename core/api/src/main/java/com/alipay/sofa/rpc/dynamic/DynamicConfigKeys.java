@@ -21,5 +21,10 @@ package com.alipay.sofa.rpc.dynamic;
  * @version : DynamicConfigKeys.java, v 0.1 2019年04月17日 21:51 bystander Exp $
  */
 public class DynamicConfigKeys {
-    public static final String DYNAMIC_ALIAS = "dynamicAlias";
+    public static final String DYNAMIC_ALIAS    = "dynamicAlias";
+
+    /**
+     * Consumer method property of the suggested adaptive timeout
+     */
+    public static final String ADAPTIVE_TIMEOUT = "adaptiveTimeout";
 }
\ No newline at end of file
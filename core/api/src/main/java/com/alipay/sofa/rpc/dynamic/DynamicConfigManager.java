@@ -86,4 +86,17 @@ public abstract class DynamicConfigManager {
      * @return auth rules
      */
     public abstract AuthRuleGroup getServiceAuthRule(String service);
+
+    /**
+     * Publish consumer method related property, not supported by default.
+     *
+     * @param service target service
+     * @param method target method
+     * @param key property key
+     * @param value property value
+     * @return whether the property is published
+     */
+    public boolean publishConsumerMethodProperty(String service, String method, String key, String value) {
+        return false;
+    }
 }
\ No newline at end of file
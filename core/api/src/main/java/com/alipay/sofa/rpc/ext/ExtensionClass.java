@@ -33,42 +33,68 @@ import java.util.Arrays;
  */
 public class ExtensionClass<T> implements Sortable {
 
+    /**
+     * 扩展接口实现类
+     */
+    protected volatile Class<? extends T> clazz;
     /**
      * 扩展接口实现类名
      */
-    protected final Class<? extends T> clazz;
+    protected final String                className;
+    /**
+     * 扩展接口，延迟加载实现类时校验实现类是否实现了该接口
+     */
+    private final transient Class<T>      interfaceClass;
+    /**
+     * 延迟加载实现类时使用的 ClassLoader
+     */
+    private final transient ClassLoader   classLoader;
+    /**
+     * 延迟加载实现类失败的原因，失败后不再重复加载
+     */
+    private volatile transient Throwable  loadError;
     /**
      * 扩展别名,不是provider uniqueId
      */
-    protected final String             alias;
+    protected final String                alias;
     /**
      * 扩展编码，必须唯一
      */
-    protected byte                     code;
+    protected byte                        code;
     /**
      * 是否单例
      */
-    protected boolean                  singleton;
+    protected boolean                     singleton;
 
     /**
      * 扩展点排序值，大的优先级高
      */
-    protected int                      order;
+    protected int                         order;
 
     /**
      * 是否覆盖其它低{@link #order}的同名扩展
      */
-    protected boolean                  override;
+    protected boolean                     override;
 
     /**
      * 排斥其它扩展，可以排斥掉其它低{@link #order}的扩展
      */
-    protected String[]                 rejection;
+    protected String[]                    rejection;
+
+    /**
+     * 是否在服务端自动激活，见 {@link com.alipay.sofa.rpc.filter.AutoActive}
+     */
+    protected boolean                     providerSideAutoActive;
+
+    /**
+     * 是否在客户端自动激活，见 {@link com.alipay.sofa.rpc.filter.AutoActive}
+     */
+    protected boolean                     consumerSideAutoActive;
 
     /**
      * 服务端实例对象（只在是单例的时候保留）
      */
-    private volatile transient T       instance;
+    private volatile transient T          instance;
 
     /**
      * 构造函数
@@ -78,6 +104,24 @@ public class ExtensionClass<T> implements Sortable {
      */
     public ExtensionClass(Class<? extends T> clazz, String alias) {
         this.clazz = clazz;
+        this.className = clazz == null ? null : clazz.getName();
+        this.interfaceClass = null;
+        this.classLoader = null;
+        this.alias = alias;
+    }
+
+    /**
+     * 构造函数，实现类在第一次使用时才加载
+     *
+     * @param interfaceClass 扩展接口
+     * @param className      扩展实现类名
+     * @param alias          扩展别名
+     * @param classLoader    加载实现类的 ClassLoader
+     */
+    public ExtensionClass(Class<T> interfaceClass, String className, String alias, ClassLoader classLoader) {
+        this.className = className;
+        this.interfaceClass = interfaceClass;
+        this.classLoader = classLoader;
         this.alias = alias;
     }
 
@@ -98,6 +142,7 @@ public class ExtensionClass<T> implements Sortable {
      * @return 扩展点对象实例 ext instance
      */
     public T getExtInstance(Class[] argTypes, Object[] args) {
+        Class<? extends T> clazz = className == null ? null : getClazz();
         if (clazz != null) {
             try {
                 if (singleton) { // 如果是单例
@@ -175,7 +220,63 @@ public class ExtensionClass<T> implements Sortable {
      * @return the clazz
      */
     public Class<? extends T> getClazz() {
-        return clazz;
+        Class<? extends T> c = clazz;
+        if (c == null && className != null) {
+            synchronized (this) {
+                c = clazz;
+                if (c == null) {
+                    if (loadError == null) {
+                        try {
+                            c = loadClass();
+                            clazz = c;
+                        } catch (Throwable e) {
+                            loadError = e;
+                        }
+                    }
+                    if (c == null) {
+                        throw new SofaRpcRuntimeException(LogCodes.getLog(LogCodes.ERROR_LOAD_EXT,
+                            interfaceClass == null ? null : interfaceClass.getName(), alias), loadError);
+                    }
+                }
+            }
+        }
+        return c;
+    }
+
+    private Class<? extends T> loadClass() throws ClassNotFoundException {
+        Class<?> c = Class.forName(className, false, classLoader);
+        if (interfaceClass != null && !interfaceClass.isAssignableFrom(c)) {
+            throw new IllegalArgumentException("Error when load extension of extensible " + interfaceClass.getName()
+                + ", " + className + " is not subtype of interface.");
+        }
+        return (Class<? extends T>) c;
+    }
+
+    /**
+     * Gets class name.
+     *
+     * @return the class name
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * 实现类是否已经加载
+     *
+     * @return the boolean
+     */
+    public boolean isClassResolved() {
+        return clazz != null;
+    }
+
+    /**
+     * 实现类是否加载失败，加载失败的扩展不可用
+     *
+     * @return the boolean
+     */
+    public boolean isClassLoadFailed() {
+        return loadError != null;
     }
 
     /**
@@ -239,10 +340,41 @@ public class ExtensionClass<T> implements Sortable {
         return this;
     }
 
+    /**
+     * Is provider side auto active boolean.
+     *
+     * @return the boolean
+     */
+    public boolean isProviderSideAutoActive() {
+        return providerSideAutoActive;
+    }
+
+    /**
+     * Is consumer side auto active boolean.
+     *
+     * @return the boolean
+     */
+    public boolean isConsumerSideAutoActive() {
+        return consumerSideAutoActive;
+    }
+
+    /**
+     * Sets auto active.
+     *
+     * @param providerSide 是否在服务端自动激活
+     * @param consumerSide 是否在客户端自动激活
+     * @return the auto active
+     */
+    public ExtensionClass setAutoActive(boolean providerSide, boolean consumerSide) {
+        this.providerSideAutoActive = providerSide;
+        this.consumerSideAutoActive = consumerSide;
+        return this;
+    }
+
     @Override
     public String toString() {
         return "ExtensionClass{" +
-            "clazz=" + clazz +
+            "clazz=" + className +
             ", alias='" + alias + '\'' +
             ", code=" + code +
             ", singleton=" + singleton +
@@ -0,0 +1,227 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.ext;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * 编译期生成的扩展点索引，由 {@link ExtensionIndexProcessor} 生成。<br>
+ * 记录了扩展实现类上 {@link Extension} 和 {@link com.alipay.sofa.rpc.filter.AutoActive} 的信息，
+ * 加载扩展点时不需要再反射读取注解，实现类也可以在第一次使用时再加载。<br>
+ * 扩展点是否生效仍然以扩展文件为准，索引中没有的实现类按原来的方式加载。
+ */
+public final class ExtensionIndex {
+
+    /**
+     * 索引文件
+     */
+    public static final String                                INDEX_FILE = "META-INF/services/sofa-rpc/extension.index";
+
+    private static final char                                 SEPARATOR  = '|';
+
+    /**
+     * ClassLoader --> {实现类名:索引}
+     */
+    private static final Map<ClassLoader, Map<String, Entry>> INDEXES    = Collections
+                                                                             .synchronizedMap(new WeakHashMap<ClassLoader, Map<String, Entry>>());
+
+    private ExtensionIndex() {
+    }
+
+    /**
+     * 得到 ClassLoader 下全部的索引
+     *
+     * @param classLoader ClassLoader
+     * @return {实现类名:索引}
+     * @throws IOException 读取索引文件失败
+     */
+    public static Map<String, Entry> getIndex(ClassLoader classLoader) throws IOException {
+        Map<String, Entry> index = INDEXES.get(classLoader);
+        if (index == null) {
+            index = load(classLoader);
+            INDEXES.put(classLoader, index);
+        }
+        return index;
+    }
+
+    private static Map<String, Entry> load(ClassLoader classLoader) throws IOException {
+        Enumeration<URL> urls = classLoader != null ? classLoader.getResources(INDEX_FILE)
+            : ClassLoader.getSystemResources(INDEX_FILE);
+        Map<String, Entry> index = new HashMap<String, Entry>();
+        while (urls.hasMoreElements()) {
+            URL url = urls.nextElement();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream(), "UTF-8"));
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int i = line.indexOf('=');
+                    if (line.startsWith("#") || i <= 0) {
+                        continue;
+                    }
+                    String className = line.substring(0, i).trim();
+                    Entry entry = parse(line.substring(i + 1));
+                    if (entry != null && !index.containsKey(className)) {
+                        index.put(className, entry);
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        }
+        return index;
+    }
+
+    /**
+     * 生成一行索引
+     *
+     * @param className 实现类名
+     * @param entry     索引
+     * @return 索引行
+     */
+    static String format(String className, Entry entry) {
+        return className + '=' + entry.alias + SEPARATOR + entry.order + SEPARATOR + entry.code + SEPARATOR +
+            entry.override + SEPARATOR + entry.providerSide + SEPARATOR + entry.consumerSide + SEPARATOR +
+            join(entry.rejection) + SEPARATOR + join(entry.extensibles);
+    }
+
+    /**
+     * 解析一行索引（不含实现类名）
+     *
+     * @param value 索引内容
+     * @return 索引，格式不对返回null
+     */
+    static Entry parse(String value) {
+        String[] values = value.trim().split("\\|", -1);
+        if (values.length != 8) {
+            return null;
+        }
+        try {
+            return new Entry(values[0], Integer.parseInt(values[1]), Byte.parseByte(values[2]),
+                Boolean.parseBoolean(values[3]), Boolean.parseBoolean(values[4]), Boolean.parseBoolean(values[5]),
+                split(values[6]), split(values[7]));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String join(String[] values) {
+        StringBuilder sb = new StringBuilder();
+        for (String value : values) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(value);
+        }
+        return sb.toString();
+    }
+
+    private static String[] split(String value) {
+        return value.length() == 0 ? new String[0] : value.split(",");
+    }
+
+    /**
+     * 一个扩展实现类的索引
+     */
+    public static class Entry {
+
+        private final String   alias;
+
+        private final int      order;
+
+        private final byte     code;
+
+        private final boolean  override;
+
+        private final boolean  providerSide;
+
+        private final boolean  consumerSide;
+
+        private final String[] rejection;
+
+        /**
+         * 实现的全部扩展点接口
+         */
+        private final String[] extensibles;
+
+        Entry(String alias, int order, byte code, boolean override, boolean providerSide, boolean consumerSide,
+              String[] rejection, String[] extensibles) {
+            this.alias = alias;
+            this.order = order;
+            this.code = code;
+            this.override = override;
+            this.providerSide = providerSide;
+            this.consumerSide = consumerSide;
+            this.rejection = rejection;
+            this.extensibles = extensibles;
+        }
+
+        /**
+         * 是否是某个扩展点的实现
+         *
+         * @param interfaceName 扩展点接口名
+         * @return 是否是其实现
+         */
+        public boolean isExtensionOf(String interfaceName) {
+            for (String extensible : extensibles) {
+                if (extensible.equals(interfaceName)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public String getAlias() {
+            return alias;
+        }
+
+        public int getOrder() {
+            return order;
+        }
+
+        public byte getCode() {
+            return code;
+        }
+
+        public boolean isOverride() {
+            return override;
+        }
+
+        public boolean isProviderSide() {
+            return providerSide;
+        }
+
+        public boolean isConsumerSide() {
+            return consumerSide;
+        }
+
+        public String[] getRejection() {
+            return rejection;
+        }
+
+        public String[] getExtensibles() {
+            return extensibles;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.ext;
+
+import com.alipay.sofa.rpc.filter.AutoActive;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.Writer;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * 编译期生成扩展点索引 {@link ExtensionIndex#INDEX_FILE} 的注解处理器。<br>
+ * 处理所有标记了 {@link Extension} 的实现类，生成失败只打印警告，不影响编译。<br>
+ * 没有通过 META-INF/services 自动注册，避免在依赖方的编译过程中运行，只在本项目声明了扩展点的模块里通过编译插件指定。
+ */
+@SupportedAnnotationTypes("com.alipay.sofa.rpc.ext.Extension")
+public class ExtensionIndexProcessor extends AbstractProcessor {
+
+    /**
+     * 实现类名 --> 索引行，排序保证输出稳定
+     */
+    private final Map<String, String> lines = new TreeMap<String, String>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        try {
+            if (roundEnv.processingOver()) {
+                writeIndex();
+            } else {
+                for (Element element : roundEnv.getElementsAnnotatedWith(Extension.class)) {
+                    if (element.getKind() == ElementKind.CLASS &&
+                        !element.getModifiers().contains(Modifier.ABSTRACT)) {
+                        addIndex((TypeElement) element);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                "Failed to generate extension index: " + e);
+        }
+        return false;
+    }
+
+    private void addIndex(TypeElement type) {
+        Set<String> extensibles = new TreeSet<String>();
+        collectExtensibles(type.asType(), extensibles);
+        if (extensibles.isEmpty()) {
+            return;
+        }
+        Extension extension = type.getAnnotation(Extension.class);
+        AutoActive autoActive = type.getAnnotation(AutoActive.class);
+        ExtensionIndex.Entry entry = new ExtensionIndex.Entry(extension.value(), extension.order(),
+            extension.code(), extension.override(), autoActive != null && autoActive.providerSide(),
+            autoActive != null && autoActive.consumerSide(), extension.rejection(),
+            extensibles.toArray(new String[extensibles.size()]));
+        String className = processingEnv.getElementUtils().getBinaryName(type).toString();
+        lines.put(className, ExtensionIndex.format(className, entry));
+    }
+
+    private void collectExtensibles(TypeMirror type, Set<String> extensibles) {
+        for (TypeMirror superType : processingEnv.getTypeUtils().directSupertypes(type)) {
+            if (superType.getKind() != TypeKind.DECLARED) {
+                continue;
+            }
+            TypeElement element = (TypeElement) ((DeclaredType) superType).asElement();
+            if (element.getAnnotation(Extensible.class) != null) {
+                extensibles.add(processingEnv.getElementUtils().getBinaryName(element).toString());
+            }
+            collectExtensibles(superType, extensibles);
+        }
+    }
+
+    private void writeIndex() throws Exception {
+        if (lines.isEmpty()) {
+            return;
+        }
+        FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "",
+            ExtensionIndex.INDEX_FILE);
+        Writer writer = file.openWriter();
+        try {
+            writer.write("# Generated by " + ExtensionIndexProcessor.class.getName() + ", do not edit.\n");
+            writer.write("# className=alias|order|code|override|providerSide|consumerSide|rejection|extensibles\n");
+            for (String line : lines.values()) {
+                writer.write(line);
+                writer.write('\n');
+            }
+        } finally {
+            writer.close();
+        }
+        lines.clear();
+    }
+}
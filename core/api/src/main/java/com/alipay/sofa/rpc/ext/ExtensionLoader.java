@@ -26,6 +26,7 @@ import com.alipay.sofa.rpc.common.utils.ExceptionUtils;
 import com.alipay.sofa.rpc.common.utils.StringUtils;
 import com.alipay.sofa.rpc.context.RpcRunningState;
 import com.alipay.sofa.rpc.core.exception.SofaRpcRuntimeException;
+import com.alipay.sofa.rpc.filter.AutoActive;
 import com.alipay.sofa.rpc.log.LogCodes;
 import com.alipay.sofa.rpc.log.Logger;
 import com.alipay.sofa.rpc.log.LoggerFactory;
@@ -35,6 +36,7 @@ import java.io.InputStreamReader;
 import java.lang.reflect.Modifier;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Map;
@@ -84,6 +86,11 @@ public class ExtensionLoader<T> {
      */
     protected final List<ExtensionLoaderListener<T>>         listeners;
 
+    /**
+     * 编译期生成的扩展点索引 {实现类名:索引}
+     */
+    private volatile Map<String, ExtensionIndex.Entry>       index;
+
     /**
      * 构造函数（自动加载）
      *
@@ -210,6 +217,12 @@ public class ExtensionLoader<T> {
         }
         String alias = aliasAndClassName[0];
         String className = aliasAndClassName[1];
+        // 有索引的不需要加载类和反射读取注解，实现类在第一次使用时再加载
+        ExtensionIndex.Entry entry = getIndex().get(className);
+        if (entry != null && entry.isExtensionOf(interfaceClass.getName())) {
+            loadExtension(alias, buildClass(entry, className), StringUtils.toString(url), className);
+            return;
+        }
         // 读取配置的实现类
         Class tmp;
         try {
@@ -228,6 +241,25 @@ public class ExtensionLoader<T> {
         loadExtension(alias, tmp, StringUtils.toString(url), className);
     }
 
+    private Map<String, ExtensionIndex.Entry> getIndex() {
+        Map<String, ExtensionIndex.Entry> current = index;
+        if (current == null) {
+            current = Collections.emptyMap();
+            if (RpcConfigs.getBooleanValue(RpcOptions.EXTENSION_INDEX_ENABLE)) {
+                try {
+                    current = ExtensionIndex.getIndex(ClassLoaderUtils.getClassLoader(getClass()));
+                } catch (Throwable e) {
+                    if (LOGGER.isWarnEnabled()) {
+                        LOGGER.warn("Failed to load extension index of extensible {}, cause by: {}",
+                            interfaceName, ExceptionUtils.toShortString(e, 2));
+                    }
+                }
+            }
+            index = current;
+        }
+        return current;
+    }
+
     private void loadExtension(String alias, Class loadedClazz, String location, String className) {
         if (!interfaceClass.isAssignableFrom(loadedClazz)) {
             throw new IllegalArgumentException("Error when load extension of extensible " + interfaceName +
@@ -240,30 +272,33 @@ public class ExtensionLoader<T> {
         if (extension == null) {
             throw new IllegalArgumentException("Error when load extension of extensible " + interfaceName +
                 " from file:" + location + ", " + className + " must add annotation @Extension.");
+        }
+        loadExtension(alias, buildClass(extension, implClass, extension.value()), location, className);
+    }
+
+    private void loadExtension(String alias, ExtensionClass<T> loadedClass, String location, String className) {
+        String aliasInCode = loadedClass.getAlias();
+        if (StringUtils.isBlank(aliasInCode)) {
+            // 扩展实现类未配置@Extension 标签
+            throw new IllegalArgumentException("Error when load extension of extensible " + interfaceClass +
+                " from file:" + location + ", " + className + "'s alias of @Extension is blank");
+        }
+        if (alias == null) {
+            // spi文件里没配置，用代码里的
+            alias = aliasInCode;
         } else {
-            String aliasInCode = extension.value();
-            if (StringUtils.isBlank(aliasInCode)) {
-                // 扩展实现类未配置@Extension 标签
-                throw new IllegalArgumentException("Error when load extension of extensible " + interfaceClass +
-                    " from file:" + location + ", " + className + "'s alias of @Extension is blank");
-            }
-            if (alias == null) {
-                // spi文件里没配置，用代码里的
-                alias = aliasInCode;
-            } else {
-                // spi文件里配置的和代码里的不一致
-                if (!aliasInCode.equals(alias)) {
-                    throw new IllegalArgumentException("Error when load extension of extensible " + interfaceName +
-                        " from file:" + location + ", aliases of " + className + " are " +
-                        "not equal between " + aliasInCode + "(code) and " + alias + "(file).");
-                }
-            }
-            // 接口需要编号，实现类没设置
-            if (extensible.coded() && extension.code() < 0) {
+            // spi文件里配置的和代码里的不一致
+            if (!aliasInCode.equals(alias)) {
                 throw new IllegalArgumentException("Error when load extension of extensible " + interfaceName +
-                    " from file:" + location + ", code of @Extension must >=0 at " + className + ".");
+                    " from file:" + location + ", aliases of " + className + " are " +
+                    "not equal between " + aliasInCode + "(code) and " + alias + "(file).");
             }
         }
+        // 接口需要编号，实现类没设置
+        if (extensible.coded() && loadedClass.getCode() < 0) {
+            throw new IllegalArgumentException("Error when load extension of extensible " + interfaceName +
+                " from file:" + location + ", code of @Extension must >=0 at " + className + ".");
+        }
         // 不可以是default和*
         if (StringUtils.DEFAULT.equals(alias) || StringUtils.ALL.equals(alias)) {
             throw new IllegalArgumentException("Error when load extension of extensible " + interfaceName +
@@ -274,40 +309,41 @@ public class ExtensionLoader<T> {
         ExtensionClass<T> extensionClass = null;
         if (old != null) {
             // 如果当前扩展可以覆盖其它同名扩展
-            if (extension.override()) {
+            if (loadedClass.isOverride()) {
                 // 如果优先级还没有旧的高，则忽略
-                if (extension.order() < old.getOrder()) {
+                if (loadedClass.getOrder() < old.getOrder()) {
                     if (LOGGER.isDebugEnabled()) {
                         LOGGER.debug("Extension of extensible {} with alias {} override from {} to {} failure, " +
                             "cause by: order of old extension is higher",
-                            interfaceName, alias, old.getClazz(), implClass);
+                            interfaceName, alias, old.getClassName(), className);
                     }
                 } else {
                     if (LOGGER.isInfoEnabled()) {
                         LOGGER.info("Extension of extensible {} with alias {}: {} has been override to {}",
-                            interfaceName, alias, old.getClazz(), implClass);
+                            interfaceName, alias, old.getClassName(), className);
                     }
                     // 如果当前扩展可以覆盖其它同名扩展
-                    extensionClass = buildClass(extension, implClass, alias);
+                    extensionClass = loadedClass;
                 }
             }
             // 如果旧扩展是可覆盖的
             else {
-                if (old.isOverride() && old.getOrder() >= extension.order()) {
+                if (old.isOverride() && old.getOrder() >= loadedClass.getOrder()) {
                     // 如果已加载覆盖扩展，再加载到原始扩展
                     if (LOGGER.isInfoEnabled()) {
                         LOGGER.info("Extension of extensible {} with alias {}: {} has been loaded, ignore origin {}",
-                            interfaceName, alias, old.getClazz(), implClass);
+                            interfaceName, alias, old.getClassName(), className);
                     }
                 } else {
                     // 如果不能被覆盖，抛出已存在异常
                     throw new IllegalStateException(
                         "Error when load extension of extensible " + interfaceClass + " from file:" + location +
-                            ", Duplicate class with same alias: " + alias + ", " + old.getClazz() + " and " + implClass);
+                            ", Duplicate class with same alias: " + alias + ", " + old.getClassName() + " and " +
+                            className);
                 }
             }
         } else {
-            extensionClass = buildClass(extension, implClass, alias);
+            extensionClass = loadedClass;
         }
         if (extensionClass != null) {
             // 检查是否有互斥的扩展点
@@ -327,7 +363,7 @@ public class ExtensionLoader<T> {
                                 if (LOGGER.isInfoEnabled()) {
                                     LOGGER.info(
                                         "Extension of extensible {} with alias {}: {} has been reject by new {}",
-                                        interfaceName, removed.getAlias(), removed.getClazz(), implClass);
+                                        interfaceName, removed.getAlias(), removed.getClassName(), className);
                                 }
                             }
                         }
@@ -341,7 +377,7 @@ public class ExtensionLoader<T> {
                                 if (LOGGER.isInfoEnabled()) {
                                     LOGGER.info(
                                         "Extension of extensible {} with alias {}: {} has been reject by old {}",
-                                        interfaceName, alias, implClass, existed.getClazz());
+                                        interfaceName, alias, className, existed.getClassName());
                                     return;
                                 }
                             }
@@ -361,6 +397,22 @@ public class ExtensionLoader<T> {
         extensionClass.setOrder(extension.order());
         extensionClass.setOverride(extension.override());
         extensionClass.setRejection(extension.rejection());
+        AutoActive autoActive = implClass.getAnnotation(AutoActive.class);
+        if (autoActive != null) {
+            extensionClass.setAutoActive(autoActive.providerSide(), autoActive.consumerSide());
+        }
+        return extensionClass;
+    }
+
+    private ExtensionClass<T> buildClass(ExtensionIndex.Entry entry, String className) {
+        ExtensionClass<T> extensionClass = new ExtensionClass<T>(interfaceClass, className, entry.getAlias(),
+            ClassLoaderUtils.getCurrentClassLoader());
+        extensionClass.setCode(entry.getCode());
+        extensionClass.setSingleton(extensible.singleton());
+        extensionClass.setOrder(entry.getOrder());
+        extensionClass.setOverride(entry.isOverride());
+        extensionClass.setRejection(entry.getRejection());
+        extensionClass.setAutoActive(entry.isProviderSide(), entry.isConsumerSide());
         return extensionClass;
     }
 
@@ -415,6 +467,11 @@ public class ExtensionLoader<T> {
      * @return 扩展类对象
      */
     public ConcurrentMap<String, ExtensionClass<T>> getAllExtensions() {
+        if (all != null) {
+            for (ExtensionClass<T> extensionClass : all.values()) {
+                isAvailable(extensionClass);
+            }
+        }
         return all;
     }
 
@@ -425,7 +482,31 @@ public class ExtensionLoader<T> {
      * @return 扩展类对象
      */
     public ExtensionClass<T> getExtensionClass(String alias) {
-        return all == null ? null : all.get(alias);
+        ExtensionClass<T> extensionClass = all == null ? null : all.get(alias);
+        return extensionClass != null && isAvailable(extensionClass) ? extensionClass : null;
+    }
+
+    /**
+     * 通过索引加载的扩展，第一次使用时才加载实现类，加载失败的扩展不可用，并从扩展列表中移除
+     *
+     * @param extensionClass 扩展类
+     * @return 扩展是否可用
+     */
+    public boolean isAvailable(ExtensionClass<T> extensionClass) {
+        if (extensionClass.isClassResolved()) {
+            return true;
+        }
+        try {
+            extensionClass.getClazz();
+            return true;
+        } catch (Throwable e) {
+            if (all != null && all.remove(extensionClass.getAlias(), extensionClass) && LOGGER.isWarnEnabled()) {
+                Throwable cause = e.getCause() == null ? e : e.getCause();
+                LOGGER.warn("Extension {} of extensible {} is disabled, cause by: {}",
+                    extensionClass.getClassName(), interfaceName, ExceptionUtils.toShortString(cause, 2));
+            }
+            return false;
+        }
     }
 
     /**
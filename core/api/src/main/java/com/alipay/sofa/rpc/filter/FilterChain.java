@@ -78,20 +78,18 @@ public class FilterChain implements Invoker {
         extensionLoader.addListener(new ExtensionLoaderListener<Filter>() {
             @Override
             public void onLoad(ExtensionClass<Filter> extensionClass) {
-                Class<? extends Filter> implClass = extensionClass.getClazz();
-                // 读取自动加载的类列表。
-                AutoActive autoActive = implClass.getAnnotation(AutoActive.class);
-                if (autoActive != null) {
+                // 读取自动加载的类列表，不需要加载实现类
+                if (extensionClass.isProviderSideAutoActive() || extensionClass.isConsumerSideAutoActive()) {
                     String alias = extensionClass.getAlias();
-                    if (autoActive.providerSide()) {
+                    if (extensionClass.isProviderSideAutoActive()) {
                         PROVIDER_AUTO_ACTIVES.put(alias, extensionClass);
                     }
-                    if (autoActive.consumerSide()) {
+                    if (extensionClass.isConsumerSideAutoActive()) {
                         CONSUMER_AUTO_ACTIVES.put(alias, extensionClass);
                     }
                     if (LOGGER.isDebugEnabled()) {
                         LOGGER.debug("Extension of interface " + Filter.class
-                            + ", " + implClass + "(" + alias + ") will auto active");
+                            + ", " + extensionClass.getClassName() + "(" + alias + ") will auto active");
                     }
                 }
             }
@@ -206,7 +204,8 @@ public class FilterChain implements Invoker {
         // 解析自动加载的过滤器
         if (!excludes.contains(StringUtils.ALL) && !excludes.contains(StringUtils.DEFAULT)) { // 配了-*和-default表示不加载内置
             for (Map.Entry<String, ExtensionClass<Filter>> entry : autoActiveFilters.entrySet()) {
-                if (!excludes.contains(entry.getKey())) {
+                // 实现类加载失败的扩展不可用
+                if (!excludes.contains(entry.getKey()) && EXTENSION_LOADER.isAvailable(entry.getValue())) {
                     extensionFilters.add(entry.getValue());
                 }
             }
@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.listener;
+
+import com.alipay.sofa.rpc.client.AdaptiveTimeout;
+
+/**
+ * Listener of adaptive timeout suggestion changes, called in a single notify thread, not in the invoking thread.
+ *
+ * @since 5.7.9
+ */
+public interface AdaptiveTimeoutListener {
+
+    /**
+     * The suggested timeout of a method on a provider changed.
+     *
+     * @param adaptiveTimeout adaptive timeout with the new suggestion
+     */
+    void onChanged(AdaptiveTimeout adaptiveTimeout);
+
+    /**
+     * The adaptive timeout was dropped, because the provider was idle or the consumer was destroyed.
+     *
+     * @param adaptiveTimeout adaptive timeout removed
+     */
+    void onRemoved(AdaptiveTimeout adaptiveTimeout);
+}
@@ -308,6 +308,7 @@ public class LogCodes {
     public static final String                 ERROR_GET_SERVER                           = "020100017";
     public static final String                 ERROR_DESTROY_SERVER                       = "020100018";
     public static final String                 ERROR_PROCESS_UNKNOWN                      = "020100019";
+    public static final String                 ERROR_INVOKE_DEADLINE_EXCEEDED             = "020100020";
     // 02011 protocol
     public static final String                 ERROR_PROTOCOL_NOT_FOUND                   = "020110001";
     // 02012 filter
@@ -324,6 +325,9 @@ public class LogCodes {
     public static final String                 ERROR_WHEN_DO_MEASURE                      = "020140005";
     public static final String                 ERROR_WHEN_DO_REGULATE                     = "020140006";
     public static final String                 ERROR_HYSTRIX_FALLBACK_FAIL                = "020140007";
+    public static final String                 ERROR_CIRCUIT_BREAKER_OPEN                 = "020140008";
+    public static final String                 ERROR_BULKHEAD_FULL                        = "020140009";
+    public static final String                 ERROR_CIRCUIT_BREAKER_FALLBACK_FAIL        = "020140010";
 
     // 02999 common通用的
     // 未知错误
@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.message;
+
+import com.alipay.sofa.rpc.common.RemotingConstants;
+import com.alipay.sofa.rpc.common.utils.ClassTypeUtils;
+import com.alipay.sofa.rpc.core.exception.RpcErrorType;
+import com.alipay.sofa.rpc.core.exception.SofaRpcException;
+import com.alipay.sofa.rpc.core.request.SofaRequest;
+import com.alipay.sofa.rpc.core.response.SofaResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 批量请求和批量响应的构建与拆解。
+ * <p>
+ * 批量请求是方法名为 {@link RemotingConstants#BATCH_METHOD_NAME} 的普通请求，参数依次是各子请求的方法名、
+ * 参数类型、参数值和请求属性；批量响应的结果是按顺序排列的子响应数组。
+ */
+public final class BatchMessageBuilder {
+
+    /**
+     * 批量请求的参数类型
+     */
+    private static final String[] BATCH_ARG_SIGS = ClassTypeUtils.getTypeStrs(new Class[] { String[].class,
+                                                 String[][].class, Object[][].class, Map[].class }, true);
+
+    private BatchMessageBuilder() {
+    }
+
+    /**
+     * 是否批量请求
+     *
+     * @param request 请求
+     * @return 是否批量请求
+     */
+    public static boolean isBatchRequest(SofaRequest request) {
+        return RemotingConstants.BATCH_METHOD_NAME.equals(request.getMethodName());
+    }
+
+    /**
+     * 把同一个服务的多个请求合并成一个批量请求，批量请求的属性取自第一个子请求
+     *
+     * @param requests 子请求
+     * @return 批量请求
+     */
+    public static SofaRequest buildBatchRequest(List<SofaRequest> requests) {
+        int size = requests.size();
+        String[] methodNames = new String[size];
+        String[][] argSigs = new String[size][];
+        Object[][] args = new Object[size][];
+        Map[] props = new Map[size];
+        for (int i = 0; i < size; i++) {
+            SofaRequest request = requests.get(i);
+            methodNames[i] = request.getMethodName();
+            argSigs[i] = request.getMethodArgSigs();
+            args[i] = request.getMethodArgs();
+            props[i] = request.getRequestProps();
+        }
+        SofaRequest first = requests.get(0);
+        SofaRequest batchRequest = new SofaRequest();
+        batchRequest.setInterfaceName(first.getInterfaceName());
+        batchRequest.setTargetServiceUniqueName(first.getTargetServiceUniqueName());
+        batchRequest.setTargetAppName(first.getTargetAppName());
+        batchRequest.setSerializeType(first.getSerializeType());
+        batchRequest.setInvokeType(first.getInvokeType());
+        batchRequest.setMethodName(RemotingConstants.BATCH_METHOD_NAME);
+        batchRequest.setMethodArgSigs(BATCH_ARG_SIGS);
+        batchRequest.setMethodArgs(new Object[] { methodNames, argSigs, args, props });
+        if (first.getRequestProps() != null) {
+            batchRequest.addRequestProps(first.getRequestProps());
+        }
+        return batchRequest;
+    }
+
+    /**
+     * 拆开批量请求
+     *
+     * @param batchRequest 批量请求
+     * @return 子请求
+     * @throws SofaRpcException 批量请求格式不对
+     */
+    public static List<SofaRequest> parseBatchRequest(SofaRequest batchRequest) throws SofaRpcException {
+        Object[] batchArgs = batchRequest.getMethodArgs();
+        if (batchArgs == null || batchArgs.length != BATCH_ARG_SIGS.length) {
+            throw new SofaRpcException(RpcErrorType.SERVER_DESERIALIZE, "Illegal batch request of service "
+                + batchRequest.getTargetServiceUniqueName());
+        }
+        String[] methodNames = (String[]) batchArgs[0];
+        String[][] argSigs = (String[][]) batchArgs[1];
+        Object[][] args = (Object[][]) batchArgs[2];
+        Map[] props = (Map[]) batchArgs[3];
+        List<SofaRequest> requests = new ArrayList<SofaRequest>(methodNames.length);
+        for (int i = 0; i < methodNames.length; i++) {
+            SofaRequest request = new SofaRequest();
+            request.setInterfaceName(batchRequest.getInterfaceName());
+            request.setTargetServiceUniqueName(batchRequest.getTargetServiceUniqueName());
+            request.setTargetAppName(batchRequest.getTargetAppName());
+            request.setSerializeType(batchRequest.getSerializeType());
+            request.setMethodName(methodNames[i]);
+            request.setMethodArgSigs(argSigs[i]);
+            request.setMethodArgs(args[i]);
+            if (props[i] != null) {
+                request.addRequestProps(props[i]);
+            }
+            requests.add(request);
+        }
+        return requests;
+    }
+
+    /**
+     * 把子响应合并成一个批量响应
+     *
+     * @param responses 与子请求顺序一致的子响应
+     * @return 批量响应
+     */
+    public static SofaResponse buildBatchResponse(SofaResponse[] responses) {
+        SofaResponse batchResponse = new SofaResponse();
+        batchResponse.setAppResponse(responses);
+        return batchResponse;
+    }
+
+    /**
+     * 拆开批量响应，批量响应本身出错时每个子请求都得到同样的错误
+     *
+     * @param batchResponse 批量响应
+     * @param size          子请求个数
+     * @return 与子请求顺序一致的子响应
+     * @throws SofaRpcException 批量响应格式不对
+     */
+    public static SofaResponse[] parseBatchResponse(SofaResponse batchResponse, int size) throws SofaRpcException {
+        SofaResponse[] responses = new SofaResponse[size];
+        Object appResponse = batchResponse.getAppResponse();
+        if (batchResponse.isError() || appResponse instanceof Throwable) {
+            for (int i = 0; i < size; i++) {
+                responses[i] = batchResponse;
+            }
+            return responses;
+        }
+        if (!(appResponse instanceof Object[]) || ((Object[]) appResponse).length != size) {
+            throw new SofaRpcException(RpcErrorType.CLIENT_DESERIALIZE, "Illegal batch response, expect "
+                + size + " responses");
+        }
+        Object[] results = (Object[]) appResponse;
+        for (int i = 0; i < size; i++) {
+            responses[i] = (SofaResponse) results[i];
+        }
+        return responses;
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.protocol.telnet;
+
+import com.alipay.sofa.rpc.common.utils.StringUtils;
+import com.alipay.sofa.rpc.context.StartupPhase;
+import com.alipay.sofa.rpc.context.StartupProfiler;
+import com.alipay.sofa.rpc.ext.Extension;
+import com.alipay.sofa.rpc.protocol.TelnetHandler;
+import com.alipay.sofa.rpc.transport.AbstractChannel;
+
+import java.util.List;
+
+/**
+ * 输出服务发布和引用各阶段耗时的时间线
+ */
+@Extension("startup")
+public class StartupTelnetHandler implements TelnetHandler {
+
+    @Override
+    public String getCommand() {
+        return "startup";
+    }
+
+    @Override
+    public String telnet(AbstractChannel channel, String message) {
+        String keyword = StringUtils.isBlank(message) ? null : message.trim();
+        List<StartupPhase> timeline = StartupProfiler.getTimeline(keyword);
+        StringBuilder result = new StringBuilder(128 + timeline.size() * 96);
+        if (!StartupProfiler.isEnable()) {
+            result.append("Startup profile is disabled.").append(LINE);
+        }
+        result.append("offset(ms)\telapsed(ms)\ttarget\tphase\tdetail\tthread").append(LINE);
+        long first = timeline.isEmpty() ? 0 : timeline.get(0).getBeginTime();
+        for (StartupPhase phase : timeline) {
+            result.append(phase.getBeginTime() - first).append('\t')
+                .append(String.format("%.3f", phase.getElapsedMicros() / 1000d)).append('\t')
+                .append(phase.getTarget()).append('\t')
+                .append(phase.getPhase()).append(phase.isSuccess() ? "" : "(failed)").append('\t')
+                .append(phase.getDetail() == null ? "-" : phase.getDetail()).append('\t')
+                .append(phase.getThreadName()).append(LINE);
+        }
+        int dropped = StartupProfiler.getDroppedCount();
+        if (dropped > 0) {
+            result.append(dropped).append(" phases are dropped.").append(LINE);
+        }
+        return result.toString();
+    }
+
+    @Override
+    public String getDescription() {
+        return "show the timeline of export and refer phases!" + LINE + "Usage:\tstartup" + LINE
+            + "\tstartup [keyword of service]";
+    }
+
+}
@@ -62,6 +62,17 @@ public abstract class Registry implements Initializable, Destroyable {
      */
     public abstract void register(ProviderConfig config);
 
+    /**
+     * 批量注册服务提供者，默认逐个注册，支持批量接口的注册中心可以覆盖
+     *
+     * @param configs Provider配置
+     */
+    public void batchRegister(List<ProviderConfig> configs) {
+        for (ProviderConfig config : configs) {
+            register(config);
+        }
+    }
+
     /**
      * 反注册服务提供者
      *
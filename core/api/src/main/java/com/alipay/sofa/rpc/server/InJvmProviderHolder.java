@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.server;
+
+import com.alipay.sofa.rpc.config.ConfigUniqueNameGenerator;
+import com.alipay.sofa.rpc.config.ProviderConfig;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 本JVM内已发布服务的调用器，供同JVM内的服务引用直接调用
+ */
+public final class InJvmProviderHolder {
+
+    /**
+     * 服务唯一名 : 服务端调用器
+     */
+    private static final ConcurrentMap<String, ProviderProxyInvoker> INVOKERS = new ConcurrentHashMap<String, ProviderProxyInvoker>();
+
+    private InJvmProviderHolder() {
+    }
+
+    /**
+     * 登记已发布的服务
+     *
+     * @param providerConfig 服务端配置
+     * @param invoker        服务端调用器
+     */
+    public static void register(ProviderConfig providerConfig, ProviderProxyInvoker invoker) {
+        INVOKERS.put(ConfigUniqueNameGenerator.getUniqueName(providerConfig), invoker);
+    }
+
+    /**
+     * 取消登记，只有登记的还是这个调用器时才移除
+     *
+     * @param providerConfig 服务端配置
+     * @param invoker        服务端调用器
+     */
+    public static void unregister(ProviderConfig providerConfig, ProviderProxyInvoker invoker) {
+        INVOKERS.remove(ConfigUniqueNameGenerator.getUniqueName(providerConfig), invoker);
+    }
+
+    /**
+     * 查找本JVM内发布的服务
+     *
+     * @param serviceUniqueName 服务唯一名
+     * @return 服务端调用器，没有发布时返回null
+     */
+    public static ProviderProxyInvoker getInvoker(String serviceUniqueName) {
+        return INVOKERS.get(serviceUniqueName);
+    }
+}
@@ -17,6 +17,9 @@
 package com.alipay.sofa.rpc.transport;
 
 import com.alipay.sofa.rpc.common.annotation.Unstable;
+import com.alipay.sofa.rpc.common.struct.UnsafeByteArrayInputStream;
+
+import java.io.InputStream;
 
 /**
  * <p>ByteBuf的一个抽象，这样可以隔离各种Bytebuf</p>
@@ -40,6 +43,15 @@ public abstract class AbstractByteBuf {
      */
     public abstract int readableBytes();
 
+    /**
+     * Get readable bytes as input stream, implementations can avoid copying data to byte[]
+     *
+     * @return input stream
+     */
+    public InputStream inputStream() {
+        return new UnsafeByteArrayInputStream(array());
+    }
+
     /**
      * release byte buffer
      *
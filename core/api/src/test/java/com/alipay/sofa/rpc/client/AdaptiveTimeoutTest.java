@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.client;
+
+import com.alipay.sofa.rpc.common.RpcConfigs;
+import com.alipay.sofa.rpc.common.RpcOptions;
+import com.alipay.sofa.rpc.listener.AdaptiveTimeoutListener;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class AdaptiveTimeoutTest {
+
+    @Test
+    public void testResolve() {
+        AdaptiveTimeout timeout = new AdaptiveTimeout("service", "method", "127.0.0.1:12200", 99, 2, 50, 0, 10,
+            60000, 0);
+        for (int i = 0; i < 9; i++) {
+            timeout.record(100, 0);
+        }
+        // 样本不足
+        Assert.assertFalse(timeout.needRefresh(0));
+        Assert.assertTrue(timeout.needRefresh(AdaptiveTimeout.REFRESH_INTERVAL));
+        Assert.assertFalse(timeout.refresh(1000));
+        Assert.assertEquals(-1, timeout.getTimeout());
+        Assert.assertEquals(3000, timeout.resolve(3000));
+
+        timeout.record(100, 1000);
+        Assert.assertTrue(timeout.refresh(2000));
+        Assert.assertEquals(103, timeout.getLatency());
+        Assert.assertEquals(206, timeout.getTimeout());
+        Assert.assertEquals(206, timeout.resolve(3000));
+        // 不超过配置的超时
+        Assert.assertEquals(150, timeout.resolve(150));
+        Assert.assertFalse(timeout.refresh(3000));
+    }
+
+    @Test
+    public void testClamp() {
+        AdaptiveTimeout timeout = new AdaptiveTimeout("service", "method", "127.0.0.1:12200", 50, 1.5, 50, 500, 1,
+            60000, 0);
+        timeout.record(1, 0);
+        timeout.refresh(0);
+        Assert.assertEquals(50, timeout.resolve(3000));
+
+        timeout = new AdaptiveTimeout("service", "method", "127.0.0.1:12200", 50, 1.5, 50, 500, 1, 60000, 0);
+        timeout.record(10000, 0);
+        timeout.refresh(0);
+        // 配置了最大超时时以最大超时为准
+        Assert.assertEquals(500, timeout.resolve(3000));
+        Assert.assertEquals(500, timeout.resolve(100));
+    }
+
+    @Test
+    public void testManager() throws InterruptedException {
+        int old = RpcConfigs.getIntValue(RpcOptions.CONSUMER_TIMEOUT_ADAPTIVE_MIN_SAMPLES);
+        RpcConfigs.putValue(RpcOptions.CONSUMER_TIMEOUT_ADAPTIVE_MIN_SAMPLES, 1);
+        final List<AdaptiveTimeout> changed = new CopyOnWriteArrayList<AdaptiveTimeout>();
+        final List<AdaptiveTimeout> removed = new CopyOnWriteArrayList<AdaptiveTimeout>();
+        final Thread[] notifyThread = new Thread[1];
+        final CountDownLatch notified = new CountDownLatch(1);
+        AdaptiveTimeoutListener listener = new AdaptiveTimeoutListener() {
+            @Override
+            public void onChanged(AdaptiveTimeout adaptiveTimeout) {
+                changed.add(adaptiveTimeout);
+                notifyThread[0] = Thread.currentThread();
+                notified.countDown();
+            }
+
+            @Override
+            public void onRemoved(AdaptiveTimeout adaptiveTimeout) {
+                removed.add(adaptiveTimeout);
+            }
+        };
+        AdaptiveTimeoutManager.addListener(listener);
+        try {
+            ProviderInfo provider = ProviderInfo.valueOf("bolt://127.0.0.1:12200");
+            // 没有统计时不记录
+            AdaptiveTimeoutManager.record("adaptive", "method", provider, 100);
+            Assert.assertTrue(AdaptiveTimeoutManager.getAdaptiveTimeouts().isEmpty());
+
+            Assert.assertEquals(3000, AdaptiveTimeoutManager.resolve("adaptive", "method", provider, 3000));
+            Assert.assertEquals(1, AdaptiveTimeoutManager.getAdaptiveTimeouts().size());
+            AdaptiveTimeout adaptiveTimeout = AdaptiveTimeoutManager.getAdaptiveTimeouts().get(0);
+            Assert.assertEquals("127.0.0.1:12200", adaptiveTimeout.getProvider());
+
+            AdaptiveTimeoutManager.record("adaptive", "method", provider, 100);
+            Thread.sleep(AdaptiveTimeout.REFRESH_INTERVAL);
+            Assert.assertEquals(206, AdaptiveTimeoutManager.resolve("adaptive", "method", provider, 3000));
+            // 监听器在通知线程里回调
+            Assert.assertTrue(notified.await(3, TimeUnit.SECONDS));
+            Assert.assertEquals(1, changed.size());
+            Assert.assertSame(adaptiveTimeout, changed.get(0));
+            Assert.assertNotSame(Thread.currentThread(), notifyThread[0]);
+            Assert.assertEquals(206, AdaptiveTimeoutManager.getMaxTimeout("adaptive", "method"));
+            Assert.assertEquals(-1, AdaptiveTimeoutManager.getMaxTimeout("adaptive", "other"));
+
+            AdaptiveTimeoutManager.remove("adaptive");
+            Assert.assertTrue(AdaptiveTimeoutManager.getAdaptiveTimeouts().isEmpty());
+            // 删除的统计也会通知，监听器据此注销指标
+            for (int i = 0; i < 30 && removed.isEmpty(); i++) {
+                Thread.sleep(100);
+            }
+            Assert.assertEquals(1, removed.size());
+            Assert.assertSame(adaptiveTimeout, removed.get(0));
+        } finally {
+            AdaptiveTimeoutManager.removeListener(listener);
+            AdaptiveTimeoutManager.remove("adaptive");
+            RpcConfigs.putValue(RpcOptions.CONSUMER_TIMEOUT_ADAPTIVE_MIN_SAMPLES, old);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.client;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBuckets() {
+        for (long value = 0; value < 100000; value++) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            Assert.assertTrue(value <= LatencyHistogram.upperBoundOf(bucket));
+            if (bucket > 0) {
+                Assert.assertTrue(value > LatencyHistogram.upperBoundOf(bucket - 1));
+            }
+            // 误差不超过 1/16
+            Assert.assertTrue(LatencyHistogram.upperBoundOf(bucket) - value <= Math.max(1, value / 16));
+        }
+        Assert.assertEquals(LatencyHistogram.MAX_VALUE,
+            LatencyHistogram.upperBoundOf(LatencyHistogram.bucketOf(LatencyHistogram.MAX_VALUE)));
+    }
+
+    @Test
+    public void testPercentile() {
+        LatencyHistogram histogram = new LatencyHistogram(1000, 0);
+        Assert.assertEquals(-1, histogram.getPercentile(99, 0));
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i, 0);
+        }
+        Assert.assertEquals(100, histogram.getCount(0));
+        Assert.assertEquals(50, histogram.getPercentile(50, 0), 2);
+        Assert.assertEquals(99, histogram.getPercentile(99, 0), 6);
+        Assert.assertEquals(100, histogram.getPercentile(100, 0), 6);
+
+        histogram.record(-1, 0);
+        histogram.record(Long.MAX_VALUE, 0);
+        Assert.assertEquals(0, histogram.getPercentile(0, 0));
+        Assert.assertEquals(LatencyHistogram.MAX_VALUE, histogram.getPercentile(100, 0));
+    }
+
+    @Test
+    public void testWindow() {
+        LatencyHistogram histogram = new LatencyHistogram(1000, 0);
+        histogram.record(10, 0);
+        // 上一个窗口的数据仍然保留
+        histogram.record(1000, 1500);
+        Assert.assertEquals(2, histogram.getCount(1500));
+        Assert.assertEquals(10, histogram.getPercentile(50, 1500));
+        // 第一个窗口过期
+        Assert.assertEquals(1, histogram.getCount(2600));
+        Assert.assertTrue(histogram.getPercentile(50, 2600) >= 1000);
+        // 空闲超过两个窗口
+        Assert.assertEquals(0, histogram.getCount(5000));
+    }
+}
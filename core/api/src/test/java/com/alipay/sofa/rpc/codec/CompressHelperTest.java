@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.codec;
+
+import com.alipay.sofa.rpc.client.ProviderHelper;
+import com.alipay.sofa.rpc.client.ProviderInfo;
+import com.alipay.sofa.rpc.client.ProviderInfoAttrs;
+import com.alipay.sofa.rpc.common.RemotingConstants;
+import com.alipay.sofa.rpc.core.request.SofaRequest;
+import com.alipay.sofa.rpc.core.response.SofaResponse;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CompressHelperTest {
+
+    @Test
+    public void testResolveRequestCompress() {
+        ProviderInfo providerInfo = ProviderHelper.toProviderInfo("bolt://127.0.0.1:12200");
+        SofaRequest request = new SofaRequest();
+        request.addRequestProp(RemotingConstants.HEAD_ACCEPT_COMPRESS, "test");
+
+        // 老版本服务端的响应里没有声明支持的压缩算法，请求体一直不压缩
+        CompressHelper.recordSupportCompress(providerInfo, new SofaResponse());
+        Assert.assertNull(providerInfo.getDynamicAttr(ProviderInfoAttrs.ATTR_SUPPORT_COMPRESS));
+        Assert.assertNull(CompressHelper.resolveRequestCompress(providerInfo, request));
+
+        // 服务端声明支持后才压缩
+        CompressHelper.recordSupportCompress(providerInfo, new SofaResponse().setCompressType("test"));
+        Assert.assertEquals("test", CompressHelper.resolveRequestCompress(providerInfo, request));
+
+        // 服务端声明支持的是其它压缩算法
+        request.addRequestProp(RemotingConstants.HEAD_ACCEPT_COMPRESS, "snappy");
+        Assert.assertNull(CompressHelper.resolveRequestCompress(providerInfo, request));
+
+        // 调用方没有声明压缩算法
+        request.removeRequestProp(RemotingConstants.HEAD_ACCEPT_COMPRESS);
+        Assert.assertNull(CompressHelper.resolveRequestCompress(providerInfo, request));
+        Assert.assertNull(CompressHelper.resolveRequestCompress(null, request));
+    }
+}
@@ -67,4 +67,22 @@ public class RpcInvokeContextTest {
     public void peekContext() throws Exception {
     }
 
+    @Test
+    public void testDeadline() throws Exception {
+        RpcInvokeContext context = new RpcInvokeContext();
+        Assert.assertNull(context.getDeadline());
+        Assert.assertNull(context.getRemainingTimeout());
+
+        context.setDeadline(RpcRuntimeContext.now() + 10000);
+        Long remaining = context.getRemainingTimeout();
+        Assert.assertNotNull(remaining);
+        Assert.assertTrue(remaining > 0 && remaining <= 10000);
+
+        context.setDeadline(RpcRuntimeContext.now() - 100);
+        Assert.assertTrue(context.getRemainingTimeout() < 0);
+
+        context.setDeadline(null);
+        Assert.assertNull(context.getRemainingTimeout());
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.context;
+
+import com.alipay.sofa.rpc.common.RpcConfigs;
+import com.alipay.sofa.rpc.common.RpcOptions;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+public class StartupProfilerTest {
+
+    @Before
+    public void setUp() {
+        RpcConfigs.putValue(RpcOptions.STARTUP_PROFILE_ENABLE, true);
+        StartupProfiler.clear();
+    }
+
+    @After
+    public void tearDown() {
+        RpcConfigs.putValue(RpcOptions.STARTUP_PROFILE_ENABLE, false);
+        RpcConfigs.putValue(RpcOptions.STARTUP_PROFILE_MAX_RECORDS, 4096);
+        StartupProfiler.clear();
+    }
+
+    @Test
+    public void testTimeline() throws Exception {
+        long outer = StartupProfiler.begin();
+        long inner = StartupProfiler.begin();
+        Thread.sleep(5);
+        StartupProfiler.end("a:1.0", StartupProfiler.PHASE_SUBSCRIBE, "registry", inner, true);
+        StartupProfiler.end("b:1.0", StartupProfiler.PHASE_EXPORT, null, StartupProfiler.begin(), false);
+        StartupProfiler.end("a:1.0", StartupProfiler.PHASE_REFER, null, outer, true);
+
+        List<StartupPhase> timeline = StartupProfiler.getTimeline();
+        Assert.assertEquals(3, timeline.size());
+        Assert.assertEquals(StartupProfiler.PHASE_REFER, timeline.get(0).getPhase());
+        Assert.assertEquals(StartupProfiler.PHASE_SUBSCRIBE, timeline.get(1).getPhase());
+        Assert.assertEquals("registry", timeline.get(1).getDetail());
+        Assert.assertTrue(timeline.get(1).getElapsedMicros() >= 5000);
+        Assert.assertTrue(timeline.get(0).getElapsedMicros() >= timeline.get(1).getElapsedMicros());
+        Assert.assertEquals(StartupProfiler.PHASE_EXPORT, timeline.get(2).getPhase());
+        Assert.assertFalse(timeline.get(2).isSuccess());
+        Assert.assertEquals(Thread.currentThread().getName(), timeline.get(2).getThreadName());
+
+        timeline = StartupProfiler.getTimeline("b:");
+        Assert.assertEquals(1, timeline.size());
+        Assert.assertEquals("b:1.0", timeline.get(0).getTarget());
+    }
+
+    @Test
+    public void testLimit() {
+        RpcConfigs.putValue(RpcOptions.STARTUP_PROFILE_MAX_RECORDS, 2);
+        for (int i = 0; i < 5; i++) {
+            StartupProfiler.end("a", StartupProfiler.PHASE_CONNECT_ONE, null, StartupProfiler.begin(), true);
+        }
+        Assert.assertEquals(2, StartupProfiler.getTimeline().size());
+        Assert.assertEquals(3, StartupProfiler.getDroppedCount());
+
+        StartupProfiler.clear();
+        Assert.assertEquals(0, StartupProfiler.getTimeline().size());
+        Assert.assertEquals(0, StartupProfiler.getDroppedCount());
+    }
+
+    @Test
+    public void testDisable() {
+        RpcConfigs.putValue(RpcOptions.STARTUP_PROFILE_ENABLE, false);
+        StartupProfiler.end("a", StartupProfiler.PHASE_EXPORT, null, StartupProfiler.begin(), true);
+        Assert.assertTrue(StartupProfiler.getTimeline().isEmpty());
+    }
+}
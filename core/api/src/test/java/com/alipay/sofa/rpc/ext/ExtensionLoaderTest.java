@@ -16,7 +16,12 @@
  */
 package com.alipay.sofa.rpc.ext;
 
+import com.alipay.sofa.rpc.client.Router;
+import com.alipay.sofa.rpc.client.router.TestChainRouter8;
+import com.alipay.sofa.rpc.common.RpcConfigs;
+import com.alipay.sofa.rpc.common.RpcOptions;
 import com.alipay.sofa.rpc.context.RpcRunningState;
+import com.alipay.sofa.rpc.core.exception.SofaRpcRuntimeException;
 import com.alipay.sofa.rpc.filter.Filter;
 import com.alipay.sofa.rpc.log.Logger;
 import com.alipay.sofa.rpc.log.LoggerFactory;
@@ -29,6 +34,7 @@ import java.lang.reflect.Field;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
 
 /**
@@ -394,4 +400,86 @@ public class ExtensionLoaderTest {
         Assert.assertTrue(filters.contains(alias));
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testLoadFromIndex() throws Exception {
+        Map<String, ExtensionIndex.Entry> index = ExtensionIndex.getIndex(getClass().getClassLoader());
+        ExtensionIndex.Entry entry = index.get(TestChainRouter8.class.getName());
+        Assert.assertNotNull(entry);
+        Assert.assertEquals("testChainRouter8", entry.getAlias());
+        Assert.assertTrue(entry.isProviderSide());
+        Assert.assertTrue(entry.isConsumerSide());
+        Assert.assertTrue(entry.isExtensionOf(Router.class.getName()));
+
+        // 默认不使用索引
+        ExtensionLoader<Router> loader = new ExtensionLoader<Router>(Router.class, null);
+        Assert.assertTrue(loader.all.get("testChainRouter8").isClassResolved());
+
+        RpcConfigs.putValue(RpcOptions.EXTENSION_INDEX_ENABLE, true);
+        try {
+            loader = new ExtensionLoader<Router>(Router.class, null);
+        } finally {
+            RpcConfigs.putValue(RpcOptions.EXTENSION_INDEX_ENABLE, false);
+        }
+        ExtensionClass<Router> extensionClass = loader.all.get("testChainRouter8");
+        Assert.assertEquals(TestChainRouter8.class.getName(), extensionClass.getClassName());
+        Assert.assertTrue(extensionClass.isProviderSideAutoActive());
+        Assert.assertTrue(extensionClass.isConsumerSideAutoActive());
+        // 实现类在第一次使用时才加载
+        Assert.assertFalse(extensionClass.isClassResolved());
+        Assert.assertTrue(loader.getExtension("testChainRouter8") instanceof TestChainRouter8);
+        Assert.assertTrue(extensionClass.isClassResolved());
+    }
+
+    @Test
+    public void testLazyClassLoadFailed() {
+        ExtensionLoader<Filter> loader = new ExtensionLoader<Filter>(Filter.class, null);
+        ExtensionClass<Filter> notFound = new ExtensionClass<Filter>(Filter.class, "com.xxx.NotFoundFilter",
+            "notFound", getClass().getClassLoader());
+        // 不是扩展接口的实现类
+        ExtensionClass<Filter> notSubType = new ExtensionClass<Filter>(Filter.class, String.class.getName(),
+            "notSubType", getClass().getClassLoader());
+        loader.all.put("notFound", notFound);
+        loader.all.put("notSubType", notSubType);
+
+        try {
+            notFound.getExtInstance();
+            Assert.fail();
+        } catch (SofaRpcRuntimeException e) {
+            Assert.assertTrue(e.getCause() instanceof ClassNotFoundException);
+        }
+        Assert.assertTrue(notFound.isClassLoadFailed());
+        Assert.assertNull(loader.getExtensionClass("notFound"));
+        Assert.assertFalse(loader.all.containsKey("notFound"));
+
+        Assert.assertFalse(loader.isAvailable(notSubType));
+        Assert.assertTrue(notSubType.isClassLoadFailed());
+        Assert.assertFalse(loader.all.containsKey("notSubType"));
+
+        loader.all.put("notFound", notFound);
+        Assert.assertFalse(loader.getAllExtensions().containsKey("notFound"));
+        try {
+            loader.getExtension("notFound");
+            Assert.fail();
+        } catch (SofaRpcRuntimeException e) {
+            Assert.assertTrue(e.getMessage().contains("notFound"));
+        }
+    }
+
+    @Test
+    public void testIndexFormat() {
+        ExtensionIndex.Entry entry = new ExtensionIndex.Entry("a", 10, (byte) 1, true, false, true,
+            new String[] { "b", "c" }, new String[] { Filter.class.getName() });
+        String line = ExtensionIndex.format("x.Y", entry);
+        ExtensionIndex.Entry parsed = ExtensionIndex.parse(line.substring(line.indexOf('=') + 1));
+        Assert.assertEquals("a", parsed.getAlias());
+        Assert.assertEquals(10, parsed.getOrder());
+        Assert.assertEquals(1, parsed.getCode());
+        Assert.assertTrue(parsed.isOverride());
+        Assert.assertFalse(parsed.isProviderSide());
+        Assert.assertTrue(parsed.isConsumerSide());
+        Assert.assertArrayEquals(new String[] { "b", "c" }, parsed.getRejection());
+        Assert.assertTrue(parsed.isExtensionOf(Filter.class.getName()));
+        Assert.assertNull(ExtensionIndex.parse("a|1"));
+    }
+}
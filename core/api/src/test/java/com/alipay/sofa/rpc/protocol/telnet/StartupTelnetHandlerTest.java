@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.protocol.telnet;
+
+import com.alipay.sofa.rpc.common.RpcConfigs;
+import com.alipay.sofa.rpc.common.RpcOptions;
+import com.alipay.sofa.rpc.context.StartupProfiler;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class StartupTelnetHandlerTest {
+
+    @Before
+    public void setUp() {
+        RpcConfigs.putValue(RpcOptions.STARTUP_PROFILE_ENABLE, true);
+    }
+
+    @After
+    public void tearDown() {
+        RpcConfigs.putValue(RpcOptions.STARTUP_PROFILE_ENABLE, false);
+        StartupProfiler.clear();
+    }
+
+    @Test
+    public void getCommand() throws Exception {
+        Assert.assertEquals("startup", new StartupTelnetHandler().getCommand());
+    }
+
+    @Test
+    public void telnet() throws Exception {
+        StartupProfiler.clear();
+        StartupProfiler.end("com.xxx.HelloService:1.0", StartupProfiler.PHASE_REGISTER, "zk", StartupProfiler.begin(),
+            true);
+        StartupProfiler.end("com.xxx.EchoService:1.0", StartupProfiler.PHASE_PROXY, null, StartupProfiler.begin(),
+            false);
+
+        String result = new StartupTelnetHandler().telnet(null, null);
+        Assert.assertTrue(result.contains(StartupProfiler.PHASE_REGISTER));
+        Assert.assertTrue(result.contains(StartupProfiler.PHASE_PROXY + "(failed)"));
+
+        result = new StartupTelnetHandler().telnet(null, "Hello");
+        Assert.assertTrue(result.contains("com.xxx.HelloService:1.0"));
+        Assert.assertFalse(result.contains("com.xxx.EchoService:1.0"));
+    }
+
+    @Test
+    public void getDescription() throws Exception {
+        Assert.assertNotNull(new StartupTelnetHandler().getDescription());
+    }
+}
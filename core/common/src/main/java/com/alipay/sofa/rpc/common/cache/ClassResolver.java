@@ -0,0 +1,419 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.common.cache;
+
+import com.alipay.sofa.common.config.SofaConfigs;
+import com.alipay.sofa.rpc.common.config.RpcConfigKeys;
+import com.alipay.sofa.rpc.common.struct.PrefixTrie;
+import com.alipay.sofa.rpc.common.utils.StringUtils;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 统一的类加载服务，供序列化和 {@link com.alipay.sofa.rpc.common.utils.ClassTypeUtils} 共用：
+ * <ul>
+ * <li>按 ClassLoader 分开的并发类缓存，ClassLoader 和 Class 都是弱引用，ClassLoader 被回收后对应缓存一并清理</li>
+ * <li>找不到的类在一段时间内直接返回，不再重复加载</li>
+ * <li>编译成前缀树的允许/禁止类名前缀，禁止优先，允许列表为空表示不限制</li>
+ * </ul>
+ *
+ * @since 5.7.9
+ */
+public final class ClassResolver {
+
+    private static final ClassResolver               INSTANCE     = new ClassResolver(
+                                                                      SofaConfigs
+                                                                          .getOrDefault(RpcConfigKeys.CLASS_NEGATIVE_CACHE_TTL),
+                                                                      SofaConfigs
+                                                                          .getOrDefault(RpcConfigKeys.CLASS_NEGATIVE_CACHE_SIZE));
+
+    /**
+     * ClassLoader --> {类名:WeakReference&lt;Class&gt; 或 NotFound}
+     */
+    private final ConcurrentMap<Object, LoaderCache> caches       = new ConcurrentHashMap<Object, LoaderCache>();
+    /**
+     * 已回收的 ClassLoader
+     */
+    private final ReferenceQueue<ClassLoader>        queue        = new ReferenceQueue<ClassLoader>();
+    /**
+     * 找不到的类的缓存时间（毫秒），0 表示不缓存
+     */
+    private final long                               negativeTtl;
+    /**
+     * 每个 ClassLoader 最多缓存的找不到的类个数
+     */
+    private final int                                negativeSize;
+
+    /**
+     * 允许的类名前缀
+     */
+    private volatile PrefixTrie                      allowList    = PrefixTrie.EMPTY;
+    /**
+     * 禁止的类名前缀
+     */
+    private volatile PrefixTrie                      denyList     = PrefixTrie.EMPTY;
+
+    private final LongAdder                          hitCount     = new LongAdder();
+    private final LongAdder                          missCount    = new LongAdder();
+    private final LongAdder                          notFoundHits = new LongAdder();
+    private final LongAdder                          deniedCount  = new LongAdder();
+
+    ClassResolver(long negativeTtl, int negativeSize) {
+        this.negativeTtl = negativeTtl;
+        this.negativeSize = negativeSize;
+        String allowList = SofaConfigs.getOrDefault(RpcConfigKeys.SERIALIZE_ALLOW_LIST);
+        if (StringUtils.isNotBlank(allowList)) {
+            setAllowList(Arrays.asList(StringUtils.splitWithCommaOrSemicolon(allowList)));
+        }
+    }
+
+    /**
+     * 全局共享的实例
+     *
+     * @return ClassResolver
+     */
+    public static ClassResolver getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 设置允许的类名前缀，为空表示不限制
+     *
+     * @param prefixes 类名前缀
+     */
+    public void setAllowList(Collection<String> prefixes) {
+        this.allowList = PrefixTrie.compile(prefixes);
+    }
+
+    /**
+     * 设置禁止的类名前缀
+     *
+     * @param prefixes 类名前缀
+     */
+    public void setDenyList(Collection<String> prefixes) {
+        this.denyList = PrefixTrie.compile(prefixes);
+    }
+
+    /**
+     * 是否配置了允许的类名前缀
+     *
+     * @return 是否配置了允许列表
+     */
+    public boolean hasAllowList() {
+        return !allowList.isEmpty();
+    }
+
+    /**
+     * 类名是否命中禁止的类名前缀，不计入拒绝次数
+     *
+     * @param className 类名
+     * @return 是否被禁止
+     */
+    public boolean isInDenyList(String className) {
+        return denyList.matches(className);
+    }
+
+    /**
+     * 类名是否允许被加载，禁止优先
+     *
+     * @param className 类名
+     * @return 是否允许
+     */
+    public boolean isAllowed(String className) {
+        if (denyList.matches(className)) {
+            deniedCount.increment();
+            return false;
+        }
+        PrefixTrie allow = allowList;
+        if (!allow.isEmpty() && !allow.matches(className)) {
+            deniedCount.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 加载类，优先读缓存
+     *
+     * @param className   类名
+     * @param classLoader 加载用的 ClassLoader
+     * @return 类，找不到返回 null
+     */
+    public Class<?> resolve(String className, ClassLoader classLoader) {
+        if (classLoader == null) {
+            try {
+                return Class.forName(className, true, null);
+            } catch (ClassNotFoundException e) {
+                return null;
+            }
+        }
+        LoaderCache cache = getOrCreateCache(classLoader);
+        Object value = cache.classes.get(className);
+        if (value instanceof WeakReference) {
+            Class<?> clazz = (Class<?>) ((WeakReference) value).get();
+            if (clazz != null) {
+                hitCount.increment();
+                return clazz;
+            }
+        } else if (value instanceof NotFound) {
+            if (((NotFound) value).expireTime - System.currentTimeMillis() > 0) {
+                notFoundHits.increment();
+                return null;
+            }
+            if (cache.classes.remove(className, value)) {
+                cache.notFoundCount.decrementAndGet();
+            }
+        }
+        missCount.increment();
+        try {
+            Class<?> clazz = Class.forName(className, true, classLoader);
+            cache.classes.put(className, new WeakReference<Class<?>>(clazz));
+            return clazz;
+        } catch (ClassNotFoundException e) {
+            putNotFound(cache, className);
+            return null;
+        }
+    }
+
+    /**
+     * 只读缓存，不加载
+     *
+     * @param className   类名
+     * @param classLoader 加载用的 ClassLoader
+     * @return 缓存的类，没有返回 null
+     */
+    public Class<?> getCache(String className, ClassLoader classLoader) {
+        if (classLoader == null) {
+            return null;
+        }
+        LoaderCache cache = caches.get(new LookupKey(classLoader));
+        Object value = cache == null ? null : cache.classes.get(className);
+        if (value instanceof WeakReference) {
+            Class<?> clazz = (Class<?>) ((WeakReference) value).get();
+            if (clazz != null) {
+                hitCount.increment();
+                return clazz;
+            }
+        }
+        // 未命中时调用方会再走 resolve，在那里计数
+        return null;
+    }
+
+    /**
+     * 放入缓存
+     *
+     * @param className   类名
+     * @param clazz       类
+     * @param classLoader 加载用的 ClassLoader
+     */
+    public void putCache(String className, Class<?> clazz, ClassLoader classLoader) {
+        if (classLoader == null || clazz == null) {
+            return;
+        }
+        getOrCreateCache(classLoader).classes.put(className, new WeakReference<Class<?>>(clazz));
+    }
+
+    /**
+     * 缓存的 ClassLoader 个数
+     *
+     * @return ClassLoader 个数
+     */
+    public int size() {
+        expungeStaleEntries();
+        return caches.size();
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clear() {
+        caches.clear();
+    }
+
+    /**
+     * 缓存命中次数
+     *
+     * @return 命中次数
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * 缓存未命中次数
+     *
+     * @return 未命中次数
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * 命中“找不到”缓存的次数
+     *
+     * @return 命中次数
+     */
+    public long getNotFoundHitCount() {
+        return notFoundHits.sum();
+    }
+
+    /**
+     * 被允许/禁止列表拦截的次数
+     *
+     * @return 拦截次数
+     */
+    public long getDeniedCount() {
+        return deniedCount.sum();
+    }
+
+    private LoaderCache getOrCreateCache(ClassLoader classLoader) {
+        LoaderCache cache = caches.get(new LookupKey(classLoader));
+        if (cache == null) {
+            expungeStaleEntries();
+            cache = new LoaderCache();
+            LoaderCache old = caches.putIfAbsent(new LoaderKey(classLoader, queue), cache);
+            if (old != null) {
+                cache = old;
+            }
+        }
+        return cache;
+    }
+
+    private void putNotFound(LoaderCache cache, String className) {
+        if (negativeTtl <= 0 || negativeSize <= 0) {
+            return;
+        }
+        // 超过上限时先清掉过期的，还是放不下就全部清掉，避免大量随机类名把内存撑大
+        long now = System.currentTimeMillis();
+        if (cache.notFoundCount.get() >= negativeSize) {
+            cache.removeNotFound(now, false);
+            if (cache.notFoundCount.get() >= negativeSize) {
+                cache.removeNotFound(now, true);
+            }
+        }
+        if (cache.classes.put(className, new NotFound(now + negativeTtl)) == null) {
+            cache.notFoundCount.incrementAndGet();
+        }
+    }
+
+    private void expungeStaleEntries() {
+        Reference<? extends ClassLoader> ref;
+        while ((ref = queue.poll()) != null) {
+            caches.remove(ref);
+        }
+    }
+
+    /**
+     * 缓存中 ClassLoader 的弱引用 key，按 ClassLoader 对象判断相等
+     */
+    private static final class LoaderKey extends WeakReference<ClassLoader> {
+        private final int hash;
+
+        private LoaderKey(ClassLoader classLoader, ReferenceQueue<ClassLoader> queue) {
+            super(classLoader, queue);
+            this.hash = System.identityHashCode(classLoader);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            ClassLoader classLoader = get();
+            if (classLoader == null) {
+                return false;
+            }
+            if (obj instanceof LookupKey) {
+                return ((LookupKey) obj).classLoader == classLoader;
+            }
+            return obj instanceof LoaderKey && ((LoaderKey) obj).get() == classLoader;
+        }
+    }
+
+    /**
+     * 查询用的 key，不创建弱引用
+     */
+    private static final class LookupKey {
+        private final ClassLoader classLoader;
+
+        private LookupKey(ClassLoader classLoader) {
+            this.classLoader = classLoader;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(classLoader);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof LoaderKey) {
+                return ((LoaderKey) obj).get() == classLoader;
+            }
+            return obj instanceof LookupKey && ((LookupKey) obj).classLoader == classLoader;
+        }
+    }
+
+    /**
+     * 找不到的类
+     */
+    private static final class NotFound {
+        private final long expireTime;
+
+        private NotFound(long expireTime) {
+            this.expireTime = expireTime;
+        }
+    }
+
+    /**
+     * 一个 ClassLoader 下的缓存
+     */
+    private static final class LoaderCache {
+        /**
+         * 类名 --> WeakReference&lt;Class&gt; 或 NotFound，Class 用弱引用避免反过来持有 ClassLoader
+         */
+        private final ConcurrentMap<String, Object> classes       = new ConcurrentHashMap<String, Object>();
+        /**
+         * 找不到的类的个数
+         */
+        private final AtomicInteger                 notFoundCount = new AtomicInteger();
+
+        private void removeNotFound(long now, boolean all) {
+            for (Map.Entry<String, Object> entry : classes.entrySet()) {
+                Object value = entry.getValue();
+                if (value instanceof NotFound && (all || ((NotFound) value).expireTime - now <= 0)
+                    && classes.remove(entry.getKey(), value)) {
+                    notFoundCount.decrementAndGet();
+                }
+            }
+        }
+    }
+}
@@ -20,8 +20,6 @@ import com.alipay.sofa.rpc.common.annotation.VisibleForTesting;
 import com.alipay.sofa.rpc.common.utils.ClassLoaderUtils;
 
 import java.lang.reflect.Method;
-import java.util.Map;
-import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -108,26 +106,25 @@ public final class ReflectCache {
 
     /*----------- Class Cache ------------*/
     /**
-     * String-->Class 缓存
+     * ClassLoader-->{String-->Class} 缓存，与序列化共用
      */
     @VisibleForTesting
-    static final ConcurrentMap<String, WeakHashMap<ClassLoader, Class>> CLASS_CACHE    = new ConcurrentHashMap<String, WeakHashMap<ClassLoader, Class>>();
+    static final ClassResolver                CLASS_CACHE    = ClassResolver.getInstance();
 
     /**
      * Class-->String 缓存
      */
     @VisibleForTesting
-    static final ConcurrentMap<Class, String>                           TYPE_STR_CACHE = new ConcurrentHashMap<Class, String>();
+    static final ConcurrentMap<Class, String> TYPE_STR_CACHE = new ConcurrentHashMap<Class, String>();
 
     /**
-     * 放入Class缓存
+     * 放入Class缓存，按当前线程的ClassLoader区分
      *
      * @param typeStr 对象描述
      * @param clazz   类
      */
     public static void putClassCache(String typeStr, Class clazz) {
-        CLASS_CACHE.putIfAbsent(typeStr, new WeakHashMap<ClassLoader, Class>());
-        CLASS_CACHE.get(typeStr).put(clazz.getClassLoader(), clazz);
+        CLASS_CACHE.putCache(typeStr, clazz, Thread.currentThread().getContextClassLoader());
     }
 
     /**
@@ -137,13 +134,7 @@ public final class ReflectCache {
      * @return 类
      */
     public static Class getClassCache(String typeStr) {
-        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
-        if (classLoader == null) {
-            return null;
-        } else {
-            Map<ClassLoader, Class> temp = CLASS_CACHE.get(typeStr);
-            return temp == null ? null : temp.get(classLoader);
-        }
+        return CLASS_CACHE.getCache(typeStr, Thread.currentThread().getContextClassLoader());
     }
 
     /**
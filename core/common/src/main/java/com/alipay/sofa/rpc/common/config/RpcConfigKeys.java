@@ -36,6 +36,34 @@ public class RpcConfigKeys {
                                                                              "sofa.rpc.mesh.httpReadTimeout", 15000,
                                                                              false, "Read timeout of MeshApiClient.",
                                                                              new String[] { "mesh_http_read_timeout" });
+    public static ConfigKey<Integer> MESH_HTTP_MAX_CONCURRENCY           = ConfigKey
+                                                                             .build(
+                                                                                 "sofa.rpc.mesh.httpMaxConcurrency",
+                                                                                 5,
+                                                                                 false,
+                                                                                 "Max concurrent requests of MeshApiClient, keep it no more than the keep-alive connections of HttpURLConnection.",
+                                                                                 new String[] { "mesh_http_max_concurrency" });
+    public static ConfigKey<Integer> MESH_HTTP_RETRY_TIMES               = ConfigKey
+                                                                             .build(
+                                                                                 "sofa.rpc.mesh.httpRetryTimes",
+                                                                                 2,
+                                                                                 false,
+                                                                                 "Retry times of failed MeshApiClient request.",
+                                                                                 new String[] { "mesh_http_retry_times" });
+    public static ConfigKey<Integer> MESH_HTTP_RETRY_BACKOFF             = ConfigKey
+                                                                             .build(
+                                                                                 "sofa.rpc.mesh.httpRetryBackoff",
+                                                                                 100,
+                                                                                 false,
+                                                                                 "Backoff(ms) before the first retry of MeshApiClient, doubled for each later retry.",
+                                                                                 new String[] { "mesh_http_retry_backoff" });
+    public static ConfigKey<Integer> MESH_BATCH_WINDOW                   = ConfigKey
+                                                                             .build(
+                                                                                 "sofa.rpc.mesh.batchWindow",
+                                                                                 50,
+                                                                                 false,
+                                                                                 "Delay(ms) of MeshRegistry to merge the publishes and subscribes into one batch request, 0 means send at once.",
+                                                                                 new String[] { "mesh_batch_window" });
 
     //tracer
     public static ConfigKey<String>  TRACER_EXPOSE_TYPE                  = ConfigKey
@@ -43,8 +71,57 @@ public class RpcConfigKeys {
                                                                                  "sofa.rpc.tracer.exposeType",
                                                                                  "DISK",
                                                                                  false,
-                                                                                 "Report type of tracer. May be 'DISK' or 'MEMORY",
+                                                                                 "Report type of tracer. May be 'DISK', 'BATCH' or 'MEMORY",
                                                                                  new String[] { "reporter_type" });
+    public static ConfigKey<Integer> TRACER_BATCH_QUEUE_SIZE             = ConfigKey
+                                                                             .build(
+                                                                                 "sofa.rpc.tracer.batch.queueSize",
+                                                                                 8192,
+                                                                                 false,
+                                                                                 "Max pending digest spans of BATCH reporter, overflowed spans will be discarded.",
+                                                                                 new String[] { "tracer_batch_queue_size" });
+    public static ConfigKey<Integer> TRACER_BATCH_FLUSH_INTERVAL         = ConfigKey
+                                                                             .build(
+                                                                                 "sofa.rpc.tracer.batch.flushInterval",
+                                                                                 200,
+                                                                                 false,
+                                                                                 "Flush interval(ms) of BATCH reporter when there is no more span.",
+                                                                                 new String[] { "tracer_batch_flush_interval" });
+    public static ConfigKey<Integer> TRACER_SAMPLE_RATE                  = ConfigKey.build(
+                                                                             "sofa.rpc.tracer.sampleRate", 100,
+                                                                             false,
+                                                                             "Percentage of root calls to be sampled.",
+                                                                             new String[] { "tracer_sample_rate" });
+    public static ConfigKey<Integer> TRACER_SAMPLE_MAX_PER_SECOND        = ConfigKey
+                                                                             .build(
+                                                                                 "sofa.rpc.tracer.sampleMaxPerSecond",
+                                                                                 0,
+                                                                                 false,
+                                                                                 "Max sampled root calls per second of each service, 0 means no limit.",
+                                                                                 new String[] { "tracer_sample_max_per_second" });
+
+    // serialize
+    public static ConfigKey<String>  SERIALIZE_ALLOW_LIST                = ConfigKey
+                                                                             .build(
+                                                                                 "sofa.rpc.serialize.allowList",
+                                                                                 "",
+                                                                                 false,
+                                                                                 "Class name prefixes allowed to be deserialized when blacklist is enabled, separated by comma. Empty means no allow list.",
+                                                                                 new String[] { "rpc_serialize_allow_list" });
+    public static ConfigKey<Integer> CLASS_NEGATIVE_CACHE_TTL            = ConfigKey
+                                                                             .build(
+                                                                                 "sofa.rpc.classResolver.negativeCacheTtl",
+                                                                                 10000,
+                                                                                 false,
+                                                                                 "How long(ms) a class not found will be remembered before loading it again, 0 means no negative cache.",
+                                                                                 new String[] { "class_negative_cache_ttl" });
+    public static ConfigKey<Integer> CLASS_NEGATIVE_CACHE_SIZE           = ConfigKey
+                                                                             .build(
+                                                                                 "sofa.rpc.classResolver.negativeCacheSize",
+                                                                                 1024,
+                                                                                 false,
+                                                                                 "Max classes not found remembered for each classloader.",
+                                                                                 new String[] { "class_negative_cache_size" });
 
     // remoting
     // http
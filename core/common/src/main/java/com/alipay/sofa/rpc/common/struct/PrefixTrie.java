@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.common.struct;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 编译后不可变的前缀树，判断字符串是否以任一前缀开头，匹配耗时只与字符串长度有关，与前缀个数无关。
+ *
+ * @since 5.7.9
+ */
+public final class PrefixTrie {
+
+    /**
+     * 空前缀树，不匹配任何字符串
+     */
+    public static final PrefixTrie EMPTY = new PrefixTrie(null, 0);
+
+    /**
+     * 根节点，为空表示没有前缀
+     */
+    private final Node             root;
+    /**
+     * 前缀个数
+     */
+    private final int              size;
+
+    private PrefixTrie(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * 编译前缀列表，空白的前缀会被忽略
+     *
+     * @param prefixes 前缀列表
+     * @return 前缀树
+     */
+    public static PrefixTrie compile(Collection<String> prefixes) {
+        if (prefixes == null || prefixes.isEmpty()) {
+            return EMPTY;
+        }
+        Builder root = new Builder();
+        int size = 0;
+        for (String prefix : prefixes) {
+            if (prefix == null) {
+                continue;
+            }
+            String trimmed = prefix.trim();
+            if (trimmed.length() == 0) {
+                continue;
+            }
+            Builder node = root;
+            for (int i = 0; i < trimmed.length(); i++) {
+                Character c = trimmed.charAt(i);
+                Builder child = node.children.get(c);
+                if (child == null) {
+                    child = new Builder();
+                    node.children.put(c, child);
+                }
+                node = child;
+            }
+            if (!node.terminal) {
+                node.terminal = true;
+                size++;
+            }
+        }
+        return size == 0 ? EMPTY : new PrefixTrie(root.build(), size);
+    }
+
+    /**
+     * 字符串是否以任一前缀开头
+     *
+     * @param str 字符串
+     * @return 是否匹配
+     */
+    public boolean matches(String str) {
+        Node node = root;
+        if (node == null || str == null) {
+            return false;
+        }
+        for (int i = 0, length = str.length(); i < length; i++) {
+            node = node.child(str.charAt(i));
+            if (node == null) {
+                return false;
+            }
+            if (node.terminal) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 是否没有任何前缀
+     *
+     * @return 是否为空
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 前缀个数
+     *
+     * @return 前缀个数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 编译后的节点，子节点按字符排序后二分查找
+     */
+    private static final class Node {
+        private static final char[] NO_KEYS     = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        private final char[]        keys;
+        private final Node[]        children;
+        private final boolean       terminal;
+
+        private Node(char[] keys, Node[] children, boolean terminal) {
+            this.keys = keys;
+            this.children = children;
+            this.terminal = terminal;
+        }
+
+        private Node child(char c) {
+            char[] keys = this.keys;
+            if (keys.length == 1) {
+                return keys[0] == c ? children[0] : null;
+            }
+            int index = Arrays.binarySearch(keys, c);
+            return index < 0 ? null : children[index];
+        }
+    }
+
+    /**
+     * 编译期使用的可变节点
+     */
+    private static final class Builder {
+        private final TreeMap<Character, Builder> children = new TreeMap<Character, Builder>();
+        private boolean                           terminal;
+
+        private Node build() {
+            // 已经命中的前缀下面的更长前缀不会再被用到
+            if (terminal || children.isEmpty()) {
+                return new Node(Node.NO_KEYS, Node.NO_CHILDREN, terminal);
+            }
+            char[] keys = new char[children.size()];
+            Node[] nodes = new Node[children.size()];
+            int i = 0;
+            for (Map.Entry<Character, Builder> entry : children.entrySet()) {
+                keys[i] = entry.getKey();
+                nodes[i] = entry.getValue().build();
+                i++;
+            }
+            return new Node(keys, nodes, false);
+        }
+    }
+}
@@ -16,7 +16,9 @@
  */
 package com.alipay.sofa.rpc.common.utils;
 
+import com.alipay.sofa.rpc.common.cache.ClassResolver;
 import com.alipay.sofa.rpc.common.cache.ReflectCache;
+import com.alipay.sofa.rpc.core.exception.SofaRpcRuntimeException;
 
 /**
  * <p>类型转换工具类</p>
@@ -84,7 +86,10 @@ public class ClassTypeUtils {
                 clazz = short.class;
             } else {
                 String jvmName = canonicalNameToJvmName(typeStr);
-                clazz = ClassUtils.forName(jvmName);
+                clazz = ClassResolver.getInstance().resolve(jvmName, ClassLoaderUtils.getCurrentClassLoader());
+                if (clazz == null) {
+                    throw new SofaRpcRuntimeException(new ClassNotFoundException(jvmName));
+                }
             }
             ReflectCache.putClassCache(typeStr, clazz);
         }
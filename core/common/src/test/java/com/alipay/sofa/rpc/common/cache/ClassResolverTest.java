@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.common.cache;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class ClassResolverTest {
+
+    private final ClassLoader classLoader = ClassResolverTest.class.getClassLoader();
+
+    @Test
+    public void testResolve() {
+        ClassResolver resolver = new ClassResolver(10000, 16);
+        Assert.assertEquals(ClassResolverTest.class, resolver.resolve(ClassResolverTest.class.getName(), classLoader));
+        Assert.assertEquals(1, resolver.getMissCount());
+        Assert.assertEquals(ClassResolverTest.class, resolver.resolve(ClassResolverTest.class.getName(), classLoader));
+        Assert.assertEquals(1, resolver.getHitCount());
+        Assert.assertEquals(String[].class, resolver.resolve("[Ljava.lang.String;", classLoader));
+        Assert.assertEquals(String.class, resolver.resolve(String.class.getName(), null));
+
+        Assert.assertEquals(ClassResolverTest.class, resolver.getCache(ClassResolverTest.class.getName(), classLoader));
+        Assert.assertNull(resolver.getCache(Integer.class.getName(), classLoader));
+        resolver.putCache("int", int.class, classLoader);
+        Assert.assertEquals(int.class, resolver.getCache("int", classLoader));
+
+        Assert.assertEquals(1, resolver.size());
+        resolver.clear();
+        Assert.assertEquals(0, resolver.size());
+    }
+
+    @Test
+    public void testNotFound() throws InterruptedException {
+        ClassResolver resolver = new ClassResolver(50, 16);
+        Assert.assertNull(resolver.resolve("com.alipay.sofa.rpc.NotExists", classLoader));
+        Assert.assertEquals(1, resolver.getMissCount());
+        Assert.assertNull(resolver.resolve("com.alipay.sofa.rpc.NotExists", classLoader));
+        Assert.assertEquals(1, resolver.getMissCount());
+        Assert.assertEquals(1, resolver.getNotFoundHitCount());
+
+        Thread.sleep(100);
+        Assert.assertNull(resolver.resolve("com.alipay.sofa.rpc.NotExists", classLoader));
+        Assert.assertEquals(2, resolver.getMissCount());
+
+        // 超过上限不会无限增长
+        for (int i = 0; i < 100; i++) {
+            Assert.assertNull(resolver.resolve("com.alipay.sofa.rpc.NotExists" + i, classLoader));
+        }
+        Assert.assertNull(resolver.resolve("com.alipay.sofa.rpc.NotExists99", classLoader));
+        Assert.assertEquals(2, resolver.getNotFoundHitCount());
+        Assert.assertEquals(ClassResolverTest.class, resolver.resolve(ClassResolverTest.class.getName(), classLoader));
+
+        ClassResolver noNegative = new ClassResolver(0, 16);
+        Assert.assertNull(noNegative.resolve("com.alipay.sofa.rpc.NotExists", classLoader));
+        Assert.assertNull(noNegative.resolve("com.alipay.sofa.rpc.NotExists", classLoader));
+        Assert.assertEquals(2, noNegative.getMissCount());
+        Assert.assertEquals(0, noNegative.getNotFoundHitCount());
+    }
+
+    @Test
+    public void testClassLoaderCollected() throws InterruptedException {
+        ClassResolver resolver = new ClassResolver(10000, 16);
+        ClassLoader temp = new URLClassLoader(new URL[0], classLoader);
+        Assert.assertEquals(ClassResolverTest.class, resolver.resolve(ClassResolverTest.class.getName(), temp));
+        Assert.assertEquals(ClassResolverTest.class, resolver.resolve(ClassResolverTest.class.getName(), classLoader));
+        Assert.assertEquals(2, resolver.size());
+
+        temp = null;
+        for (int i = 0; i < 50 && resolver.size() > 1; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        Assert.assertEquals(1, resolver.size());
+    }
+
+    @Test
+    public void testAllowed() {
+        ClassResolver resolver = new ClassResolver(10000, 16);
+        Assert.assertTrue(resolver.isAllowed("com.sun.rowset.JdbcRowSetImpl"));
+
+        resolver.setDenyList(Arrays.asList("com.sun.rowset.", "java.net.Socket"));
+        Assert.assertFalse(resolver.isAllowed("com.sun.rowset.JdbcRowSetImpl"));
+        Assert.assertFalse(resolver.isAllowed("java.net.Socket"));
+        Assert.assertTrue(resolver.isAllowed("java.lang.String"));
+        Assert.assertEquals(2, resolver.getDeniedCount());
+
+        resolver.setAllowList(Arrays.asList("java.", "com.alipay."));
+        Assert.assertTrue(resolver.isAllowed("java.lang.String"));
+        Assert.assertTrue(resolver.isAllowed("com.alipay.sofa.rpc.core.request.SofaRequest"));
+        Assert.assertFalse(resolver.isAllowed("org.example.Dto"));
+        Assert.assertFalse(resolver.isAllowed("java.net.Socket"));
+
+        resolver.setAllowList(Collections.<String> emptyList());
+        Assert.assertTrue(resolver.isAllowed("org.example.Dto"));
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.common.struct;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class PrefixTrieTest {
+
+    @Test
+    public void testMatches() {
+        PrefixTrie trie = PrefixTrie.compile(Arrays.asList("java.net.Socket",
+            "org.apache.commons.collections.functors",
+            "com.sun.", "com.sun.rowset", " ", null, "java.net.Socket"));
+        Assert.assertEquals(4, trie.size());
+        Assert.assertFalse(trie.isEmpty());
+
+        Assert.assertTrue(trie.matches("java.net.Socket"));
+        Assert.assertTrue(trie.matches("java.net.SocketImpl"));
+        Assert.assertTrue(trie.matches("com.sun.rowset.JdbcRowSetImpl"));
+        Assert.assertTrue(trie.matches("org.apache.commons.collections.functors.InvokerTransformer"));
+
+        Assert.assertFalse(trie.matches("java.net.Sock"));
+        Assert.assertFalse(trie.matches("java.net.URL"));
+        Assert.assertFalse(trie.matches("com.sun"));
+        Assert.assertFalse(trie.matches("org.apache.commons.collections.map.HashedMap"));
+        Assert.assertFalse(trie.matches(""));
+        Assert.assertFalse(trie.matches(null));
+    }
+
+    @Test
+    public void testEmpty() {
+        Assert.assertSame(PrefixTrie.EMPTY, PrefixTrie.compile(null));
+        Assert.assertSame(PrefixTrie.EMPTY, PrefixTrie.compile(Collections.<String> emptyList()));
+        Assert.assertSame(PrefixTrie.EMPTY, PrefixTrie.compile(Arrays.asList("", "  ")));
+        Assert.assertTrue(PrefixTrie.EMPTY.isEmpty());
+        Assert.assertFalse(PrefixTrie.EMPTY.matches("java.lang.String"));
+    }
+}
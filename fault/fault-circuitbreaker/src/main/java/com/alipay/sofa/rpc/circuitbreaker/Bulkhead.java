@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.circuitbreaker;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Semaphore bulkhead which limits the concurrent calls of a method in the caller thread, without thread hop.
+ */
+public class Bulkhead {
+
+    private final int           maxConcurrentCalls;
+
+    private final AtomicInteger concurrentCalls = new AtomicInteger();
+
+    /**
+     * @param maxConcurrentCalls 最大并发调用数，小于等于 0 表示不限制
+     */
+    public Bulkhead(int maxConcurrentCalls) {
+        this.maxConcurrentCalls = maxConcurrentCalls;
+    }
+
+    public boolean tryAcquire() {
+        if (maxConcurrentCalls <= 0) {
+            return true;
+        }
+        for (;;) {
+            int current = concurrentCalls.get();
+            if (current >= maxConcurrentCalls) {
+                return false;
+            }
+            if (concurrentCalls.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release() {
+        if (maxConcurrentCalls <= 0) {
+            return;
+        }
+        if (concurrentCalls.decrementAndGet() < 0) {
+            // 释放次数多于获取次数说明调用方有 bug，不能吞掉，否则会抵消其它调用真正持有的许可
+            concurrentCalls.incrementAndGet();
+            throw new IllegalStateException("Bulkhead released more times than acquired");
+        }
+    }
+
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+    public int getConcurrentCalls() {
+        return concurrentCalls.get();
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.circuitbreaker;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock free circuit breaker: CLOSED -&gt; OPEN when the failure rate of the sliding window reaches the threshold,
+ * OPEN -&gt; HALF_OPEN after the open duration, then HALF_OPEN -&gt; CLOSED if all probe calls succeed, or back to
+ * OPEN if any of them fails.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final AtomicReference<State> state             = new AtomicReference<State>(State.CLOSED);
+
+    /**
+     * 半开状态下剩余的探测次数
+     */
+    private final AtomicInteger          halfOpenPermits   = new AtomicInteger();
+
+    /**
+     * 半开状态下探测成功的次数
+     */
+    private final AtomicInteger          halfOpenSuccesses = new AtomicInteger();
+
+    private final String                 windowType;
+
+    private final int                    windowSize;
+
+    private final int                    minimumCalls;
+
+    private final int                    failureRate;
+
+    private final long                   openDuration;
+
+    private final int                    halfOpenCalls;
+
+    /**
+     * 关闭状态下的统计窗口，每次关闭熔断器都换成新的窗口
+     */
+    private volatile SlidingWindow       window;
+
+    /**
+     * 熔断器打开的时间
+     */
+    private volatile long                openedAt;
+
+    public CircuitBreaker(String windowType, int windowSize, int minimumCalls, int failureRate, long openDuration,
+                          int halfOpenCalls) {
+        this.windowType = windowType;
+        this.windowSize = windowSize;
+        this.minimumCalls = Math.max(minimumCalls, 1);
+        this.failureRate = failureRate;
+        this.openDuration = openDuration;
+        this.halfOpenCalls = Math.max(halfOpenCalls, 1);
+        this.window = newWindow();
+    }
+
+    /**
+     * 是否允许本次调用
+     *
+     * @return 允许返回 true
+     */
+    public boolean tryAcquirePermission() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN) {
+            if (System.currentTimeMillis() - openedAt < openDuration) {
+                return false;
+            }
+            if (!state.compareAndSet(State.OPEN, State.HALF_OPEN)) {
+                return false;
+            }
+            halfOpenSuccesses.set(0);
+            halfOpenPermits.set(halfOpenCalls);
+        }
+        for (;;) {
+            int permits = halfOpenPermits.get();
+            if (permits <= 0) {
+                return false;
+            }
+            if (halfOpenPermits.compareAndSet(permits, permits - 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 记录一次被允许的调用的结果
+     *
+     * @param failure 是否失败
+     */
+    public void onResult(boolean failure) {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            SlidingWindow w = window;
+            w.record(failure);
+            int total = w.getTotalCalls();
+            if (total >= minimumCalls && w.getFailedCalls() * 100L >= (long) failureRate * total) {
+                transitionToOpen(State.CLOSED);
+            }
+        } else if (current == State.HALF_OPEN) {
+            if (failure) {
+                transitionToOpen(State.HALF_OPEN);
+            } else if (halfOpenSuccesses.incrementAndGet() >= halfOpenCalls
+                && state.compareAndSet(State.HALF_OPEN, State.CLOSED)) {
+                window = newWindow();
+            }
+        }
+        // 打开之前放行的调用，结果直接忽略
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    private void transitionToOpen(State from) {
+        openedAt = System.currentTimeMillis();
+        state.compareAndSet(from, State.OPEN);
+    }
+
+    private SlidingWindow newWindow() {
+        return CircuitBreakerConstants.WINDOW_TYPE_TIME.equalsIgnoreCase(windowType) ?
+            new TimeSlidingWindow(windowSize) : new CountSlidingWindow(windowSize);
+    }
+}
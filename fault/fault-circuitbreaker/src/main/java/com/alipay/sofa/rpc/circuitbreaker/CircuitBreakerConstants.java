@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.circuitbreaker;
+
+/**
+ * Circuit breaker constants, all keys can be set by {@link com.alipay.sofa.rpc.config.MethodConfig#setParameter},
+ * {@link com.alipay.sofa.rpc.config.ConsumerConfig#setParameter} or global {@link com.alipay.sofa.rpc.common.RpcConfigs}
+ */
+public class CircuitBreakerConstants {
+
+    /**
+     * 是否开启熔断和隔离，默认 false
+     */
+    public static final String SOFA_CIRCUIT_BREAKER_ENABLED    = "sofa.circuitbreaker.enabled";
+
+    /**
+     * 滑动窗口类型：count（按调用次数）或 time（按秒），默认 count
+     */
+    public static final String CIRCUIT_BREAKER_WINDOW_TYPE     = "circuitbreaker.window.type";
+
+    /**
+     * 滑动窗口大小，count 类型为调用次数，time 类型为秒数，默认 100
+     */
+    public static final String CIRCUIT_BREAKER_WINDOW_SIZE     = "circuitbreaker.window.size";
+
+    /**
+     * 窗口内最少调用次数，达到后才计算失败率，默认 20
+     */
+    public static final String CIRCUIT_BREAKER_MINIMUM_CALLS   = "circuitbreaker.minimum.calls";
+
+    /**
+     * 打开熔断器的失败率阈值（百分比），默认 50
+     */
+    public static final String CIRCUIT_BREAKER_FAILURE_RATE    = "circuitbreaker.failure.rate";
+
+    /**
+     * 熔断器打开后多久进入半开状态（毫秒），默认 5000
+     */
+    public static final String CIRCUIT_BREAKER_OPEN_DURATION   = "circuitbreaker.open.duration";
+
+    /**
+     * 半开状态下允许的探测调用次数，全部成功则关闭熔断器，默认 5
+     */
+    public static final String CIRCUIT_BREAKER_HALF_OPEN_CALLS = "circuitbreaker.halfopen.calls";
+
+    /**
+     * 单个方法的最大并发调用数（信号量隔离），小于等于 0 表示不限制，默认 0
+     */
+    public static final String BULKHEAD_MAX_CONCURRENT_CALLS   = "bulkhead.max.concurrent.calls";
+
+    public static final String WINDOW_TYPE_COUNT               = "count";
+
+    public static final String WINDOW_TYPE_TIME                = "time";
+
+}
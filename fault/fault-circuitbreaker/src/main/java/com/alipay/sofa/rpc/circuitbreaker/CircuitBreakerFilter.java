@@ -0,0 +1,252 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.circuitbreaker;
+
+import com.alipay.sofa.rpc.common.RpcConfigs;
+import com.alipay.sofa.rpc.common.RpcConstants;
+import com.alipay.sofa.rpc.common.utils.StringUtils;
+import com.alipay.sofa.rpc.config.AbstractInterfaceConfig;
+import com.alipay.sofa.rpc.config.ConsumerConfig;
+import com.alipay.sofa.rpc.core.exception.RpcErrorType;
+import com.alipay.sofa.rpc.core.exception.SofaRpcException;
+import com.alipay.sofa.rpc.core.request.SofaRequest;
+import com.alipay.sofa.rpc.core.response.SofaResponse;
+import com.alipay.sofa.rpc.ext.Extension;
+import com.alipay.sofa.rpc.filter.AutoActive;
+import com.alipay.sofa.rpc.filter.Filter;
+import com.alipay.sofa.rpc.filter.FilterInvoker;
+import com.alipay.sofa.rpc.log.LogCodes;
+import com.alipay.sofa.rpc.log.Logger;
+import com.alipay.sofa.rpc.log.LoggerFactory;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Lightweight alternative of HystrixFilter: circuit breaker and semaphore bulkhead run in the caller thread, and
+ * nothing here depends on hystrix. When sofa-rpc-fault-hystrix is on the classpath, the fallback is loaded from
+ * its SofaHystrixConfig as same as hystrix, otherwise failed calls have no fallback.
+ * <p>
+ * Sync, future and callback calls are all protected, oneway calls are not. Future/callback calls hold their permit
+ * until the result arrives in {@link #onAsyncResponse}, or until the send fails in {@link #invoke}, whichever comes
+ * first. Fallbacks apply to sync calls only, rejected future/callback calls fail fast.
+ */
+@Extension("circuitBreaker")
+@AutoActive(consumerSide = true)
+public class CircuitBreakerFilter extends Filter {
+
+    private final static Logger                         LOGGER          = LoggerFactory
+                                                                            .getLogger(CircuitBreakerFilter.class);
+
+    /**
+     * 方法名 -&gt; 熔断器
+     */
+    private final ConcurrentMap<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<String, CircuitBreaker>();
+
+    /**
+     * 方法名 -&gt; 信号量隔离
+     */
+    private final ConcurrentMap<String, Bulkhead>       bulkheads       = new ConcurrentHashMap<String, Bulkhead>();
+
+    /**
+     * 未完成的异步调用 -&gt; 占用的许可，请求对象按引用比较
+     */
+    private final ConcurrentMap<SofaRequest, Permit>    asyncPermits    = new ConcurrentHashMap<SofaRequest, Permit>();
+
+    @Override
+    public boolean needToLoad(FilterInvoker invoker) {
+        AbstractInterfaceConfig config = invoker.getConfig();
+        // 只支持 consumer 侧
+        if (!(config instanceof ConsumerConfig)) {
+            if (LOGGER.isWarnEnabled(config.getAppName())) {
+                LOGGER.warnWithApp(config.getAppName(),
+                    "CircuitBreakerFilter is not allowed on provider, interfaceId: {}", config.getInterfaceId());
+            }
+            return false;
+        }
+        String enabled = config.getParameter(CircuitBreakerConstants.SOFA_CIRCUIT_BREAKER_ENABLED);
+        if (StringUtils.isNotBlank(enabled)) {
+            return Boolean.valueOf(enabled);
+        }
+        return RpcConfigs.getOrDefaultValue(CircuitBreakerConstants.SOFA_CIRCUIT_BREAKER_ENABLED, false);
+    }
+
+    @Override
+    public SofaResponse invoke(FilterInvoker invoker, SofaRequest request) throws SofaRpcException {
+        if (RpcConstants.INVOKER_TYPE_ONEWAY.equals(request.getInvokeType())) {
+            return invoker.invoke(request);
+        }
+        AbstractInterfaceConfig config = invoker.getConfig();
+        String methodName = request.getMethodName();
+        Bulkhead bulkhead = getBulkhead(config, methodName);
+        if (!bulkhead.tryAcquire()) {
+            return reject(invoker, request, new SofaRpcException(RpcErrorType.CLIENT_FILTER,
+                LogCodes.getLog(LogCodes.ERROR_BULKHEAD_FULL, config.getInterfaceId(), methodName,
+                    bulkhead.getMaxConcurrentCalls())));
+        }
+        CircuitBreaker circuitBreaker = getCircuitBreaker(config, methodName);
+        if (!circuitBreaker.tryAcquirePermission()) {
+            bulkhead.release();
+            return reject(invoker, request, new SofaRpcException(RpcErrorType.CLIENT_FILTER,
+                LogCodes.getLog(LogCodes.ERROR_CIRCUIT_BREAKER_OPEN, config.getInterfaceId(), methodName)));
+        }
+
+        if (request.isAsync()) {
+            return invokeAsync(invoker, request, new Permit(bulkhead, circuitBreaker));
+        }
+
+        SofaResponse response = null;
+        RuntimeException exception = null;
+        try {
+            response = invoker.invoke(request);
+        } catch (RuntimeException e) {
+            exception = e;
+        } finally {
+            bulkhead.release();
+            circuitBreaker.onResult(exception != null || response == null || response.isError());
+        }
+        if (exception == null && response != null && !response.isError()) {
+            return response;
+        }
+        SofaResponse fallbackResponse = fallback(invoker, request, response, exception);
+        if (fallbackResponse != null) {
+            return fallbackResponse;
+        }
+        if (exception != null) {
+            throw exception;
+        }
+        return response;
+    }
+
+    private SofaResponse invokeAsync(FilterInvoker invoker, SofaRequest request, Permit permit) {
+        // 先登记再发送，结果可能在 invoke 返回之前就到达
+        asyncPermits.put(request, permit);
+        try {
+            return invoker.invoke(request);
+        } catch (RuntimeException e) {
+            // 发送失败时有的协议也会回调结果，谁先取走许可谁释放
+            release(request, true);
+            throw e;
+        }
+    }
+
+    @Override
+    public void onAsyncResponse(ConsumerConfig config, SofaRequest request, SofaResponse response, Throwable exception)
+        throws SofaRpcException {
+        release(request, exception != null || response == null || response.isError());
+    }
+
+    private void release(SofaRequest request, boolean failed) {
+        Permit permit = asyncPermits.remove(request);
+        if (permit != null) {
+            permit.bulkhead.release();
+            permit.circuitBreaker.onResult(failed);
+        }
+    }
+
+    private SofaResponse reject(FilterInvoker invoker, SofaRequest request, SofaRpcException exception) {
+        if (request.isAsync()) {
+            throw exception;
+        }
+        SofaResponse fallbackResponse = fallback(invoker, request, null, exception);
+        if (fallbackResponse != null) {
+            return fallbackResponse;
+        }
+        throw exception;
+    }
+
+    /**
+     * 调用用户注册的 fallback，引入了 fault-hystrix 时和 hystrix 共用 fallback 配置
+     *
+     * @return 没有 fallback 时返回 null
+     */
+    private SofaResponse fallback(FilterInvoker invoker, SofaRequest request, SofaResponse response,
+                                  Throwable exception) {
+        if (!HystrixFallback.SUPPORTED || request.getMethod() == null) {
+            return null;
+        }
+        return HystrixFallback.invoke(invoker, request, response, exception);
+    }
+
+    private CircuitBreaker getCircuitBreaker(AbstractInterfaceConfig config, String methodName) {
+        CircuitBreaker circuitBreaker = circuitBreakers.get(methodName);
+        if (circuitBreaker == null) {
+            circuitBreaker = new CircuitBreaker(
+                getStringConfig(config, methodName, CircuitBreakerConstants.CIRCUIT_BREAKER_WINDOW_TYPE,
+                    CircuitBreakerConstants.WINDOW_TYPE_COUNT),
+                getIntConfig(config, methodName, CircuitBreakerConstants.CIRCUIT_BREAKER_WINDOW_SIZE, 100),
+                getIntConfig(config, methodName, CircuitBreakerConstants.CIRCUIT_BREAKER_MINIMUM_CALLS, 20),
+                getIntConfig(config, methodName, CircuitBreakerConstants.CIRCUIT_BREAKER_FAILURE_RATE, 50),
+                getIntConfig(config, methodName, CircuitBreakerConstants.CIRCUIT_BREAKER_OPEN_DURATION, 5000),
+                getIntConfig(config, methodName, CircuitBreakerConstants.CIRCUIT_BREAKER_HALF_OPEN_CALLS, 5));
+            CircuitBreaker old = circuitBreakers.putIfAbsent(methodName, circuitBreaker);
+            if (old != null) {
+                circuitBreaker = old;
+            }
+        }
+        return circuitBreaker;
+    }
+
+    private Bulkhead getBulkhead(AbstractInterfaceConfig config, String methodName) {
+        Bulkhead bulkhead = bulkheads.get(methodName);
+        if (bulkhead == null) {
+            bulkhead = new Bulkhead(getIntConfig(config, methodName,
+                CircuitBreakerConstants.BULKHEAD_MAX_CONCURRENT_CALLS, 0));
+            Bulkhead old = bulkheads.putIfAbsent(methodName, bulkhead);
+            if (old != null) {
+                bulkhead = old;
+            }
+        }
+        return bulkhead;
+    }
+
+    /**
+     * 优先取方法级参数，其次接口级参数，最后是全局配置
+     */
+    private String getStringConfig(AbstractInterfaceConfig config, String methodName, String key, String defaultValue) {
+        String value = getConfig(config, methodName, key);
+        return value == null ? RpcConfigs.getOrDefaultValue(key, defaultValue) : value;
+    }
+
+    private int getIntConfig(AbstractInterfaceConfig config, String methodName, String key, int defaultValue) {
+        String value = getConfig(config, methodName, key);
+        return value == null ? RpcConfigs.getOrDefaultValue(key, defaultValue) : Integer.parseInt(value);
+    }
+
+    private String getConfig(AbstractInterfaceConfig config, String methodName, String key) {
+        Object value = config.getMethodConfigValue(methodName, key);
+        if (value == null) {
+            value = config.getParameter(key);
+        }
+        return value == null || StringUtils.isBlank(value.toString()) ? null : value.toString().trim();
+    }
+
+    /**
+     * 一次调用占用的信号量和熔断器许可
+     */
+    private static class Permit {
+
+        private final Bulkhead       bulkhead;
+
+        private final CircuitBreaker circuitBreaker;
+
+        private Permit(Bulkhead bulkhead, CircuitBreaker circuitBreaker) {
+            this.bulkhead = bulkhead;
+            this.circuitBreaker = circuitBreaker;
+        }
+    }
+}
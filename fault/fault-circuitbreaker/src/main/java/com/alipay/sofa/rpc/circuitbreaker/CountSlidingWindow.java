@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.circuitbreaker;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sliding window of the last N calls, backed by a ring buffer.
+ */
+public class CountSlidingWindow extends SlidingWindow {
+
+    /**
+     * 每个槽位记录一次调用结果，1 表示失败
+     */
+    private final AtomicIntegerArray ring;
+
+    /**
+     * 已记录的调用次数，用于计算写入的槽位
+     */
+    private final AtomicLong         index    = new AtomicLong();
+
+    /**
+     * 窗口内的失败次数
+     */
+    private final AtomicInteger      failures = new AtomicInteger();
+
+    public CountSlidingWindow(int size) {
+        this.ring = new AtomicIntegerArray(Math.max(size, 1));
+    }
+
+    @Override
+    public void record(boolean failure) {
+        int slot = (int) (index.getAndIncrement() % ring.length());
+        int value = failure ? 1 : 0;
+        int old = ring.getAndSet(slot, value);
+        if (old != value) {
+            failures.addAndGet(value - old);
+        }
+    }
+
+    @Override
+    public int getTotalCalls() {
+        return (int) Math.min(index.get(), ring.length());
+    }
+
+    @Override
+    public int getFailedCalls() {
+        return failures.get();
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.circuitbreaker;
+
+import com.alipay.sofa.rpc.config.ConsumerConfig;
+import com.alipay.sofa.rpc.core.exception.SofaRpcRuntimeException;
+import com.alipay.sofa.rpc.core.request.SofaRequest;
+import com.alipay.sofa.rpc.core.response.SofaResponse;
+import com.alipay.sofa.rpc.filter.FilterInvoker;
+import com.alipay.sofa.rpc.hystrix.FallbackContext;
+import com.alipay.sofa.rpc.hystrix.FallbackFactory;
+import com.alipay.sofa.rpc.hystrix.SofaHystrixConfig;
+import com.alipay.sofa.rpc.log.LogCodes;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * 复用 fault-hystrix 的 fallback 配置。fault-hystrix 是可选依赖，
+ * 只有 {@link #SUPPORTED} 为 true 时才能调用本类的方法，否则会找不到类。
+ *
+ * @since 5.7.9
+ */
+final class HystrixFallback {
+
+    /**
+     * 是否引入了 fault-hystrix
+     */
+    static final boolean SUPPORTED = isFallbackOnClasspath();
+
+    private HystrixFallback() {
+    }
+
+    /**
+     * 调用用户注册的 fallback
+     *
+     * @return 没有 fallback 时返回 null
+     */
+    static SofaResponse invoke(FilterInvoker invoker, SofaRequest request, SofaResponse response,
+                               Throwable exception) {
+        FallbackFactory fallbackFactory = SofaHystrixConfig.loadFallbackFactory((ConsumerConfig) invoker.getConfig());
+        if (fallbackFactory == null) {
+            return null;
+        }
+        Object fallback = fallbackFactory.create(new FallbackContext(invoker, request, response, exception));
+        if (fallback == null) {
+            return null;
+        }
+        try {
+            Object fallbackResult = request.getMethod().invoke(fallback, request.getMethodArgs());
+            SofaResponse actualResponse = new SofaResponse();
+            actualResponse.setAppResponse(fallbackResult);
+            return actualResponse;
+        } catch (IllegalAccessException e) {
+            throw new SofaRpcRuntimeException(LogCodes.getLog(LogCodes.ERROR_CIRCUIT_BREAKER_FALLBACK_FAIL), e);
+        } catch (InvocationTargetException e) {
+            throw new SofaRpcRuntimeException(LogCodes.getLog(LogCodes.ERROR_CIRCUIT_BREAKER_FALLBACK_FAIL),
+                e.getTargetException());
+        }
+    }
+
+    private static boolean isFallbackOnClasspath() {
+        try {
+            Class.forName("com.alipay.sofa.rpc.hystrix.SofaHystrixConfig");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.circuitbreaker;
+
+/**
+ * Sliding window which records the outcome of calls, it is lock free and the statistics are approximate under
+ * concurrency.
+ */
+public abstract class SlidingWindow {
+
+    /**
+     * 记录一次调用结果
+     *
+     * @param failure 是否失败
+     */
+    public abstract void record(boolean failure);
+
+    /**
+     * 窗口内的调用总数
+     *
+     * @return total calls
+     */
+    public abstract int getTotalCalls();
+
+    /**
+     * 窗口内的失败次数
+     *
+     * @return failed calls
+     */
+    public abstract int getFailedCalls();
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.circuitbreaker;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sliding window of the last N seconds, one bucket per second.
+ */
+public class TimeSlidingWindow extends SlidingWindow {
+
+    private final Bucket[] buckets;
+
+    public TimeSlidingWindow(int seconds) {
+        this.buckets = new Bucket[Math.max(seconds, 1)];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new Bucket();
+        }
+    }
+
+    @Override
+    public void record(boolean failure) {
+        long second = currentSecond();
+        Bucket bucket = buckets[(int) (second % buckets.length)];
+        long epoch = bucket.epoch.get();
+        if (epoch != second && bucket.epoch.compareAndSet(epoch, second)) {
+            // 复用过期的桶，并发写入的少量数据可能被清掉，对失败率的影响可以忽略
+            bucket.total.set(0);
+            bucket.failures.set(0);
+        }
+        bucket.total.incrementAndGet();
+        if (failure) {
+            bucket.failures.incrementAndGet();
+        }
+    }
+
+    @Override
+    public int getTotalCalls() {
+        long second = currentSecond();
+        int total = 0;
+        for (Bucket bucket : buckets) {
+            if (second - bucket.epoch.get() < buckets.length) {
+                total += bucket.total.get();
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public int getFailedCalls() {
+        long second = currentSecond();
+        int failures = 0;
+        for (Bucket bucket : buckets) {
+            if (second - bucket.epoch.get() < buckets.length) {
+                failures += bucket.failures.get();
+            }
+        }
+        return failures;
+    }
+
+    protected long currentSecond() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    private static class Bucket {
+
+        private final AtomicLong    epoch    = new AtomicLong(-1);
+
+        private final AtomicInteger total    = new AtomicInteger();
+
+        private final AtomicInteger failures = new AtomicInteger();
+    }
+}
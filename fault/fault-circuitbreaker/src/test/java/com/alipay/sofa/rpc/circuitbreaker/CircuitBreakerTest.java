@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.circuitbreaker;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CircuitBreakerTest {
+
+    @Test
+    public void testCountSlidingWindow() {
+        CountSlidingWindow window = new CountSlidingWindow(4);
+        window.record(true);
+        window.record(false);
+        Assert.assertEquals(2, window.getTotalCalls());
+        Assert.assertEquals(1, window.getFailedCalls());
+
+        window.record(true);
+        window.record(true);
+        window.record(false);
+        // 第一个失败已经滑出窗口
+        Assert.assertEquals(4, window.getTotalCalls());
+        Assert.assertEquals(2, window.getFailedCalls());
+    }
+
+    @Test
+    public void testTimeSlidingWindow() {
+        final long[] now = new long[] { 100 };
+        TimeSlidingWindow window = new TimeSlidingWindow(2) {
+            @Override
+            protected long currentSecond() {
+                return now[0];
+            }
+        };
+        window.record(true);
+        window.record(false);
+        now[0] = 101;
+        window.record(true);
+        Assert.assertEquals(3, window.getTotalCalls());
+        Assert.assertEquals(2, window.getFailedCalls());
+
+        now[0] = 102;
+        window.record(false);
+        Assert.assertEquals(2, window.getTotalCalls());
+        Assert.assertEquals(1, window.getFailedCalls());
+
+        now[0] = 110;
+        Assert.assertEquals(0, window.getTotalCalls());
+    }
+
+    @Test
+    public void testStateTransition() throws InterruptedException {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(CircuitBreakerConstants.WINDOW_TYPE_COUNT, 10, 4, 50, 100,
+            2);
+        for (int i = 0; i < 3; i++) {
+            Assert.assertTrue(circuitBreaker.tryAcquirePermission());
+            circuitBreaker.onResult(true);
+        }
+        // 未达到最少调用次数
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        Assert.assertTrue(circuitBreaker.tryAcquirePermission());
+        circuitBreaker.onResult(false);
+        Assert.assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        Assert.assertFalse(circuitBreaker.tryAcquirePermission());
+
+        // 半开后探测失败，重新打开
+        Thread.sleep(150);
+        Assert.assertTrue(circuitBreaker.tryAcquirePermission());
+        Assert.assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        circuitBreaker.onResult(true);
+        Assert.assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        Assert.assertFalse(circuitBreaker.tryAcquirePermission());
+
+        // 半开后探测全部成功，关闭
+        Thread.sleep(150);
+        Assert.assertTrue(circuitBreaker.tryAcquirePermission());
+        Assert.assertTrue(circuitBreaker.tryAcquirePermission());
+        // 探测次数用完
+        Assert.assertFalse(circuitBreaker.tryAcquirePermission());
+        circuitBreaker.onResult(false);
+        Assert.assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        circuitBreaker.onResult(false);
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+        // 关闭后使用新的统计窗口
+        circuitBreaker.onResult(true);
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void testBulkhead() {
+        Bulkhead bulkhead = new Bulkhead(2);
+        Assert.assertTrue(bulkhead.tryAcquire());
+        Assert.assertTrue(bulkhead.tryAcquire());
+        Assert.assertFalse(bulkhead.tryAcquire());
+        bulkhead.release();
+        Assert.assertTrue(bulkhead.tryAcquire());
+        bulkhead.release();
+        bulkhead.release();
+        Assert.assertEquals(0, bulkhead.getConcurrentCalls());
+        try {
+            bulkhead.release();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertEquals(0, bulkhead.getConcurrentCalls());
+        }
+
+        Bulkhead unlimited = new Bulkhead(0);
+        for (int i = 0; i < 10; i++) {
+            Assert.assertTrue(unlimited.tryAcquire());
+        }
+    }
+}
@@ -16,6 +16,7 @@
  */
 package com.alipay.sofa.rpc.event;
 
+import com.alipay.sofa.rpc.client.AdaptiveTimeout;
 import com.alipay.sofa.rpc.common.RemotingConstants;
 import com.alipay.sofa.rpc.common.RpcConfigs;
 import com.alipay.sofa.rpc.common.RpcConstants;
@@ -24,8 +25,10 @@ import com.alipay.sofa.rpc.context.RpcInternalContext;
 import com.alipay.sofa.rpc.context.RpcRunningState;
 import com.alipay.sofa.rpc.core.request.SofaRequest;
 import com.alipay.sofa.rpc.core.response.SofaResponse;
+import com.alipay.sofa.rpc.listener.AdaptiveTimeoutListener;
 import com.alipay.sofa.rpc.metrics.lookout.RpcClientLookoutModel;
 import com.alipay.sofa.rpc.metrics.lookout.RpcLookout;
+import com.alipay.sofa.rpc.metrics.lookout.RpcLookoutAggregator;
 import com.alipay.sofa.rpc.metrics.lookout.RpcServerLookoutModel;
 
 /**
@@ -33,18 +36,29 @@ import com.alipay.sofa.rpc.metrics.lookout.RpcServerLookoutModel;
  *
  * @author <a href="mailto:lw111072@antfin.com">LiWei.Liangen</a>
  */
-public class LookoutSubscriber extends Subscriber {
+public class LookoutSubscriber extends Subscriber implements AdaptiveTimeoutListener {
 
     /**
      * Whether lookout be banned from collecting information.
      */
-    public static boolean    lookoutCollectDisable = RpcConfigs
-                                                       .getBooleanValue(RpcOptions.LOOKOUT_COLLECT_DISABLE);
+    public static boolean              lookoutCollectDisable = RpcConfigs
+                                                                 .getBooleanValue(RpcOptions.LOOKOUT_COLLECT_DISABLE);
 
-    private final RpcLookout rpcMetrics            = new RpcLookout();
+    private final RpcLookout           rpcMetrics            = new RpcLookout();
+
+    /**
+     * Pre-aggregate invocation information locally, null if disabled.
+     */
+    private final RpcLookoutAggregator aggregator;
 
     public LookoutSubscriber() {
         super(false);
+        if (RpcConfigs.getBooleanValue(RpcOptions.LOOKOUT_AGGREGATE_ENABLE)) {
+            aggregator = new RpcLookoutAggregator(rpcMetrics,
+                RpcConfigs.getIntValue(RpcOptions.LOOKOUT_AGGREGATE_INTERVAL));
+        } else {
+            aggregator = null;
+        }
     }
 
     @Override
@@ -60,6 +74,11 @@ public class LookoutSubscriber extends Subscriber {
 
             ClientEndInvokeEvent clientEndInvokeEvent = (ClientEndInvokeEvent) event;
 
+            if (aggregator != null) {
+                aggregateClient(clientEndInvokeEvent.getRequest(), clientEndInvokeEvent.getResponse());
+                return;
+            }
+
             RpcClientLookoutModel rpcClientMetricsModel = createClientMetricsModel(clientEndInvokeEvent.getRequest(),
                 clientEndInvokeEvent.getResponse());
 
@@ -69,6 +88,11 @@ public class LookoutSubscriber extends Subscriber {
 
             ServerSendEvent serverSendEvent = (ServerSendEvent) event;
 
+            if (aggregator != null) {
+                aggregateServer(serverSendEvent.getRequest(), serverSendEvent.getResponse());
+                return;
+            }
+
             RpcServerLookoutModel rpcServerMetricsModel = createServerMetricsModel(serverSendEvent.getRequest(),
                 serverSendEvent.getResponse());
 
@@ -95,6 +119,79 @@ public class LookoutSubscriber extends Subscriber {
         }
     }
 
+    /**
+     * record client information into aggregator, no model is created
+     * @param request
+     * @param response
+     */
+    private void aggregateClient(SofaRequest request, SofaResponse response) {
+        RpcInternalContext context = RpcInternalContext.getContext();
+        aggregator.recordClient(
+            getStringAvoidNull(context.getAttachment(RpcConstants.INTERNAL_KEY_APP_NAME)),
+            request.getTargetServiceUniqueName(),
+            request.getMethodName(),
+            getStringAvoidNull(context.getAttachment(RpcConstants.INTERNAL_KEY_PROTOCOL_NAME)),
+            request.getInvokeType(),
+            request.getTargetAppName(),
+            isSuccess(response),
+            getLongAvoidNull(context.getAttachment(RpcConstants.INTERNAL_KEY_CLIENT_ELAPSE)),
+            getLongAvoidNull(context.getAttachment(RpcConstants.INTERNAL_KEY_REQ_SIZE)),
+            getLongAvoidNull(context.getAttachment(RpcConstants.INTERNAL_KEY_RESP_SIZE)));
+    }
+
+    /**
+     * record server information into aggregator, no model is created
+     * @param request
+     * @param response
+     */
+    private void aggregateServer(SofaRequest request, SofaResponse response) {
+        RpcInternalContext context = RpcInternalContext.getContext();
+        aggregator.recordServer(
+            request.getTargetAppName(),
+            request.getTargetServiceUniqueName(),
+            request.getMethodName(),
+            getStringAvoidNull(request.getRequestProp(RemotingConstants.HEAD_PROTOCOL)),
+            getStringAvoidNull(request.getRequestProp(RemotingConstants.HEAD_APP_NAME)),
+            isSuccess(response),
+            getLongAvoidNull(context.getAttachment(RpcConstants.INTERNAL_KEY_IMPL_ELAPSE)));
+    }
+
+    private boolean isSuccess(SofaResponse response) {
+        return response != null && !response.isError() && response.getErrorMsg() == null &&
+            (!(response.getAppResponse() instanceof Throwable));
+    }
+
+    /**
+     * collect the new adaptive timeout suggestion
+     */
+    @Override
+    public void onChanged(AdaptiveTimeout adaptiveTimeout) {
+        if (RpcRunningState.isUnitTestMode() || lookoutCollectDisable) {
+            return;
+        }
+        rpcMetrics.collectAdaptiveTimeout(adaptiveTimeout);
+    }
+
+    /**
+     * remove the gauges of the dropped adaptive timeout
+     */
+    @Override
+    public void onRemoved(AdaptiveTimeout adaptiveTimeout) {
+        if (RpcRunningState.isUnitTestMode() || lookoutCollectDisable) {
+            return;
+        }
+        rpcMetrics.removeAdaptiveTimeout(adaptiveTimeout);
+    }
+
+    /**
+     * stop aggregator and flush the rest information to lookout
+     */
+    public void destroy() {
+        if (aggregator != null) {
+            aggregator.destroy();
+        }
+    }
+
     /**
      * create RpcClientLookoutModel
      * @param request
@@ -24,6 +24,7 @@ import com.alipay.lookout.api.Lookout;
 import com.alipay.lookout.api.Timer;
 import com.alipay.lookout.api.composite.MixinMetric;
 import com.alipay.lookout.api.info.Info;
+import com.alipay.sofa.rpc.client.AdaptiveTimeout;
 import com.alipay.sofa.rpc.common.utils.StringUtils;
 import com.alipay.sofa.rpc.config.ConsumerConfig;
 import com.alipay.sofa.rpc.config.ProviderConfig;
@@ -141,6 +142,53 @@ public class RpcLookout {
         }
     }
 
+    /**
+     * Collect the adaptive timeout suggestion of a method on a provider, registered once for each of them.
+     *
+     * @param adaptiveTimeout AdaptiveTimeout
+     */
+    public void collectAdaptiveTimeout(final AdaptiveTimeout adaptiveTimeout) {
+        try {
+            Id id = adaptiveTimeoutId(adaptiveTimeout);
+
+            Lookout.registry().gauge(id.withTag("type", "timeout"), new Gauge<Integer>() {
+
+                @Override
+                public Integer value() {
+                    return adaptiveTimeout.getTimeout();
+                }
+            });
+            Lookout.registry().gauge(id.withTag("type", "latency"), new Gauge<Long>() {
+
+                @Override
+                public Long value() {
+                    return adaptiveTimeout.getLatency();
+                }
+            });
+        } catch (Throwable t) {
+            LOGGER.error(LogCodes.getLog(LogCodes.ERROR_METRIC_REPORT_ERROR), t);
+        }
+    }
+
+    /**
+     * Remove the adaptive timeout gauges of a method on a provider.
+     *
+     * @param adaptiveTimeout AdaptiveTimeout
+     */
+    public void removeAdaptiveTimeout(AdaptiveTimeout adaptiveTimeout) {
+        Id id = adaptiveTimeoutId(adaptiveTimeout);
+        Lookout.registry().removeMetric(id.withTag("type", "timeout"));
+        Lookout.registry().removeMetric(id.withTag("type", "latency"));
+    }
+
+    private Id adaptiveTimeoutId(AdaptiveTimeout adaptiveTimeout) {
+        Map<String, String> tags = new HashMap<String, String>(3);
+        tags.put("service", StringUtils.defaultString(adaptiveTimeout.getService()));
+        tags.put("method", StringUtils.defaultString(adaptiveTimeout.getMethod()));
+        tags.put("provider", StringUtils.defaultString(adaptiveTimeout.getProvider()));
+        return rpcLookoutId.fetchConsumerAdaptiveTimeoutId().withTags(tags);
+    }
+
     /**
      * remove the thread pool information
      *
@@ -209,7 +257,7 @@ public class RpcLookout {
      * @param model RpcClientLookoutModel
      * @return Id
      */
-    private Id createMethodConsumerId(RpcClientLookoutModel model) {
+    public Id createMethodConsumerId(RpcClientLookoutModel model) {
 
         Map<String, String> tags = new HashMap<String, String>(6);
 
@@ -0,0 +1,400 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.metrics.lookout;
+
+import com.alipay.lookout.api.Id;
+import com.alipay.lookout.api.Indicator;
+import com.alipay.lookout.api.Lookout;
+import com.alipay.lookout.api.Metric;
+import com.alipay.lookout.api.Registry;
+import com.alipay.lookout.api.Statistic;
+import com.alipay.sofa.rpc.client.LatencyHistogram;
+import com.alipay.sofa.rpc.common.struct.NamedThreadFactory;
+import com.alipay.sofa.rpc.common.utils.StringUtils;
+import com.alipay.sofa.rpc.log.LogCodes;
+import com.alipay.sofa.rpc.log.Logger;
+import com.alipay.sofa.rpc.log.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pre-aggregate the invocation information locally, and expose it to lookout as one metric per
+ * (app, service, method, ...) key.
+ * <p>
+ * Recording an invocation only adds to striped counters and a log-linear latency histogram of its key, which is found
+ * through nested maps without allocating. The metric reports the same measurements as the mixin metric of
+ * {@link RpcLookout} (counts and totals are cumulative), plus the max and percentiles of the latency recorded in the
+ * last flush interval. Flushing costs O(buckets) per key, regardless of the number of invocations.
+ */
+public class RpcLookoutAggregator {
+
+    /**
+     * slf4j Logger for this class
+     */
+    private final static Logger                   LOGGER           = LoggerFactory
+                                                                       .getLogger(RpcLookoutAggregator.class);
+
+    private final RpcLookout                      rpcLookout;
+
+    /**
+     * Flush interval in milliseconds
+     */
+    private final long                            interval;
+
+    /**
+     * app -&gt; service -&gt; method -&gt; protocol -&gt; invokeType -&gt; targetApp -&gt; aggregate
+     */
+    private final ConcurrentMap<String, Object>   clientAggregates = new ConcurrentHashMap<String, Object>();
+
+    /**
+     * app -&gt; service -&gt; method -&gt; protocol -&gt; callerApp -&gt; aggregate
+     */
+    private final ConcurrentMap<String, Object>   serverAggregates = new ConcurrentHashMap<String, Object>();
+
+    /**
+     * All aggregates, iterated by the flush thread
+     */
+    private final Queue<InvokeAggregate>          aggregates       = new ConcurrentLinkedQueue<InvokeAggregate>();
+
+    private final AtomicBoolean                   started          = new AtomicBoolean(false);
+
+    private volatile ScheduledExecutorService     scheduler;
+
+    public RpcLookoutAggregator(RpcLookout rpcLookout, long interval) {
+        this.rpcLookout = rpcLookout;
+        this.interval = interval;
+    }
+
+    /**
+     * Record the RPC client information.
+     *
+     * @param app          app name
+     * @param service      target service unique name
+     * @param method       method name
+     * @param protocol     protocol
+     * @param invokeType   invoke type
+     * @param targetApp    target app name
+     * @param success      whether the invocation is success
+     * @param elapsedTime  elapsed time in milliseconds, may be null
+     * @param requestSize  request size, may be null
+     * @param responseSize response size, may be null
+     */
+    public void recordClient(String app, String service, String method, String protocol, String invokeType,
+                             String targetApp, boolean success, Long elapsedTime, Long requestSize,
+                             Long responseSize) {
+        ConcurrentMap<String, Object> node = child(child(child(child(clientAggregates, app), service), method),
+            protocol);
+        node = child(node, invokeType);
+        String leaf = StringUtils.defaultString(targetApp);
+        InvokeAggregate aggregate = (InvokeAggregate) node.get(leaf);
+        if (aggregate == null) {
+            RpcClientLookoutModel model = new RpcClientLookoutModel();
+            model.setApp(StringUtils.defaultString(app));
+            model.setService(StringUtils.defaultString(service));
+            model.setMethod(StringUtils.defaultString(method));
+            model.setProtocol(StringUtils.defaultString(protocol));
+            model.setInvokeType(StringUtils.defaultString(invokeType));
+            model.setTargetApp(leaf);
+            aggregate = putAggregate(node, leaf, rpcLookout.createMethodConsumerId(model), true);
+        }
+        aggregate.record(success, elapsedTime);
+        if (requestSize != null) {
+            aggregate.requestSize.record(requestSize);
+        }
+        if (responseSize != null) {
+            aggregate.responseSize.record(responseSize);
+        }
+    }
+
+    /**
+     * Record the RPC server information.
+     *
+     * @param app         app name
+     * @param service     target service unique name
+     * @param method      method name
+     * @param protocol    protocol
+     * @param callerApp   caller app name
+     * @param success     whether the invocation is success
+     * @param elapsedTime elapsed time in milliseconds, may be null
+     */
+    public void recordServer(String app, String service, String method, String protocol, String callerApp,
+                             boolean success, Long elapsedTime) {
+        // invoke type is not a tag of provider stat
+        ConcurrentMap<String, Object> node = child(child(child(child(serverAggregates, app), service), method),
+            protocol);
+        String leaf = StringUtils.defaultString(callerApp);
+        InvokeAggregate aggregate = (InvokeAggregate) node.get(leaf);
+        if (aggregate == null) {
+            RpcServerLookoutModel model = new RpcServerLookoutModel();
+            model.setApp(StringUtils.defaultString(app));
+            model.setService(StringUtils.defaultString(service));
+            model.setMethod(StringUtils.defaultString(method));
+            model.setProtocol(StringUtils.defaultString(protocol));
+            model.setCallerApp(leaf);
+            aggregate = putAggregate(node, leaf, rpcLookout.createMethodProviderId(model), false);
+        }
+        aggregate.record(success, elapsedTime);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ConcurrentMap<String, Object> child(ConcurrentMap<String, Object> node, String key) {
+        key = StringUtils.defaultString(key);
+        Object child = node.get(key);
+        if (child == null) {
+            child = new ConcurrentHashMap<String, Object>();
+            Object old = node.putIfAbsent(key, child);
+            if (old != null) {
+                child = old;
+            }
+        }
+        return (ConcurrentMap<String, Object>) child;
+    }
+
+    private InvokeAggregate putAggregate(ConcurrentMap<String, Object> node, String leaf, Id id, boolean client) {
+        InvokeAggregate aggregate = new InvokeAggregate(id, client);
+        Object old = node.putIfAbsent(leaf, aggregate);
+        if (old != null) {
+            return (InvokeAggregate) old;
+        }
+        try {
+            Lookout.registry().register(aggregate);
+        } catch (Throwable t) {
+            LOGGER.error(LogCodes.getLog(LogCodes.ERROR_METRIC_REPORT_ERROR), t);
+        }
+        aggregates.add(aggregate);
+        startIfNecessary();
+        return aggregate;
+    }
+
+    private void startIfNecessary() {
+        if (!started.get() && started.compareAndSet(false, true)) {
+            ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+                new NamedThreadFactory("LOOKOUT-AGGREGATE", true));
+            executor.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    flush();
+                }
+            }, interval, interval, TimeUnit.MILLISECONDS);
+            scheduler = executor;
+        }
+    }
+
+    /**
+     * Close the current interval: compute the max and percentiles of the latency recorded since last flush.
+     */
+    public synchronized void flush() {
+        try {
+            for (InvokeAggregate aggregate : aggregates) {
+                aggregate.flush();
+            }
+        } catch (Throwable t) {
+            LOGGER.error(LogCodes.getLog(LogCodes.ERROR_METRIC_REPORT_ERROR), t);
+        }
+    }
+
+    /**
+     * Stop the flush thread and flush the rest information.
+     */
+    public void destroy() {
+        ScheduledExecutorService executor = scheduler;
+        if (executor != null) {
+            executor.shutdownNow();
+            scheduler = null;
+        }
+        started.set(false);
+        flush();
+    }
+
+    /**
+     * Count, total and max of values such as size.
+     */
+    private static class ValueStatistic {
+
+        final LongAdder       count = new LongAdder();
+
+        final LongAdder       total = new LongAdder();
+
+        final LongAccumulator max   = new LongAccumulator(Math::max, 0);
+
+        /**
+         * Max since last flush
+         */
+        volatile long         lastMax;
+
+        void record(long value) {
+            count.increment();
+            total.add(value);
+            max.accumulate(value);
+        }
+
+        void flush() {
+            lastMax = max.getThenReset();
+        }
+
+        void measure(Indicator<Long> indicator, String name, String totalName) {
+            indicator.addMeasurement(name + "." + Statistic.count.name(), count.sum());
+            indicator.addMeasurement(name + "." + totalName, total.sum());
+            indicator.addMeasurement(name + "." + Statistic.max.name(), lastMax);
+        }
+    }
+
+    /**
+     * Statistic of time with a latency histogram.
+     */
+    private static class TimeStatistic extends ValueStatistic {
+
+        private final AtomicLongArray buckets = new AtomicLongArray(LatencyHistogram.BUCKETS);
+
+        /**
+         * Bucket counts at last flush, only accessed by the flush thread
+         */
+        private final long[]          flushed = new long[LatencyHistogram.BUCKETS];
+
+        private volatile long         p50;
+
+        private volatile long         p95;
+
+        private volatile long         p99;
+
+        @Override
+        void record(long value) {
+            super.record(value);
+            buckets.incrementAndGet(LatencyHistogram.bucketOf(Math.max(0, Math.min(value,
+                LatencyHistogram.MAX_VALUE))));
+        }
+
+        @Override
+        void flush() {
+            super.flush();
+            long[] delta = new long[flushed.length];
+            long count = 0;
+            for (int i = 0; i < delta.length; i++) {
+                long current = buckets.get(i);
+                delta[i] = current - flushed[i];
+                flushed[i] = current;
+                count += delta[i];
+            }
+            p50 = percentile(delta, count, 50);
+            p95 = percentile(delta, count, 95);
+            p99 = percentile(delta, count, 99);
+        }
+
+        private long percentile(long[] delta, long count, int percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = (count * percentile + 99) / 100;
+            long seen = 0;
+            for (int i = 0; i < delta.length; i++) {
+                seen += delta[i];
+                if (seen >= rank) {
+                    // the upper bound of bucket may be larger than the real max
+                    return Math.min(LatencyHistogram.upperBoundOf(i), lastMax);
+                }
+            }
+            return lastMax;
+        }
+
+        @Override
+        void measure(Indicator<Long> indicator, String name, String totalName) {
+            super.measure(indicator, name, totalName);
+            indicator.addMeasurement(name + ".p50", p50);
+            indicator.addMeasurement(name + ".p95", p95);
+            indicator.addMeasurement(name + ".p99", p99);
+        }
+    }
+
+    /**
+     * Aggregated information of one key, reported as a lookout metric.
+     */
+    private static class InvokeAggregate implements Metric {
+
+        private final Id            id;
+
+        private final boolean       client;
+
+        private final LongAdder     totalCount   = new LongAdder();
+
+        private final TimeStatistic totalTime    = new TimeStatistic();
+
+        private final LongAdder     failCount    = new LongAdder();
+
+        private final TimeStatistic failTime     = new TimeStatistic();
+
+        private final ValueStatistic     requestSize  = new ValueStatistic();
+
+        private final ValueStatistic     responseSize = new ValueStatistic();
+
+        InvokeAggregate(Id id, boolean client) {
+            this.id = id;
+            this.client = client;
+        }
+
+        void record(boolean success, Long elapsedTime) {
+            totalCount.increment();
+            if (elapsedTime != null) {
+                totalTime.record(elapsedTime);
+            }
+            if (!success) {
+                failCount.increment();
+                if (elapsedTime != null) {
+                    failTime.record(elapsedTime);
+                }
+            }
+        }
+
+        void flush() {
+            totalTime.flush();
+            failTime.flush();
+            requestSize.flush();
+            responseSize.flush();
+        }
+
+        @Override
+        public Id id() {
+            return id;
+        }
+
+        @Override
+        public Indicator measure() {
+            Registry registry = Lookout.registry();
+            Indicator<Long> indicator = new Indicator<Long>(registry.clock().wallTime(), id);
+            indicator.addMeasurement("total_count", totalCount.sum());
+            indicator.addMeasurement("fail_count", failCount.sum());
+            String totalTimeName = Statistic.totalTime.name();
+            totalTime.measure(indicator, "total_time", totalTimeName);
+            failTime.measure(indicator, "fail_time", totalTimeName);
+            if (client) {
+                String totalAmountName = Statistic.totalAmount.name();
+                requestSize.measure(indicator, "request_size", totalAmountName);
+                responseSize.measure(indicator, "response_size", totalAmountName);
+            }
+            return indicator;
+        }
+    }
+}
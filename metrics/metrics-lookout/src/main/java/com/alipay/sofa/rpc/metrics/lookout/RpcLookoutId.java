@@ -29,18 +29,21 @@ import java.util.concurrent.ConcurrentMap;
 public class RpcLookoutId {
 
     private volatile Id                     consumerId;
-    private final Object                    consumerIdLock       = new Object();
+    private final Object                    consumerIdLock        = new Object();
 
     private volatile Id                     providerId;
-    private final Object                    providerIdLock       = new Object();
+    private final Object                    providerIdLock        = new Object();
 
-    private final ConcurrentMap<String, Id> serverConfigIds      = new ConcurrentHashMap<String, Id>();
+    private final ConcurrentMap<String, Id> serverConfigIds       = new ConcurrentHashMap<String, Id>();
 
     private volatile Id                     consumerConfigId;
-    private final Object                    consumerConfigIdLock = new Object();
+    private final Object                    consumerConfigIdLock  = new Object();
 
     private volatile Id                     providerConfigId;
-    private final Object                    providerConfigIdLock = new Object();
+    private final Object                    providerConfigIdLock  = new Object();
+
+    private volatile Id                     adaptiveTimeoutId;
+    private final Object                    adaptiveTimeoutIdLock = new Object();
 
     /**
      * create consumerId
@@ -100,6 +103,22 @@ public class RpcLookoutId {
         return providerConfigId;
     }
 
+    /**
+     * create adaptive timeout id of consumer
+     *
+     * @return adaptive timeout id
+     */
+    public Id fetchConsumerAdaptiveTimeoutId() {
+        if (adaptiveTimeoutId == null) {
+            synchronized (adaptiveTimeoutIdLock) {
+                if (adaptiveTimeoutId == null) {
+                    adaptiveTimeoutId = Lookout.registry().createId("rpc.consumer.adaptive.timeout");
+                }
+            }
+        }
+        return adaptiveTimeoutId;
+    }
+
     public synchronized Id fetchServerThreadConfigId(ServerConfig serverConfig) {
         String key = "rpc." + serverConfig.getProtocol() + ".threadpool.config";
         return fetchServerConfigId(key);
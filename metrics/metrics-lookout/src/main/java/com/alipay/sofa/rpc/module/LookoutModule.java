@@ -16,6 +16,7 @@
  */
 package com.alipay.sofa.rpc.module;
 
+import com.alipay.sofa.rpc.client.AdaptiveTimeoutManager;
 import com.alipay.sofa.rpc.event.ClientEndInvokeEvent;
 import com.alipay.sofa.rpc.event.ConsumerSubEvent;
 import com.alipay.sofa.rpc.event.EventBus;
@@ -54,7 +55,7 @@ public class LookoutModule implements Module {
         EventBus.register(ServerStoppedEvent.class, subscriber);
         EventBus.register(ProviderPubEvent.class, subscriber);
         EventBus.register(ConsumerSubEvent.class, subscriber);
-
+        AdaptiveTimeoutManager.addListener(subscriber);
     }
 
     @Override
@@ -66,6 +67,8 @@ public class LookoutModule implements Module {
             EventBus.unRegister(ServerStoppedEvent.class, subscriber);
             EventBus.unRegister(ProviderPubEvent.class, subscriber);
             EventBus.unRegister(ConsumerSubEvent.class, subscriber);
+            AdaptiveTimeoutManager.removeListener(subscriber);
+            subscriber.destroy();
         }
     }
 }
\ No newline at end of file
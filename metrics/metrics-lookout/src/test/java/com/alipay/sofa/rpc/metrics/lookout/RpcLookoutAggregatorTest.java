@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.metrics.lookout;
+
+import com.alipay.lookout.api.Indicator;
+import com.alipay.lookout.api.Lookout;
+import com.alipay.lookout.api.Measurement;
+import com.alipay.lookout.api.Metric;
+import com.alipay.lookout.api.NoopRegistry;
+import com.alipay.lookout.api.Registry;
+import com.alipay.lookout.core.DefaultRegistry;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class RpcLookoutAggregatorTest {
+
+    @BeforeClass
+    public static void beforeClass() {
+        if (Lookout.registry() == NoopRegistry.INSTANCE) {
+            Registry registry = new DefaultRegistry();
+            Lookout.setRegistry(registry);
+        }
+    }
+
+    @Test
+    public void testClientFlush() {
+        RpcLookout rpcLookout = new RpcLookout();
+        RpcLookoutAggregator aggregator = new RpcLookoutAggregator(rpcLookout, 60000);
+        try {
+            aggregator.recordClient("app", "service:1.0", "say", "bolt", "sync", "server", true, 10L, 100L, 50L);
+            aggregator.recordClient("app", "service:1.0", "say", "bolt", "sync", "server", true, 11L, 100L, 50L);
+            aggregator.recordClient("app", "service:1.0", "say", "bolt", "sync", "server", false, 12L, 100L, null);
+
+            RpcClientLookoutModel model = new RpcClientLookoutModel();
+            model.setApp("app");
+            model.setService("service:1.0");
+            model.setMethod("say");
+            model.setProtocol("bolt");
+            model.setInvokeType("sync");
+            model.setTargetApp("server");
+            Metric metric = Lookout.registry().get(rpcLookout.createMethodConsumerId(model));
+            Assert.assertNotNull(metric);
+
+            Map<String, Object> values = measure(metric);
+            Assert.assertEquals(3L, values.get("total_count"));
+            Assert.assertEquals(3L, values.get("total_time.count"));
+            Assert.assertEquals(33L, values.get("total_time.totalTime"));
+            Assert.assertEquals(1L, values.get("fail_count"));
+            Assert.assertEquals(12L, values.get("fail_time.totalTime"));
+            Assert.assertEquals(300L, values.get("request_size.totalAmount"));
+            Assert.assertEquals(2L, values.get("response_size.count"));
+            // max and percentiles are computed by flush
+            Assert.assertEquals(0L, values.get("total_time.max"));
+
+            aggregator.flush();
+            values = measure(metric);
+            Assert.assertEquals(12L, values.get("total_time.max"));
+            Assert.assertEquals(11L, values.get("total_time.p50"));
+            Assert.assertEquals(12L, values.get("total_time.p99"));
+            Assert.assertEquals(100L, values.get("request_size.max"));
+
+            // counts are cumulative, max and percentiles are of the last interval
+            for (int i = 0; i < 100; i++) {
+                aggregator.recordClient("app", "service:1.0", "say", "bolt", "sync", "server", true, i < 99 ? 7L
+                    : 1000L, null, null);
+            }
+            aggregator.flush();
+            values = measure(metric);
+            Assert.assertEquals(103L, values.get("total_count"));
+            Assert.assertEquals(33L + 99 * 7 + 1000, values.get("total_time.totalTime"));
+            Assert.assertEquals(1000L, values.get("total_time.max"));
+            Assert.assertEquals(7L, values.get("total_time.p95"));
+            Assert.assertEquals(7L, values.get("total_time.p99"));
+            Assert.assertEquals(3L, values.get("request_size.count"));
+
+            aggregator.flush();
+            Assert.assertEquals(0L, measure(metric).get("total_time.max"));
+        } finally {
+            aggregator.destroy();
+        }
+    }
+
+    @Test
+    public void testServerFlushOnDestroy() {
+        RpcLookout rpcLookout = new RpcLookout();
+        RpcLookoutAggregator aggregator = new RpcLookoutAggregator(rpcLookout, 60000);
+        aggregator.recordServer("server", "service:1.0", "hello", "bolt", "app", true, null);
+        aggregator.recordServer("server", "service:1.0", "hello", "bolt", "app", true, 5L);
+        aggregator.destroy();
+
+        RpcServerLookoutModel model = new RpcServerLookoutModel();
+        model.setApp("server");
+        model.setService("service:1.0");
+        model.setMethod("hello");
+        model.setProtocol("bolt");
+        model.setCallerApp("app");
+        Map<String, Object> values = measure(Lookout.registry().get(rpcLookout.createMethodProviderId(model)));
+        Assert.assertEquals(2L, values.get("total_count"));
+        Assert.assertEquals(1L, values.get("total_time.count"));
+        Assert.assertEquals(5L, values.get("total_time.totalTime"));
+        Assert.assertEquals(5L, values.get("total_time.max"));
+        Assert.assertFalse(values.containsKey("request_size.count"));
+    }
+
+    private Map<String, Object> measure(Metric metric) {
+        Indicator<?> indicator = metric.measure();
+        Map<String, Object> values = new HashMap<String, Object>();
+        for (Measurement<?> measurement : indicator.measurements()) {
+            values.put(measurement.name(), measurement.value());
+        }
+        return values;
+    }
+}
@@ -16,8 +16,11 @@
  */
 package com.alipay.sofa.rpc.metrics.micrometer;
 
+import com.alipay.sofa.rpc.client.AdaptiveTimeout;
+import com.alipay.sofa.rpc.client.AdaptiveTimeoutManager;
 import com.alipay.sofa.rpc.common.RemotingConstants;
 import com.alipay.sofa.rpc.common.RpcConstants;
+import com.alipay.sofa.rpc.common.cache.ClassResolver;
 import com.alipay.sofa.rpc.config.ServerConfig;
 import com.alipay.sofa.rpc.context.RpcInternalContext;
 import com.alipay.sofa.rpc.core.request.SofaRequest;
@@ -31,9 +34,12 @@ import com.alipay.sofa.rpc.event.ServerSendEvent;
 import com.alipay.sofa.rpc.event.ServerStartedEvent;
 import com.alipay.sofa.rpc.event.ServerStoppedEvent;
 import com.alipay.sofa.rpc.event.Subscriber;
+import com.alipay.sofa.rpc.listener.AdaptiveTimeoutListener;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
 import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tag;
 import io.micrometer.core.instrument.Tags;
@@ -43,39 +49,40 @@ import io.micrometer.core.instrument.binder.MeterBinder;
 import java.time.Duration;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.function.Function;
 
 /**
  * @author hujia
  * @date 2020/3/2
  */
-public class SofaRpcMetrics extends Subscriber implements MeterBinder, AutoCloseable {
+public class SofaRpcMetrics extends Subscriber implements MeterBinder, AdaptiveTimeoutListener, AutoCloseable {
 
     private final AtomicReference<MeterRegistry> initialed = new AtomicReference<>();
 
-    private final Function<Tags, Timer> clientTotal = tags -> Timer.builder("sofa.client.total")
-        .tags(tags)
-        .register(initialed.get());
-    private final Function<Tags, Timer> clientFail = tags -> Timer.builder("sofa.client.fail")
-        .tags(tags)
-        .register(initialed.get());
-    private final Function<Tags, Timer> serverTotal = tags -> Timer.builder("sofa.server.total")
-        .tags(tags)
-        .register(initialed.get());
-    private final Function<Tags, Timer> serverFail = tags -> Timer.builder("sofa.server.fail")
-        .tags(tags)
-        .register(initialed.get());
-    private final Function<Tags, DistributionSummary> requestSize = tags -> DistributionSummary.builder("sofa.request.size")
-        .tags(tags)
-        .baseUnit(BaseUnits.BYTES)
-        .register(initialed.get());
-    private final Function<Tags, DistributionSummary> responseSize = tags -> DistributionSummary.builder("sofa.response.size")
-        .tags(tags)
-        .baseUnit(BaseUnits.BYTES)
-        .register(initialed.get());
+    /**
+     * 按 (app, service, method, protocol, invokeType, callerApp) 缓存的客户端指标，命中时不再构造 Tags
+     */
+    private final ConcurrentMap<MeterKey, ClientMeters> clientMeters = new ConcurrentHashMap<>();
+    /**
+     * 按 (app, service, method, protocol, invokeType, callerApp) 缓存的服务端指标
+     */
+    private final ConcurrentMap<MeterKey, ServerMeters> serverMeters = new ConcurrentHashMap<>();
+
+    /**
+     * 耗时统计发布的分位数，为空则不统计
+     */
+    private volatile double[] percentiles;
+    /**
+     * 按服务配置的 SLA 桶 {service:sla}
+     */
+    private final Map<String, Duration[]> slas = new ConcurrentHashMap<>();
+
     private Counter provider;
     private Counter consumer;
 
@@ -144,8 +151,114 @@ public class SofaRpcMetrics extends Subscriber implements MeterBinder, AutoClose
         consumer = Counter.builder("sofa.consumer")
             .tags(common)
             .register(registry);
+        ClassResolver classResolver = ClassResolver.getInstance();
+        FunctionCounter.builder("sofa.class.resolve", classResolver, ClassResolver::getHitCount)
+            .tags(common.and("result", "hit"))
+            .register(registry);
+        FunctionCounter.builder("sofa.class.resolve", classResolver, ClassResolver::getMissCount)
+            .tags(common.and("result", "miss"))
+            .register(registry);
+        FunctionCounter.builder("sofa.class.resolve", classResolver, ClassResolver::getNotFoundHitCount)
+            .tags(common.and("result", "not_found"))
+            .register(registry);
+        FunctionCounter.builder("sofa.class.resolve", classResolver, ClassResolver::getDeniedCount)
+            .tags(common.and("result", "denied"))
+            .register(registry);
 
+        clientMeters.clear();
+        serverMeters.clear();
         initialed.set(registry);
+        for (AdaptiveTimeout adaptiveTimeout : AdaptiveTimeoutManager.getAdaptiveTimeouts()) {
+            onChanged(adaptiveTimeout);
+        }
+    }
+
+    /**
+     * 自适应超时的建议值变化时注册指标，重复注册时 registry 返回同一个 Gauge
+     *
+     * @param adaptiveTimeout 自适应超时
+     */
+    @Override
+    public void onChanged(AdaptiveTimeout adaptiveTimeout) {
+        MeterRegistry registry = initialed.get();
+        if (registry == null) {
+            return;
+        }
+        Tags tags = adaptiveTimeoutTags(adaptiveTimeout);
+        Gauge.builder("sofa.client.adaptive.timeout", adaptiveTimeout, AdaptiveTimeout::getTimeout)
+            .tags(tags)
+            .baseUnit("milliseconds")
+            .register(registry);
+        Gauge.builder("sofa.client.adaptive.latency", adaptiveTimeout, AdaptiveTimeout::getLatency)
+            .tags(tags)
+            .baseUnit("milliseconds")
+            .register(registry);
+    }
+
+    /**
+     * 自适应超时删除时注销指标，重新出现时再注册新的 Gauge
+     *
+     * @param adaptiveTimeout 自适应超时
+     */
+    @Override
+    public void onRemoved(AdaptiveTimeout adaptiveTimeout) {
+        MeterRegistry registry = initialed.get();
+        if (registry == null) {
+            return;
+        }
+        Tags tags = adaptiveTimeoutTags(adaptiveTimeout);
+        for (Meter meter : registry.find("sofa.client.adaptive.timeout").tags(tags).meters()) {
+            registry.remove(meter);
+        }
+        for (Meter meter : registry.find("sofa.client.adaptive.latency").tags(tags).meters()) {
+            registry.remove(meter);
+        }
+    }
+
+    private Tags adaptiveTimeoutTags(AdaptiveTimeout adaptiveTimeout) {
+        return common.and(
+            Tag.of("service", adaptiveTimeout.getService()),
+            Tag.of("method", adaptiveTimeout.getMethod()),
+            Tag.of("provider", adaptiveTimeout.getProvider()));
+    }
+
+    /**
+     * 耗时统计发布的分位数（例如 0.5, 0.99），需要在指标生成前设置
+     *
+     * @param percentiles 分位数
+     */
+    public void setPercentiles(double... percentiles) {
+        this.percentiles = percentiles;
+    }
+
+    /**
+     * 设置服务的耗时 SLA 桶，需要在指标生成前设置
+     *
+     * @param service 服务唯一名
+     * @param sla     SLA 桶
+     */
+    public void setSla(String service, Duration... sla) {
+        slas.put(service, sla);
+    }
+
+    private Timer timer(String name, Tags tags, String service) {
+        Timer.Builder builder = Timer.builder(name).tags(tags);
+        double[] percentiles = this.percentiles;
+        if (percentiles != null && percentiles.length > 0) {
+            builder.publishPercentiles(percentiles);
+        }
+        Duration[] sla = slas.get(service);
+        if (sla != null && sla.length > 0) {
+            builder.sla(sla);
+        }
+        return builder.register(initialed.get());
+    }
+
+    private DistributionSummary summary(String name, Tags tags) {
+        return DistributionSummary.builder(name)
+            .tags(tags)
+            .baseUnit(BaseUnits.BYTES)
+            .register(initialed.get());
     }
 
     private void register() {
@@ -155,6 +268,7 @@ public class SofaRpcMetrics extends Subscriber implements MeterBinder, AutoClose
         EventBus.register(ServerStoppedEvent.class, this);
         EventBus.register(ProviderPubEvent.class, this);
         EventBus.register(ConsumerSubEvent.class, this);
+        AdaptiveTimeoutManager.addListener(this);
     }
 
     @Override
@@ -179,36 +293,46 @@ public class SofaRpcMetrics extends Subscriber implements MeterBinder, AutoClose
     }
 
     private void onEvent(ClientEndInvokeEvent event) {
-        InvokeMeta meta = new InvokeMeta(
-            event.getRequest(),
-            event.getResponse(),
-            getLongAvoidNull(RpcInternalContext.getContext().getAttachment(RpcConstants.INTERNAL_KEY_CLIENT_ELAPSE))
-        );
         RpcInternalContext context = RpcInternalContext.getContext();
-        Duration elapsed = meta.elapsed();
-        Tags tags = meta.tags(this.common);
+        SofaRequest request = event.getRequest();
+        long elapsed = getLongValue(context.getAttachment(RpcConstants.INTERNAL_KEY_CLIENT_ELAPSE));
+
+        MeterKey key = new MeterKey(request);
+        ClientMeters meters = clientMeters.get(key);
+        if (meters == null) {
+            meters = new ClientMeters(key.tags(common), key.service);
+            ClientMeters old = clientMeters.putIfAbsent(key, meters);
+            if (old != null) {
+                meters = old;
+            }
+        }
 
-        clientTotal.apply(tags).record(elapsed);
-        if (!meta.success()) {
-            clientFail.apply(tags).record(elapsed);
+        meters.total.record(elapsed, TimeUnit.MILLISECONDS);
+        if (!success(event.getResponse())) {
+            meters.fail().record(elapsed, TimeUnit.MILLISECONDS);
         }
-        requestSize.apply(tags).record(getLongAvoidNull(
-            context.getAttachment(RpcConstants.INTERNAL_KEY_REQ_SIZE)));
-        responseSize.apply(tags).record(getLongAvoidNull(
-            context.getAttachment(RpcConstants.INTERNAL_KEY_RESP_SIZE)));
+        meters.requestSize.record(getLongValue(context.getAttachment(RpcConstants.INTERNAL_KEY_REQ_SIZE)));
+        meters.responseSize.record(getLongValue(context.getAttachment(RpcConstants.INTERNAL_KEY_RESP_SIZE)));
     }
 
     private void onEvent(ServerSendEvent event) {
-        InvokeMeta meta = new InvokeMeta(
-            event.getRequest(),
-            event.getResponse(),
-            getLongAvoidNull(RpcInternalContext.getContext().getAttachment(RpcConstants.INTERNAL_KEY_IMPL_ELAPSE))
-        );
-        Duration elapsed = meta.elapsed();
-        Tags tags = meta.tags(this.common);
-        serverTotal.apply(tags).record(elapsed);
-        if (!meta.success()) {
-            serverFail.apply(tags).record(elapsed);
+        SofaRequest request = event.getRequest();
+        long elapsed = getLongValue(RpcInternalContext.getContext().getAttachment(
+            RpcConstants.INTERNAL_KEY_IMPL_ELAPSE));
+
+        MeterKey key = new MeterKey(request);
+        ServerMeters meters = serverMeters.get(key);
+        if (meters == null) {
+            meters = new ServerMeters(key.tags(common), key.service);
+            ServerMeters old = serverMeters.putIfAbsent(key, meters);
+            if (old != null) {
+                meters = old;
+            }
+        }
+
+        meters.total.record(elapsed, TimeUnit.MILLISECONDS);
+        if (!success(event.getResponse())) {
+            meters.fail().record(elapsed, TimeUnit.MILLISECONDS);
         }
     }
 
@@ -230,27 +354,33 @@ public class SofaRpcMetrics extends Subscriber implements MeterBinder, AutoClose
         consumer.increment();
     }
 
-    private static Long getLongAvoidNull(Object object) {
-        if (object == null) {
-            return null;
-        }
-
-        if (object instanceof Integer) {
-            return Long.parseLong(object.toString());
+    private static long getLongValue(Object object) {
+        if (object instanceof Number) {
+            return ((Number) object).longValue();
         }
-
-        return (Long) object;
+        return 0L;
     }
 
     private static String getStringAvoidNull(Object object) {
         if (object == null) {
-            return null;
+            return "";
         }
 
         return (String) object;
 
     }
 
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    private static boolean success(SofaResponse response) {
+        return response != null
+            && !response.isError()
+            && response.getErrorMsg() == null
+            && (!(response.getAppResponse() instanceof Throwable));
+    }
+
     @Override
     public void close() {
         EventBus.unRegister(ClientEndInvokeEvent.class, this);
@@ -259,66 +389,127 @@ public class SofaRpcMetrics extends Subscriber implements MeterBinder, AutoClose
         EventBus.unRegister(ServerStoppedEvent.class, this);
         EventBus.unRegister(ProviderPubEvent.class, this);
         EventBus.unRegister(ConsumerSubEvent.class, this);
+        AdaptiveTimeoutManager.removeListener(this);
     }
 
-    private static class InvokeMeta {
-
-        private final SofaRequest request;
-        private final SofaResponse response;
-        private final Duration elapsed;
-
-        private InvokeMeta(SofaRequest request, SofaResponse response, long elapsed) {
-            this.request = request;
-            this.response = response;
-            this.elapsed = Duration.ofMillis(elapsed);
+    /**
+     * 指标缓存的 key，只保存字符串引用，不构造 Tags
+     */
+    private static final class MeterKey {
+
+        private final String app;
+        private final String service;
+        private final String method;
+        private final String protocol;
+        private final String invokeType;
+        private final String callerApp;
+        private final int    hash;
+
+        private MeterKey(SofaRequest request) {
+            this.app = nullToEmpty(request.getTargetAppName());
+            this.service = nullToEmpty(request.getTargetServiceUniqueName());
+            this.method = nullToEmpty(request.getMethodName());
+            this.protocol = getStringAvoidNull(request.getRequestProp(RemotingConstants.HEAD_PROTOCOL));
+            this.invokeType = nullToEmpty(request.getInvokeType());
+            this.callerApp = getStringAvoidNull(request.getRequestProp(RemotingConstants.HEAD_APP_NAME));
+            int h = app.hashCode();
+            h = 31 * h + service.hashCode();
+            h = 31 * h + method.hashCode();
+            h = 31 * h + protocol.hashCode();
+            h = 31 * h + invokeType.hashCode();
+            h = 31 * h + callerApp.hashCode();
+            this.hash = h;
         }
 
-        public String app() {
-            return Optional.ofNullable(request.getTargetAppName()).orElse("");
+        private Tags tags(Iterable<Tag> common) {
+            return Tags.of(common).and(
+                Tag.of("app", app),
+                Tag.of("service", service),
+                Tag.of("method", method),
+                Tag.of("protocol", protocol),
+                Tag.of("invoke_type", invokeType),
+                Tag.of("caller_app", callerApp)
+            );
         }
 
-        public String callerApp() {
-            return Optional.ofNullable(getStringAvoidNull(
-                request.getRequestProp(RemotingConstants.HEAD_APP_NAME))).orElse("");
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof MeterKey)) {
+                return false;
+            }
+            MeterKey that = (MeterKey) o;
+            return hash == that.hash
+                && app.equals(that.app)
+                && service.equals(that.service)
+                && method.equals(that.method)
+                && protocol.equals(that.protocol)
+                && invokeType.equals(that.invokeType)
+                && callerApp.equals(that.callerApp);
         }
 
-        public String service() {
-            return Optional.ofNullable(request.getTargetServiceUniqueName()).orElse("");
+        @Override
+        public int hashCode() {
+            return hash;
         }
+    }
 
-        public String method() {
-            return Optional.ofNullable(request.getMethodName()).orElse("");
+    /**
+     * 客户端指标，失败耗时只在第一次失败时注册
+     */
+    private final class ClientMeters {
+
+        private final Tags                tags;
+        private final String              service;
+        private final Timer               total;
+        private final DistributionSummary requestSize;
+        private final DistributionSummary responseSize;
+        private volatile Timer            fail;
+
+        private ClientMeters(Tags tags, String service) {
+            this.tags = tags;
+            this.service = service;
+            this.total = timer("sofa.client.total", tags, service);
+            this.requestSize = summary("sofa.request.size", tags);
+            this.responseSize = summary("sofa.response.size", tags);
         }
 
-        public String protocol() {
-            return Optional.ofNullable(getStringAvoidNull(
-                request.getRequestProp(RemotingConstants.HEAD_PROTOCOL))).orElse("");
+        private Timer fail() {
+            Timer timer = fail;
+            if (timer == null) {
+                // 并发注册时 registry 返回同一个 Timer
+                timer = timer("sofa.client.fail", tags, service);
+                fail = timer;
+            }
+            return timer;
         }
+    }
 
-        public String invokeType() {
-            return Optional.ofNullable(request.getInvokeType()).orElse("");
-        }
+    /**
+     * 服务端指标，失败耗时只在第一次失败时注册
+     */
+    private final class ServerMeters {
 
-        public Duration elapsed() {
-            return elapsed;
-        }
+        private final Tags     tags;
+        private final String   service;
+        private final Timer    total;
+        private volatile Timer fail;
 
-        public boolean success() {
-            return response != null
-                && !response.isError()
-                && response.getErrorMsg() == null
-                && (!(response.getAppResponse() instanceof Throwable));
+        private ServerMeters(Tags tags, String service) {
+            this.tags = tags;
+            this.service = service;
+            this.total = timer("sofa.server.total", tags, service);
         }
 
-        public Tags tags(Iterable<Tag> common) {
-            return Tags.of(common).and(
-                Tag.of("app", app()),
-                Tag.of("service", service()),
-                Tag.of("method", method()),
-                Tag.of("protocol", protocol()),
-                Tag.of("invoke_type", invokeType()),
-                Tag.of("caller_app", callerApp())
-            );
+        private Timer fail() {
+            Timer timer = fail;
+            if (timer == null) {
+                timer = timer("sofa.server.fail", tags, service);
+                fail = timer;
+            }
+            return timer;
         }
     }
 }
@@ -16,8 +16,10 @@
  */
 package com.alipay.sofa.rpc.metrics.micrometer;
 
+import com.alipay.sofa.rpc.client.AdaptiveTimeout;
 import com.alipay.sofa.rpc.common.RemotingConstants;
 import com.alipay.sofa.rpc.common.RpcConstants;
+import com.alipay.sofa.rpc.common.cache.ClassResolver;
 import com.alipay.sofa.rpc.common.utils.ReflectUtils;
 import com.alipay.sofa.rpc.config.ConsumerConfig;
 import com.alipay.sofa.rpc.config.ProviderConfig;
@@ -37,9 +39,14 @@ import com.alipay.sofa.rpc.event.ServerSendEvent;
 import com.alipay.sofa.rpc.event.ServerStartedEvent;
 import com.alipay.sofa.rpc.event.ServerStoppedEvent;
 import com.alipay.sofa.rpc.event.Subscriber;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.time.Duration;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -48,6 +55,47 @@ import org.junit.Test;
 
 public class SofaRpcMetricsTest {
 
+    @Test
+    public void testAdaptiveTimeout() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        try (SofaRpcMetrics metrics = new SofaRpcMetrics()) {
+            metrics.bindTo(registry);
+            AdaptiveTimeout adaptiveTimeout = new AdaptiveTimeout("app.service:1.0", "echo", "127.0.0.1:12200", 99,
+                2, 50, 0, 100, 60000, 0);
+            metrics.onChanged(adaptiveTimeout);
+            metrics.onChanged(adaptiveTimeout);
+
+            Gauge gauge = registry.find("sofa.client.adaptive.timeout")
+                .tags("service", "app.service:1.0", "method", "echo", "provider", "127.0.0.1:12200")
+                .gauge();
+            Assert.assertNotNull(gauge);
+            Assert.assertEquals(-1, gauge.value(), 0);
+            Assert.assertEquals(1, registry.find("sofa.client.adaptive.latency").gauges().size());
+
+            metrics.onRemoved(adaptiveTimeout);
+            Assert.assertTrue(registry.find("sofa.client.adaptive.timeout").gauges().isEmpty());
+            Assert.assertTrue(registry.find("sofa.client.adaptive.latency").gauges().isEmpty());
+        }
+    }
+
+    @Test
+    public void testClassResolve() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        try (SofaRpcMetrics metrics = new SofaRpcMetrics()) {
+            metrics.bindTo(registry);
+            ClassResolver classResolver = ClassResolver.getInstance();
+            ClassLoader classLoader = getClass().getClassLoader();
+            classResolver.resolve(SofaRpcMetricsTest.class.getName(), classLoader);
+            classResolver.resolve(SofaRpcMetricsTest.class.getName(), classLoader);
+
+            FunctionCounter hit = registry.find("sofa.class.resolve").tags("result", "hit").functionCounter();
+            Assert.assertNotNull(hit);
+            Assert.assertEquals(classResolver.getHitCount(), hit.count(), 0);
+            Assert.assertTrue(hit.count() >= 1);
+            Assert.assertEquals(4, registry.find("sofa.class.resolve").functionCounters().size());
+        }
+    }
+
     @Test
     public void testMicrometerMetrics() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
 
@@ -75,7 +123,44 @@ public class SofaRpcMetricsTest {
             handleEvent.invoke(EventBus.class, metrics, new ProviderPubEvent(new ProviderConfig<>()));
             handleEvent.invoke(EventBus.class, metrics, new ConsumerSubEvent(new ConsumerConfig<>()));
 
-            Assert.assertEquals(12, registry.getMeters().size());
+            Assert.assertEquals(16, registry.getMeters().size());
+        }
+    }
+
+    @Test
+    public void testCachedMetersAndSla() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        try (SofaRpcMetrics metrics = new SofaRpcMetrics()) {
+            metrics.setPercentiles(0.5, 0.99);
+            metrics.setSla(TestService.class.getName() + ":1.0", Duration.ofMillis(50), Duration.ofMillis(200));
+            metrics.bindTo(registry);
+
+            Method handleEvent = EventBus.class.getDeclaredMethod(
+                "handleEvent", Subscriber.class, Event.class);
+            handleEvent.setAccessible(true);
+            SofaRequest request = buildRequest();
+            RpcInternalContext.getContext()
+                .setAttachment(RpcConstants.INTERNAL_KEY_CLIENT_ELAPSE, 100)
+                .setAttachment(RpcConstants.INTERNAL_KEY_REQ_SIZE, 3)
+                .setAttachment(RpcConstants.INTERNAL_KEY_RESP_SIZE, 4);
+
+            for (int i = 0; i < 3; i++) {
+                handleEvent.invoke(EventBus.class, metrics, new ClientEndInvokeEvent(request, buildResponse(), null));
+            }
+            SofaResponse error = new SofaResponse();
+            error.setErrorMsg("error");
+            handleEvent.invoke(EventBus.class, metrics, new ClientEndInvokeEvent(request, error, null));
+
+            Timer total = registry.get("sofa.client.total").timer();
+            Assert.assertEquals(4, total.count());
+            Assert.assertEquals(1, registry.get("sofa.client.fail").timer().count());
+            Assert.assertEquals(4, registry.get("sofa.request.size").summary().count());
+
+            HistogramSnapshot snapshot = total.takeSnapshot();
+            Assert.assertEquals(2, snapshot.percentileValues().length);
+            Assert.assertEquals(2, snapshot.histogramCounts().length);
+        } finally {
+            RpcInternalContext.removeContext();
         }
     }
 
@@ -16,8 +16,10 @@
  */
 package com.alipay.sofa.rpc.registry.mesh;
 
+import com.alipay.sofa.common.config.SofaConfigs;
 import com.alipay.sofa.rpc.client.ProviderGroup;
 import com.alipay.sofa.rpc.client.ProviderInfo;
+import com.alipay.sofa.rpc.common.config.RpcConfigKeys;
 import com.alipay.sofa.rpc.common.struct.NamedThreadFactory;
 import com.alipay.sofa.rpc.common.utils.CommonUtils;
 import com.alipay.sofa.rpc.config.ConsumerConfig;
@@ -38,6 +40,7 @@ import com.alipay.sofa.rpc.registry.mesh.model.ApplicationInfoRequest;
 import com.alipay.sofa.rpc.registry.mesh.model.MeshConstants;
 import com.alipay.sofa.rpc.registry.mesh.model.ProviderMetaInfo;
 import com.alipay.sofa.rpc.registry.mesh.model.PublishServiceRequest;
+import com.alipay.sofa.rpc.registry.mesh.model.PublishServiceResult;
 import com.alipay.sofa.rpc.registry.mesh.model.SubscribeServiceRequest;
 import com.alipay.sofa.rpc.registry.mesh.model.SubscribeServiceResult;
 import com.alipay.sofa.rpc.registry.mesh.model.UnPublishServiceRequest;
@@ -45,9 +48,14 @@ import com.alipay.sofa.rpc.registry.mesh.model.UnSubscribeServiceRequest;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
 
 /**
  * mesh registry
@@ -60,19 +68,45 @@ public class MeshRegistry extends Registry {
     /**
      * Logger
      */
-    private static final Logger         LOGGER                        = LoggerFactory.getLogger(MeshRegistry.class);
+    private static final Logger                         LOGGER                        = LoggerFactory
+                                                                                          .getLogger(MeshRegistry.class);
 
-    private static final String         VERSION                       = "4.0";
+    private static final String                         VERSION                       = "4.0";
 
-    protected MeshApiClient             client;
+    protected MeshApiClient                             client;
 
     //init only once
-    protected boolean                   inited;
+    protected boolean                                   inited;
 
     //has registed app info
-    protected boolean                   registedApp;
+    protected boolean                                   registedApp;
 
-    protected static ThreadPoolExecutor asyncCreateConnectionExecutor = initThreadPoolExecutor();
+    /**
+     * 待发布的服务
+     */
+    protected final Queue<PublishServiceRequest>        pendingPublishes              = new ConcurrentLinkedQueue<PublishServiceRequest>();
+
+    /**
+     * 待订阅的服务
+     */
+    protected final Queue<ConsumerConfig>               pendingSubscribes             = new ConcurrentLinkedQueue<ConsumerConfig>();
+
+    /**
+     * 是否已经安排了发送待发布队列
+     */
+    private final AtomicBoolean                         publishScheduled              = new AtomicBoolean();
+
+    /**
+     * 是否已经安排了发送待订阅队列
+     */
+    private final AtomicBoolean                         subscribeScheduled            = new AtomicBoolean();
+
+    /**
+     * 等待合并发布、订阅请求的定时器，只负责等待，请求还是交给注册中心的线程池发送，用到时才创建
+     */
+    private static volatile ScheduledThreadPoolExecutor batchScheduler;
+
+    protected static ThreadPoolExecutor                 asyncCreateConnectionExecutor = initThreadPoolExecutor();
 
     private static ThreadPoolExecutor initThreadPoolExecutor() {
         final ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(20, 20, 60,
@@ -111,15 +145,47 @@ public class MeshRegistry extends Registry {
 
     @Override
     public void register(ProviderConfig config) {
+        if (addPendingPublishes(config)) {
+            // 逐个暴露的服务在等待时间内合并成一个批量请求
+            final String appName = config.getAppName();
+            scheduleFlush(publishScheduled, new Runnable() {
+                @Override
+                public void run() {
+                    flushPendingPublishes(appName);
+                }
+            });
+        }
+    }
+
+    @Override
+    public void batchRegister(List<ProviderConfig> configs) {
+        String appName = null;
+        for (ProviderConfig config : configs) {
+            if (addPendingPublishes(config)) {
+                appName = config.getAppName();
+            }
+        }
+        if (appName != null) {
+            flushPendingPublishes(appName);
+        }
+    }
+
+    /**
+     * 把服务的各个端口加入待发布队列
+     *
+     * @param config Provider配置
+     * @return 是否有需要发布的数据
+     */
+    private boolean addPendingPublishes(ProviderConfig config) {
         String appName = config.getAppName();
         if (!registryConfig.isRegister()) {
             if (LOGGER.isInfoEnabled(appName)) {
                 LOGGER.infoWithApp(appName, LogCodes.getLog(LogCodes.INFO_REGISTRY_IGNORE));
             }
-            return;
+            return false;
         }
         if (!config.isRegister()) { // 注册中心不注册或者服务不注册
-            return;
+            return false;
         }
         List<ServerConfig> serverConfigs = config.getServer();
         if (CommonUtils.isNotEmpty(serverConfigs)) {
@@ -139,12 +205,13 @@ public class MeshRegistry extends Registry {
                 ProviderPubEvent event = new ProviderPubEvent(config);
                 EventBus.post(event);
             }
-
+            return true;
         }
+        return false;
     }
 
     /**
-     * 注册单条服务信息
+     * 注册单条服务信息，先放入待发布队列，由 {@link #flushPendingPublishes(String)} 批量发给 sidecar
      *
      * @param appName      应用名
      * @param serviceName  服务关键字
@@ -152,23 +219,46 @@ public class MeshRegistry extends Registry {
      */
     protected void doRegister(final String appName, final String serviceName, final ProviderInfo providerInfo,
                               final String protocol) {
+        pendingPublishes.add(buildPublishServiceRequest(serviceName, protocol, providerInfo, appName));
+    }
 
+    /**
+     * 异步把待发布队列里的服务一次发给 sidecar，同时注册的服务会合并到一个批量请求里
+     *
+     * @param appName 应用名
+     */
+    protected void flushPendingPublishes(final String appName) {
         asyncCreateConnectionExecutor.execute(new Runnable() {
             @Override
             public void run() {
                 registerAppInfoOnce(appName);
 
-                if (LOGGER.isInfoEnabled(appName)) {
-                    LOGGER.infoWithApp(appName, LogCodes.getLog(LogCodes.INFO_ROUTE_REGISTRY_PUB, serviceName));
+                final List<PublishServiceRequest> requests = drain(pendingPublishes);
+                if (requests.isEmpty()) {
+                    // 已经被其它任务发走了
+                    return;
                 }
-
-                PublishServiceRequest publishServiceRequest = buildPublishServiceRequest(serviceName, protocol,
-                    providerInfo, appName);
-
-                client.publishService(publishServiceRequest);
+                for (PublishServiceRequest request : requests) {
+                    if (LOGGER.isInfoEnabled(appName)) {
+                        LOGGER.infoWithApp(appName,
+                            LogCodes.getLog(LogCodes.INFO_ROUTE_REGISTRY_PUB, request.getServiceName()));
+                    }
+                }
+                client.publishServices(requests).whenComplete(
+                    new BiConsumer<List<PublishServiceResult>, Throwable>() {
+                        @Override
+                        public void accept(List<PublishServiceResult> results, Throwable e) {
+                            for (int i = 0; i < requests.size(); i++) {
+                                PublishServiceResult result = results == null ? null : results.get(i);
+                                if (result == null || !result.isSuccess()) {
+                                    LOGGER.errorWithApp(appName, "publish service to mesh occors error,"
+                                        + requests.get(i) + "," + result, e);
+                                }
+                            }
+                        }
+                    });
             }
         });
-
     }
 
     protected PublishServiceRequest buildPublishServiceRequest(String serviceName, String protocol,
@@ -246,52 +336,129 @@ public class MeshRegistry extends Registry {
 
     @Override
     public List<ProviderGroup> subscribe(final ConsumerConfig config) {
+        pendingSubscribes.add(config);
+        scheduleFlush(subscribeScheduled, new Runnable() {
+            @Override
+            public void run() {
+                flushPendingSubscribes(config.getAppName());
+            }
+        });
+        //async
+        return null;
+    }
 
-        final ProviderInfoListener providerInfoListener = config.getProviderInfoListener();
+    /**
+     * 等待 {@link RpcConfigKeys#MESH_BATCH_WINDOW} 后发送队列，等待期间加入队列的请求一起发送
+     *
+     * @param scheduled 是否已经安排了发送
+     * @param flush     发送队列的任务
+     */
+    private void scheduleFlush(final AtomicBoolean scheduled, final Runnable flush) {
+        int batchWindow = SofaConfigs.getOrDefault(RpcConfigKeys.MESH_BATCH_WINDOW);
+        if (batchWindow <= 0) {
+            flush.run();
+            return;
+        }
+        if (scheduled.compareAndSet(false, true)) {
+            getBatchScheduler().schedule(new Runnable() {
+                @Override
+                public void run() {
+                    // 先清除标记再发送，发送开始后加入的请求会安排下一次发送
+                    scheduled.set(false);
+                    flush.run();
+                }
+            }, batchWindow, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static ScheduledThreadPoolExecutor getBatchScheduler() {
+        if (batchScheduler == null) {
+            synchronized (MeshRegistry.class) {
+                if (batchScheduler == null) {
+                    ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1,
+                        new NamedThreadFactory("Mesh-Batch-Registry", true));
+                    scheduler.setKeepAliveTime(60, TimeUnit.SECONDS);
+                    scheduler.allowCoreThreadTimeOut(true);
+                    batchScheduler = scheduler;
+                }
+            }
+        }
+        return batchScheduler;
+    }
 
+    /**
+     * 异步把待订阅队列里的服务一次发给 sidecar，同时订阅的服务会合并到一个批量请求里
+     *
+     * @param appName 应用名
+     */
+    protected void flushPendingSubscribes(final String appName) {
         asyncCreateConnectionExecutor.execute(new Runnable() {
             @Override
             public void run() {
-                final String appName = config.getAppName();
-
                 registerAppInfoOnce(appName);
 
-                SubscribeServiceRequest subscribeRequest = buildSubscribeServiceRequest(config);
-                SubscribeServiceResult subscribeServiceResult = client.subscribeService(subscribeRequest);
-
-                if (subscribeServiceResult == null || !subscribeServiceResult.isSuccess()) {
-                    throw new RuntimeException("regist consumer occors error," + subscribeRequest);
-
+                final List<ConsumerConfig> configs = drain(pendingSubscribes);
+                if (configs.isEmpty()) {
+                    // 已经被其它任务发走了
+                    return;
                 }
+                final List<SubscribeServiceRequest> requests = new ArrayList<SubscribeServiceRequest>(configs.size());
+                for (ConsumerConfig config : configs) {
+                    requests.add(buildSubscribeServiceRequest(config));
+                }
+                // 通知地址可能比较慢，放回注册中心的线程池里，不占用发请求的线程
+                client.subscribeServices(requests).whenCompleteAsync(
+                    new BiConsumer<List<SubscribeServiceResult>, Throwable>() {
+                        @Override
+                        public void accept(List<SubscribeServiceResult> results, Throwable e) {
+                            for (int i = 0; i < configs.size(); i++) {
+                                SubscribeServiceResult result = results == null ? null : results.get(i);
+                                if (result == null || !result.isSuccess()) {
+                                    LOGGER.errorWithApp(configs.get(i).getAppName(),
+                                        "regist consumer occors error," + requests.get(i), e);
+                                    continue;
+                                }
+                                notifySubscribed(configs.get(i), result);
+                            }
+                        }
+                    }, asyncCreateConnectionExecutor);
+            }
+        });
+    }
 
-                List<ProviderGroup> providerGroups = new ArrayList<ProviderGroup>();
+    private void notifySubscribed(ConsumerConfig config, SubscribeServiceResult subscribeServiceResult) {
+        List<ProviderGroup> providerGroups = new ArrayList<ProviderGroup>();
 
-                ProviderGroup providerGroup = new ProviderGroup();
+        ProviderGroup providerGroup = new ProviderGroup();
 
-                List<ProviderInfo> providerInfos = new ArrayList<ProviderInfo>();
+        List<ProviderInfo> providerInfos = new ArrayList<ProviderInfo>();
 
-                String url = fillProtocolAndVersion(subscribeServiceResult, client.getHost(), "", config.getProtocol());
+        String url = fillProtocolAndVersion(subscribeServiceResult, client.getHost(), "", config.getProtocol());
 
-                ProviderInfo providerInfo = SofaRegistryHelper.parseProviderInfo(url);
-                providerInfos.add(providerInfo);
-                providerGroup.setProviderInfos(providerInfos);
+        ProviderInfo providerInfo = SofaRegistryHelper.parseProviderInfo(url);
+        providerInfos.add(providerInfo);
+        providerGroup.setProviderInfos(providerInfos);
 
-                providerGroups.add(providerGroup);
+        providerGroups.add(providerGroup);
 
-                if (EventBus.isEnable(ConsumerSubEvent.class)) {
-                    ConsumerSubEvent event = new ConsumerSubEvent(config);
-                    EventBus.post(event);
-                }
-
-                if (providerInfoListener != null) {
-                    providerInfoListener.updateAllProviders(providerGroups);
-                }
-            }
-        });
+        if (EventBus.isEnable(ConsumerSubEvent.class)) {
+            ConsumerSubEvent event = new ConsumerSubEvent(config);
+            EventBus.post(event);
+        }
 
-        //async
-        return null;
+        ProviderInfoListener providerInfoListener = config.getProviderInfoListener();
+        if (providerInfoListener != null) {
+            providerInfoListener.updateAllProviders(providerGroups);
+        }
+    }
 
+    private static <T> List<T> drain(Queue<T> queue) {
+        List<T> list = new ArrayList<T>();
+        T item;
+        while ((item = queue.poll()) != null) {
+            list.add(item);
+        }
+        return list;
     }
 
     protected SubscribeServiceRequest buildSubscribeServiceRequest(ConsumerConfig consumerConfig) {
@@ -19,18 +19,30 @@ package com.alipay.sofa.rpc.registry.mesh.client;
 import com.alipay.sofa.common.config.SofaConfigs;
 import com.alipay.sofa.rpc.common.config.RpcConfigKeys;
 import com.alipay.sofa.rpc.common.json.JSON;
+import com.alipay.sofa.rpc.common.struct.NamedThreadFactory;
 import com.alipay.sofa.rpc.common.utils.StringUtils;
 import com.alipay.sofa.rpc.log.Logger;
 import com.alipay.sofa.rpc.log.LoggerFactory;
 import com.alipay.sofa.rpc.registry.mesh.model.*;
 
 import java.io.BufferedReader;
-import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
  * @author bystander
@@ -38,24 +50,83 @@ import java.net.URL;
  */
 public class MeshApiClient {
 
-    private static final Logger LOGGER         = LoggerFactory.getLogger(MeshApiClient.class);
+    private static final Logger                  LOGGER                  = LoggerFactory
+                                                                             .getLogger(MeshApiClient.class);
 
-    private URI                 baseURI;
+    private URI                                  baseURI;
 
     /**
      * 连接超时
      */
-    private static int          connectTimeout = SofaConfigs.getOrDefault(RpcConfigKeys.MESH_HTTP_CONNECTION_TIMEOUT);
+    private static int                           connectTimeout          = SofaConfigs
+                                                                             .getOrDefault(RpcConfigKeys.MESH_HTTP_CONNECTION_TIMEOUT);
 
     /**
      * 读取超时
      */
-    private static int          readTimeout    = SofaConfigs.getOrDefault(RpcConfigKeys.MESH_HTTP_READ_TIMEOUT);
+    private static int                           readTimeout             = SofaConfigs
+                                                                             .getOrDefault(RpcConfigKeys.MESH_HTTP_READ_TIMEOUT);
 
-    private static String       errorMessage   = "ERROR";
+    /**
+     * 同时发往 sidecar 的最大请求数，超过 HttpURLConnection 的长连接缓存数时多出的连接用完即关
+     */
+    private static int                           maxConcurrency          = SofaConfigs
+                                                                             .getOrDefault(RpcConfigKeys.MESH_HTTP_MAX_CONCURRENCY);
+
+    /**
+     * 异步请求失败后的重试次数
+     */
+    private static int                           retryTimes              = SofaConfigs
+                                                                             .getOrDefault(RpcConfigKeys.MESH_HTTP_RETRY_TIMES);
+
+    /**
+     * 第一次重试前的等待时间，之后每次翻倍
+     */
+    private static int                           retryBackoff            = SofaConfigs
+                                                                             .getOrDefault(RpcConfigKeys.MESH_HTTP_RETRY_BACKOFF);
+
+    private static String                        errorMessage            = "ERROR";
+
+    /**
+     * sidecar 返回 404，说明不支持该接口，不需要重试
+     */
+    private static String                        notFoundMessage         = "NOT_FOUND";
+
+    /**
+     * 单次重试前最长的等待时间
+     */
+    private static final long                    MAX_RETRY_BACKOFF       = 30000L;
+
+    /**
+     * 限制同时发往 sidecar 的请求数
+     */
+    private final Semaphore                      permits                 = new Semaphore(
+                                                                             Math.max(
+                                                                                 maxConcurrency,
+                                                                                 1));
+
+    /**
+     * 批量请求的线程池，用到时才创建
+     */
+    private volatile ThreadPoolExecutor          batchExecutor;
+
+    /**
+     * 重试的定时器，只负责等待退避时间，请求还是交给批量请求的线程池执行，用到时才创建
+     */
+    private volatile ScheduledThreadPoolExecutor retryScheduler;
+
+    /**
+     * sidecar 是否支持批量发布，返回过 404 后改为逐个发布
+     */
+    private volatile boolean                     batchPublishSupported   = true;
+
+    /**
+     * sidecar 是否支持批量订阅，返回过 404 后改为逐个订阅
+     */
+    private volatile boolean                     batchSubscribeSupported = true;
 
-    private String              host;
-    private int                 port;
+    private String                               host;
+    private int                                  port;
 
     public MeshApiClient(String meshAddress) {
         baseURI = URI.create(meshAddress);
@@ -69,7 +140,7 @@ public class MeshApiClient {
 
         final String json = JSON.toJSONString(publishServiceRequest);
         String result = httpPost(MeshEndpoint.PUBLISH, json);
-        if (!StringUtils.equals(result, errorMessage)) {
+        if (!isError(result)) {
             final PublishServiceResult parse = JSON.parseObject(result, PublishServiceResult.class);
             if (parse.isSuccess()) {
                 return true;
@@ -85,7 +156,7 @@ public class MeshApiClient {
         final String json = applicationInfoRequest.toJson();
         String result = httpPost(MeshEndpoint.CONFIGS, json);
 
-        if (!StringUtils.equals(result, errorMessage)) {
+        if (!isError(result)) {
             final ApplicationInfoResult parse = JSON.parseObject(result,
                 ApplicationInfoResult.class);
             if (parse.isSuccess()) {
@@ -103,7 +174,7 @@ public class MeshApiClient {
         final String json = JSON.toJSONString(request);
         String result = httpPost(MeshEndpoint.UN_PUBLISH, json);
 
-        if (!StringUtils.equals(result, errorMessage)) {
+        if (!isError(result)) {
             final UnPublishServiceResult parse = JSON.parseObject(result,
                 UnPublishServiceResult.class);
             if (parse.isSuccess()) {
@@ -122,7 +193,7 @@ public class MeshApiClient {
         String result = httpPost(MeshEndpoint.SUBCRIBE, json);
 
         SubscribeServiceResult subscribeServiceResult;
-        if (!StringUtils.equals(result, errorMessage)) {
+        if (!isError(result)) {
             subscribeServiceResult = JSON.parseObject(result, SubscribeServiceResult.class);
             return subscribeServiceResult;
         } else {
@@ -136,7 +207,7 @@ public class MeshApiClient {
 
         String result = httpPost(MeshEndpoint.UN_SUBCRIBE, json);
 
-        if (!StringUtils.equals(result, errorMessage)) {
+        if (!isError(result)) {
             final UnSubscribeServiceResult parse = JSON.parseObject(result,
                 UnSubscribeServiceResult.class);
             if (parse.isSuccess()) {
@@ -148,58 +219,224 @@ public class MeshApiClient {
         }
     }
 
-    private HttpURLConnection createConnection(URL url, String method, boolean doOutput) {
-        HttpURLConnection con;
+    /**
+     * 批量发布服务，优先调用 sidecar 的批量接口，sidecar 不支持（404）时改为逐个发布，
+     * 最多 {@link RpcConfigKeys#MESH_HTTP_MAX_CONCURRENCY} 个请求同时发往 sidecar。
+     * 失败的请求在后台退避重试，不占用调用线程
+     *
+     * @param requests 发布请求
+     * @return 和请求顺序一致的发布结果
+     */
+    public CompletableFuture<List<PublishServiceResult>> publishServices(final List<PublishServiceRequest> requests) {
+        if (!batchPublishSupported) {
+            return requestOneByOne(MeshEndpoint.PUBLISH, requests).thenApply(MeshApiClient::parsePublishResults);
+        }
+        BatchPublishServiceRequest batchRequest = new BatchPublishServiceRequest();
+        batchRequest.setRequests(requests);
+        return httpRequestAsync(MeshEndpoint.BATCH_PUBLISH, "POST", JSON.toJSONString(batchRequest))
+            .thenCompose(new Function<String, CompletionStage<List<PublishServiceResult>>>() {
+                @Override
+                public CompletionStage<List<PublishServiceResult>> apply(String result) {
+                    if (StringUtils.equals(result, notFoundMessage)) {
+                        batchPublishSupported = false;
+                        LOGGER.warnWithApp(null, "mesh sidecar does not support " + MeshEndpoint.BATCH_PUBLISH
+                            + ", publish services one by one");
+                        return requestOneByOne(MeshEndpoint.PUBLISH, requests)
+                            .thenApply(MeshApiClient::parsePublishResults);
+                    }
+                    BatchPublishServiceResult batchResult = isError(result) ? null : JSON.parseObject(result,
+                        BatchPublishServiceResult.class);
+                    List<PublishServiceResult> results = new ArrayList<PublishServiceResult>(requests.size());
+                    for (int i = 0; i < requests.size(); i++) {
+                        PublishServiceResult one = batchResult != null && batchResult.getResults() != null
+                            && i < batchResult.getResults().size() ? batchResult.getResults().get(i) : null;
+                        results.add(one != null ? one : new PublishServiceResult());
+                    }
+                    return CompletableFuture.completedFuture(results);
+                }
+            });
+    }
 
-        try {
-            con = (HttpURLConnection) url.openConnection();
-            con.setRequestMethod(method);
-            con.setConnectTimeout(connectTimeout);
-            con.setReadTimeout(readTimeout);
-            con.setDoOutput(doOutput);
-            con.setDoInput(true);
-            con.setUseCaches(false);
-            con.setRequestProperty("Content-Type", "text/plain");
-            return con;
-        } catch (IOException e) {
-            LOGGER.errorWithApp(null, "uri:" + url, e);
-            return null;
+    /**
+     * 批量订阅服务，优先调用 sidecar 的批量接口，sidecar 不支持（404）时改为逐个订阅，
+     * 最多 {@link RpcConfigKeys#MESH_HTTP_MAX_CONCURRENCY} 个请求同时发往 sidecar。
+     * 失败的请求在后台退避重试，不占用调用线程
+     *
+     * @param requests 订阅请求
+     * @return 和请求顺序一致的订阅结果
+     */
+    public CompletableFuture<List<SubscribeServiceResult>> subscribeServices(
+                                                                             final List<SubscribeServiceRequest> requests) {
+        if (!batchSubscribeSupported) {
+            return requestOneByOne(MeshEndpoint.SUBCRIBE, requests).thenApply(MeshApiClient::parseSubscribeResults);
+        }
+        BatchSubscribeServiceRequest batchRequest = new BatchSubscribeServiceRequest();
+        batchRequest.setRequests(requests);
+        return httpRequestAsync(MeshEndpoint.BATCH_SUBCRIBE, "POST", JSON.toJSONString(batchRequest))
+            .thenCompose(new Function<String, CompletionStage<List<SubscribeServiceResult>>>() {
+                @Override
+                public CompletionStage<List<SubscribeServiceResult>> apply(String result) {
+                    if (StringUtils.equals(result, notFoundMessage)) {
+                        batchSubscribeSupported = false;
+                        LOGGER.warnWithApp(null, "mesh sidecar does not support " + MeshEndpoint.BATCH_SUBCRIBE
+                            + ", subscribe services one by one");
+                        return requestOneByOne(MeshEndpoint.SUBCRIBE, requests)
+                            .thenApply(MeshApiClient::parseSubscribeResults);
+                    }
+                    BatchSubscribeServiceResult batchResult = isError(result) ? null : JSON.parseObject(result,
+                        BatchSubscribeServiceResult.class);
+                    List<SubscribeServiceResult> results = new ArrayList<SubscribeServiceResult>(requests.size());
+                    for (int i = 0; i < requests.size(); i++) {
+                        SubscribeServiceResult one = batchResult != null && batchResult.getResults() != null
+                            && i < batchResult.getResults().size() ? batchResult.getResults().get(i) : null;
+                        results.add(one != null ? one : new SubscribeServiceResult());
+                    }
+                    return CompletableFuture.completedFuture(results);
+                }
+            });
+    }
+
+    private static List<PublishServiceResult> parsePublishResults(List<String> results) {
+        List<PublishServiceResult> parsed = new ArrayList<PublishServiceResult>(results.size());
+        for (String result : results) {
+            parsed.add(isError(result) ? new PublishServiceResult()
+                : JSON.parseObject(result, PublishServiceResult.class));
+        }
+        return parsed;
+    }
+
+    private static List<SubscribeServiceResult> parseSubscribeResults(List<String> results) {
+        List<SubscribeServiceResult> parsed = new ArrayList<SubscribeServiceResult>(results.size());
+        for (String result : results) {
+            parsed.add(isError(result) ? new SubscribeServiceResult()
+                : JSON.parseObject(result, SubscribeServiceResult.class));
+        }
+        return parsed;
+    }
+
+    /**
+     * 逐个发送请求，请求在批量线程池里执行
+     *
+     * @param path     路径
+     * @param requests 请求
+     * @return 和请求顺序一致的响应内容
+     */
+    private CompletableFuture<List<String>> requestOneByOne(String path, List<?> requests) {
+        final List<CompletableFuture<String>> futures = new ArrayList<CompletableFuture<String>>(requests.size());
+        for (Object request : requests) {
+            CompletableFuture<String> future = new CompletableFuture<String>();
+            submitAttempt(path, "POST", JSON.toJSONString(request), 0, future);
+            futures.add(future);
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[futures.size()])).thenApply(
+            new Function<Void, List<String>>() {
+                @Override
+                public List<String> apply(Void ignore) {
+                    List<String> results = new ArrayList<String>(futures.size());
+                    for (CompletableFuture<String> future : futures) {
+                        results.add(future.join());
+                    }
+                    return results;
+                }
+            });
+    }
+
+    private static boolean isError(String result) {
+        return StringUtils.equals(result, errorMessage) || StringUtils.equals(result, notFoundMessage);
+    }
+
+    private ThreadPoolExecutor getBatchExecutor() {
+        if (batchExecutor == null) {
+            synchronized (this) {
+                if (batchExecutor == null) {
+                    int concurrency = Math.max(maxConcurrency, 1);
+                    ThreadPoolExecutor executor = new ThreadPoolExecutor(concurrency, concurrency, 60,
+                        TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new NamedThreadFactory(
+                            "Mesh-Api-Client", true));
+                    executor.allowCoreThreadTimeOut(true);
+                    batchExecutor = executor;
+                }
+            }
+        }
+        return batchExecutor;
+    }
+
+    private ScheduledThreadPoolExecutor getRetryScheduler() {
+        if (retryScheduler == null) {
+            synchronized (this) {
+                if (retryScheduler == null) {
+                    ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1,
+                        new NamedThreadFactory("Mesh-Api-Retry", true));
+                    scheduler.setKeepAliveTime(60, TimeUnit.SECONDS);
+                    scheduler.allowCoreThreadTimeOut(true);
+                    retryScheduler = scheduler;
+                }
+            }
         }
+        return retryScheduler;
+    }
 
+    private HttpURLConnection createConnection(URL url, String method, boolean doOutput) throws IOException {
+        HttpURLConnection con = (HttpURLConnection) url.openConnection();
+        con.setRequestMethod(method);
+        con.setConnectTimeout(connectTimeout);
+        con.setReadTimeout(readTimeout);
+        con.setDoOutput(doOutput);
+        con.setDoInput(true);
+        con.setUseCaches(false);
+        con.setRequestProperty("Content-Type", "text/plain");
+        return con;
     }
 
-    private String readDataFromConnection(HttpURLConnection con) {
-        int code = 0;
-        URL url;
+    /**
+     * 读取响应，并且读完响应体，这样连接才能回到 HttpURLConnection 的长连接缓存里复用
+     */
+    private String readDataFromConnection(HttpURLConnection con) throws IOException {
+        int code = con.getResponseCode();
+        URL url = con.getURL();
         String result;
-        try {
-            code = con.getResponseCode();
-            url = con.getURL();
-            if (code == 200) {
-                // 读取返回内容
-                StringBuilder buffer = new StringBuilder();
-                BufferedReader br = new BufferedReader(new InputStreamReader(con.getInputStream(),
-                    "UTF-8"));
+        if (code == 200) {
+            // 读取返回内容
+            StringBuilder buffer = new StringBuilder();
+            BufferedReader br = new BufferedReader(new InputStreamReader(con.getInputStream(),
+                "UTF-8"));
+            try {
                 String temp;
                 while ((temp = br.readLine()) != null) {
                     buffer.append(temp);
                     buffer.append("\n");
                 }
-                result = buffer.toString().trim();
-                LOGGER.infoWithApp(null, "uri:" + url + " return result: " + result);
-            } else {
-                //500等其他错误码,需要异步重新检测的
-                LOGGER.infoWithApp(null, "uri:" + url + " return code: " + code);
-                result = errorMessage;
+            } finally {
+                br.close();
             }
-        } catch (IOException e) {
-            e.printStackTrace();
-            return errorMessage;
+            result = buffer.toString().trim();
+            LOGGER.infoWithApp(null, "uri:" + url + " return result: " + result);
+        } else {
+            LOGGER.infoWithApp(null, "uri:" + url + " return code: " + code);
+            drainErrorStream(con);
+            // 404 说明 sidecar 没有这个接口
+            result = code == HttpURLConnection.HTTP_NOT_FOUND ? notFoundMessage : errorMessage;
         }
-
         return result;
     }
 
+    /**
+     * 读完错误响应，连接可以继续复用
+     */
+    private void drainErrorStream(HttpURLConnection con) throws IOException {
+        InputStream errorStream = con.getErrorStream();
+        if (errorStream != null) {
+            try {
+                byte[] discard = new byte[1024];
+                while (errorStream.read(discard) != -1) { // NOPMD
+                    // discard
+                }
+            } finally {
+                errorStream.close();
+            }
+        }
+    }
+
     /**
      * for get method
      *
@@ -207,51 +444,109 @@ public class MeshApiClient {
      * @return
      */
     public String httpGet(String path) {
-        HttpURLConnection con = null;
-        String result = null;
+        return httpRequest(path, "GET", null);
+    }
+
+    /**
+     * 异步 get，失败后在后台退避重试，最多重试 {@link RpcConfigKeys#MESH_HTTP_RETRY_TIMES} 次
+     *
+     * @param path 路径
+     * @return 响应内容，失败返回 {@link #errorMessage}
+     */
+    public CompletableFuture<String> httpGetAsync(String path) {
+        return httpRequestAsync(path, "GET", null);
+    }
+
+    private String httpPost(String path, String json) {
+        return httpRequest(path, "POST", json);
+    }
+
+    /**
+     * 同步发送一次请求，不重试，避免调用线程阻塞在退避等待上
+     *
+     * @param path   路径
+     * @param method 请求方法
+     * @param body   请求体，没有则为null
+     * @return 响应内容，失败返回 {@link #errorMessage}
+     */
+    private String httpRequest(String path, String method, String body) {
+        permits.acquireUninterruptibly();
         try {
-            URL url = baseURI.resolve(path).toURL();
-            con = createConnection(url, "GET", false);
-            con.connect();
-            result = readDataFromConnection(con);
-        } catch (Exception e) {
-            LOGGER.errorWithApp(null, "uri:" + path + " return error: " + e.getMessage());
-            result = errorMessage;
+            return doHttpRequest(path, method, body);
         } finally {
-            if (con != null) {
-                con.disconnect();
-            }
+            permits.release();
         }
-        return result;
     }
 
-    private String httpPost(String path, String json) {
-        HttpURLConnection con = null;
-        String result = null;
-        try {
-            URL url = baseURI.resolve(path).toURL();
-            con = createConnection(url, "POST", true);
-            //  con.connect();
+    /**
+     * 异步发送请求，第一次在当前线程发送；失败（网络异常或者非200）后由定时器退避，
+     * 再交给批量请求的线程池重试，最多重试 {@link #retryTimes} 次，期间不占用任何线程等待
+     *
+     * @param path   路径
+     * @param method 请求方法
+     * @param body   请求体，没有则为null
+     * @return 响应内容，失败返回 {@link #errorMessage}，sidecar 不支持该接口返回 {@link #notFoundMessage}
+     */
+    private CompletableFuture<String> httpRequestAsync(String path, String method, String body) {
+        CompletableFuture<String> future = new CompletableFuture<String>();
+        attempt(path, method, body, 0, future);
+        return future;
+    }
 
-            DataOutputStream out = new DataOutputStream(con.getOutputStream());
-            // The URL-encoded contend
-            // 正文，正文内容其实跟get的URL中'?'后的参数字符串一致
-            // DataOutputStream.writeBytes将字符串中的16位的 unicode字符以8位的字符形式写道流里面
-            out.write(json.getBytes("utf-8"));
+    private void attempt(final String path, final String method, final String body, final int times,
+                         final CompletableFuture<String> future) {
+        String result = httpRequest(path, method, body);
+        if (!StringUtils.equals(result, errorMessage) || times >= retryTimes) {
+            future.complete(result);
+            return;
+        }
+        long backoff = Math.min((long) retryBackoff << Math.min(times, 30), MAX_RETRY_BACKOFF);
+        getRetryScheduler().schedule(new Runnable() {
+            @Override
+            public void run() {
+                LOGGER.infoWithApp(null, "uri:" + path + " retry " + (times + 1) + " times");
+                submitAttempt(path, method, body, times + 1, future);
+            }
+        }, backoff, TimeUnit.MILLISECONDS);
+    }
 
-            out.flush();
-            out.close(); // flush and close
+    private void submitAttempt(final String path, final String method, final String body, final int times,
+                               final CompletableFuture<String> future) {
+        getBatchExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                attempt(path, method, body, times, future);
+            }
+        });
+    }
 
-            result = readDataFromConnection(con);
+    private String doHttpRequest(String path, String method, String body) {
+        HttpURLConnection con = null;
+        boolean reusable = false;
+        try {
+            URL url = baseURI.resolve(path).toURL();
+            con = createConnection(url, method, body != null);
+            if (body != null) {
+                OutputStream out = con.getOutputStream();
+                try {
+                    out.write(body.getBytes("utf-8"));
+                    out.flush();
+                } finally {
+                    out.close();
+                }
+            }
+            String result = readDataFromConnection(con);
+            reusable = true;
+            return result;
         } catch (Exception e) {
             LOGGER.errorWithApp(null, "uri:" + path + " return error: " + e.getMessage());
-            result = errorMessage;
+            return errorMessage;
         } finally {
-            if (con != null) {
+            // 只有出错的连接才关闭，正常的连接留给下一个请求复用
+            if (con != null && !reusable) {
                 con.disconnect();
             }
         }
-        return result;
     }
 
     public String getHost() {
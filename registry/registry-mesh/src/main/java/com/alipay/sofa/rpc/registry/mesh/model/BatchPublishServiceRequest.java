@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.registry.mesh.model;
+
+import java.util.List;
+
+/**
+ * 批量发布服务请求
+ *
+ * @since 5.7.9
+ */
+public class BatchPublishServiceRequest {
+
+    private List<PublishServiceRequest> requests;
+
+    public List<PublishServiceRequest> getRequests() {
+        return requests;
+    }
+
+    public void setRequests(List<PublishServiceRequest> requests) {
+        this.requests = requests;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuffer sb = new StringBuffer("BatchPublishServiceRequest{");
+        sb.append("requests=").append(requests);
+        sb.append('}');
+        return sb.toString();
+    }
+}
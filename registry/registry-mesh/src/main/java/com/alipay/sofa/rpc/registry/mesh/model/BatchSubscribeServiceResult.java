@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.registry.mesh.model;
+
+import java.util.List;
+
+/**
+ * 批量订阅服务结果，results 和请求的顺序一致
+ *
+ * @since 5.7.9
+ */
+public class BatchSubscribeServiceResult {
+
+    private String                       errorMessage;
+
+    private boolean                      success;
+
+    private List<SubscribeServiceResult> results;
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    public List<SubscribeServiceResult> getResults() {
+        return results;
+    }
+
+    public void setResults(List<SubscribeServiceResult> results) {
+        this.results = results;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuffer sb = new StringBuffer("BatchSubscribeServiceResult{");
+        sb.append("errorMessage='").append(errorMessage).append('\'');
+        sb.append(", success=").append(success);
+        sb.append(", results=").append(results);
+        sb.append('}');
+        return sb.toString();
+    }
+}
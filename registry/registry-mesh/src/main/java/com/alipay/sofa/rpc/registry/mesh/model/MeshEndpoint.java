@@ -21,14 +21,24 @@ package com.alipay.sofa.rpc.registry.mesh.model;
  */
 public class MeshEndpoint {
 
-    public final static String PUBLISH     = "/services/publish";
+    public final static String PUBLISH        = "/services/publish";
 
-    public final static String UN_PUBLISH  = "/services/unpublish";
+    /**
+     * 批量发布，老版本的 sidecar 不支持时返回 404
+     */
+    public final static String BATCH_PUBLISH  = "/services/batch/publish";
 
-    public final static String SUBCRIBE    = "/services/subscribe";
+    public final static String UN_PUBLISH     = "/services/unpublish";
 
-    public final static String UN_SUBCRIBE = "/services/unsubscribe";
+    public final static String SUBCRIBE       = "/services/subscribe";
 
-    public final static String CONFIGS     = "/configs/application";
+    /**
+     * 批量订阅，老版本的 sidecar 不支持时返回 404
+     */
+    public final static String BATCH_SUBCRIBE = "/services/batch/subscribe";
+
+    public final static String UN_SUBCRIBE    = "/services/unsubscribe";
+
+    public final static String CONFIGS        = "/configs/application";
 
 }
\ No newline at end of file
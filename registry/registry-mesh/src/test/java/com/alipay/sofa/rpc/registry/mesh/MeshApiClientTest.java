@@ -21,6 +21,7 @@ import com.alipay.sofa.rpc.registry.mesh.client.MeshApiClient;
 import com.alipay.sofa.rpc.registry.mesh.mock.HttpMockServer;
 import com.alipay.sofa.rpc.registry.mesh.model.ApplicationInfoRequest;
 import com.alipay.sofa.rpc.registry.mesh.model.ApplicationInfoResult;
+import com.alipay.sofa.rpc.registry.mesh.model.BatchSubscribeServiceResult;
 import com.alipay.sofa.rpc.registry.mesh.model.MeshEndpoint;
 import com.alipay.sofa.rpc.registry.mesh.model.ProviderMetaInfo;
 import com.alipay.sofa.rpc.registry.mesh.model.PublishServiceRequest;
@@ -36,6 +37,12 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
 /**
  * @author <a href=mailto:leizhiyuan@gmail.com>leizhiyuan</a>
  */
@@ -96,6 +103,124 @@ public class MeshApiClientTest extends BaseMeshTest {
         Assert.assertTrue(result);
     }
 
+    @Test
+    public void testBatchPublishKeepAlive() throws Exception {
+        List<PublishServiceRequest> requests = new ArrayList<PublishServiceRequest>();
+        for (int i = 0; i < 500; i++) {
+            PublishServiceRequest request = new PublishServiceRequest();
+            request.setServiceName("com.alipay.test.Service" + i + ":1.0");
+            ProviderMetaInfo providerMetaInfo = new ProviderMetaInfo();
+            providerMetaInfo.setAppName("testApp");
+            providerMetaInfo.setProtocol("bolt");
+            providerMetaInfo.setSerializeType("hessian2");
+            providerMetaInfo.setVersion("4.0");
+            request.setProviderMetaInfo(providerMetaInfo);
+            requests.add(request);
+        }
+        long start = System.currentTimeMillis();
+        int success = 0;
+        for (PublishServiceResult result : meshApiClient.publishServices(requests).get(30, TimeUnit.SECONDS)) {
+            if (result.isSuccess()) {
+                success++;
+            }
+        }
+        Assert.assertEquals(500, success);
+        LOGGER.info("publish 500 services to mesh elapsed " + (System.currentTimeMillis() - start) + "ms");
+        // 连接复用，远少于请求数
+        Assert.assertTrue(httpMockServer.getRemotePorts().size() <= 10);
+    }
+
+    @Test
+    public void testBatchSubscribe() throws Exception {
+        List<SubscribeServiceRequest> requests = new ArrayList<SubscribeServiceRequest>();
+        for (int i = 0; i < 10; i++) {
+            SubscribeServiceRequest request = new SubscribeServiceRequest();
+            request.setServiceName("com.alipay.test.Service" + i + ":1.0");
+            requests.add(request);
+        }
+        List<SubscribeServiceResult> results = meshApiClient.subscribeServices(requests).get(10, TimeUnit.SECONDS);
+        Assert.assertEquals(10, results.size());
+        for (SubscribeServiceResult result : results) {
+            Assert.assertTrue(result.isSuccess());
+        }
+    }
+
+    @Test
+    public void testBatchEndpoint() throws Exception {
+        BatchSubscribeServiceResult batchResult = new BatchSubscribeServiceResult();
+        batchResult.setSuccess(true);
+        List<SubscribeServiceResult> batchResults = new ArrayList<SubscribeServiceResult>();
+        List<SubscribeServiceRequest> requests = new ArrayList<SubscribeServiceRequest>();
+        for (int i = 0; i < 3; i++) {
+            SubscribeServiceRequest request = new SubscribeServiceRequest();
+            request.setServiceName("com.alipay.test.Service" + i + ":1.0");
+            requests.add(request);
+            SubscribeServiceResult result = new SubscribeServiceResult();
+            result.setSuccess(true);
+            result.setDatas(Collections.singletonList("127.0.0.1:1220" + i));
+            batchResults.add(result);
+        }
+        batchResult.setResults(batchResults);
+        httpMockServer.addMockPath(MeshEndpoint.BATCH_SUBCRIBE, JSON.toJSONString(batchResult));
+
+        List<SubscribeServiceResult> results = meshApiClient.subscribeServices(requests).get(10, TimeUnit.SECONDS);
+        Assert.assertEquals(3, results.size());
+        for (int i = 0; i < 3; i++) {
+            Assert.assertTrue(results.get(i).isSuccess());
+            Assert.assertEquals("127.0.0.1:1220" + i, results.get(i).getDatas().get(0));
+        }
+        Assert.assertEquals(1, httpMockServer.getRequestCount(MeshEndpoint.BATCH_SUBCRIBE));
+        Assert.assertEquals(0, httpMockServer.getRequestCount(MeshEndpoint.SUBCRIBE));
+    }
+
+    @Test
+    public void testBatchEndpointNotFound() throws Exception {
+        httpMockServer.addNotFoundPath(MeshEndpoint.BATCH_PUBLISH);
+        List<PublishServiceRequest> requests = new ArrayList<PublishServiceRequest>();
+        for (int i = 0; i < 3; i++) {
+            PublishServiceRequest request = new PublishServiceRequest();
+            request.setServiceName("com.alipay.test.Service" + i + ":1.0");
+            requests.add(request);
+        }
+        for (PublishServiceResult result : meshApiClient.publishServices(requests).get(10, TimeUnit.SECONDS)) {
+            Assert.assertTrue(result.isSuccess());
+        }
+        // 404 不重试，之后直接逐个发布
+        Assert.assertEquals(1, httpMockServer.getRequestCount(MeshEndpoint.BATCH_PUBLISH));
+        Assert.assertEquals(3, httpMockServer.getRequestCount(MeshEndpoint.PUBLISH));
+
+        for (PublishServiceResult result : meshApiClient.publishServices(requests).get(10, TimeUnit.SECONDS)) {
+            Assert.assertTrue(result.isSuccess());
+        }
+        Assert.assertEquals(1, httpMockServer.getRequestCount(MeshEndpoint.BATCH_PUBLISH));
+        Assert.assertEquals(6, httpMockServer.getRequestCount(MeshEndpoint.PUBLISH));
+    }
+
+    @Test
+    public void testRetry() throws Exception {
+        PublishServiceResult publishServiceResult = new PublishServiceResult();
+        publishServiceResult.setSuccess(true);
+        httpMockServer.addMockPath("/retry", JSON.toJSONString(publishServiceResult), 2);
+        CompletableFuture<String> future = meshApiClient.httpGetAsync("/retry");
+        // 第一次失败后立即返回，重试在后台退避进行
+        Assert.assertFalse(future.isDone());
+        Assert.assertEquals(1, httpMockServer.getRequestCount("/retry"));
+        Assert.assertEquals(JSON.toJSONString(publishServiceResult), future.get(10, TimeUnit.SECONDS));
+        Assert.assertEquals(3, httpMockServer.getRequestCount("/retry"));
+    }
+
+    @Test
+    public void testRetryExhausted() throws Exception {
+        httpMockServer.addMockPath("/alwaysFail", "", Integer.MAX_VALUE);
+        Assert.assertEquals("ERROR", meshApiClient.httpGetAsync("/alwaysFail").get(10, TimeUnit.SECONDS));
+        // 最多重试 2 次
+        Assert.assertEquals(3, httpMockServer.getRequestCount("/alwaysFail"));
+
+        // 同步请求不重试
+        Assert.assertEquals("ERROR", meshApiClient.httpGet("/alwaysFail"));
+        Assert.assertEquals(4, httpMockServer.getRequestCount("/alwaysFail"));
+    }
+
     @Test
     public void testUnPublish() {
         UnPublishServiceRequest request = new UnPublishServiceRequest();
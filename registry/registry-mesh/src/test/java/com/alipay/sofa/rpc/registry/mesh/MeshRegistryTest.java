@@ -28,6 +28,7 @@ import com.alipay.sofa.rpc.listener.ProviderInfoListener;
 import com.alipay.sofa.rpc.registry.RegistryFactory;
 import com.alipay.sofa.rpc.registry.mesh.mock.HttpMockServer;
 import com.alipay.sofa.rpc.registry.mesh.model.ApplicationInfoResult;
+import com.alipay.sofa.rpc.registry.mesh.model.BatchPublishServiceResult;
 import com.alipay.sofa.rpc.registry.mesh.model.MeshEndpoint;
 import com.alipay.sofa.rpc.registry.mesh.model.PublishServiceResult;
 import com.alipay.sofa.rpc.registry.mesh.model.SubscribeServiceResult;
@@ -265,6 +266,90 @@ public class MeshRegistryTest extends BaseMeshTest {
 
     }
 
+    @Test
+    public void testBatchRegister() throws Exception {
+        BatchPublishServiceResult batchResult = new BatchPublishServiceResult();
+        batchResult.setSuccess(true);
+        List<PublishServiceResult> results = new ArrayList<PublishServiceResult>();
+        List<ProviderConfig> providers = new ArrayList<ProviderConfig>();
+        for (int i = 0; i < 3; i++) {
+            PublishServiceResult result = new PublishServiceResult();
+            result.setSuccess(true);
+            results.add(result);
+            ProviderConfig<?> provider = new ProviderConfig();
+            provider.setInterfaceId("com.alipay.xxx.TestService" + i)
+                .setApplication(new ApplicationConfig().setAppName("test-server"))
+                .setRegister(true)
+                .setRegistry(registryConfig)
+                .setServer(new ServerConfig().setProtocol("bolt").setHost("0.0.0.0").setPort(12200));
+            providers.add(provider);
+        }
+        batchResult.setResults(results);
+        httpMockServer.addMockPath(MeshEndpoint.BATCH_PUBLISH, JSON.toJSONString(batchResult));
+
+        registry.batchRegister(providers);
+        for (int i = 0; i < 30 && httpMockServer.getRequestCount(MeshEndpoint.BATCH_PUBLISH) == 0; i++) {
+            Thread.sleep(100);
+        }
+        Thread.sleep(200);
+        // 三个服务合并成一个批量请求
+        Assert.assertEquals(1, httpMockServer.getRequestCount(MeshEndpoint.BATCH_PUBLISH));
+        Assert.assertEquals(0, httpMockServer.getRequestCount(MeshEndpoint.PUBLISH));
+    }
+
+    @Test
+    public void testRegisterMerged() throws Exception {
+        int count = 5;
+        BatchPublishServiceResult batchResult = new BatchPublishServiceResult();
+        batchResult.setSuccess(true);
+        List<PublishServiceResult> results = new ArrayList<PublishServiceResult>();
+        for (int i = 0; i < count; i++) {
+            PublishServiceResult result = new PublishServiceResult();
+            result.setSuccess(true);
+            results.add(result);
+        }
+        batchResult.setResults(results);
+        httpMockServer.addMockPath(MeshEndpoint.BATCH_PUBLISH, JSON.toJSONString(batchResult));
+
+        // 逐个暴露的服务在等待时间内合并发送
+        for (int i = 0; i < count; i++) {
+            ProviderConfig<?> provider = new ProviderConfig();
+            provider.setInterfaceId("com.alipay.xxx.MergedService" + i)
+                .setApplication(new ApplicationConfig().setAppName("test-server"))
+                .setRegister(true)
+                .setRegistry(registryConfig)
+                .setServer(new ServerConfig().setProtocol("bolt").setHost("0.0.0.0").setPort(12200));
+            registry.register(provider);
+        }
+        for (int i = 0; i < 30 && httpMockServer.getRequestCount(MeshEndpoint.BATCH_PUBLISH) == 0; i++) {
+            Thread.sleep(100);
+        }
+        Thread.sleep(200);
+        int batchCount = httpMockServer.getRequestCount(MeshEndpoint.BATCH_PUBLISH);
+        Assert.assertTrue(batchCount > 0 && batchCount < count);
+        Assert.assertEquals(0, httpMockServer.getRequestCount(MeshEndpoint.PUBLISH));
+    }
+
+    @Test
+    public void testSubscribeFallback() throws Exception {
+        httpMockServer.addNotFoundPath(MeshEndpoint.BATCH_SUBCRIBE);
+
+        ConsumerConfig<?> consumer = new ConsumerConfig();
+        consumer.setInterfaceId("com.alipay.xxx.TestService")
+            .setUniqueId("unique123Id")
+            .setApplication(new ApplicationConfig().setAppName("test-server"))
+            .setSubscribe(true);
+        CountDownLatch latch = new CountDownLatch(1);
+        MeshRegistryTest.MockProviderInfoListener providerInfoListener = new MeshRegistryTest.MockProviderInfoListener();
+        providerInfoListener.setCountDownLatch(latch);
+        consumer.setProviderInfoListener(providerInfoListener);
+        Assert.assertNull(registry.subscribe(consumer));
+        Assert.assertTrue(latch.await(3000, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(1, providerInfoListener.getData().size());
+        Assert.assertEquals(1, httpMockServer.getRequestCount(MeshEndpoint.BATCH_SUBCRIBE));
+        Assert.assertEquals(1, httpMockServer.getRequestCount(MeshEndpoint.SUBCRIBE));
+    }
+
     private static class MockProviderInfoListener implements ProviderInfoListener {
 
         Map<String, ProviderGroup> ps = new HashMap<String, ProviderGroup>();
@@ -298,6 +383,9 @@ public class MeshRegistryTest extends BaseMeshTest {
             for (ProviderGroup providerGroup : providerGroups) {
                 ps.put(providerGroup.getName(), providerGroup);
             }
+            if (countDownLatch != null) {
+                countDownLatch.countDown();
+            }
         }
 
         public Map<String, ProviderGroup> getData() {
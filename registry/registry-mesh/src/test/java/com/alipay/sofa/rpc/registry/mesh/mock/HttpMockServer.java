@@ -23,13 +23,24 @@ import com.sun.net.httpserver.HttpServer;
 import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author <a href=mailto:leizhiyuan@gmail.com>leizhiyuan</a>
  */
 public class HttpMockServer {
 
-    static HttpServer httpServer;
+    static HttpServer                                      httpServer;
+
+    private final Set<Integer>                             remotePorts       = Collections
+                                                                                 .newSetFromMap(new ConcurrentHashMap<Integer, Boolean>());
+
+    private final AtomicInteger                            requestCount      = new AtomicInteger();
+
+    private final ConcurrentHashMap<String, AtomicInteger> pathRequestCounts = new ConcurrentHashMap<String, AtomicInteger>();
 
     /**
      * init first
@@ -59,8 +70,41 @@ public class HttpMockServer {
      * @return
      */
     public boolean addMockPath(String path, final String responseJson) {
+        return addMockPath(path, responseJson, 0);
+    }
+
+    /**
+     * add mock, the first failTimes requests will get 500
+     *
+     * @return
+     */
+    public boolean addMockPath(String path, final String responseJson, int failTimes) {
+        return addMockPath(path, responseJson, failTimes, HttpURLConnection.HTTP_INTERNAL_ERROR);
+    }
+
+    /**
+     * add mock, always return 404 like an old sidecar without the path
+     *
+     * @return
+     */
+    public boolean addNotFoundPath(String path) {
+        return addMockPath(path, "", Integer.MAX_VALUE, HttpURLConnection.HTTP_NOT_FOUND);
+    }
+
+    private boolean addMockPath(String path, final String responseJson, int failTimes, final int failCode) {
+        final AtomicInteger fails = new AtomicInteger(failTimes);
+        final AtomicInteger pathCount = new AtomicInteger();
+        pathRequestCounts.put(path, pathCount);
         httpServer.createContext(path, new HttpHandler() {
             public void handle(HttpExchange exchange) throws IOException {
+                remotePorts.add(exchange.getRemoteAddress().getPort());
+                requestCount.incrementAndGet();
+                pathCount.incrementAndGet();
+                if (fails.getAndDecrement() > 0) {
+                    exchange.sendResponseHeaders(failCode, -1);
+                    exchange.close();
+                    return;
+                }
                 byte[] response = responseJson.getBytes();
                 exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, response.length);
                 exchange.getResponseBody().write(response);
@@ -72,6 +116,24 @@ public class HttpMockServer {
 
     }
 
+    /**
+     * local ports of client connections, one port per connection
+     *
+     * @return
+     */
+    public Set<Integer> getRemotePorts() {
+        return remotePorts;
+    }
+
+    public int getRequestCount() {
+        return requestCount.get();
+    }
+
+    public int getRequestCount(String path) {
+        AtomicInteger count = pathRequestCounts.get(path);
+        return count == null ? 0 : count.get();
+    }
+
     /**
      * start server
      *
@@ -25,10 +25,13 @@ import com.alipay.remoting.InvokeContext;
 import com.alipay.remoting.exception.DeserializationException;
 import com.alipay.remoting.exception.SerializationException;
 import com.alipay.remoting.rpc.RequestCommand;
+import com.alipay.remoting.rpc.RpcCommand;
 import com.alipay.remoting.rpc.ResponseCommand;
 import com.alipay.remoting.rpc.protocol.RpcProtocol;
 import com.alipay.remoting.rpc.protocol.RpcRequestCommand;
 import com.alipay.remoting.rpc.protocol.RpcResponseCommand;
+import com.alipay.sofa.rpc.codec.CompressHelper;
+import com.alipay.sofa.rpc.codec.CompressorFactory;
 import com.alipay.sofa.rpc.codec.Serializer;
 import com.alipay.sofa.rpc.common.RemotingConstants;
 import com.alipay.sofa.rpc.common.RpcConstants;
@@ -192,7 +195,13 @@ public class SofaRpcSerialization extends DefaultCustomSerializer {
                 Serializer rpcSerializer = com.alipay.sofa.rpc.codec.SerializerFactory
                     .getSerializer(serializerCode);
                 AbstractByteBuf byteBuf = rpcSerializer.encode(requestObject, header);
-                request.setContent(byteBuf.array());
+                byte[] content = byteBuf.array();
+                if (requestObject instanceof SofaRequest) {
+                    // 服务端声明支持压缩算法后，请求体达到压缩基线时才压缩
+                    content = compressIfNecessary(requestCommand, ((SofaRequest) requestObject).getCompressType(),
+                        content);
+                }
+                request.setContent(content);
                 return true;
             } catch (Exception ex) {
                 throw new SerializationException(ex.getMessage(), ex);
@@ -255,8 +264,9 @@ public class SofaRpcSerialization extends DefaultCustomSerializer {
                     Serializer rpcSerializer = com.alipay.sofa.rpc.codec.SerializerFactory
                         .getSerializer(requestCommand.getSerializer());
                     Object sofaRequest = ClassUtils.forName(requestCommand.getRequestClass()).newInstance();
-                    rpcSerializer.decode(new ByteArrayWrapperByteBuf(requestCommand.getContent()),
-                        sofaRequest, headerMap);
+                    byte[] data = CompressHelper.deCompress(headerMap.get(RemotingConstants.HEAD_COMPRESS_TYPE),
+                        content);
+                    rpcSerializer.decode(new ByteArrayWrapperByteBuf(data), sofaRequest, headerMap);
 
                     //for service mesh or other scene, we need to add more info from header
                     if (sofaRequest instanceof SofaRequest) {
@@ -308,8 +318,18 @@ public class SofaRpcSerialization extends DefaultCustomSerializer {
             byte serializerCode = response.getSerializer();
             try {
                 Serializer rpcSerializer = com.alipay.sofa.rpc.codec.SerializerFactory.getSerializer(serializerCode);
-                AbstractByteBuf byteBuf = rpcSerializer.encode(responseCommand.getResponseObject(), null);
-                responseCommand.setContent(byteBuf.array());
+                Object responseObject = responseCommand.getResponseObject();
+                AbstractByteBuf byteBuf = rpcSerializer.encode(responseObject, null);
+                byte[] content = byteBuf.array();
+                if (responseObject instanceof SofaResponse) {
+                    String compress = ((SofaResponse) responseObject).getCompressType();
+                    // 告诉调用方本服务端支持该压缩算法，调用方之后才会压缩请求
+                    if (CompressorFactory.isSupport(compress)) {
+                        appendHeader(responseCommand, RemotingConstants.HEAD_SUPPORT_COMPRESS, compress);
+                    }
+                    content = compressIfNecessary(responseCommand, compress, content);
+                }
+                responseCommand.setContent(content);
                 return true;
             } catch (Exception ex) {
                 throw new SerializationException(ex.getMessage(), ex);
@@ -357,6 +377,7 @@ public class SofaRpcSerialization extends DefaultCustomSerializer {
                 if (header == null) {
                     header = new HashMap<String, String>();
                 }
+                byte[] data = CompressHelper.deCompress(header.get(RemotingConstants.HEAD_COMPRESS_TYPE), content);
                 putKV(header, RemotingConstants.HEAD_TARGET_SERVICE,
                     (String) invokeContext.get(RemotingConstants.HEAD_TARGET_SERVICE));
                 putKV(header, RemotingConstants.HEAD_METHOD_NAME,
@@ -365,7 +386,10 @@ public class SofaRpcSerialization extends DefaultCustomSerializer {
                     (String) invokeContext.get(RemotingConstants.HEAD_GENERIC_TYPE));
 
                 Serializer rpcSerializer = com.alipay.sofa.rpc.codec.SerializerFactory.getSerializer(serializer);
-                rpcSerializer.decode(new ByteArrayWrapperByteBuf(responseCommand.getContent()), sofaResponse, header);
+                rpcSerializer.decode(new ByteArrayWrapperByteBuf(data), sofaResponse, header);
+                if (sofaResponse instanceof SofaResponse) {
+                    ((SofaResponse) sofaResponse).setCompressType(header.get(RemotingConstants.HEAD_SUPPORT_COMPRESS));
+                }
 
                 responseCommand.setResponseObject(sofaResponse);
                 return true;
@@ -379,6 +403,47 @@ public class SofaRpcSerialization extends DefaultCustomSerializer {
         return false;
     }
 
+    /**
+     * 消息体达到压缩基线时压缩，并在已经序列化好的头部后追加压缩算法
+     *
+     * @param command  请求或者响应
+     * @param compress 压缩算法，为空代表不压缩
+     * @param content  序列化后的消息体
+     * @return 需要写出的消息体
+     * @throws SerializationException SerializationException
+     */
+    protected byte[] compressIfNecessary(RpcCommand command, String compress, byte[] content)
+        throws SerializationException {
+        byte[] compressed = CompressHelper.compressIfNecessary(compress, content);
+        if (compressed == null) {
+            return content;
+        }
+        appendHeader(command, RemotingConstants.HEAD_COMPRESS_TYPE, compress);
+        return compressed;
+    }
+
+    /**
+     * 在已经序列化好的头部后追加一个键值对
+     *
+     * @param command 请求或者响应
+     * @param key     键
+     * @param value   值
+     * @throws SerializationException SerializationException
+     */
+    protected void appendHeader(RpcCommand command, String key, String value) throws SerializationException {
+        // 头部是简单的键值对序列，可以直接追加
+        byte[] extra = mapSerializer.encode(Collections.singletonMap(key, value));
+        byte[] header = command.getHeader();
+        if (header == null || header.length == 0) {
+            command.setHeader(extra);
+        } else {
+            byte[] newHeader = new byte[header.length + extra.length];
+            System.arraycopy(header, 0, newHeader, 0, header.length);
+            System.arraycopy(extra, 0, newHeader, header.length, extra.length);
+            command.setHeader(newHeader);
+        }
+    }
+
     protected void putKV(Map<String, String> map, String key, String value) {
         if (map != null && key != null && value != null) {
             map.put(key, value);
@@ -17,6 +17,7 @@
 package com.alipay.sofa.rpc.message.bolt;
 
 import com.alipay.remoting.InvokeCallback;
+import com.alipay.sofa.rpc.client.AdaptiveTimeoutManager;
 import com.alipay.sofa.rpc.client.ProviderInfo;
 import com.alipay.sofa.rpc.common.RpcConstants;
 import com.alipay.sofa.rpc.config.ConsumerConfig;
@@ -66,7 +67,12 @@ public abstract class AbstractInvokeCallback implements InvokeCallback {
         if (context != null) {
             Long startTime = (Long) context.removeAttachment(RpcConstants.INTERNAL_KEY_CLIENT_SEND_TIME);
             if (startTime != null) {
-                context.setAttachment(RpcConstants.INTERNAL_KEY_CLIENT_ELAPSE, RpcRuntimeContext.now() - startTime);
+                long elapsed = RpcRuntimeContext.now() - startTime;
+                context.setAttachment(RpcConstants.INTERNAL_KEY_CLIENT_ELAPSE, elapsed);
+                if (request != null) {
+                    AdaptiveTimeoutManager.record(request.getTargetServiceUniqueName(), request.getMethodName(),
+                        providerInfo, elapsed);
+                }
             }
         }
     }
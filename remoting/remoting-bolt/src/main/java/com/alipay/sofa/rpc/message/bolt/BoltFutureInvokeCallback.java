@@ -17,6 +17,7 @@
 package com.alipay.sofa.rpc.message.bolt;
 
 import com.alipay.sofa.rpc.client.ProviderInfo;
+import com.alipay.sofa.rpc.codec.CompressHelper;
 import com.alipay.sofa.rpc.config.ConsumerConfig;
 import com.alipay.sofa.rpc.context.AsyncRuntime;
 import com.alipay.sofa.rpc.context.RpcInternalContext;
@@ -79,6 +80,7 @@ public class BoltFutureInvokeCallback extends AbstractInvokeCallback {
             }
 
             pickupBaggage(response);
+            CompressHelper.recordSupportCompress(providerInfo, response);
 
             // do async filter after respond server
             FilterChain chain = consumerConfig.getConsumerBootstrap().getCluster().getFilterChain();
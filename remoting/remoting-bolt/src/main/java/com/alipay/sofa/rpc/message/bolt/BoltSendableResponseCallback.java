@@ -17,7 +17,9 @@
 package com.alipay.sofa.rpc.message.bolt;
 
 import com.alipay.remoting.AsyncContext;
+import com.alipay.sofa.rpc.common.RemotingConstants;
 import com.alipay.sofa.rpc.common.RpcConstants;
+import com.alipay.sofa.rpc.common.utils.StringUtils;
 import com.alipay.sofa.rpc.context.BaggageResolver;
 import com.alipay.sofa.rpc.context.RpcInternalContext;
 import com.alipay.sofa.rpc.context.RpcInvokeContext;
@@ -138,6 +140,10 @@ public abstract class BoltSendableResponseCallback<T> implements SendableRespons
             if (RpcInvokeContext.isBaggageEnable()) {
                 BaggageResolver.carryWithResponse(RpcInvokeContext.peekContext(), response);
             }
+            if (request != null) {
+                response.setCompressType(StringUtils.toString(
+                    request.getRequestProp(RemotingConstants.HEAD_ACCEPT_COMPRESS), null));
+            }
             asyncContext.sendResponse(response);
         } finally {
             if (EventBus.isEnable(ServerSendEvent.class)) {
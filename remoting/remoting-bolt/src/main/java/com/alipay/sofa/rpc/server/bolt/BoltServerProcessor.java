@@ -27,6 +27,7 @@ import com.alipay.sofa.rpc.common.RpcConstants;
 import com.alipay.sofa.rpc.common.SystemInfo;
 import com.alipay.sofa.rpc.common.cache.ReflectCache;
 import com.alipay.sofa.rpc.common.utils.CommonUtils;
+import com.alipay.sofa.rpc.common.utils.StringUtils;
 import com.alipay.sofa.rpc.config.ProviderConfig;
 import com.alipay.sofa.rpc.config.UserThreadPoolManager;
 import com.alipay.sofa.rpc.context.RpcInternalContext;
@@ -44,13 +45,18 @@ import com.alipay.sofa.rpc.invoke.Invoker;
 import com.alipay.sofa.rpc.log.LogCodes;
 import com.alipay.sofa.rpc.log.Logger;
 import com.alipay.sofa.rpc.log.LoggerFactory;
+import com.alipay.sofa.rpc.message.BatchMessageBuilder;
 import com.alipay.sofa.rpc.message.MessageBuilder;
 import com.alipay.sofa.rpc.server.ProviderProxyInvoker;
 import com.alipay.sofa.rpc.server.UserThreadPool;
 
 import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -143,6 +149,10 @@ public class BoltServerProcessor extends AsyncUserProcessor<SofaRequest> {
                         throwable = clientTimeoutWhenReceiveRequest(appName, serviceName, bizCtx.getRemoteAddress());
                         break invoke;
                     }
+                    if (bizCtx.getClientTimeout() > 0) { // 下游调用的超时时间不超过剩余时间
+                        RpcInvokeContext.getContext().setDeadline(
+                            bizCtx.getArriveTimestamp() + bizCtx.getClientTimeout());
+                    }
                     // 查找服务
                     Invoker invoker = boltServer.findInvoker(serviceName);
                     if (invoker == null) {
@@ -155,20 +165,25 @@ public class BoltServerProcessor extends AsyncUserProcessor<SofaRequest> {
                         // 找到服务后，打印服务的appName
                         appName = providerConfig != null ? providerConfig.getAppName() : null;
                     }
-                    // 查找方法
-                    String methodName = request.getMethodName();
-                    Method serviceMethod = ReflectCache.getOverloadMethodCache(serviceName, methodName,
-                        request.getMethodArgSigs());
-                    if (serviceMethod == null) {
-                        throwable = cannotFoundServiceMethod(appName, methodName, serviceName);
-                        response = MessageBuilder.buildSofaErrorResponse(throwable.getMessage());
-                        break invoke;
+                    if (BatchMessageBuilder.isBatchRequest(request)) {
+                        // 批量请求，逐个调用子请求
+                        response = doInvokeBatch(appName, serviceName, invoker, request);
                     } else {
-                        request.setMethod(serviceMethod);
-                    }
+                        // 查找方法
+                        String methodName = request.getMethodName();
+                        Method serviceMethod = ReflectCache.getOverloadMethodCache(serviceName, methodName,
+                            request.getMethodArgSigs());
+                        if (serviceMethod == null) {
+                            throwable = cannotFoundServiceMethod(appName, methodName, serviceName);
+                            response = MessageBuilder.buildSofaErrorResponse(throwable.getMessage());
+                            break invoke;
+                        } else {
+                            request.setMethod(serviceMethod);
+                        }
 
-                    // 真正调用
-                    response = doInvoke(serviceName, invoker, request);
+                        // 真正调用
+                        response = doInvoke(serviceName, invoker, request);
+                    }
 
                     if (bizCtx.isRequestTimeout()) { // 加上丢弃超时的响应的逻辑
                         throwable = clientTimeoutWhenSendResponse(appName, serviceName, bizCtx.getRemoteAddress());
@@ -191,6 +206,8 @@ public class BoltServerProcessor extends AsyncUserProcessor<SofaRequest> {
                 if (!isAsyncChain) {
                     // 其它正常请求
                     try { // 这个try-catch 保证一定要记录tracer
+                        response.setCompressType(StringUtils.toString(
+                            request.getRequestProp(RemotingConstants.HEAD_ACCEPT_COMPRESS), null));
                         asyncCtx.sendResponse(response);
                     } finally {
                         if (EventBus.isEnable(ServerSendEvent.class)) {
@@ -229,6 +246,100 @@ public class BoltServerProcessor extends AsyncUserProcessor<SofaRequest> {
         }
     }
 
+    /**
+     * 调用批量请求里的所有子请求，某个子请求失败不影响其它子请求
+     *
+     * @param appName      应用
+     * @param serviceName  服务
+     * @param invoker      服务调用器
+     * @param batchRequest 批量请求
+     * @return 批量响应
+     * @throws SofaRpcException 批量请求格式不对
+     */
+    private SofaResponse doInvokeBatch(final String appName, final String serviceName, final Invoker invoker,
+                                       SofaRequest batchRequest) throws SofaRpcException {
+        final List<SofaRequest> requests = BatchMessageBuilder.parseBatchRequest(batchRequest);
+        final SofaResponse[] responses = new SofaResponse[requests.size()];
+        if (!CommonUtils.isTrue(StringUtils.toString(
+            batchRequest.getRequestProp(RemotingConstants.HEAD_BATCH_PARALLEL), null))) {
+            for (int i = 0; i < responses.length; i++) {
+                responses[i] = doInvokeBatchItem(appName, serviceName, invoker, requests.get(i));
+            }
+            return BatchMessageBuilder.buildBatchResponse(responses);
+        }
+
+        // 并行执行：当前线程和从业务线程池借来的线程一起认领子请求
+        final AtomicInteger next = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(responses.length);
+        final InetSocketAddress remoteAddress = RpcInternalContext.getContext().getRemoteAddress();
+        final Runnable worker = new Runnable() {
+            @Override
+            public void run() {
+                int i;
+                while ((i = next.getAndIncrement()) < responses.length) {
+                    responses[i] = doInvokeBatchItem(appName, serviceName, invoker, requests.get(i));
+                    done.countDown();
+                }
+            }
+        };
+        int helpers = Math.min(responses.length - 1, SystemInfo.getCpuCores());
+        for (int i = 0; i < helpers; i++) {
+            try {
+                boltServer.getBizThreadPool().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        RpcInternalContext context = RpcInternalContext.getContext();
+                        context.setProviderSide(true);
+                        context.setRemoteAddress(remoteAddress);
+                        try {
+                            worker.run();
+                        } finally {
+                            RpcInvokeContext.removeContext();
+                            RpcInternalContext.removeAllContext();
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // 线程池满了，剩下的由当前线程执行
+                break;
+            }
+        }
+        worker.run();
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SofaRpcException(RpcErrorType.SERVER_UNDECLARED_ERROR, "Interrupted when invoke batch request",
+                e);
+        }
+        return BatchMessageBuilder.buildBatchResponse(responses);
+    }
+
+    private SofaResponse doInvokeBatchItem(String appName, String serviceName, Invoker invoker,
+                                           SofaRequest request) {
+        try {
+            Method serviceMethod = ReflectCache.getOverloadMethodCache(serviceName, request.getMethodName(),
+                request.getMethodArgSigs());
+            if (serviceMethod == null) {
+                SofaRpcException e = cannotFoundServiceMethod(appName, serviceName, request.getMethodName());
+                return MessageBuilder.buildSofaErrorResponse(e.getMessage());
+            }
+            request.setMethod(serviceMethod);
+            SofaResponse response = doInvoke(serviceName, invoker, request);
+            RpcInvokeContext invokeContext = RpcInvokeContext.peekContext();
+            if (invokeContext != null
+                && CommonUtils.isTrue((Boolean) invokeContext.remove(RemotingConstants.INVOKE_CTX_IS_ASYNC_CHAIN))) {
+                // 批量请求的子请求不支持服务端异步返回
+                return MessageBuilder.buildSofaErrorResponse("Async chain is not supported in batch request of "
+                    + serviceName + "." + request.getMethodName());
+            }
+            return response;
+        } catch (Exception e) {
+            LOGGER.errorWithApp(appName, "Server Processor Error!", e);
+            return MessageBuilder.buildSofaErrorResponse(e.getMessage());
+        }
+    }
+
     private void putToContextIfNotNull(InvokeContext invokeContext, String oldKey,
                                        RpcInternalContext context, String key) {
         Object value = invokeContext.get(oldKey);
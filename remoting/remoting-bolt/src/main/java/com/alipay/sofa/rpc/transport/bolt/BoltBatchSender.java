@@ -0,0 +1,336 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.transport.bolt;
+
+import com.alipay.remoting.InvokeCallback;
+import com.alipay.remoting.rpc.exception.InvokeTimeoutException;
+import com.alipay.sofa.rpc.common.RemotingConstants;
+import com.alipay.sofa.rpc.common.struct.NamedThreadFactory;
+import com.alipay.sofa.rpc.config.ConsumerConfig;
+import com.alipay.sofa.rpc.context.AsyncRuntime;
+import com.alipay.sofa.rpc.core.exception.SofaRpcException;
+import com.alipay.sofa.rpc.core.request.SofaRequest;
+import com.alipay.sofa.rpc.core.response.SofaResponse;
+import com.alipay.sofa.rpc.message.BatchMessageBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 把发往同一个连接的小的异步调用攒成一个批量请求发送。
+ * <p>
+ * 攒够 batchSize 个调用时在调用方线程上立即发送，否则最多等待 batchWindow 毫秒后由定时线程发送。
+ * 批量响应回来后按顺序拆开，交给每个调用自己的回调处理，所以调用方看到的和单独调用一样。
+ * 每个调用从加入时开始按自己的超时时间计时，超时后单独通知该调用，批量响应里它的结果被丢弃。
+ */
+class BoltBatchSender {
+
+    /**
+     * 发送攒批超时的请求、以及检查每个调用超时的定时线程
+     */
+    private static final ScheduledThreadPoolExecutor FLUSH_TIMER = initTimer();
+
+    private final BoltClientTransport                transport;
+
+    private final int                                batchSize;
+
+    private final int                                batchWindow;
+
+    private final boolean                            parallel;
+
+    private final Object                             lock        = new Object();
+
+    /**
+     * 正在攒批的调用
+     */
+    private List<BatchItem>                          pending     = new ArrayList<BatchItem>();
+
+    private static ScheduledThreadPoolExecutor initTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, new NamedThreadFactory("BOLT-BATCH",
+            true));
+        // 大部分调用会在超时前返回，取消的超时任务直接移除
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+
+    BoltBatchSender(BoltClientTransport transport, ConsumerConfig consumerConfig) {
+        this.transport = transport;
+        this.batchSize = consumerConfig.getBatchSize();
+        this.batchWindow = Math.max(consumerConfig.getBatchWindow(), 0);
+        this.parallel = consumerConfig.isBatchParallel();
+    }
+
+    /**
+     * 请求能否攒批：泛化调用和非 hessian 序列化的请求单独发送
+     *
+     * @param request 请求
+     * @return 能否攒批
+     */
+    static boolean isBatchable(SofaRequest request) {
+        return request.getSerializeType() == RemotingConstants.SERIALIZE_CODE_HESSIAN
+            && request.getRequestProp(RemotingConstants.HEAD_GENERIC_TYPE) == null;
+    }
+
+    /**
+     * 加入一个调用
+     *
+     * @param request       请求
+     * @param callback      该调用的回调
+     * @param timeoutMillis 该调用的超时时间
+     */
+    void add(SofaRequest request, InvokeCallback callback, int timeoutMillis) {
+        final BatchItem item = new BatchItem(request, callback, timeoutMillis);
+        if (timeoutMillis > 0) {
+            item.timeoutFuture = FLUSH_TIMER.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    if (item.complete()) {
+                        dispatch(item.callback, new Runnable() {
+                            @Override
+                            public void run() {
+                                item.callback.onException(new InvokeTimeoutException(
+                                    "Invoke timeout when waiting batch response, timeout: " + item.timeout + "ms"));
+                            }
+                        });
+                    }
+                }
+            }, timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        List<BatchItem> full = null;
+        synchronized (lock) {
+            final List<BatchItem> current = pending;
+            current.add(item);
+            if (current.size() >= batchSize) {
+                full = current;
+                pending = new ArrayList<BatchItem>();
+            } else if (current.size() == 1) {
+                FLUSH_TIMER.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        flushIfCurrent(current);
+                    }
+                }, batchWindow, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (full != null) {
+            send(full);
+        }
+    }
+
+    /**
+     * 立即发送所有攒批中的调用
+     */
+    void flush() {
+        List<BatchItem> items;
+        synchronized (lock) {
+            items = pending;
+            pending = new ArrayList<BatchItem>();
+        }
+        if (!items.isEmpty()) {
+            send(items);
+        }
+    }
+
+    private void flushIfCurrent(List<BatchItem> items) {
+        synchronized (lock) {
+            if (pending != items) {
+                // 已经攒够发送过了
+                return;
+            }
+            pending = new ArrayList<BatchItem>();
+        }
+        send(items);
+    }
+
+    private void send(List<BatchItem> items) {
+        // 在窗口里已经超时的调用不再发送
+        List<BatchItem> live = new ArrayList<BatchItem>(items.size());
+        for (BatchItem item : items) {
+            if (!item.isDone()) {
+                live.add(item);
+            }
+        }
+        if (live.isEmpty()) {
+            return;
+        }
+        if (live.size() == 1) {
+            BatchItem item = live.get(0);
+            // 单个调用直接交给 bolt，按剩余的超时时间计时
+            if (!item.complete()) {
+                return;
+            }
+            try {
+                transport.sendBatch(item.request, item.callback, item.remaining());
+            } catch (Exception e) {
+                item.callback.onException(e);
+            }
+            return;
+        }
+        List<SofaRequest> requests = new ArrayList<SofaRequest>(live.size());
+        int timeout = 0;
+        for (BatchItem item : live) {
+            requests.add(item.request);
+            // 整批的超时只是兜底，每个调用由自己的定时任务按自己的超时时间通知
+            timeout = Math.max(timeout, item.remaining());
+        }
+        SofaRequest batchRequest = BatchMessageBuilder.buildBatchRequest(requests);
+        if (parallel) {
+            batchRequest.addRequestProp(RemotingConstants.HEAD_BATCH_PARALLEL, "true");
+        }
+        BatchCallback batchCallback = new BatchCallback(live);
+        try {
+            transport.sendBatch(batchRequest, batchCallback, timeout);
+        } catch (Exception e) {
+            batchCallback.onException(e);
+        }
+    }
+
+    private static void dispatch(InvokeCallback callback, Runnable task) {
+        Executor executor = callback.getExecutor();
+        if (executor != null) {
+            try {
+                executor.execute(task);
+                return;
+            } catch (RejectedExecutionException ignore) { // NOPMD
+                // 线程池满了就在当前线程执行
+            }
+        }
+        task.run();
+    }
+
+    private static class BatchItem {
+
+        private final SofaRequest           request;
+
+        private final InvokeCallback        callback;
+
+        private final int                   timeout;
+
+        /**
+         * 加入时间（纳秒）
+         */
+        private final long                  addTime = System.nanoTime();
+
+        /**
+         * 是否已经通知过回调，响应、异常和超时只有一个会生效
+         */
+        private final AtomicBoolean         done    = new AtomicBoolean();
+
+        private volatile ScheduledFuture<?> timeoutFuture;
+
+        BatchItem(SofaRequest request, InvokeCallback callback, int timeout) {
+            this.request = request;
+            this.callback = callback;
+            this.timeout = timeout;
+        }
+
+        boolean isDone() {
+            return done.get();
+        }
+
+        /**
+         * 标记完成并取消超时任务
+         *
+         * @return 是否由本次标记完成，false 表示已经完成过了
+         */
+        boolean complete() {
+            if (!done.compareAndSet(false, true)) {
+                return false;
+            }
+            ScheduledFuture<?> future = timeoutFuture;
+            if (future != null) {
+                future.cancel(false);
+            }
+            return true;
+        }
+
+        /**
+         * 剩余的超时时间，至少 1 毫秒
+         */
+        int remaining() {
+            if (timeout <= 0) {
+                return timeout;
+            }
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - addTime);
+            return (int) Math.max(timeout - elapsed, 1L);
+        }
+    }
+
+    /**
+     * 拆开批量响应，交给每个调用的回调
+     */
+    private static class BatchCallback implements InvokeCallback {
+
+        private final List<BatchItem> items;
+
+        BatchCallback(List<BatchItem> items) {
+            this.items = items;
+        }
+
+        @Override
+        public void onResponse(Object result) {
+            SofaResponse[] responses;
+            try {
+                responses = BatchMessageBuilder.parseBatchResponse((SofaResponse) result, items.size());
+            } catch (SofaRpcException e) {
+                onException(e);
+                return;
+            }
+            for (int i = 0; i < items.size(); i++) {
+                if (!items.get(i).complete()) {
+                    // 已经超时通知过了
+                    continue;
+                }
+                final InvokeCallback callback = items.get(i).callback;
+                final SofaResponse response = responses[i];
+                dispatch(callback, new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onResponse(response);
+                    }
+                });
+            }
+        }
+
+        @Override
+        public void onException(final Throwable e) {
+            for (BatchItem item : items) {
+                if (!item.complete()) {
+                    continue;
+                }
+                final InvokeCallback callback = item.callback;
+                dispatch(callback, new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onException(e);
+                    }
+                });
+            }
+        }
+
+        @Override
+        public Executor getExecutor() {
+            return AsyncRuntime.getAsyncThreadPool();
+        }
+    }
+}
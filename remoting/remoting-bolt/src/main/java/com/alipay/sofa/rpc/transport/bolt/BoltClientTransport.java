@@ -36,6 +36,7 @@ import com.alipay.sofa.rpc.common.RpcConfigs;
 import com.alipay.sofa.rpc.common.RpcConstants;
 import com.alipay.sofa.rpc.common.RpcOptions;
 import com.alipay.sofa.rpc.common.utils.ClassLoaderUtils;
+import com.alipay.sofa.rpc.config.ConsumerConfig;
 import com.alipay.sofa.rpc.context.RpcInternalContext;
 import com.alipay.sofa.rpc.core.exception.RpcErrorType;
 import com.alipay.sofa.rpc.core.exception.SofaRpcException;
@@ -109,6 +110,13 @@ public class BoltClientTransport extends ClientTransport {
      */
     protected volatile AtomicInteger             currentRequests   = new AtomicInteger(0);
 
+    /**
+     * 攒批发送异步调用，未开启攒批时为空
+     *
+     * @since 5.7.9
+     */
+    protected final BoltBatchSender              batchSender;
+
     /**
      * Instant BoltClientTransport
      *
@@ -117,6 +125,9 @@ public class BoltClientTransport extends ClientTransport {
     protected BoltClientTransport(ClientTransportConfig transportConfig) {
         super(transportConfig);
         url = convertProviderToUrl(transportConfig, transportConfig.getProviderInfo());
+        ConsumerConfig consumerConfig = transportConfig.getConsumerConfig();
+        batchSender = consumerConfig != null && consumerConfig.getBatchSize() > 1 ?
+            new BoltBatchSender(this, consumerConfig) : null;
     }
 
     /**
@@ -154,6 +165,9 @@ public class BoltClientTransport extends ClientTransport {
 
     @Override
     public void disconnect() {
+        if (batchSender != null) {
+            batchSender.flush();
+        }
         try {
             connectionManager.closeConnection(RPC_CLIENT, transportConfig, url);
         } catch (SofaRpcRuntimeException e) {
@@ -225,7 +239,11 @@ public class BoltClientTransport extends ClientTransport {
                 transportConfig.getProviderInfo(), listener, request, rpcContext,
                 ClassLoaderUtils.getCurrentClassLoader());
             // 发起调用
-            RPC_CLIENT.invokeWithCallback(url, request, invokeContext, callback, timeoutMillis);
+            if (isBatchEnabled(request)) {
+                batchSender.add(request, callback, timeoutMillis);
+            } else {
+                RPC_CLIENT.invokeWithCallback(url, request, invokeContext, callback, timeoutMillis);
+            }
             return null;
         } else {
             // future 转为 callback
@@ -234,12 +252,42 @@ public class BoltClientTransport extends ClientTransport {
                 transportConfig.getProviderInfo(), future, request, rpcContext,
                 ClassLoaderUtils.getCurrentClassLoader());
             // 发起调用
-            RPC_CLIENT.invokeWithCallback(url, request, invokeContext, callback, timeoutMillis);
+            if (isBatchEnabled(request)) {
+                batchSender.add(request, callback, timeoutMillis);
+            } else {
+                RPC_CLIENT.invokeWithCallback(url, request, invokeContext, callback, timeoutMillis);
+            }
             future.setSentTime();
             return future;
         }
     }
 
+    /**
+     * 是否攒批发送该请求
+     *
+     * @param request 请求对象
+     * @return 是否攒批发送
+     * @since 5.7.9
+     */
+    protected boolean isBatchEnabled(SofaRequest request) {
+        return batchSender != null && BoltBatchSender.isBatchable(request);
+    }
+
+    /**
+     * 发送攒好的批量请求（或者只攒到一个的请求）
+     *
+     * @param request       请求对象
+     * @param callback      回调
+     * @param timeoutMillis 超时时间（毫秒）
+     * @throws RemotingException    远程调用异常
+     * @throws InterruptedException 中断异常
+     * @since 5.7.9
+     */
+    void sendBatch(SofaRequest request, InvokeCallback callback, int timeoutMillis)
+        throws RemotingException, InterruptedException {
+        RPC_CLIENT.invokeWithCallback(url, request, createInvokeContext(request), callback, timeoutMillis);
+    }
+
     @Override
     public SofaResponse syncSend(SofaRequest request, int timeout) throws SofaRpcException {
         checkConnection();
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.codec.bolt;
+
+import com.alipay.remoting.rpc.protocol.RpcRequestCommand;
+import com.alipay.sofa.rpc.codec.CompressHelper;
+import com.alipay.sofa.rpc.common.RemotingConstants;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class SofaRpcSerializationTest {
+
+    @Test
+    public void testCompressIfNecessary() throws Exception {
+        SofaRpcSerialization serialization = new SofaRpcSerialization();
+        SimpleMapSerializer mapSerializer = new SimpleMapSerializer();
+
+        Map<String, String> header = new HashMap<String, String>();
+        header.put(RemotingConstants.HEAD_SERVICE, "com.xxx.Service:1.0");
+        RpcRequestCommand command = new RpcRequestCommand();
+        command.setHeader(mapSerializer.encode(header));
+
+        // 小于压缩基线
+        byte[] small = new byte[] { 1, 2, 3 };
+        Assert.assertSame(small, serialization.compressIfNecessary(command, "snappy", small));
+        Assert.assertNull(mapSerializer.decode(command.getHeader()).get(RemotingConstants.HEAD_COMPRESS_TYPE));
+
+        byte[] large = new byte[4096];
+        for (int i = 0; i < large.length; i++) {
+            large[i] = (byte) (i % 16);
+        }
+        // 没有声明压缩算法
+        Assert.assertSame(large, serialization.compressIfNecessary(command, null, large));
+
+        byte[] compressed = serialization.compressIfNecessary(command, "snappy", large);
+        Assert.assertTrue(compressed.length < large.length);
+        Map<String, String> newHeader = mapSerializer.decode(command.getHeader());
+        Assert.assertEquals(2, newHeader.size());
+        Assert.assertEquals("com.xxx.Service:1.0", newHeader.get(RemotingConstants.HEAD_SERVICE));
+        Assert.assertEquals("snappy", newHeader.get(RemotingConstants.HEAD_COMPRESS_TYPE));
+        Assert.assertEquals(command.getHeader().length, command.getHeaderLength());
+        Assert.assertArrayEquals(large, CompressHelper.deCompress("snappy", compressed));
+
+        // 原来没有头部
+        command = new RpcRequestCommand();
+        serialization.compressIfNecessary(command, "snappy", large);
+        Assert.assertEquals("snappy", mapSerializer.decode(command.getHeader())
+            .get(RemotingConstants.HEAD_COMPRESS_TYPE));
+    }
+}
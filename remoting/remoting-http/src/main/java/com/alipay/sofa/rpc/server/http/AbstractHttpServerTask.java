@@ -16,6 +16,8 @@
  */
 package com.alipay.sofa.rpc.server.http;
 
+import com.alipay.sofa.rpc.codec.CompressHelper;
+import com.alipay.sofa.rpc.codec.CompressorFactory;
 import com.alipay.sofa.rpc.codec.Serializer;
 import com.alipay.sofa.rpc.codec.SerializerFactory;
 import com.alipay.sofa.rpc.codec.common.StringSerializer;
@@ -23,7 +25,9 @@ import com.alipay.sofa.rpc.common.RemotingConstants;
 import com.alipay.sofa.rpc.common.RpcConstants;
 import com.alipay.sofa.rpc.common.cache.ReflectCache;
 import com.alipay.sofa.rpc.common.utils.CodecUtils;
+import com.alipay.sofa.rpc.common.utils.CommonUtils;
 import com.alipay.sofa.rpc.common.utils.ExceptionUtils;
+import com.alipay.sofa.rpc.common.utils.NetUtils;
 import com.alipay.sofa.rpc.config.ProviderConfig;
 import com.alipay.sofa.rpc.context.RpcInternalContext;
 import com.alipay.sofa.rpc.context.RpcInvokeContext;
@@ -68,11 +72,50 @@ public abstract class AbstractHttpServerTask extends AbstractTask {
     protected final SofaRequest           request;
     protected final ChannelHandlerContext ctx;
     protected final HttpServerHandler     serverHandler;
+    /**
+     * 截止时间（本机时间戳），0表示客户端没有传超时时间
+     */
+    protected final long                  deadline;
+    /**
+     * 响应体使用的压缩算法，为空代表未压缩
+     */
+    protected String                      contentEncoding;
+    /**
+     * 本服务端支持的、调用方声明可以接受的压缩算法，通过响应头告诉调用方
+     */
+    protected String                      supportCompress;
 
     public AbstractHttpServerTask(HttpServerHandler serverHandler, SofaRequest request, ChannelHandlerContext ctx) {
         this.serverHandler = serverHandler;
         this.request = request;
         this.ctx = ctx;
+        this.deadline = parseDeadline(request);
+    }
+
+    /**
+     * 根据客户端传递的剩余超时时间计算截止时间
+     *
+     * @param request 请求
+     * @return 截止时间，0表示没有
+     */
+    private static long parseDeadline(SofaRequest request) {
+        Object timeout = request.getRequestProp(RemotingConstants.HEAD_TIMEOUT);
+        if (timeout != null) {
+            long timeoutMills = CommonUtils.parseLong(timeout.toString(), 0L);
+            if (timeoutMills > 0) {
+                return RpcRuntimeContext.now() + timeoutMills;
+            }
+        }
+        return 0L;
+    }
+
+    /**
+     * 客户端是否已经超时
+     *
+     * @return 是否超时
+     */
+    protected boolean isRequestTimeout() {
+        return deadline > 0 && RpcRuntimeContext.now() > deadline;
     }
 
     @Override
@@ -110,6 +153,15 @@ public abstract class AbstractHttpServerTask extends AbstractTask {
             try { // 这个try-catch 保证一定有Response
                 invoke:
                 {
+                    if (isRequestTimeout()) { // 丢弃在队列里等待太久、客户端已经超时的请求
+                        throwable = clientTimeoutWhenReceiveRequest(appName, serviceName);
+                        response = MessageBuilder.buildSofaErrorResponse(throwable.getMessage());
+                        status = HttpResponseStatus.REQUEST_TIMEOUT;
+                        break invoke;
+                    }
+                    if (deadline > 0) { // 下游调用的超时时间不超过剩余时间
+                        RpcInvokeContext.getContext().setDeadline(deadline);
+                    }
                     // 查找服务
                     Invoker invoker = serverHandler.getInvokerMap().get(serviceName);
                     if (invoker == null) {
@@ -157,6 +209,13 @@ public abstract class AbstractHttpServerTask extends AbstractTask {
 
                     // 真正调用
                     response = doInvoke(serviceName, invoker, request);
+
+                    if (isRequestTimeout()) { // 客户端已经超时，不再序列化响应
+                        throwable = clientTimeoutWhenSendResponse(appName, serviceName);
+                        response = MessageBuilder.buildSofaErrorResponse(throwable.getMessage());
+                        status = HttpResponseStatus.REQUEST_TIMEOUT;
+                        break invoke;
+                    }
                 }
             } catch (Exception e) {
                 // 服务端异常，不管是啥异常
@@ -185,7 +244,7 @@ public abstract class AbstractHttpServerTask extends AbstractTask {
                             ByteBuf content = ctx.alloc().buffer();
                             if (request.getSerializeType() > 0) {
                                 AbstractByteBuf bs = serializer.encode(response, null);
-                                content.writeBytes(bs.array());
+                                content.writeBytes(compressIfNecessary(bs.array()));
                             } else {
                                 content.writeBytes(StringSerializer.encode(response.getAppResponse().toString()));
                             }
@@ -213,6 +272,28 @@ public abstract class AbstractHttpServerTask extends AbstractTask {
         }
     }
 
+    /**
+     * 客户端声明了可以接受的压缩算法，并且响应达到压缩基线时压缩响应
+     *
+     * @param data 序列化后的响应
+     * @return 需要写出的响应
+     */
+    private byte[] compressIfNecessary(byte[] data) {
+        Object accept = request.getRequestProp(RemotingConstants.HEAD_ACCEPT_COMPRESS);
+        if (accept != null) {
+            String compress = accept.toString();
+            if (CompressorFactory.isSupport(compress)) {
+                supportCompress = compress;
+            }
+            byte[] compressed = CompressHelper.compressIfNecessary(compress, data);
+            if (compressed != null) {
+                contentEncoding = compress;
+                return compressed;
+            }
+        }
+        return data;
+    }
+
     protected SofaResponse doInvoke(String serviceName, Invoker invoker, SofaRequest request) throws SofaRpcException {
         // 开始调用，先记下当前的ClassLoader
         ClassLoader rpcCl = Thread.currentThread().getContextClassLoader();
@@ -278,4 +359,36 @@ public abstract class AbstractHttpServerTask extends AbstractTask {
         LOGGER.errorWithApp(appName, errorMsg);
         return new SofaRpcException(RpcErrorType.SERVER_NOT_FOUND_INVOKER, errorMsg);
     }
+
+    /**
+     * 客户端已经超时了（例如在队列里等待太久了），丢弃这个请求
+     *
+     * @param appName     应用
+     * @param serviceName 服务
+     * @return 丢弃的异常
+     */
+    private SofaRpcException clientTimeoutWhenReceiveRequest(String appName, String serviceName) {
+        String errorMsg = LogCodes.getLog(LogCodes.ERROR_DISCARD_TIMEOUT_REQUEST, serviceName,
+            NetUtils.toAddressString((InetSocketAddress) ctx.channel().remoteAddress()));
+        if (LOGGER.isWarnEnabled(appName)) {
+            LOGGER.warnWithApp(appName, errorMsg);
+        }
+        return new SofaRpcException(RpcErrorType.SERVER_UNDECLARED_ERROR, errorMsg);
+    }
+
+    /**
+     * 客户端已经超时了（例如在业务执行时间太长），丢弃这个返回值
+     *
+     * @param appName     应用
+     * @param serviceName 服务
+     * @return 丢弃的异常
+     */
+    private SofaRpcException clientTimeoutWhenSendResponse(String appName, String serviceName) {
+        String errorMsg = LogCodes.getLog(LogCodes.ERROR_DISCARD_TIMEOUT_RESPONSE, serviceName,
+            NetUtils.toAddressString((InetSocketAddress) ctx.channel().remoteAddress()));
+        if (LOGGER.isWarnEnabled(appName)) {
+            LOGGER.warnWithApp(appName, errorMsg);
+        }
+        return new SofaRpcException(RpcErrorType.SERVER_UNDECLARED_ERROR, errorMsg);
+    }
 }
@@ -30,6 +30,7 @@ import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpResponseStatus;
 
 import static io.netty.handler.codec.http.HttpHeaderNames.CONNECTION;
+import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_ENCODING;
 import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_LENGTH;
 import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_TYPE;
 import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
@@ -77,6 +78,12 @@ public class Http1ServerTask extends AbstractHttpServerTask {
         if (error) {
             headers.set(RemotingConstants.HEAD_RESPONSE_ERROR, "true");
         }
+        if (contentEncoding != null) {
+            headers.set(CONTENT_ENCODING, contentEncoding);
+        }
+        if (supportCompress != null) {
+            headers.set(RemotingConstants.HEAD_SUPPORT_COMPRESS, supportCompress);
+        }
         if (!keepAlive) {
             ctx.write(httpResponse).addListener(ChannelFutureListener.CLOSE);
         } else {
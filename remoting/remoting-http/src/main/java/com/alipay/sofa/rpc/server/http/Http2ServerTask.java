@@ -27,6 +27,7 @@ import io.netty.handler.codec.http2.DefaultHttp2Headers;
 import io.netty.handler.codec.http2.Http2ConnectionEncoder;
 import io.netty.handler.codec.http2.Http2Headers;
 
+import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_ENCODING;
 import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_TYPE;
 
 /**
@@ -72,6 +73,12 @@ public class Http2ServerTask extends AbstractHttpServerTask {
         if (error) {
             headers.set(RemotingConstants.HEAD_RESPONSE_ERROR, "true");
         }
+        if (contentEncoding != null) {
+            headers.set(CONTENT_ENCODING, contentEncoding);
+        }
+        if (supportCompress != null) {
+            headers.set(RemotingConstants.HEAD_SUPPORT_COMPRESS, supportCompress);
+        }
         if (data != null) {
             encoder.writeHeaders(ctx, streamId, headers, 0, false, ctx.newPromise());
             encoder.writeData(ctx, streamId, data, 0, true, ctx.newPromise());
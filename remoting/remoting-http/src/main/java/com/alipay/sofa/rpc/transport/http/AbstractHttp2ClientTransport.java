@@ -17,11 +17,11 @@
 package com.alipay.sofa.rpc.transport.http;
 
 import com.alipay.sofa.rpc.client.ProviderInfo;
-import com.alipay.sofa.rpc.codec.Serializer;
-import com.alipay.sofa.rpc.codec.SerializerFactory;
+import com.alipay.sofa.rpc.codec.CompressHelper;
 import com.alipay.sofa.rpc.common.RemotingConstants;
 import com.alipay.sofa.rpc.common.RpcConstants;
 import com.alipay.sofa.rpc.common.struct.NamedThreadFactory;
+import com.alipay.sofa.rpc.common.utils.CommonUtils;
 import com.alipay.sofa.rpc.common.utils.ClassLoaderUtils;
 import com.alipay.sofa.rpc.common.utils.StringUtils;
 import com.alipay.sofa.rpc.context.RpcInternalContext;
@@ -45,21 +45,10 @@ import com.alipay.sofa.rpc.transport.ClientHandler;
 import com.alipay.sofa.rpc.transport.ClientTransport;
 import com.alipay.sofa.rpc.transport.ClientTransportConfig;
 import com.alipay.sofa.rpc.transport.netty.NettyChannel;
-import com.alipay.sofa.rpc.transport.netty.NettyHelper;
-import io.netty.bootstrap.Bootstrap;
-import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
-import io.netty.channel.ChannelOption;
-import io.netty.channel.EventLoopGroup;
-import io.netty.channel.epoll.EpollSocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
-import io.netty.handler.codec.http.DefaultFullHttpRequest;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.HttpHeaderNames;
-import io.netty.handler.codec.http.HttpHeaderValues;
 import io.netty.handler.codec.http.HttpHeaders;
-import io.netty.handler.codec.http.HttpScheme;
-import io.netty.handler.codec.http2.HttpConversionUtil;
 import io.netty.util.AsciiString;
 import io.netty.util.HashedWheelTimer;
 import io.netty.util.Timeout;
@@ -68,14 +57,14 @@ import io.netty.util.TimerTask;
 
 import java.net.InetSocketAddress;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static io.netty.buffer.Unpooled.wrappedBuffer;
-import static io.netty.handler.codec.http.HttpMethod.POST;
-import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
 
 /**
  * h2和h2c通用的客户端传输层
@@ -98,92 +87,81 @@ public abstract class AbstractHttp2ClientTransport extends ClientTransport {
     public AbstractHttp2ClientTransport(ClientTransportConfig transportConfig) {
         super(transportConfig);
         this.providerInfo = transportConfig.getProviderInfo();
+        this.authority = AsciiString.cached(providerInfo.getHost() + ':' + providerInfo.getPort());
     }
 
     /**
      * 服务端提供者信息
      */
-    protected final ProviderInfo        providerInfo;
+    protected final ProviderInfo                                                       providerInfo;
     /**
-     * Start from 3 (because 1 is setting stream)
+     * 服务端地址 host:port
      */
-    private final static int            START_STREAM_ID = 3;
+    protected final AsciiString                                                        authority;
     /**
-     * StreamId, start from 3 (because 1 is setting stream)
+     * 请求模板：服务 --> 方法 --> 模板
      */
-    protected final AtomicInteger       streamId        = new AtomicInteger();
+    protected final ConcurrentMap<String, ConcurrentMap<String, Http2RequestTemplate>> requestTemplates = new ConcurrentHashMap<String, ConcurrentMap<String, Http2RequestTemplate>>();
     /**
      * 正在发送的调用数量
      */
-    protected volatile AtomicInteger    currentRequests = new AtomicInteger(0);
+    protected volatile AtomicInteger                                                   currentRequests  = new AtomicInteger(
+                                                                                                            0);
 
     /**
-     * Channel
+     * Channel，连接池中第一条可用的连接
      */
-    protected NettyChannel              channel;
+    protected NettyChannel                                                             channel;
 
     /**
-     * Response channel handler
+     * 同一地址共享的连接池
      */
-    protected Http2ClientChannelHandler responseChannelHandler;
+    protected volatile Http2ChannelPool                                                channelPool;
+
+    /**
+     * 超时请求头
+     */
+    private static final AsciiString                                                   HEAD_TIMEOUT     = AsciiString
+                                                                                                            .cached(RemotingConstants.HEAD_TIMEOUT);
 
     /**
      * 超时处理器
      */
-    private static final Timer          TIMEOUT_TIMER   = new HashedWheelTimer(new NamedThreadFactory("HTTP-TIMER"),
-                                                            10, TimeUnit.MILLISECONDS);
+    private static final Timer                                                         TIMEOUT_TIMER    = new HashedWheelTimer(
+                                                                                                            new NamedThreadFactory(
+                                                                                                                "HTTP-TIMER"),
+                                                                                                            10,
+                                                                                                            TimeUnit.MILLISECONDS);
 
     @Override
-    public void connect() {
+    public synchronized void connect() {
         if (isAvailable()) {
             return;
         }
-        EventLoopGroup workerGroup = NettyHelper.getClientIOEventLoopGroup();
-        Http2ClientInitializer initializer = new Http2ClientInitializer(transportConfig);
-        try {
-            String host = providerInfo.getHost();
-            int port = providerInfo.getPort();
-            Bootstrap b = new Bootstrap();
-            b.group(workerGroup);
-            b.channel(transportConfig.isUseEpoll() ? EpollSocketChannel.class : NioSocketChannel.class);
-            b.option(ChannelOption.SO_KEEPALIVE, true);
-            b.remoteAddress(host, port);
-            b.handler(initializer);
-
-            // Start the client.
-            Channel channel = b.connect().syncUninterruptibly().channel();
-            this.channel = new NettyChannel(channel);
-
-            // Wait for the HTTP/2 upgrade to occur.
-            Http2SettingsHandler http2SettingsHandler = initializer.settingsHandler();
-            http2SettingsHandler.awaitSettings(transportConfig.getConnectTimeout(), TimeUnit.MILLISECONDS);
-
-            responseChannelHandler = initializer.responseHandler();
-            // RESET streamId
-            streamId.set(START_STREAM_ID);
-        } catch (Exception e) {
-            throw new SofaRpcException(RpcErrorType.CLIENT_NETWORK, e);
+        if (channelPool == null) {
+            channelPool = Http2ChannelPool.acquire(transportConfig);
         }
+        this.channel = channelPool.connect().getChannel();
     }
 
     @Override
-    public void disconnect() {
-        if (channel != null) {
-            Channel nettyChannel = channel.channel();
-            if (nettyChannel != null) {
-                nettyChannel.close().syncUninterruptibly();
-            }
+    public synchronized void disconnect() {
+        Http2ChannelPool pool = channelPool;
+        if (pool != null) {
+            channelPool = null;
+            pool.release();
         }
     }
 
     @Override
     public void destroy() {
-        NettyHelper.closeClientIOEventGroup();
+        disconnect();
     }
 
     @Override
     public boolean isAvailable() {
-        return channel != null && channel.isAvailable();
+        Http2ChannelPool pool = channelPool;
+        return pool != null && pool.isAvailable();
     }
 
     @Override
@@ -287,24 +265,28 @@ public abstract class AbstractHttp2ClientTransport extends ClientTransport {
         AbstractByteBuf data = null;
         try {
             // 序列化
-            byte serializeType = request.getSerializeType();
-            Serializer serializer = SerializerFactory.getSerializer(serializeType);
-            data = serializer.encode(request, null);
+            Http2RequestTemplate template = getRequestTemplate(request);
+            data = template.getSerializer().encode(request, null);
             request.setData(data);
             // 记录请求序列化大小 不是很准，没有记录HTTP头
             RpcInternalContext.getContext().setAttachment(RpcConstants.INTERNAL_KEY_REQ_SIZE, data.readableBytes());
 
             // 转换请求
-            FullHttpRequest httpRequest = convertToHttpRequest(request);
+            FullHttpRequest httpRequest = convertToHttpRequest(request, template);
+            if (timeoutMills > 0) {
+                // 服务端据此丢弃已超时的请求
+                addToHeader(httpRequest.headers(), HEAD_TIMEOUT, String.valueOf(timeoutMills));
+            }
 
             // 发送请求
-            final int requestId = sendHttpRequest(httpRequest, callback);
+            final Http2PooledChannel pooledChannel = selectChannel();
+            final int requestId = pooledChannel.sendHttpRequest(httpRequest, callback);
 
             if (request.isAsync()) {
                 TIMEOUT_TIMER.newTimeout(new TimerTask() {
                     @Override
                     public void run(Timeout timeout) throws Exception {
-                        Map.Entry<ChannelFuture, AbstractHttpClientHandler> entry = responseChannelHandler
+                        Map.Entry<ChannelFuture, AbstractHttpClientHandler> entry = pooledChannel
                             .removePromise(requestId);
                         if (entry != null) {
                             ClientHandler handler = entry.getValue();
@@ -323,24 +305,32 @@ public abstract class AbstractHttp2ClientTransport extends ClientTransport {
     }
 
     protected FullHttpRequest convertToHttpRequest(SofaRequest request) {
-        HttpScheme scheme = SslContextBuilder.SSL ? HttpScheme.HTTPS : HttpScheme.HTTP;
-        AsciiString hostName = new AsciiString(providerInfo.getHost() + ':' + providerInfo.getPort());
-        String url = "/" + request.getTargetServiceUniqueName() + "/" + request.getMethodName();
+        return convertToHttpRequest(request, getRequestTemplate(request));
+    }
+
+    /**
+     * 按请求模板转换请求，只需要加入压缩、透传数据等动态的请求头
+     *
+     * @param request  请求对象
+     * @param template 请求模板
+     * @return HTTP请求
+     */
+    protected FullHttpRequest convertToHttpRequest(SofaRequest request, Http2RequestTemplate template) {
         if (LOGGER.isDebugEnabled()) {
-            LOGGER.debug("send request to url :{}", url);
+            LOGGER.debug("send request to url :{}", template.getPath());
         }
 
+        // 服务端声明支持压缩算法后，请求体达到压缩基线时才压缩
+        byte[] body = request.getData().array();
+        String compress = request.getCompressType();
+        byte[] compressed = CompressHelper.compressIfNecessary(compress, body);
+
         // Create a simple POST request with a body.
-        FullHttpRequest httpRequest = new DefaultFullHttpRequest(HTTP_1_1, POST, url,
-            wrappedBuffer(request.getData().array()));
+        FullHttpRequest httpRequest = template.newRequest(wrappedBuffer(compressed != null ? compressed : body));
         HttpHeaders headers = httpRequest.headers();
-        addToHeader(headers, HttpHeaderNames.HOST, hostName);
-        addToHeader(headers, HttpConversionUtil.ExtensionHeaderNames.SCHEME.text(), scheme.name());
-        addToHeader(headers, HttpHeaderNames.ACCEPT_ENCODING, HttpHeaderValues.GZIP);
-        addToHeader(headers, HttpHeaderNames.ACCEPT_ENCODING, HttpHeaderValues.DEFLATE);
-        addToHeader(headers, RemotingConstants.HEAD_SERIALIZE_TYPE,
-            SerializerFactory.getAliasByCode(request.getSerializeType()));
-        addToHeader(headers, RemotingConstants.HEAD_TARGET_APP, request.getTargetAppName());
+        if (compressed != null) {
+            addToHeader(headers, HttpHeaderNames.CONTENT_ENCODING, compress);
+        }
         Map<String, Object> requestProps = request.getRequestProps();
         if (requestProps != null) {
             // <String, Object> 转扁平化 <String, String>
@@ -349,12 +339,45 @@ public abstract class AbstractHttp2ClientTransport extends ClientTransport {
         return httpRequest;
     }
 
+    /**
+     * 获取服务方法的请求模板，序列化类型或目标应用变化时重建
+     *
+     * @param request 请求对象
+     * @return 请求模板
+     */
+    protected Http2RequestTemplate getRequestTemplate(SofaRequest request) {
+        String serviceName = request.getTargetServiceUniqueName();
+        ConcurrentMap<String, Http2RequestTemplate> methodTemplates = requestTemplates.get(serviceName);
+        if (methodTemplates == null) {
+            methodTemplates = CommonUtils.putToConcurrentMap(requestTemplates, serviceName,
+                new ConcurrentHashMap<String, Http2RequestTemplate>());
+        }
+        String methodName = request.getMethodName();
+        byte serializeType = request.getSerializeType();
+        String targetAppName = request.getTargetAppName();
+        Http2RequestTemplate template = methodTemplates.get(methodName);
+        if (template == null || !template.matches(serializeType, targetAppName)) {
+            template = new Http2RequestTemplate(authority, serviceName, methodName, serializeType, targetAppName);
+            methodTemplates.put(methodName, template);
+        }
+        return template;
+    }
+
     protected int sendHttpRequest(FullHttpRequest httpRequest, AbstractHttpClientHandler callback) {
-        final int requestId = streamId.getAndAdd(2);
-        Channel channel = this.channel.channel();
-        responseChannelHandler.put(requestId, channel.write(httpRequest), callback);
-        channel.flush();
-        return requestId;
+        return selectChannel().sendHttpRequest(httpRequest, callback);
+    }
+
+    /**
+     * 从连接池中选择活跃流最少的连接
+     *
+     * @return 连接
+     */
+    protected Http2PooledChannel selectChannel() {
+        Http2ChannelPool pool = channelPool;
+        if (pool == null) {
+            throw new SofaRpcException(RpcErrorType.CLIENT_NETWORK, "channel is not available");
+        }
+        return pool.select();
     }
 
     @Override
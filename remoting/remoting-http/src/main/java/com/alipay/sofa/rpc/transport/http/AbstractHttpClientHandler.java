@@ -16,7 +16,9 @@
  */
 package com.alipay.sofa.rpc.transport.http;
 
+import com.alipay.sofa.rpc.client.AdaptiveTimeoutManager;
 import com.alipay.sofa.rpc.client.ProviderInfo;
+import com.alipay.sofa.rpc.codec.CompressHelper;
 import com.alipay.sofa.rpc.codec.Serializer;
 import com.alipay.sofa.rpc.codec.SerializerFactory;
 import com.alipay.sofa.rpc.codec.common.StringSerializer;
@@ -35,9 +37,11 @@ import com.alipay.sofa.rpc.core.exception.SofaRpcException;
 import com.alipay.sofa.rpc.core.request.SofaRequest;
 import com.alipay.sofa.rpc.core.response.SofaResponse;
 import com.alipay.sofa.rpc.transport.AbstractByteBuf;
+import com.alipay.sofa.rpc.transport.ByteArrayWrapperByteBuf;
 import com.alipay.sofa.rpc.transport.ClientHandler;
 import com.alipay.sofa.rpc.transport.netty.NettyByteBuffer;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
 import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpHeaders;
@@ -88,7 +92,12 @@ public abstract class AbstractHttpClientHandler implements ClientHandler {
         if (context != null) {
             Long startTime = (Long) context.removeAttachment(RpcConstants.INTERNAL_KEY_CLIENT_SEND_TIME);
             if (startTime != null) {
-                context.setAttachment(RpcConstants.INTERNAL_KEY_CLIENT_ELAPSE, RpcRuntimeContext.now() - startTime);
+                long elapsed = RpcRuntimeContext.now() - startTime;
+                context.setAttachment(RpcConstants.INTERNAL_KEY_CLIENT_ELAPSE, elapsed);
+                if (request != null) {
+                    AdaptiveTimeoutManager.record(request.getTargetServiceUniqueName(), request.getMethodName(),
+                        providerInfo, elapsed);
+                }
             }
         }
     }
@@ -143,6 +152,7 @@ public abstract class AbstractHttpClientHandler implements ClientHandler {
             if (msg.status() == HttpResponseStatus.OK) {
                 // 正常返回
                 final SofaResponse response = new SofaResponse();
+                response.setCompressType(headers.get(RemotingConstants.HEAD_SUPPORT_COMPRESS));
                 String isError = headers.get(RemotingConstants.HEAD_RESPONSE_ERROR);
                 if (CommonUtils.isTrue(isError)) {
                     // 业务异常
@@ -162,8 +172,15 @@ public abstract class AbstractHttpClientHandler implements ClientHandler {
                             serializeType = HttpTransportUtils.getSerializeTypeByContentType(contentType);
                         }
                         response.setSerializeType(serializeType);
-                        content.retain();
-                        response.setData(data);
+                        // gzip 和 deflate 已经由 netty 解压缩，其它压缩算法在这里解压缩
+                        String contentEncoding = headers.get(HttpHeaderNames.CONTENT_ENCODING);
+                        if (contentEncoding != null) {
+                            response.setData(new ByteArrayWrapperByteBuf(CompressHelper.deCompress(contentEncoding,
+                                ByteBufUtil.getBytes(content))));
+                        } else {
+                            content.retain();
+                            response.setData(data);
+                        }
                     }
                 }
                 onResponse(response);
@@ -17,6 +17,7 @@
 package com.alipay.sofa.rpc.transport.http;
 
 import com.alipay.sofa.rpc.client.ProviderInfo;
+import com.alipay.sofa.rpc.codec.CompressHelper;
 import com.alipay.sofa.rpc.config.ConsumerConfig;
 import com.alipay.sofa.rpc.context.RpcInternalContext;
 import com.alipay.sofa.rpc.context.RpcInvokeContext;
@@ -75,6 +76,7 @@ public class FutureInvokeClientHandler extends AbstractHttpClientHandler {
             }
 
             pickupBaggage(response);
+            CompressHelper.recordSupportCompress(providerInfo, response);
 
             // do async filter after respond server
             FilterChain chain = consumerConfig.getConsumerBootstrap().getCluster().getFilterChain();
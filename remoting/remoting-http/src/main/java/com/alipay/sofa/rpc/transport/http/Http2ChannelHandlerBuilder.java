@@ -16,6 +16,8 @@
  */
 package com.alipay.sofa.rpc.transport.http;
 
+import com.alipay.sofa.rpc.common.RpcConfigs;
+import com.alipay.sofa.rpc.common.RpcOptions;
 import com.alipay.sofa.rpc.server.http.HttpServerHandler;
 import io.netty.handler.codec.http2.AbstractHttp2ConnectionHandlerBuilder;
 import io.netty.handler.codec.http2.Http2ConnectionDecoder;
@@ -36,9 +38,20 @@ public final class Http2ChannelHandlerBuilder
 
     private final HttpServerHandler       serverHandler;
 
+    private final int                     maxContentLength;
+
+    private final int                     maxPendingBytes;
+
     public Http2ChannelHandlerBuilder(HttpServerHandler serverHandler) {
+        this(serverHandler, RpcConfigs.getIntValue(RpcOptions.TRANSPORT_PAYLOAD_MAX),
+            RpcConfigs.getIntValue(RpcOptions.TRANSPORT_SERVER_HTTP2_PENDING_MAX));
+    }
+
+    public Http2ChannelHandlerBuilder(HttpServerHandler serverHandler, int maxContentLength, int maxPendingBytes) {
         frameLogger(LOGGER);
         this.serverHandler = serverHandler;
+        this.maxContentLength = maxContentLength;
+        this.maxPendingBytes = maxPendingBytes;
     }
 
     @Override
@@ -50,7 +63,7 @@ public final class Http2ChannelHandlerBuilder
     protected Http2ServerChannelHandler build(Http2ConnectionDecoder decoder, Http2ConnectionEncoder encoder,
                                               Http2Settings initialSettings) {
         Http2ServerChannelHandler handler = new Http2ServerChannelHandler(serverHandler, decoder, encoder,
-            initialSettings);
+            initialSettings, maxContentLength, maxPendingBytes);
         frameListener(handler);
         return handler;
     }
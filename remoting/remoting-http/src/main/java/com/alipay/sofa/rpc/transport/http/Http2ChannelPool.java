@@ -0,0 +1,465 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.transport.http;
+
+import com.alipay.sofa.rpc.client.ProviderInfo;
+import com.alipay.sofa.rpc.common.RpcConstants;
+import com.alipay.sofa.rpc.core.exception.RpcErrorType;
+import com.alipay.sofa.rpc.core.exception.SofaRpcException;
+import com.alipay.sofa.rpc.log.LogCodes;
+import com.alipay.sofa.rpc.log.Logger;
+import com.alipay.sofa.rpc.log.LoggerFactory;
+import com.alipay.sofa.rpc.transport.ClientTransportConfig;
+import com.alipay.sofa.rpc.transport.netty.NettyHelper;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.alipay.sofa.rpc.common.RpcConfigs.getIntValue;
+import static com.alipay.sofa.rpc.common.RpcOptions.TRANSPORT_CLIENT_H2_POOL_MAX;
+import static com.alipay.sofa.rpc.common.RpcOptions.TRANSPORT_CLIENT_H2_POOL_STREAMS_RATIO;
+
+/**
+ * 同一地址（host、port、是否TLS）的 h2/h2c 客户端共享的连接池。
+ * <p>
+ * 新的流总是发往活跃流最少的连接；活跃流接近对端 MAX_CONCURRENT_STREAMS 时新建连接分担；
+ * 收到 GOAWAY 的连接不再接收新的流，剩余的流结束后关闭。
+ *
+ * @since 5.7.9
+ */
+public class Http2ChannelPool {
+
+    /**
+     * Logger for Http2ChannelPool
+     **/
+    private static final Logger                                  LOGGER          = LoggerFactory
+                                                                                     .getLogger(Http2ChannelPool.class);
+
+    /**
+     * 地址 --> 连接池
+     */
+    private static final ConcurrentMap<String, Http2ChannelPool> POOLS           = new ConcurrentHashMap<String, Http2ChannelPool>();
+
+    /**
+     * 地址
+     */
+    private final String                                         key;
+
+    /**
+     * 第一个使用该连接池的客户端配置，用于建立连接
+     */
+    private final ClientTransportConfig                          transportConfig;
+
+    /**
+     * 最大连接数
+     */
+    private final int                                            maxChannels;
+
+    /**
+     * 活跃流达到 MAX_CONCURRENT_STREAMS 的百分比后新建连接
+     */
+    private final int                                            streamsRatio;
+
+    /**
+     * IO线程
+     */
+    private final EventLoopGroup                                 eventLoopGroup;
+
+    /**
+     * 连接列表
+     */
+    private final List<Http2PooledChannel>                       channels        = new CopyOnWriteArrayList<Http2PooledChannel>();
+
+    /**
+     * 是否正在异步新建连接
+     */
+    private final AtomicBoolean                                  opening         = new AtomicBoolean();
+
+    /**
+     * 已关闭连接上累计发起的流数量
+     */
+    private final AtomicLong                                     closedStarted   = new AtomicLong();
+
+    /**
+     * 已关闭连接上累计正常结束的流数量
+     */
+    private final AtomicLong                                     closedCompleted = new AtomicLong();
+
+    /**
+     * 累计建立的连接数
+     */
+    private final AtomicLong                                     openedChannels  = new AtomicLong();
+
+    /**
+     * 引用计数，受 POOLS 锁保护
+     */
+    private int                                                  refCount;
+
+    /**
+     * 是否已关闭
+     */
+    private volatile boolean                                     closed;
+
+    private Http2ChannelPool(String key, ClientTransportConfig transportConfig) {
+        this.key = key;
+        this.transportConfig = transportConfig;
+        this.maxChannels = Math.max(1, getIntValue(TRANSPORT_CLIENT_H2_POOL_MAX));
+        this.streamsRatio = getIntValue(TRANSPORT_CLIENT_H2_POOL_STREAMS_RATIO);
+        this.eventLoopGroup = NettyHelper.getClientIOEventLoopGroup();
+    }
+
+    /**
+     * 获取地址对应的连接池并增加引用，不再使用时需调用 {@link #release()}
+     *
+     * @param transportConfig 客户端配置
+     * @return 连接池
+     */
+    public static Http2ChannelPool acquire(ClientTransportConfig transportConfig) {
+        String key = buildKey(transportConfig.getProviderInfo());
+        synchronized (POOLS) {
+            Http2ChannelPool pool = POOLS.get(key);
+            if (pool == null) {
+                pool = new Http2ChannelPool(key, transportConfig);
+                POOLS.put(key, pool);
+            }
+            pool.refCount++;
+            return pool;
+        }
+    }
+
+    /**
+     * 减少引用，没有引用时关闭所有连接
+     */
+    public void release() {
+        synchronized (POOLS) {
+            if (--refCount > 0) {
+                return;
+            }
+            POOLS.remove(key);
+        }
+        close();
+    }
+
+    /**
+     * 当前所有连接池，可用于采集流指标
+     *
+     * @return 地址 --> 连接池
+     */
+    public static Map<String, Http2ChannelPool> getPools() {
+        return Collections.unmodifiableMap(POOLS);
+    }
+
+    static String buildKey(ProviderInfo providerInfo) {
+        boolean tls = RpcConstants.PROTOCOL_TYPE_H2.equals(providerInfo.getProtocolType());
+        return (tls ? RpcConstants.PROTOCOL_TYPE_H2 : RpcConstants.PROTOCOL_TYPE_H2C) + "://" +
+            providerInfo.getHost() + ":" + providerInfo.getPort();
+    }
+
+    /**
+     * 保证至少有一条可用连接，没有时同步建立
+     *
+     * @return 可用连接
+     */
+    public Http2PooledChannel connect() {
+        Http2PooledChannel channel = leastActive();
+        if (channel != null) {
+            return channel;
+        }
+        synchronized (this) {
+            channel = leastActive();
+            if (channel == null) {
+                channel = openChannel();
+            }
+            return channel;
+        }
+    }
+
+    /**
+     * 选择活跃流最少的连接，负载较高时新建连接
+     *
+     * @return 可用连接
+     */
+    public Http2PooledChannel select() {
+        Http2PooledChannel channel = leastActive();
+        if (channel == null) {
+            return connect();
+        }
+        if (channel.isBusy(streamsRatio) && availableChannels() < maxChannels) {
+            if (channel.isBusy(100)) {
+                // 所有连接都已满，同步建立新连接
+                synchronized (this) {
+                    Http2PooledChannel current = leastActive();
+                    if (current != null && !current.isBusy(100)) {
+                        return current;
+                    }
+                    if (availableChannels() < maxChannels) {
+                        try {
+                            return openChannel();
+                        } catch (SofaRpcException e) {
+                            LOGGER.warn("Failed to open extra channel to {}, use exists channel", key, e);
+                        }
+                    }
+                }
+            } else {
+                openChannelAsync();
+            }
+        }
+        return channel;
+    }
+
+    private Http2PooledChannel leastActive() {
+        Http2PooledChannel selected = null;
+        for (Http2PooledChannel channel : channels) {
+            if (channel.isAvailable() &&
+                (selected == null || channel.getActiveStreams() < selected.getActiveStreams())) {
+                selected = channel;
+            }
+        }
+        return selected;
+    }
+
+    private int availableChannels() {
+        int count = 0;
+        for (Http2PooledChannel channel : channels) {
+            if (channel.isAvailable()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private Bootstrap bootstrap(Http2ClientInitializer initializer) {
+        ProviderInfo providerInfo = transportConfig.getProviderInfo();
+        Bootstrap b = new Bootstrap();
+        b.group(eventLoopGroup);
+        b.channel(transportConfig.isUseEpoll() ? EpollSocketChannel.class : NioSocketChannel.class);
+        b.option(ChannelOption.SO_KEEPALIVE, true);
+        b.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, transportConfig.getConnectTimeout());
+        b.remoteAddress(providerInfo.getHost(), providerInfo.getPort());
+        b.handler(initializer);
+        return b;
+    }
+
+    private Http2PooledChannel openChannel() {
+        if (closed) {
+            throw new SofaRpcException(RpcErrorType.CLIENT_NETWORK, "Channel pool of " + key + " has been closed");
+        }
+        Http2ClientInitializer initializer = new Http2ClientInitializer(transportConfig);
+        Channel channel = null;
+        try {
+            // Start the client.
+            channel = bootstrap(initializer).connect().syncUninterruptibly().channel();
+            // Wait for the HTTP/2 upgrade to occur.
+            initializer.settingsHandler().awaitSettings(transportConfig.getConnectTimeout(), TimeUnit.MILLISECONDS);
+            return addChannel(channel, initializer);
+        } catch (Exception e) {
+            if (channel != null) {
+                channel.close();
+            }
+            throw new SofaRpcException(RpcErrorType.CLIENT_NETWORK, e);
+        }
+    }
+
+    private void openChannelAsync() {
+        if (closed || !opening.compareAndSet(false, true)) {
+            return;
+        }
+        final Http2ClientInitializer initializer = new Http2ClientInitializer(transportConfig);
+        bootstrap(initializer).connect().addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) throws Exception {
+                if (!future.isSuccess()) {
+                    opening.set(false);
+                    LOGGER.warn("Failed to open extra channel to {}", key, future.cause());
+                    return;
+                }
+                final Channel channel = future.channel();
+                final ChannelPromise settingsPromise = initializer.settingsHandler().settingsPromise();
+                channel.eventLoop().schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (settingsPromise.tryFailure(new TimeoutException("Timed out waiting for settings"))) {
+                            channel.close();
+                        }
+                    }
+                }, transportConfig.getConnectTimeout(), TimeUnit.MILLISECONDS);
+                settingsPromise.addListener(new ChannelFutureListener() {
+                    @Override
+                    public void operationComplete(ChannelFuture future) throws Exception {
+                        try {
+                            if (future.isSuccess()) {
+                                addChannel(channel, initializer);
+                            } else {
+                                LOGGER.warn("Failed to open extra channel to {}", key, future.cause());
+                            }
+                        } finally {
+                            opening.set(false);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private Http2PooledChannel addChannel(Channel channel, Http2ClientInitializer initializer) {
+        final Http2PooledChannel pooledChannel = new Http2PooledChannel(channel, initializer);
+        channels.add(pooledChannel);
+        openedChannels.incrementAndGet();
+        channel.closeFuture().addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) throws Exception {
+                if (channels.remove(pooledChannel)) {
+                    Http2ClientChannelHandler handler = pooledChannel.getResponseHandler();
+                    closedStarted.addAndGet(handler.getStartedStreams());
+                    closedCompleted.addAndGet(handler.getCompletedStreams());
+                }
+            }
+        });
+        // 建立期间连接池被关闭
+        if (closed) {
+            channel.close();
+        }
+        if (LOGGER.isInfoEnabled()) {
+            LOGGER.info("Open http2 channel {} to {}, {} channels in pool", channel, key, channels.size());
+        }
+        return pooledChannel;
+    }
+
+    private void close() {
+        closed = true;
+        for (Http2PooledChannel channel : channels) {
+            Channel nettyChannel = channel.getChannel().channel();
+            try {
+                nettyChannel.close().syncUninterruptibly();
+            } catch (Exception e) {
+                LOGGER.warn(LogCodes.getLog(LogCodes.ERROR_CATCH_EXCEPTION), e);
+            }
+        }
+        NettyHelper.closeClientIOEventGroup();
+    }
+
+    /**
+     * 是否有可用连接
+     *
+     * @return 是否有可用连接
+     */
+    public boolean isAvailable() {
+        return !closed && leastActive() != null;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * 当前连接（含排空中的连接）
+     *
+     * @return 当前连接
+     */
+    public List<Http2PooledChannel> getChannels() {
+        return Collections.unmodifiableList(channels);
+    }
+
+    /**
+     * 排空中的连接数
+     *
+     * @return 排空中的连接数
+     */
+    public int getDrainingChannels() {
+        int count = 0;
+        for (Http2PooledChannel channel : channels) {
+            if (channel.isDraining()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 累计建立的连接数
+     *
+     * @return 累计建立的连接数
+     */
+    public long getOpenedChannels() {
+        return openedChannels.get();
+    }
+
+    /**
+     * 等待响应的流数量
+     *
+     * @return 等待响应的流数量
+     */
+    public int getActiveStreams() {
+        int count = 0;
+        for (Http2PooledChannel channel : channels) {
+            count += channel.getActiveStreams();
+        }
+        return count;
+    }
+
+    /**
+     * 累计发起的流数量
+     *
+     * @return 累计发起的流数量
+     */
+    public long getStartedStreams() {
+        long count = closedStarted.get();
+        for (Http2PooledChannel channel : channels) {
+            count += channel.getResponseHandler().getStartedStreams();
+        }
+        return count;
+    }
+
+    /**
+     * 累计正常收到响应的流数量
+     *
+     * @return 累计正常收到响应的流数量
+     */
+    public long getCompletedStreams() {
+        long count = closedCompleted.get();
+        for (Http2PooledChannel channel : channels) {
+            count += channel.getResponseHandler().getCompletedStreams();
+        }
+        return count;
+    }
+
+    /**
+     * 累计失败（超时、连接断开、被 GOAWAY 拒绝、写出失败）的流数量
+     *
+     * @return 累计失败的流数量
+     */
+    public long getFailedStreams() {
+        return Math.max(0, getStartedStreams() - getCompletedStreams() - getActiveStreams());
+    }
+}
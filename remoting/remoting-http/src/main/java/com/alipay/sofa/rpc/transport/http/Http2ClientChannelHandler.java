@@ -37,6 +37,8 @@ import java.util.AbstractMap.SimpleEntry;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Process {@link FullHttpResponse} translated from HTTP/2 frames
@@ -49,14 +51,39 @@ public class Http2ClientChannelHandler extends SimpleChannelInboundHandler<FullH
     /**
      * Logger for HttpClientChannelHandler
      **/
-    private static final Logger                                                 LOGGER = LoggerFactory
-                                                                                           .getLogger(Http2ClientChannelHandler.class);
+    private static final Logger                                                 LOGGER           = LoggerFactory
+                                                                                                     .getLogger(Http2ClientChannelHandler.class);
 
     /**
      * 
      */
     private final Map<Integer, Entry<ChannelFuture, AbstractHttpClientHandler>> streamIdPromiseMap;
 
+    /**
+     * 等待响应的流数量
+     */
+    private final AtomicInteger                                                 activeStreams    = new AtomicInteger();
+
+    /**
+     * 累计发起的流数量
+     */
+    private final AtomicLong                                                    startedStreams   = new AtomicLong();
+
+    /**
+     * 累计正常收到响应的流数量
+     */
+    private final AtomicLong                                                    completedStreams = new AtomicLong();
+
+    /**
+     * 收到 GOAWAY 或者流 ID 即将耗尽后不再接收新的流，剩余的流结束后关闭连接
+     */
+    private volatile boolean                                                    draining;
+
+    /**
+     * 所属的长连接
+     */
+    private volatile Channel                                                    channel;
+
     public Http2ClientChannelHandler() {
         // Use a concurrent map because we add and iterate from the main thread (just for the purposes of the example),
         // but Netty also does a get on the map when messages are received in a EventLoop thread.
@@ -73,6 +100,8 @@ public class Http2ClientChannelHandler extends SimpleChannelInboundHandler<FullH
      */
     public Entry<ChannelFuture, AbstractHttpClientHandler> put(int streamId, ChannelFuture writeFuture,
                                                                AbstractHttpClientHandler promise) {
+        startedStreams.incrementAndGet();
+        activeStreams.incrementAndGet();
         return streamIdPromiseMap.put(streamId, new SimpleEntry<ChannelFuture, AbstractHttpClientHandler>(
             writeFuture, promise));
     }
@@ -96,11 +125,17 @@ public class Http2ClientChannelHandler extends SimpleChannelInboundHandler<FullH
                     msg.toString(), NettyHelper.toString(msg.content()));
             }
         } else {
+            completedStreams.incrementAndGet();
             final AbstractHttpClientHandler callback = entry.getValue();
             callback.receiveHttpResponse(msg);
         }
     }
 
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        this.channel = ctx.channel();
+    }
+
     @Override
     public void channelInactive(final ChannelHandlerContext ctx) throws Exception {
         Channel channel = ctx.channel();
@@ -114,14 +149,96 @@ public class Http2ClientChannelHandler extends SimpleChannelInboundHandler<FullH
                 streamIdPromiseMap.entrySet().iterator();
         while (it.hasNext()) {
             Map.Entry<Integer, Entry<ChannelFuture, AbstractHttpClientHandler>> mapEntry = it.next();
-            it.remove();
-            Entry<ChannelFuture, AbstractHttpClientHandler> entry = mapEntry.getValue();
-            entry.getValue().onException(e);
+            Entry<ChannelFuture, AbstractHttpClientHandler> entry = removePromise(mapEntry.getKey());
+            if (entry != null) {
+                entry.getValue().onException(e);
+            }
         }
     }
 
     public Entry<ChannelFuture, AbstractHttpClientHandler> removePromise(int streamId) {
-        return streamIdPromiseMap.remove(streamId);
+        Entry<ChannelFuture, AbstractHttpClientHandler> entry = streamIdPromiseMap.remove(streamId);
+        if (entry != null) {
+            activeStreams.decrementAndGet();
+            closeIfDrained();
+        }
+        return entry;
+    }
+
+    /**
+     * 对端发送了 GOAWAY：ID 大于 lastStreamId 的流不会被处理，直接失败，其余的流处理完后关闭连接
+     *
+     * @param lastStreamId 对端最后处理的流 ID
+     * @param errorCode    错误码
+     */
+    public void goAwayReceived(int lastStreamId, long errorCode) {
+        if (LOGGER.isInfoEnabled()) {
+            LOGGER.info("GOAWAY received from {}, last stream id: {}, error code: {}", channel, lastStreamId,
+                errorCode);
+        }
+        draining = true;
+        final Exception e = new SofaRpcException(RpcErrorType.CLIENT_NETWORK, "Stream is refused by GOAWAY of "
+            + channel + ", last stream id is " + lastStreamId);
+        for (Integer streamId : streamIdPromiseMap.keySet()) {
+            if (streamId > lastStreamId) {
+                Entry<ChannelFuture, AbstractHttpClientHandler> entry = removePromise(streamId);
+                if (entry != null) {
+                    entry.getValue().onException(e);
+                }
+            }
+        }
+        closeIfDrained();
+    }
+
+    /**
+     * 不再接收新的流，剩余的流结束后关闭连接
+     */
+    public void drain() {
+        draining = true;
+        closeIfDrained();
+    }
+
+    private void closeIfDrained() {
+        Channel channel = this.channel;
+        if (draining && activeStreams.get() == 0 && channel != null && channel.isActive()) {
+            channel.close();
+        }
+    }
+
+    /**
+     * 是否正在排空
+     *
+     * @return 是否正在排空
+     */
+    public boolean isDraining() {
+        return draining;
+    }
+
+    /**
+     * 等待响应的流数量
+     *
+     * @return 等待响应的流数量
+     */
+    public int getActiveStreams() {
+        return activeStreams.get();
+    }
+
+    /**
+     * 累计发起的流数量
+     *
+     * @return 累计发起的流数量
+     */
+    public long getStartedStreams() {
+        return startedStreams.get();
+    }
+
+    /**
+     * 累计正常收到响应的流数量
+     *
+     * @return 累计正常收到响应的流数量
+     */
+    public long getCompletedStreams() {
+        return completedStreams.get();
     }
 
     @Override
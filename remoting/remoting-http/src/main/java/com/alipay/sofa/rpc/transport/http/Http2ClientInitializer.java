@@ -22,6 +22,7 @@ import static com.alipay.sofa.rpc.common.RpcOptions.TRANSPORT_CLIENT_H2C_USE_PRI
 import com.alipay.sofa.rpc.common.RpcConstants;
 import com.alipay.sofa.rpc.transport.ClientTransportConfig;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelInitializer;
@@ -36,6 +37,7 @@ import io.netty.handler.codec.http2.DefaultHttp2Connection;
 import io.netty.handler.codec.http2.DelegatingDecompressorFrameListener;
 import io.netty.handler.codec.http2.Http2ClientUpgradeCodec;
 import io.netty.handler.codec.http2.Http2Connection;
+import io.netty.handler.codec.http2.Http2ConnectionAdapter;
 import io.netty.handler.codec.http2.Http2ConnectionPrefaceAndSettingsFrameWrittenEvent;
 import io.netty.handler.codec.http2.HttpToHttp2ConnectionHandler;
 import io.netty.handler.codec.http2.HttpToHttp2ConnectionHandlerBuilder;
@@ -74,7 +76,14 @@ public class Http2ClientInitializer extends ChannelInitializer<SocketChannel> {
                 new DelegatingDecompressorFrameListener(connection, new InboundHttp2ToHttpAdapterBuilder(connection)
                     .maxContentLength(transportConfig.getPayload()).propagateSettings(true).build()))
             .connection(connection).build();
-        responseHandler = new Http2ClientChannelHandler();
+        final Http2ClientChannelHandler handler = new Http2ClientChannelHandler();
+        responseHandler = handler;
+        connection.addListener(new Http2ConnectionAdapter() {
+            @Override
+            public void onGoAwayReceived(int lastStreamId, long errorCode, ByteBuf debugData) {
+                handler.goAwayReceived(lastStreamId, errorCode);
+            }
+        });
         settingsHandler = new Http2SettingsHandler(ch.newPromise());
         String protocol = transportConfig.getProviderInfo().getProtocolType();
         if (RpcConstants.PROTOCOL_TYPE_H2.equals(protocol)) {
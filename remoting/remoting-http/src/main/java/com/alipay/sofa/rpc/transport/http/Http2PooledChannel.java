@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.transport.http;
+
+import com.alipay.sofa.rpc.core.exception.RpcErrorType;
+import com.alipay.sofa.rpc.core.exception.SofaRpcException;
+import com.alipay.sofa.rpc.transport.netty.NettyChannel;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.handler.codec.http.FullHttpRequest;
+
+import java.util.Map;
+
+/**
+ * {@link Http2ChannelPool} 中的一条 HTTP/2 连接，维护自己的流 ID 空间和响应处理器
+ *
+ * @since 5.7.9
+ */
+public class Http2PooledChannel {
+
+    /**
+     * Start from 3 (because 1 is setting stream)
+     */
+    private final static int                START_STREAM_ID = 3;
+
+    /**
+     * 流 ID 达到该值后连接开始排空，避免流 ID 溢出
+     */
+    private final static int                MAX_STREAM_ID   = Integer.MAX_VALUE - 1024;
+
+    /**
+     * Channel
+     */
+    private final NettyChannel              channel;
+
+    /**
+     * Response channel handler
+     */
+    private final Http2ClientChannelHandler responseHandler;
+
+    /**
+     * Settings handler
+     */
+    private final Http2SettingsHandler      settingsHandler;
+
+    /**
+     * 下一个流 ID，分配和写出需要在同一把锁内，保证流 ID 递增
+     */
+    private int                             nextStreamId    = START_STREAM_ID;
+
+    public Http2PooledChannel(Channel channel, Http2ClientInitializer initializer) {
+        this.channel = new NettyChannel(channel);
+        this.responseHandler = initializer.responseHandler();
+        this.settingsHandler = initializer.settingsHandler();
+    }
+
+    /**
+     * 发送请求
+     *
+     * @param httpRequest 请求
+     * @param callback    响应处理器
+     * @return 流 ID
+     */
+    public int sendHttpRequest(FullHttpRequest httpRequest, final AbstractHttpClientHandler callback) {
+        final int requestId;
+        ChannelFuture writeFuture;
+        Channel channel = this.channel.channel();
+        synchronized (this) {
+            requestId = nextStreamId;
+            nextStreamId += 2;
+            writeFuture = channel.write(httpRequest);
+            responseHandler.put(requestId, writeFuture, callback);
+        }
+        channel.flush();
+        if (requestId >= MAX_STREAM_ID) {
+            responseHandler.drain();
+        }
+        writeFuture.addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) throws Exception {
+                if (!future.isSuccess()) {
+                    Map.Entry<ChannelFuture, AbstractHttpClientHandler> entry = responseHandler
+                        .removePromise(requestId);
+                    if (entry != null) {
+                        entry.getValue().onException(new SofaRpcException(RpcErrorType.CLIENT_NETWORK,
+                            "Failed to send request to " + Http2PooledChannel.this.channel.remoteAddress(),
+                            future.cause()));
+                    }
+                }
+            }
+        });
+        return requestId;
+    }
+
+    /**
+     * 移除等待响应的流
+     *
+     * @param streamId 流 ID
+     * @return 请求写出结果和响应处理器
+     */
+    public Map.Entry<ChannelFuture, AbstractHttpClientHandler> removePromise(int streamId) {
+        return responseHandler.removePromise(streamId);
+    }
+
+    /**
+     * 是否可以发起新的流
+     *
+     * @return 连接可用且没有在排空
+     */
+    public boolean isAvailable() {
+        return channel.isAvailable() && !responseHandler.isDraining();
+    }
+
+    /**
+     * 活跃流是否达到对端 MAX_CONCURRENT_STREAMS 的指定百分比
+     *
+     * @param ratio 百分比
+     * @return 是否达到
+     */
+    public boolean isBusy(int ratio) {
+        return responseHandler.getActiveStreams() >= (long) settingsHandler.maxConcurrentStreams() * ratio / 100;
+    }
+
+    public NettyChannel getChannel() {
+        return channel;
+    }
+
+    public Http2ClientChannelHandler getResponseHandler() {
+        return responseHandler;
+    }
+
+    public boolean isDraining() {
+        return responseHandler.isDraining();
+    }
+
+    public int getActiveStreams() {
+        return responseHandler.getActiveStreams();
+    }
+
+    public int getMaxConcurrentStreams() {
+        return settingsHandler.maxConcurrentStreams();
+    }
+}
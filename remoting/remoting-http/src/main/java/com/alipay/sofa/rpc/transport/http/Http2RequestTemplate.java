@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.transport.http;
+
+import com.alipay.sofa.rpc.codec.Serializer;
+import com.alipay.sofa.rpc.codec.SerializerFactory;
+import com.alipay.sofa.rpc.common.RemotingConstants;
+import com.alipay.sofa.rpc.common.utils.StringUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.EmptyHttpHeaders;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpScheme;
+import io.netty.handler.codec.http2.HttpConversionUtil;
+import io.netty.util.AsciiString;
+
+import static io.netty.handler.codec.http.HttpMethod.POST;
+import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
+
+/**
+ * 同一提供者上同一服务方法的 h2/h2c 请求模板：预先拼好路径，并把不变的请求头构造成 {@link AsciiString}，
+ * 转换为 HTTP/2 头时不再重复分配和转小写，HPACK 编码时也可以直接复用哈希值。
+ *
+ * @since 5.7.9
+ */
+public class Http2RequestTemplate {
+
+    private static final AsciiString SERIALIZE_TYPE = AsciiString.cached(RemotingConstants.HEAD_SERIALIZE_TYPE);
+
+    private static final AsciiString TARGET_APP     = AsciiString.cached(RemotingConstants.HEAD_TARGET_APP);
+
+    /**
+     * 请求路径
+     */
+    private final String             path;
+
+    /**
+     * 序列化类型
+     */
+    private final byte               serializeType;
+
+    /**
+     * 目标应用
+     */
+    private final String             targetAppName;
+
+    /**
+     * 序列化器
+     */
+    private final Serializer         serializer;
+
+    /**
+     * 不变的请求头
+     */
+    private final DefaultHttpHeaders staticHeaders;
+
+    /**
+     * 构造请求模板
+     *
+     * @param authority     host:port
+     * @param serviceName   服务唯一名
+     * @param methodName    方法名
+     * @param serializeType 序列化类型
+     * @param targetAppName 目标应用
+     */
+    public Http2RequestTemplate(AsciiString authority, String serviceName, String methodName, byte serializeType,
+                                String targetAppName) {
+        this.path = ("/" + serviceName + "/" + methodName).intern();
+        this.serializeType = serializeType;
+        this.targetAppName = targetAppName;
+        this.serializer = SerializerFactory.getSerializer(serializeType);
+
+        HttpScheme scheme = SslContextBuilder.SSL ? HttpScheme.HTTPS : HttpScheme.HTTP;
+        staticHeaders = new DefaultHttpHeaders();
+        staticHeaders.add(HttpHeaderNames.HOST, authority);
+        staticHeaders.add(HttpConversionUtil.ExtensionHeaderNames.SCHEME.text(), scheme.name());
+        staticHeaders.add(HttpHeaderNames.ACCEPT_ENCODING, HttpHeaderValues.GZIP);
+        staticHeaders.add(HttpHeaderNames.ACCEPT_ENCODING, HttpHeaderValues.DEFLATE);
+        String serializeAlias = SerializerFactory.getAliasByCode(serializeType);
+        if (StringUtils.isNotEmpty(serializeAlias)) {
+            staticHeaders.add(SERIALIZE_TYPE, AsciiString.cached(serializeAlias));
+        }
+        if (StringUtils.isNotEmpty(targetAppName)) {
+            staticHeaders.add(TARGET_APP, AsciiString.cached(targetAppName));
+        }
+    }
+
+    /**
+     * 模板是否适用于该请求
+     *
+     * @param serializeType 序列化类型
+     * @param targetAppName 目标应用
+     * @return 是否适用
+     */
+    public boolean matches(byte serializeType, String targetAppName) {
+        return this.serializeType == serializeType && StringUtils.equals(this.targetAppName, targetAppName);
+    }
+
+    /**
+     * 按模板新建请求，调用方只需要再加入动态的请求头
+     *
+     * @param content 请求体
+     * @return 请求
+     */
+    public FullHttpRequest newRequest(ByteBuf content) {
+        HttpHeaders headers = new DefaultHttpHeaders();
+        // 同类型复制时直接复用已计算的哈希值
+        headers.add(staticHeaders);
+        return new DefaultFullHttpRequest(HTTP_1_1, POST, path, content, headers, EmptyHttpHeaders.INSTANCE);
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public Serializer getSerializer() {
+        return serializer;
+    }
+}
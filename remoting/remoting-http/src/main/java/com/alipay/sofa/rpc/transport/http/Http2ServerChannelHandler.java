@@ -16,6 +16,7 @@
  */
 package com.alipay.sofa.rpc.transport.http;
 
+import com.alipay.sofa.rpc.codec.CompressHelper;
 import com.alipay.sofa.rpc.common.RemotingConstants;
 import com.alipay.sofa.rpc.common.RpcConstants;
 import com.alipay.sofa.rpc.common.utils.NetUtils;
@@ -26,20 +27,26 @@ import com.alipay.sofa.rpc.core.request.SofaRequest;
 import com.alipay.sofa.rpc.log.Logger;
 import com.alipay.sofa.rpc.log.LoggerFactory;
 import com.alipay.sofa.rpc.server.http.HttpServerHandler;
+import com.alipay.sofa.rpc.transport.AbstractByteBuf;
+import com.alipay.sofa.rpc.transport.ByteArrayWrapperByteBuf;
 import com.alipay.sofa.rpc.transport.netty.NettyByteBuffer;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.HttpScheme;
 import io.netty.handler.codec.http.HttpServerUpgradeHandler;
 import io.netty.handler.codec.http2.DefaultHttp2Headers;
 import io.netty.handler.codec.http2.Http2Connection;
+import io.netty.handler.codec.http2.Http2ConnectionAdapter;
 import io.netty.handler.codec.http2.Http2ConnectionDecoder;
 import io.netty.handler.codec.http2.Http2ConnectionEncoder;
 import io.netty.handler.codec.http2.Http2ConnectionHandler;
+import io.netty.handler.codec.http2.Http2Error;
 import io.netty.handler.codec.http2.Http2Flags;
 import io.netty.handler.codec.http2.Http2FrameListener;
 import io.netty.handler.codec.http2.Http2Headers;
@@ -67,13 +74,37 @@ public final class Http2ServerChannelHandler extends Http2ConnectionHandler impl
 
     private final HttpServerHandler           serverHandler;
 
+    /**
+     * 单个请求体的最大字节数
+     */
+    private final int                         maxContentLength;
+
+    /**
+     * 连接上缓存的未接收完的请求体的最大字节数
+     */
+    private final int                         maxPendingBytes;
+
+    /**
+     * 连接上缓存的未接收完的请求体的字节数，只在本连接的线程上读写
+     */
+    private int                               pendingBytes;
+
     private boolean                           isUpgradeH2cMode = false;
 
     Http2ServerChannelHandler(HttpServerHandler serverHandler, Http2ConnectionDecoder decoder,
                               Http2ConnectionEncoder encoder,
-                              Http2Settings initialSettings) {
+                              Http2Settings initialSettings, int maxContentLength, int maxPendingBytes) {
         super(decoder, encoder, initialSettings);
         this.serverHandler = serverHandler;
+        this.maxContentLength = maxContentLength;
+        this.maxPendingBytes = maxPendingBytes;
+        // 流被重置或者连接断开时，释放还没接收完的请求体
+        connection().addListener(new Http2ConnectionAdapter() {
+            @Override
+            public void onStreamRemoved(Http2Stream stream) {
+                releaseMessage(stream);
+            }
+        });
     }
 
     private static Http2Headers http1HeadersToHttp2Headers(FullHttpRequest request) {
@@ -117,15 +148,38 @@ public final class Http2ServerChannelHandler extends Http2ConnectionHandler impl
         int processed = data.readableBytes() + padding;
 
         Http2Stream http2Stream = connection().stream(streamId);
-        ByteBuf msg = http2Stream.getProperty(messageKey);
+        CompositeByteBuf msg = http2Stream.getProperty(messageKey);
+        final int dataReadableBytes = data.readableBytes();
+        final int messageBytes = msg == null ? dataReadableBytes : msg.readableBytes() + dataReadableBytes;
+        if (messageBytes > maxContentLength) {
+            rejectRequest(ctx, http2Stream, "Request entity of stream " + streamId + " is larger than "
+                + maxContentLength + " bytes");
+            return processed;
+        }
+        if (endOfStream && msg == null) {
+            // 只有一个 DATA 帧，直接使用，不需要拷贝
+            Http2Headers headers = http2Stream.getProperty(headerKey);
+            handleRequest(ctx, streamId, headers, data.retain());
+            return processed;
+        }
+        if (pendingBytes + dataReadableBytes > maxPendingBytes) {
+            rejectRequest(ctx, http2Stream, "Pending request entities of connection are larger than "
+                + maxPendingBytes + " bytes");
+            return processed;
+        }
         if (msg == null) {
-            msg = ctx.alloc().buffer();
+            msg = ctx.alloc().compositeBuffer(Integer.MAX_VALUE);
             http2Stream.setProperty(messageKey, msg);
         }
-        final int dataReadableBytes = data.readableBytes();
-        msg.writeBytes(data, data.readerIndex(), dataReadableBytes);
+        if (dataReadableBytes > 0) {
+            // 聚合 DATA 帧，不拷贝数据
+            msg.addComponent(true, data.retainedSlice());
+            pendingBytes += dataReadableBytes;
+        }
 
         if (endOfStream) {
+            http2Stream.removeProperty(messageKey);
+            pendingBytes -= msg.readableBytes();
             // read cached http2 header from stream
             Http2Headers headers = http2Stream.getProperty(headerKey);
             handleRequest(ctx, streamId, headers, msg);
@@ -133,6 +187,36 @@ public final class Http2ServerChannelHandler extends Http2ConnectionHandler impl
         return processed;
     }
 
+    /**
+     * 释放还没接收完的请求体
+     *
+     * @param stream Http2Stream
+     */
+    private void releaseMessage(Http2Stream stream) {
+        ByteBuf msg = stream.removeProperty(messageKey);
+        if (msg != null) {
+            pendingBytes -= msg.readableBytes();
+            msg.release();
+        }
+    }
+
+    /**
+     * 请求体过大，返回 413 并重置流，客户端不再继续发送
+     *
+     * @param ctx     ChannelHandlerContext
+     * @param stream  Http2Stream
+     * @param message 错误信息
+     */
+    private void rejectRequest(ChannelHandlerContext ctx, Http2Stream stream, String message) {
+        releaseMessage(stream);
+        if (LOGGER.isWarnEnabled()) {
+            LOGGER.warn(message + ", request from " + NetUtils.channelToString(ctx.channel().remoteAddress(),
+                ctx.channel().localAddress()));
+        }
+        sendHttp2Response(ctx, stream.id(), HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE, message);
+        resetStream(ctx, stream.id(), Http2Error.NO_ERROR.code(), ctx.newPromise());
+    }
+
     @Override
     public void onHeadersRead(ChannelHandlerContext ctx, int streamId,
                               Http2Headers headers, int padding, boolean endOfStream) {
@@ -155,6 +239,17 @@ public final class Http2ServerChannelHandler extends Http2ConnectionHandler impl
     }
 
     protected void handleRequest(ChannelHandlerContext ctx, int streamId, Http2Headers http2Headers, ByteBuf data) {
+        try {
+            handleRequest0(ctx, streamId, http2Headers, data);
+        } finally {
+            // 请求是同步处理的，处理完即可释放请求体
+            if (data != null) {
+                data.release();
+            }
+        }
+    }
+
+    private void handleRequest0(ChannelHandlerContext ctx, int streamId, Http2Headers http2Headers, ByteBuf data) {
         String uri = StringUtils.defaultString(http2Headers.path());
         // ignore uris
         if (RemotingConstants.IGNORE_WEB_BROWSER.equals(uri)) {
@@ -189,7 +284,7 @@ public final class Http2ServerChannelHandler extends Http2ConnectionHandler impl
                 String[] iam = HttpTransportUtils.getInterfaceIdAndMethod(uri);
                 sofaRequest.setTargetServiceUniqueName(iam[0]);
                 sofaRequest.setMethodName(iam[1]);
-                sofaRequest.setData(new NettyByteBuffer(data));
+                sofaRequest.setData(decompressIfNecessary(http2Headers, data));
                 parseHttp2Request(http2Headers, sofaRequest);
             } catch (Exception e) {
                 String message = "Failed to parse http2 request for uri " + uri + " form "
@@ -249,6 +344,24 @@ public final class Http2ServerChannelHandler extends Http2ConnectionHandler impl
         }
     }
 
+    /**
+     * 按 content-encoding 解压缩请求体
+     *
+     * @param headers 请求头
+     * @param data    请求体
+     * @return 解压缩后的请求体
+     */
+    private AbstractByteBuf decompressIfNecessary(Http2Headers headers, ByteBuf data) {
+        CharSequence contentEncoding = headers.get(HttpHeaderNames.CONTENT_ENCODING);
+        if (data == null || contentEncoding == null
+            || HttpHeaderValues.IDENTITY.contentEqualsIgnoreCase(contentEncoding)) {
+            return new NettyByteBuffer(data);
+        }
+        byte[] bs = new byte[data.readableBytes()];
+        data.readBytes(bs);
+        return new ByteArrayWrapperByteBuf(CompressHelper.deCompress(contentEncoding.toString(), bs));
+    }
+
     protected void sendHttp2Response(ChannelHandlerContext ctx, int streamId, HttpResponseStatus status, String result) {
         // Send a frame for the response status
         Http2Headers headers = new DefaultHttp2Headers().status(status.codeAsText());
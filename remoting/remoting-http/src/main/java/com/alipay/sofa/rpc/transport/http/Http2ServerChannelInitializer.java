@@ -16,6 +16,8 @@
  */
 package com.alipay.sofa.rpc.transport.http;
 
+import com.alipay.sofa.rpc.common.RpcConfigs;
+import com.alipay.sofa.rpc.common.RpcOptions;
 import com.alipay.sofa.rpc.log.Logger;
 import com.alipay.sofa.rpc.log.LoggerFactory;
 import com.alipay.sofa.rpc.server.http.HttpServerHandler;
@@ -58,6 +60,7 @@ public class Http2ServerChannelInitializer extends ChannelInitializer<SocketChan
     private final HttpServerHandler serverHandler;
     private final SslContext        sslCtx;
     private final int               maxHttpContentLength;
+    private final int               maxPendingBytes;
 
     public Http2ServerChannelInitializer(EventLoopGroup bizGroup, SslContext sslCtx,
                                          HttpServerHandler serverHandler, int maxHttpContentLength) {
@@ -67,6 +70,7 @@ public class Http2ServerChannelInitializer extends ChannelInitializer<SocketChan
         this.bizGroup = bizGroup;
         this.sslCtx = sslCtx;
         this.maxHttpContentLength = maxHttpContentLength;
+        this.maxPendingBytes = RpcConfigs.getIntValue(RpcOptions.TRANSPORT_SERVER_HTTP2_PENDING_MAX);
         this.serverHandler = serverHandler;
     }
 
@@ -80,6 +84,10 @@ public class Http2ServerChannelInitializer extends ChannelInitializer<SocketChan
         }
     }
 
+    private Http2ServerChannelHandler newHttp2ChannelHandler() {
+        return new Http2ChannelHandlerBuilder(serverHandler, maxHttpContentLength, maxPendingBytes).build();
+    }
+
     /**
      * Configure the pipeline for TLS NPN negotiation to HTTP/2.
      */
@@ -93,7 +101,7 @@ public class Http2ServerChannelInitializer extends ChannelInitializer<SocketChan
             protected void configurePipeline(ChannelHandlerContext ctx, String protocol) throws Exception {
                 if (ApplicationProtocolNames.HTTP_2.equals(protocol)) {
                     ctx.pipeline().addLast(bizGroup, "Http2ChannelHandler",
-                        new Http2ChannelHandlerBuilder(serverHandler).build());
+                        newHttp2ChannelHandler());
                     return;
                 }
 
@@ -121,7 +129,7 @@ public class Http2ServerChannelInitializer extends ChannelInitializer<SocketChan
                 @Override
                 public HttpServerUpgradeHandler.UpgradeCodec newUpgradeCodec(CharSequence protocol) {
                     if (AsciiString.contentEquals(Http2CodecUtil.HTTP_UPGRADE_PROTOCOL_NAME, protocol)) {
-                        return new Http2ServerUpgradeCodec(new Http2ChannelHandlerBuilder(serverHandler).build());
+                        return new Http2ServerUpgradeCodec(newHttp2ChannelHandler());
                     } else {
                         return null;
                     }
@@ -129,7 +137,7 @@ public class Http2ServerChannelInitializer extends ChannelInitializer<SocketChan
             });
         final Http2ServerUpgradeHandler cleartextHttp2ServerUpgradeHandler =
                 new Http2ServerUpgradeHandler(bizGroup, sourceCodec, upgradeHandler,
-                    new Http2ChannelHandlerBuilder(serverHandler).build());
+                    newHttp2ChannelHandler());
 
         // 先通过 HTTP Upgrade 协商版本
         p.addLast("Http2ServerUpgradeHandler", cleartextHttp2ServerUpgradeHandler);
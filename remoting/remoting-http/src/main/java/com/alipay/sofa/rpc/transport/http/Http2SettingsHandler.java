@@ -32,6 +32,11 @@ import java.util.concurrent.TimeUnit;
 public class Http2SettingsHandler extends SimpleChannelInboundHandler<Http2Settings> {
     private final ChannelPromise promise;
 
+    /**
+     * 对端声明的 MAX_CONCURRENT_STREAMS，未声明时不限制
+     */
+    private volatile int         maxConcurrentStreams = Integer.MAX_VALUE;
+
     /**
      * Create new instance
      *
@@ -58,9 +63,32 @@ public class Http2SettingsHandler extends SimpleChannelInboundHandler<Http2Setti
         }
     }
 
+    /**
+     * Promise notified when first settings are received
+     *
+     * @return settings promise
+     */
+    public ChannelPromise settingsPromise() {
+        return promise;
+    }
+
+    /**
+     * MAX_CONCURRENT_STREAMS in first settings of remote
+     *
+     * @return max concurrent streams, {@link Integer#MAX_VALUE} if not declared
+     */
+    public int maxConcurrentStreams() {
+        return maxConcurrentStreams;
+    }
+
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, Http2Settings msg) throws Exception {
-        promise.setSuccess();
+        Long max = msg.maxConcurrentStreams();
+        if (max != null) {
+            maxConcurrentStreams = (int) Math.min(max, Integer.MAX_VALUE);
+        }
+        // 等待超时后 promise 可能已经失败
+        promise.trySuccess();
 
         // Only care about the first settings message
         ctx.pipeline().remove(this);
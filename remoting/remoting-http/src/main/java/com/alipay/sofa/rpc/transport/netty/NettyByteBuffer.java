@@ -18,6 +18,9 @@ package com.alipay.sofa.rpc.transport.netty;
 
 import com.alipay.sofa.rpc.transport.AbstractByteBuf;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+
+import java.io.InputStream;
 
 /**
  * @author <a href="mailto:zhanggeng.zg@antfin.com">GengZhang</a>
@@ -33,17 +36,24 @@ public class NettyByteBuffer extends AbstractByteBuf {
 
     @Override
     public byte[] array() {
-        if (byteBuf.hasArray()) {
-            // 堆内 ByteBuf
+        if (byteBuf.hasArray() && byteBuf.arrayOffset() == 0 && byteBuf.readerIndex() == 0
+            && byteBuf.readableBytes() == byteBuf.array().length) {
+            // 独占整个数组的堆内 ByteBuf
             return byteBuf.array();
         } else {
-            // 堆外 ByteBuf
+            // 堆外 ByteBuf，或者是切片、池化的堆内 ByteBuf
             byte[] bs = new byte[byteBuf.readableBytes()];
             byteBuf.readBytes(bs);
             return bs;
         }
     }
 
+    @Override
+    public InputStream inputStream() {
+        // 直接读取 ByteBuf（包括聚合的 CompositeByteBuf），不拷贝
+        return new ByteBufInputStream(byteBuf);
+    }
+
     @Override
     public int readableBytes() {
         return byteBuf.readableBytes();
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.transport.http;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http2.HttpConversionUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.Executor;
+
+public class Http2ClientChannelHandlerTest {
+
+    @Test
+    public void testGoAwayDraining() {
+        Http2ClientChannelHandler handler = new Http2ClientChannelHandler();
+        EmbeddedChannel channel = new EmbeddedChannel(handler);
+
+        TestHandler callback3 = new TestHandler();
+        TestHandler callback5 = new TestHandler();
+        TestHandler callback7 = new TestHandler();
+        handler.put(3, channel.newSucceededFuture(), callback3);
+        handler.put(5, channel.newSucceededFuture(), callback5);
+        handler.put(7, channel.newSucceededFuture(), callback7);
+        Assert.assertEquals(3, handler.getActiveStreams());
+        Assert.assertEquals(3, handler.getStartedStreams());
+
+        // 流 7 没有被对端处理，直接失败；连接在剩余的流结束前保持打开
+        handler.goAwayReceived(5, 0);
+        Assert.assertTrue(handler.isDraining());
+        Assert.assertNotNull(callback7.exception);
+        Assert.assertNull(callback3.exception);
+        Assert.assertEquals(2, handler.getActiveStreams());
+        Assert.assertTrue(channel.isActive());
+
+        channel.writeInbound(response(3));
+        Assert.assertTrue(callback3.received);
+        Assert.assertEquals(1, handler.getCompletedStreams());
+        Assert.assertTrue(channel.isActive());
+
+        Assert.assertNotNull(handler.removePromise(5));
+        Assert.assertEquals(0, handler.getActiveStreams());
+        Assert.assertFalse(channel.isActive());
+    }
+
+    @Test
+    public void testChannelInactive() {
+        Http2ClientChannelHandler handler = new Http2ClientChannelHandler();
+        EmbeddedChannel channel = new EmbeddedChannel(handler);
+
+        TestHandler callback = new TestHandler();
+        handler.put(3, channel.newSucceededFuture(), callback);
+        channel.close();
+        Assert.assertNotNull(callback.exception);
+        Assert.assertEquals(0, handler.getActiveStreams());
+        Assert.assertEquals(1, handler.getStartedStreams());
+        Assert.assertEquals(0, handler.getCompletedStreams());
+    }
+
+    private FullHttpResponse response(int streamId) {
+        FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        response.headers().setInt(HttpConversionUtil.ExtensionHeaderNames.STREAM_ID.text(), streamId);
+        return response;
+    }
+
+    private static class TestHandler extends AbstractHttpClientHandler {
+
+        boolean   received;
+        Throwable exception;
+
+        TestHandler() {
+            super(null, null, null, null, null);
+        }
+
+        @Override
+        public Executor getExecutor() {
+            return null;
+        }
+
+        @Override
+        public void doOnResponse(Object result) {
+            received = true;
+        }
+
+        @Override
+        public void doOnException(Throwable e) {
+            exception = e;
+        }
+    }
+}
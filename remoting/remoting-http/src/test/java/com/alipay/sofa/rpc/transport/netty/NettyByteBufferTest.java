@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.transport.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.InputStream;
+
+public class NettyByteBufferTest {
+
+    @Test
+    public void testArray() {
+        byte[] bs = new byte[] { 1, 2, 3, 4 };
+        ByteBuf whole = Unpooled.wrappedBuffer(bs);
+        Assert.assertSame(bs, new NettyByteBuffer(whole).array());
+
+        ByteBuf slice = Unpooled.wrappedBuffer(new byte[] { 0, 1, 2, 3 }).slice(1, 2);
+        Assert.assertArrayEquals(new byte[] { 1, 2 }, new NettyByteBuffer(slice).array());
+
+        ByteBuf direct = Unpooled.directBuffer(2).writeBytes(new byte[] { 5, 6 });
+        Assert.assertArrayEquals(new byte[] { 5, 6 }, new NettyByteBuffer(direct).array());
+        direct.release();
+    }
+
+    @Test
+    public void testInputStream() throws Exception {
+        CompositeByteBuf composite = Unpooled.compositeBuffer();
+        composite.addComponent(true, Unpooled.wrappedBuffer(new byte[] { 1, 2 }));
+        composite.addComponent(true, Unpooled.directBuffer(2).writeBytes(new byte[] { 3, 4 }));
+
+        NettyByteBuffer buffer = new NettyByteBuffer(composite);
+        Assert.assertEquals(4, buffer.readableBytes());
+        InputStream inputStream = buffer.inputStream();
+        byte[] read = new byte[4];
+        Assert.assertEquals(4, inputStream.read(read));
+        Assert.assertArrayEquals(new byte[] { 1, 2, 3, 4 }, read);
+        Assert.assertEquals(-1, inputStream.read());
+        Assert.assertTrue(buffer.release());
+    }
+}
@@ -0,0 +1,449 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.transport.rest;
+
+import com.alipay.sofa.rpc.common.RpcConfigs;
+import com.alipay.sofa.rpc.common.RpcOptions;
+import com.alipay.sofa.rpc.common.SystemInfo;
+import com.alipay.sofa.rpc.common.struct.NamedThreadFactory;
+import com.alipay.sofa.rpc.context.AsyncRuntime;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.pool.AbstractChannelPoolHandler;
+import io.netty.channel.pool.AbstractChannelPoolMap;
+import io.netty.channel.pool.ChannelHealthChecker;
+import io.netty.channel.pool.FixedChannelPool;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.handler.timeout.IdleStateHandler;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.FutureListener;
+import org.jboss.resteasy.client.jaxrs.AsyncClientHttpEngine;
+import org.jboss.resteasy.client.jaxrs.internal.ClientConfiguration;
+import org.jboss.resteasy.client.jaxrs.internal.ClientInvocation;
+import org.jboss.resteasy.client.jaxrs.internal.ClientResponse;
+import org.jboss.resteasy.util.CaseInsensitiveMap;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.SSLContext;
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.client.InvocationCallback;
+import javax.ws.rs.core.MultivaluedMap;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.nio.channels.ClosedChannelException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * 基于 Netty 的 resteasy 客户端引擎。
+ * <p>
+ * 所有引擎共享一组IO线程，每个地址一个有上限的长连接池，空闲连接超时后关闭。
+ * 发送和接收都不占用业务线程，同步调用只在调用方线程上等待结果，异步调用（{@link #submit}）完全不阻塞。
+ */
+public class NettyClientHttpEngine implements AsyncClientHttpEngine {
+
+    /**
+     * 连接上正在等待的响应
+     */
+    private static final AttributeKey<CompletableFuture<NettyHttpResponse>>   RESPONSE_KEY     = AttributeKey
+                                                                                                   .valueOf("REST_RESPONSE");
+
+    private static final ResponseHandler                                      RESPONSE_HANDLER = new ResponseHandler();
+
+    /**
+     * 所有引擎共享的IO线程
+     */
+    private static EventLoopGroup                                             ioGroup;
+
+    /**
+     * 共享IO线程的引用数
+     */
+    private static int                                                        ioGroupRefCount;
+
+    /**
+     * 读超时（毫秒），小于等于0表示不超时
+     */
+    private final int                                                         readTimeout;
+
+    /**
+     * 每个地址一个连接池
+     */
+    private final AbstractChannelPoolMap<InetSocketAddress, FixedChannelPool> pools;
+
+    /**
+     * 构造函数
+     *
+     * @param connectTimeout 连接超时（毫秒）
+     * @param readTimeout    读超时（毫秒）
+     * @param maxConnections 每个地址的最大连接数
+     * @param idleTimeout    空闲连接回收时间（毫秒），小于等于0表示不回收
+     */
+    public NettyClientHttpEngine(int connectTimeout, int readTimeout, final int maxConnections,
+                                 final int idleTimeout) {
+        this.readTimeout = readTimeout;
+        final int payloadMax = RpcConfigs.getIntValue(RpcOptions.TRANSPORT_PAYLOAD_MAX);
+        final Bootstrap bootstrap = new Bootstrap()
+            .group(acquireIoGroup())
+            .channel(NioSocketChannel.class)
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeout)
+            .option(ChannelOption.TCP_NODELAY, true)
+            .option(ChannelOption.SO_KEEPALIVE, true);
+        final AbstractChannelPoolHandler poolHandler = new AbstractChannelPoolHandler() {
+            @Override
+            public void channelCreated(Channel ch) {
+                ChannelPipeline pipeline = ch.pipeline();
+                pipeline.addLast(new HttpClientCodec());
+                pipeline.addLast(new HttpObjectAggregator(payloadMax));
+                if (idleTimeout > 0) {
+                    pipeline.addLast(new IdleStateHandler(0, 0, idleTimeout, TimeUnit.MILLISECONDS));
+                }
+                pipeline.addLast(RESPONSE_HANDLER);
+            }
+        };
+        this.pools = new AbstractChannelPoolMap<InetSocketAddress, FixedChannelPool>() {
+            @Override
+            protected FixedChannelPool newPool(InetSocketAddress key) {
+                if (NettyClientHttpEngine.this.readTimeout > 0) {
+                    // 排队等待连接的时间也算在读超时里
+                    return new FixedChannelPool(bootstrap.clone().remoteAddress(key), poolHandler,
+                        ChannelHealthChecker.ACTIVE, FixedChannelPool.AcquireTimeoutAction.FAIL,
+                        NettyClientHttpEngine.this.readTimeout, maxConnections, Integer.MAX_VALUE);
+                }
+                return new FixedChannelPool(bootstrap.clone().remoteAddress(key), poolHandler, maxConnections);
+            }
+        };
+    }
+
+    private static synchronized EventLoopGroup acquireIoGroup() {
+        if (ioGroup == null) {
+            int ioThreads = RpcConfigs.getIntValue(RpcOptions.TRANSPORT_CLIENT_IO_THREADS);
+            int threads = ioThreads > 0 ? ioThreads : Math.max(4, SystemInfo.getCpuCores() + 1);
+            ioGroup = new NioEventLoopGroup(threads, new NamedThreadFactory("REST-CLI-IO", true));
+        }
+        ioGroupRefCount++;
+        return ioGroup;
+    }
+
+    private static synchronized void releaseIoGroup() {
+        if (--ioGroupRefCount <= 0 && ioGroup != null) {
+            ioGroup.shutdownGracefully();
+            ioGroup = null;
+        }
+    }
+
+    @Override
+    public SSLContext getSslContext() {
+        return null;
+    }
+
+    @Override
+    public HostnameVerifier getHostnameVerifier() {
+        return null;
+    }
+
+    @Override
+    public ClientResponse invoke(ClientInvocation request) {
+        try {
+            return toClientResponse(request, send(request).get());
+        } catch (ExecutionException e) {
+            throw new ProcessingException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProcessingException(e);
+        }
+    }
+
+    @Override
+    public <T> java.util.concurrent.Future<T> submit(final ClientInvocation request, boolean buffered,
+                                                     final InvocationCallback<T> callback,
+                                                     final ResultExtractor<T> extractor) {
+        final CompletableFuture<T> result = new CompletableFuture<T>();
+        // 响应已经完整读取，在回调线程池里反序列化和通知业务，不占用IO线程
+        send(request).whenCompleteAsync(new BiConsumer<NettyHttpResponse, Throwable>() {
+            @Override
+            public void accept(NettyHttpResponse response, Throwable throwable) {
+                if (throwable != null) {
+                    ProcessingException e = new ProcessingException(throwable);
+                    result.completeExceptionally(e);
+                    if (callback != null) {
+                        callback.failed(e);
+                    }
+                    return;
+                }
+                T value;
+                try {
+                    value = extractor.extractResult(toClientResponse(request, response));
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                    if (callback != null) {
+                        callback.failed(e);
+                    }
+                    return;
+                }
+                result.complete(value);
+                if (callback != null) {
+                    callback.completed(value);
+                }
+            }
+        }, AsyncRuntime.getAsyncThreadPool());
+        return result;
+    }
+
+    @Override
+    public void close() {
+        pools.close();
+        releaseIoGroup();
+    }
+
+    /**
+     * 从连接池里借一个连接发送请求，收到响应或者失败后归还连接
+     *
+     * @param request 请求
+     * @return 响应
+     */
+    protected CompletableFuture<NettyHttpResponse> send(ClientInvocation request) {
+        final CompletableFuture<NettyHttpResponse> future = new CompletableFuture<NettyHttpResponse>();
+        final FullHttpRequest httpRequest;
+        final FixedChannelPool pool;
+        try {
+            URI uri = request.getUri();
+            int port = uri.getPort() > 0 ? uri.getPort() : 80;
+            httpRequest = buildHttpRequest(request, uri, port);
+            pool = pools.get(InetSocketAddress.createUnresolved(uri.getHost(), port));
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+        pool.acquire().addListener(new FutureListener<Channel>() {
+            @Override
+            public void operationComplete(Future<Channel> acquired) {
+                if (!acquired.isSuccess()) {
+                    httpRequest.release();
+                    future.completeExceptionally(acquired.cause());
+                    return;
+                }
+                final Channel channel = acquired.getNow();
+                channel.attr(RESPONSE_KEY).set(future);
+                final io.netty.util.concurrent.ScheduledFuture<?> timeoutTask = readTimeout > 0 ?
+                    channel.eventLoop().schedule(new Runnable() {
+                        @Override
+                        public void run() {
+                            future.completeExceptionally(new SocketTimeoutException(
+                                "Read timed out after " + readTimeout + "ms"));
+                        }
+                    }, readTimeout, TimeUnit.MILLISECONDS) : null;
+                future.whenComplete(new BiConsumer<NettyHttpResponse, Throwable>() {
+                    @Override
+                    public void accept(NettyHttpResponse response, Throwable throwable) {
+                        if (timeoutTask != null) {
+                            timeoutTask.cancel(false);
+                        }
+                        channel.attr(RESPONSE_KEY).set(null);
+                        // 失败或者服务端不保持连接时，连接不能再复用
+                        if (throwable != null || !response.keepAlive) {
+                            channel.close();
+                        }
+                        pool.release(channel);
+                    }
+                });
+                channel.writeAndFlush(httpRequest).addListener(new ChannelFutureListener() {
+                    @Override
+                    public void operationComplete(ChannelFuture written) {
+                        if (!written.isSuccess()) {
+                            future.completeExceptionally(written.cause());
+                        }
+                    }
+                });
+            }
+        });
+        return future;
+    }
+
+    private FullHttpRequest buildHttpRequest(ClientInvocation request, URI uri, int port) throws IOException {
+        byte[] body = null;
+        if (request.getEntity() != null) {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            request.getDelegatingOutputStream().setDelegate(baos);
+            request.writeRequestBody(request.getEntityStream());
+            body = baos.toByteArray();
+        }
+        String path = uri.getRawPath();
+        if (path == null || path.isEmpty()) {
+            path = "/";
+        }
+        if (uri.getRawQuery() != null) {
+            path = path + "?" + uri.getRawQuery();
+        }
+        FullHttpRequest httpRequest = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1,
+            HttpMethod.valueOf(request.getMethod()), path,
+            body == null ? Unpooled.EMPTY_BUFFER : Unpooled.wrappedBuffer(body));
+        // 写请求体时拦截器可能会修改头，所以最后再设置头
+        for (Map.Entry<String, List<String>> header : request.getHeaders().asMap().entrySet()) {
+            for (String value : header.getValue()) {
+                httpRequest.headers().add(header.getKey(), value);
+            }
+        }
+        httpRequest.headers().set(HttpHeaderNames.HOST, uri.getHost() + ":" + port);
+        httpRequest.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.KEEP_ALIVE);
+        httpRequest.headers().set(HttpHeaderNames.CONTENT_LENGTH, body == null ? 0 : body.length);
+        return httpRequest;
+    }
+
+    private ClientResponse toClientResponse(ClientInvocation request, NettyHttpResponse response) {
+        ClientResponse clientResponse = new NettyClientResponse(request.getClientConfiguration(), response.body);
+        clientResponse.setProperties(request.getMutableProperties());
+        clientResponse.setStatus(response.status);
+        clientResponse.setHeaders(response.headers);
+        return clientResponse;
+    }
+
+    /**
+     * 完整读取的响应
+     */
+    protected static class NettyHttpResponse {
+
+        private final int                            status;
+
+        private final MultivaluedMap<String, String> headers;
+
+        private final byte[]                         body;
+
+        private final boolean                        keepAlive;
+
+        NettyHttpResponse(int status, MultivaluedMap<String, String> headers, byte[] body, boolean keepAlive) {
+            this.status = status;
+            this.headers = headers;
+            this.body = body;
+            this.keepAlive = keepAlive;
+        }
+    }
+
+    /**
+     * 响应体已经在内存里，释放连接不需要做任何事情
+     */
+    private static class NettyClientResponse extends ClientResponse {
+
+        private InputStream stream;
+
+        NettyClientResponse(ClientConfiguration configuration, byte[] body) {
+            super(configuration);
+            this.stream = new ByteArrayInputStream(body);
+        }
+
+        @Override
+        protected InputStream getInputStream() {
+            return stream;
+        }
+
+        @Override
+        protected void setInputStream(InputStream is) {
+            this.stream = is;
+        }
+
+        @Override
+        public void releaseConnection() {
+        }
+
+        @Override
+        public void releaseConnection(boolean consumeInputStream) {
+        }
+    }
+
+    /**
+     * 把响应交给连接上正在等待的调用，并回收空闲连接
+     */
+    @ChannelHandler.Sharable
+    private static class ResponseHandler extends SimpleChannelInboundHandler<FullHttpResponse> {
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, FullHttpResponse msg) {
+            CompletableFuture<NettyHttpResponse> future = ctx.channel().attr(RESPONSE_KEY).getAndSet(null);
+            if (future == null) {
+                // 已经超时
+                return;
+            }
+            MultivaluedMap<String, String> headers = new CaseInsensitiveMap<String>();
+            for (Map.Entry<String, String> header : msg.headers()) {
+                headers.add(header.getKey(), header.getValue());
+            }
+            future.complete(new NettyHttpResponse(msg.status().code(), headers,
+                ByteBufUtil.getBytes(msg.content()), HttpUtil.isKeepAlive(msg)));
+        }
+
+        @Override
+        public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+            if (evt instanceof IdleStateEvent) {
+                if (ctx.channel().attr(RESPONSE_KEY).get() == null) {
+                    ctx.close();
+                }
+            } else {
+                super.userEventTriggered(ctx, evt);
+            }
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            fail(ctx, new ClosedChannelException());
+            super.channelInactive(ctx);
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            fail(ctx, cause);
+            ctx.close();
+        }
+
+        private void fail(ChannelHandlerContext ctx, Throwable cause) {
+            CompletableFuture<NettyHttpResponse> future = ctx.channel().attr(RESPONSE_KEY).getAndSet(null);
+            if (future != null) {
+                future.completeExceptionally(cause);
+            }
+        }
+    }
+}
@@ -17,6 +17,8 @@
 package com.alipay.sofa.rpc.transport.rest;
 
 import com.alipay.sofa.rpc.client.ProviderInfo;
+import com.alipay.sofa.rpc.common.RpcConfigs;
+import com.alipay.sofa.rpc.common.RpcOptions;
 import com.alipay.sofa.rpc.common.cache.ReflectCache;
 import com.alipay.sofa.rpc.common.utils.ClassTypeUtils;
 import com.alipay.sofa.rpc.common.utils.ClassUtils;
@@ -44,7 +46,17 @@ public class RestClientTransport extends AbstractProxyClientTransport {
     /**
      * 默认至少的连接池大小
      */
-    private static final int MIN_CONNECTION_POOL_SIZE = 80;
+    private static final int      MIN_CONNECTION_POOL_SIZE = 80;
+
+    /**
+     * 基于 Netty 的http引擎
+     */
+    private static final String   ENGINE_NETTY             = "netty";
+
+    /**
+     * 使用 Netty 引擎时的引擎，需要在销毁时关闭
+     */
+    private NettyClientHttpEngine nettyEngine;
 
     public RestClientTransport(ClientTransportConfig transportConfig) {
         super(transportConfig);
@@ -54,11 +66,20 @@ public class RestClientTransport extends AbstractProxyClientTransport {
     protected Object buildProxy(ClientTransportConfig transportConfig) throws SofaRpcException {
         SofaResteasyClientBuilder builder = new SofaResteasyClientBuilder();
 
+        int poolSize = Math.max(transportConfig.getConnectionNum(), MIN_CONNECTION_POOL_SIZE);
+        if (ENGINE_NETTY.equals(RpcConfigs.getStringValue(RpcOptions.TRANSPORT_CLIENT_REST_ENGINE))) {
+            int poolMax = RpcConfigs.getIntValue(RpcOptions.TRANSPORT_CLIENT_REST_POOL_MAX);
+            nettyEngine = new NettyClientHttpEngine(transportConfig.getConnectTimeout(),
+                transportConfig.getInvokeTimeout(), poolMax > 0 ? poolMax : poolSize,
+                RpcConfigs.getIntValue(RpcOptions.TRANSPORT_CLIENT_REST_IDLE_TIMEOUT));
+            builder.httpEngine(nettyEngine);
+        }
+
         ResteasyClient client = builder
             .registerProvider().logProviders()
             .establishConnectionTimeout(transportConfig.getConnectTimeout(), TimeUnit.MILLISECONDS)
             .socketTimeout(transportConfig.getInvokeTimeout(), TimeUnit.MILLISECONDS)
-            .connectionPoolSize(Math.max(transportConfig.getConnectionNum(), MIN_CONNECTION_POOL_SIZE))
+            .connectionPoolSize(poolSize)
             .build();
 
         ProviderInfo provider = transportConfig.getProviderInfo();
@@ -68,6 +89,15 @@ public class RestClientTransport extends AbstractProxyClientTransport {
         return target.proxy(ClassUtils.forName(transportConfig.getConsumerConfig().getInterfaceId()));
     }
 
+    @Override
+    public void destroy() {
+        super.destroy();
+        if (nettyEngine != null) {
+            nettyEngine.close();
+            nettyEngine = null;
+        }
+    }
+
     @Override
     protected Method getMethod(SofaRequest request) throws SofaRpcException {
         String serviceUniqueName = request.getTargetServiceUniqueName();
@@ -19,6 +19,7 @@ package com.alipay.sofa.rpc.interceptor;
 import com.alipay.common.tracer.core.context.trace.SofaTraceContext;
 import com.alipay.common.tracer.core.holder.SofaTraceContextHolder;
 import com.alipay.common.tracer.core.span.SofaTracerSpan;
+import com.alipay.sofa.rpc.context.RpcInvokeContext;
 import com.alipay.sofa.rpc.context.RpcRunningState;
 import com.alipay.sofa.rpc.context.RpcRuntimeContext;
 import com.alipay.sofa.rpc.core.request.SofaRequest;
@@ -27,6 +28,7 @@ import com.alipay.sofa.rpc.tracer.sofatracer.TracingContextKey;
 import com.alipay.sofa.rpc.tracer.sofatracer.TripleTracerAdapter;
 import io.grpc.Context;
 import io.grpc.Contexts;
+import io.grpc.Deadline;
 import io.grpc.ForwardingServerCall;
 import io.grpc.ForwardingServerCallListener;
 import io.grpc.Metadata;
@@ -38,6 +40,8 @@ import io.grpc.StatusRuntimeException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * 服务端收请求Header的拦截器
  * <p>
@@ -75,6 +79,8 @@ public class ServerReqHeaderInterceptor extends TripleServerInterceptor {
             LOGGER.info("[1]header received from client:" + requestHeaders);
         }
 
+        // 客户端已经超时后，不再序列化响应
+        final boolean[] discarded = { false };
         ServerCall<ReqT, RespT> realCall = new ForwardingServerCall.SimpleForwardingServerCall<ReqT, RespT>(call) {
             @Override
             public void sendHeaders(Metadata responseHeaders) {
@@ -90,6 +96,12 @@ public class ServerReqHeaderInterceptor extends TripleServerInterceptor {
                 if (RpcRunningState.isDebugMode()) {
                     LOGGER.info("[5]send response message:{}", message);
                 }
+                if (isExpired(ctxWithSpan)) {
+                    discarded[0] = true;
+                    LOGGER.warn("Discard response because consumer has been timeout, service is: [{}]",
+                        call.getMethodDescriptor().getFullMethodName());
+                    return;
+                }
                 super.sendMessage(message);
 
                 sofaResponse.setAppResponse(message);
@@ -100,6 +112,10 @@ public class ServerReqHeaderInterceptor extends TripleServerInterceptor {
                 if (RpcRunningState.isDebugMode()) {
                     LOGGER.info("[6]send response message:{},trailers:{}", status, trailers);
                 }
+                if (discarded[0] && status.isOk()) {
+                    status = Status.DEADLINE_EXCEEDED
+                        .withDescription("Discard response because consumer has been timeout");
+                }
                 super.close(status, trailers);
             }
         };
@@ -139,6 +155,21 @@ public class ServerReqHeaderInterceptor extends TripleServerInterceptor {
                 }
                 // 服务端收到所有信息
                 TripleTracerAdapter.serverReceived(sofaRequest, serverServiceDefinition, call, requestHeaders);
+                // 丢弃在队列里等待太久、客户端已经超时的请求
+                if (isExpired(ctxWithSpan)) {
+                    LOGGER.warn("Discard request because consumer has been timeout, service is: [{}]",
+                        call.getMethodDescriptor().getFullMethodName());
+                    call.close(Status.DEADLINE_EXCEEDED.withDescription(
+                        "Discard request because consumer has been timeout"), new Metadata());
+                    return;
+                }
+                // 下游调用的超时时间不超过剩余时间
+                Deadline deadline = ctxWithSpan.getDeadline();
+                RpcInvokeContext invokeContext = null;
+                if (deadline != null) {
+                    invokeContext = RpcInvokeContext.getContext();
+                    invokeContext.setDeadline(RpcRuntimeContext.now() + deadline.timeRemaining(TimeUnit.MILLISECONDS));
+                }
                 try {
                     super.onHalfClose();
                 } catch (Throwable t) {
@@ -148,6 +179,10 @@ public class ServerReqHeaderInterceptor extends TripleServerInterceptor {
                     // 这个方式和 onError()本质是一样的
                     call.close(exception.getStatus(), exception.getTrailers());
                     throwable[0] = t;
+                } finally {
+                    if (invokeContext != null) {
+                        invokeContext.setDeadline(null);
+                    }
                 }
             }
 
@@ -158,4 +193,15 @@ public class ServerReqHeaderInterceptor extends TripleServerInterceptor {
         };
         return result;
     }
-}
\ No newline at end of file
+
+    /**
+     * 客户端是否已经超时
+     *
+     * @param context 调用上下文
+     * @return 是否超时
+     */
+    private static boolean isExpired(Context context) {
+        Deadline deadline = context.getDeadline();
+        return deadline != null && deadline.isExpired();
+    }
+}
@@ -25,7 +25,7 @@ import com.alipay.sofa.rpc.core.request.SofaRequest;
 import com.alipay.sofa.rpc.log.Logger;
 import com.alipay.sofa.rpc.log.LoggerFactory;
 import com.alipay.sofa.rpc.tracer.sofatracer.TracingContextKey;
-import com.alipay.sofa.rpc.transport.ByteArrayWrapperByteBuf;
+import com.alipay.sofa.rpc.transport.triple.ByteStringByteBuf;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.ProtocolStringList;
 import io.grpc.Context;
@@ -76,7 +76,7 @@ public class GenericServiceImpl extends SofaGenericServiceTriple.GenericServiceI
             Response.Builder builder = Response.newBuilder();
             builder.setSerializeType(request.getSerializeType());
             builder.setType(declaredMethod.getReturnType().getName());
-            builder.setData(ByteString.copyFrom(serializer.encode(result, null).array()));
+            builder.setData(ByteStringByteBuf.wrap(serializer.encode(result, null)));
             Response build = builder.build();
             responseObserver.onNext(build);
             responseObserver.onCompleted();
@@ -102,8 +102,7 @@ public class GenericServiceImpl extends SofaGenericServiceTriple.GenericServiceI
         Object[] args = new Object[argsList.size()];
 
         for (int i = 0; i < argsList.size(); i++) {
-            byte[] data = argsList.get(i).toByteArray();
-            args[i] = serializer.decode(new ByteArrayWrapperByteBuf(data), argTypes[i],
+            args[i] = serializer.decode(new ByteStringByteBuf(argsList.get(i)), argTypes[i],
                 null);
         }
         return args;
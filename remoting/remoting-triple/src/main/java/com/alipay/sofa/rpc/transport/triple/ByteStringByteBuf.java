@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.transport.triple;
+
+import com.alipay.sofa.rpc.transport.AbstractByteBuf;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+
+import java.io.InputStream;
+
+/**
+ * 包装 protobuf 的 ByteString，反序列化时直接从 ByteString 读取，不需要先拷贝成字节数组
+ */
+public class ByteStringByteBuf extends AbstractByteBuf {
+
+    private final ByteString data;
+
+    public ByteStringByteBuf(ByteString data) {
+        this.data = data;
+    }
+
+    /**
+     * 会拷贝一份数据，尽量使用 {@link #inputStream()}
+     *
+     * @return 字节数组
+     */
+    @Override
+    public byte[] array() {
+        return data.toByteArray();
+    }
+
+    @Override
+    public int readableBytes() {
+        return data.size();
+    }
+
+    @Override
+    public InputStream inputStream() {
+        return data.newInput();
+    }
+
+    @Override
+    public boolean release() {
+        return true;
+    }
+
+    /**
+     * 序列化的结果之后不会再被修改，直接包装成 ByteString，不拷贝
+     *
+     * @param byteBuf 序列化的结果
+     * @return ByteString
+     */
+    public static ByteString wrap(AbstractByteBuf byteBuf) {
+        return UnsafeByteOperations.unsafeWrap(byteBuf.array());
+    }
+}
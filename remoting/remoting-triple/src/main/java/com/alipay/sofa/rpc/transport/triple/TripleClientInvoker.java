@@ -24,7 +24,6 @@ import com.alipay.sofa.rpc.core.request.SofaRequest;
 import com.alipay.sofa.rpc.core.response.SofaResponse;
 import com.alipay.sofa.rpc.log.Logger;
 import com.alipay.sofa.rpc.log.LoggerFactory;
-import com.alipay.sofa.rpc.transport.ByteArrayWrapperByteBuf;
 import com.google.protobuf.ByteString;
 import io.grpc.CallOptions;
 import io.grpc.Channel;
@@ -34,6 +33,8 @@ import triple.Request;
 import triple.Response;
 
 import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 
 import static com.alipay.sofa.rpc.common.RpcConstants.SERIALIZE_HESSIAN2;
@@ -50,21 +51,35 @@ import static io.grpc.MethodDescriptor.generateFullMethodName;
  * @date 2018.12.15 7:06 PM
  */
 public class TripleClientInvoker implements TripleInvoker {
-    private final static Logger LOGGER                = LoggerFactory.getLogger(TripleClientInvoker.class);
+    private final static Logger                                                  LOGGER                = LoggerFactory
+                                                                                                           .getLogger(TripleClientInvoker.class);
 
-    private final static String DEFAULT_SERIALIZATION = SERIALIZE_HESSIAN2;
+    private final static String                                                  DEFAULT_SERIALIZATION = SERIALIZE_HESSIAN2;
 
-    protected Channel           channel;
+    private final static MethodDescriptor.Marshaller<?>                          REQUEST_MARSHALLER    = io.grpc.protobuf.ProtoUtils
+                                                                                                           .marshaller(Request
+                                                                                                               .getDefaultInstance());
 
-    protected ConsumerConfig    consumerConfig;
+    private final static MethodDescriptor.Marshaller<?>                          RESPONSE_MARSHALLER   = io.grpc.protobuf.ProtoUtils
+                                                                                                           .marshaller(Response
+                                                                                                               .getDefaultInstance());
 
-    protected Method            sofaStub;
+    protected Channel                                                            channel;
 
-    protected boolean           useGeneric;
+    protected ConsumerConfig                                                     consumerConfig;
 
-    private Serializer          serializer;
-    private String              serialization;
-    private boolean             useOldPath;
+    protected Method                                                             sofaStub;
+
+    protected boolean                                                            useGeneric;
+
+    private Serializer                                                           serializer;
+    private String                                                               serialization;
+    private boolean                                                              useOldPath;
+
+    /**
+     * 泛化调用的 MethodDescriptor 缓存 {service:{method:MethodDescriptor}}
+     */
+    private final ConcurrentMap<String, ConcurrentMap<String, MethodDescriptor>> methodDescriptorCache = new ConcurrentHashMap<String, ConcurrentMap<String, MethodDescriptor>>();
 
     public TripleClientInvoker(ConsumerConfig consumerConfig, Channel channel) {
         this.channel = channel;
@@ -109,23 +124,8 @@ public class TripleClientInvoker implements TripleInvoker {
             sofaResponse.setAppResponse(appResponse);
             return sofaResponse;
         } else {
-            String serviceName = sofaRequest.getInterfaceName();
-            String methodName = sofaRequest.getMethodName();
-            MethodDescriptor.Marshaller<?> requestMarshaller = null;
-            MethodDescriptor.Marshaller<?> responseMarshaller = null;
-            requestMarshaller = io.grpc.protobuf.ProtoUtils.marshaller(Request.getDefaultInstance());
-            responseMarshaller = io.grpc.protobuf.ProtoUtils.marshaller(Response.getDefaultInstance());
-            String fullMethodName = generateFullMethodName(serviceName, methodName);
-            MethodDescriptor methodDescriptor = io.grpc.MethodDescriptor
-                .newBuilder()
-                .setType(io.grpc.MethodDescriptor.MethodType.UNARY)
-                .setFullMethodName(useOldPath ? fullMethodName :
-                    getFullNameWithUniqueId(fullMethodName,
-                        consumerConfig.getUniqueId()))
-                .setSampledToLocalTracing(true)
-                .setRequestMarshaller((MethodDescriptor.Marshaller<Object>) requestMarshaller)
-                .setResponseMarshaller((MethodDescriptor.Marshaller<Object>) responseMarshaller)
-                .build();
+            MethodDescriptor methodDescriptor = getMethodDescriptor(sofaRequest.getInterfaceName(),
+                sofaRequest.getMethodName());
 
             Request request = getRequest(sofaRequest, serialization, serializer);
 
@@ -133,12 +133,12 @@ public class TripleClientInvoker implements TripleInvoker {
                 buildCustomCallOptions(sofaRequest, timeout), request);
 
             SofaResponse sofaResponse = new SofaResponse();
-            byte[] responseDate = response.getData().toByteArray();
+            ByteString responseDate = response.getData();
             Class returnType = sofaRequest.getMethod().getReturnType();
             if (returnType != void.class) {
-                if (responseDate != null && responseDate.length > 0) {
+                if (!responseDate.isEmpty()) {
                     Serializer responseSerializer = SerializerFactory.getSerializer(response.getSerializeType());
-                    Object appResponse = responseSerializer.decode(new ByteArrayWrapperByteBuf(responseDate),
+                    Object appResponse = responseSerializer.decode(new ByteStringByteBuf(responseDate),
                         returnType,
                         null);
                     sofaResponse.setAppResponse(appResponse);
@@ -150,6 +150,44 @@ public class TripleClientInvoker implements TripleInvoker {
 
     }
 
+    /**
+     * 泛化调用的 MethodDescriptor 按接口和方法缓存，uniqueId 在同一个 ConsumerConfig 下不变
+     *
+     * @param serviceName 接口名
+     * @param methodName  方法名
+     * @return MethodDescriptor
+     */
+    private MethodDescriptor getMethodDescriptor(String serviceName, String methodName) {
+        ConcurrentMap<String, MethodDescriptor> descriptors = methodDescriptorCache.get(serviceName);
+        if (descriptors == null) {
+            descriptors = new ConcurrentHashMap<String, MethodDescriptor>();
+            ConcurrentMap<String, MethodDescriptor> old = methodDescriptorCache.putIfAbsent(serviceName,
+                descriptors);
+            if (old != null) {
+                descriptors = old;
+            }
+        }
+        MethodDescriptor methodDescriptor = descriptors.get(methodName);
+        if (methodDescriptor == null) {
+            String fullMethodName = generateFullMethodName(serviceName, methodName);
+            methodDescriptor = io.grpc.MethodDescriptor
+                .newBuilder()
+                .setType(io.grpc.MethodDescriptor.MethodType.UNARY)
+                .setFullMethodName(useOldPath ? fullMethodName :
+                    getFullNameWithUniqueId(fullMethodName,
+                        consumerConfig.getUniqueId()))
+                .setSampledToLocalTracing(true)
+                .setRequestMarshaller((MethodDescriptor.Marshaller<Object>) REQUEST_MARSHALLER)
+                .setResponseMarshaller((MethodDescriptor.Marshaller<Object>) RESPONSE_MARSHALLER)
+                .build();
+            MethodDescriptor old = descriptors.putIfAbsent(methodName, methodDescriptor);
+            if (old != null) {
+                methodDescriptor = old;
+            }
+        }
+        return methodDescriptor;
+    }
+
     public static Request getRequest(SofaRequest sofaRequest, String serialization, Serializer serializer) {
         Request.Builder builder = Request.newBuilder();
         builder.setSerializeType(serialization);
@@ -159,7 +197,7 @@ public class TripleClientInvoker implements TripleInvoker {
 
         for (int i = 0; i < methodArgSigs.length; i++) {
             Object arg = methodArgs[i];
-            ByteString argByteString = ByteString.copyFrom(serializer.encode(arg, null).array());
+            ByteString argByteString = ByteStringByteBuf.wrap(serializer.encode(arg, null));
             builder.addArgs(argByteString);
             builder.addArgTypes(methodArgSigs[i]);
         }
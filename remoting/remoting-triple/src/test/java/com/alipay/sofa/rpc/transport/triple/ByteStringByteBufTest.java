@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.transport.triple;
+
+import com.alipay.sofa.rpc.codec.sofahessian.SofaHessianSerializer;
+import com.alipay.sofa.rpc.transport.AbstractByteBuf;
+import com.google.protobuf.ByteString;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ByteStringByteBufTest {
+
+    @Test
+    public void testWrapAndDecode() {
+        SofaHessianSerializer serializer = new SofaHessianSerializer();
+        AbstractByteBuf encoded = serializer.encode("triple", null);
+        ByteString byteString = ByteStringByteBuf.wrap(encoded);
+        Assert.assertEquals(encoded.readableBytes(), byteString.size());
+
+        ByteStringByteBuf byteBuf = new ByteStringByteBuf(byteString);
+        Assert.assertEquals(byteString.size(), byteBuf.readableBytes());
+        Assert.assertArrayEquals(encoded.array(), byteBuf.array());
+        Assert.assertEquals("triple", serializer.decode(byteBuf, String.class, null));
+        Assert.assertTrue(byteBuf.release());
+    }
+
+    @Test
+    public void testSubstring() {
+        SofaHessianSerializer serializer = new SofaHessianSerializer();
+        byte[] encoded = serializer.encode("triple", null).array();
+        byte[] padded = new byte[encoded.length + 4];
+        System.arraycopy(encoded, 0, padded, 2, encoded.length);
+        ByteString byteString = ByteString.copyFrom(padded).substring(2, 2 + encoded.length);
+        Assert.assertEquals("triple", serializer.decode(new ByteStringByteBuf(byteString), String.class, null));
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.circuitbreaker;
+
+import com.alipay.sofa.rpc.common.RpcConstants;
+import com.alipay.sofa.rpc.config.ConsumerConfig;
+import com.alipay.sofa.rpc.config.MethodConfig;
+import com.alipay.sofa.rpc.config.ProviderConfig;
+import com.alipay.sofa.rpc.config.ServerConfig;
+import com.alipay.sofa.rpc.context.RpcInvokeContext;
+import com.alipay.sofa.rpc.core.exception.SofaRpcException;
+import com.alipay.sofa.rpc.core.exception.SofaTimeOutException;
+import com.alipay.sofa.rpc.core.invoke.SofaResponseCallback;
+import com.alipay.sofa.rpc.core.request.RequestBase;
+import com.alipay.sofa.rpc.hystrix.HystrixService;
+import com.alipay.sofa.rpc.hystrix.HystrixServiceFallback;
+import com.alipay.sofa.rpc.hystrix.InvokeCounterHystrixService;
+import com.alipay.sofa.rpc.hystrix.SofaHystrixConfig;
+import com.alipay.sofa.rpc.message.ResponseFuture;
+import com.alipay.sofa.rpc.test.ActivelyDestroyTest;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CircuitBreakerFilterTest extends ActivelyDestroyTest {
+
+    private ProviderConfig<HystrixService> providerConfig;
+    private ServerConfig                   serverConfig;
+    private ConsumerConfig<HystrixService> consumerConfig;
+
+    @After
+    public void afterMethod() {
+        SofaHystrixConfig.clearFallback();
+        if (providerConfig != null) {
+            providerConfig.unExport();
+        }
+        if (serverConfig != null) {
+            serverConfig.destroy();
+        }
+        if (consumerConfig != null) {
+            consumerConfig.unRefer();
+        }
+    }
+
+    @Test
+    public void testSuccess() {
+        providerConfig = defaultServer(0);
+        providerConfig.export();
+
+        consumerConfig = defaultClient();
+        HystrixService helloService = consumerConfig.refer();
+
+        Assert.assertEquals("hello abc from server! age: 24", helloService.sayHello("abc", 24));
+    }
+
+    @Test
+    public void testOpenAndFallback() {
+        InvokeCounterHystrixService service = new InvokeCounterHystrixService(500);
+        providerConfig = defaultServer(service);
+        providerConfig.export();
+
+        consumerConfig = defaultClient()
+            .setTimeout(100)
+            .setMethods(Collections.singletonList(new MethodConfig()
+                .setName("sayHello")
+                .setParameter(CircuitBreakerConstants.CIRCUIT_BREAKER_MINIMUM_CALLS, "2")
+                .setParameter(CircuitBreakerConstants.CIRCUIT_BREAKER_OPEN_DURATION, "60000")));
+        HystrixService helloService = consumerConfig.refer();
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                helloService.sayHello("abc", 24);
+                Assert.fail();
+            } catch (SofaRpcException e) {
+                Assert.assertTrue(e instanceof SofaTimeOutException);
+            }
+        }
+        // 熔断器已打开，不再调用服务端
+        try {
+            helloService.sayHello("abc", 24);
+            Assert.fail();
+        } catch (SofaRpcException e) {
+            Assert.assertTrue(e.getMessage().contains("020140008"));
+        }
+        Assert.assertEquals(2, service.getExecuteCount());
+
+        // 和 hystrix 共用 fallback 配置
+        SofaHystrixConfig.registerFallback(consumerConfig, new HystrixServiceFallback());
+        Assert.assertEquals("fallback abc from server! age: 24", helloService.sayHello("abc", 24));
+        Assert.assertEquals(2, service.getExecuteCount());
+    }
+
+    @Test
+    public void testBulkhead() throws InterruptedException {
+        providerConfig = defaultServer(500);
+        providerConfig.export();
+
+        consumerConfig = defaultClient()
+            .setTimeout(5000)
+            .setParameter(CircuitBreakerConstants.BULKHEAD_MAX_CONCURRENT_CALLS, "1");
+        final HystrixService helloService = consumerConfig.refer();
+
+        final AtomicInteger success = new AtomicInteger();
+        final AtomicInteger rejected = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(3);
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < 3; i++) {
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        helloService.sayHello("abc", 24);
+                        success.incrementAndGet();
+                    } catch (SofaRpcException e) {
+                        if (e.getMessage().contains("020140009")) {
+                            rejected.incrementAndGet();
+                        }
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(1, success.get());
+        Assert.assertEquals(2, rejected.get());
+
+        // 调用结束后释放
+        Assert.assertEquals("hello abc from server! age: 24", helloService.sayHello("abc", 24));
+    }
+
+    @Test
+    public void testFutureBulkhead() throws Exception {
+        providerConfig = defaultServer(500);
+        providerConfig.export();
+
+        consumerConfig = defaultClient()
+            .setTimeout(5000)
+            .setInvokeType(RpcConstants.INVOKER_TYPE_FUTURE)
+            .setParameter(CircuitBreakerConstants.BULKHEAD_MAX_CONCURRENT_CALLS, "1");
+        HystrixService helloService = consumerConfig.refer();
+
+        // future 调用在结果返回前一直占用许可
+        helloService.sayHello("abc", 24);
+        ResponseFuture future = RpcInvokeContext.getContext().getFuture();
+        try {
+            helloService.sayHello("abc", 24);
+            Assert.fail();
+        } catch (SofaRpcException e) {
+            Assert.assertTrue(e.getMessage().contains("020140009"));
+        }
+        Assert.assertEquals("hello abc from server! age: 24", future.get());
+
+        // 结果返回后释放
+        helloService.sayHello("abc", 24);
+        Assert.assertEquals("hello abc from server! age: 24", RpcInvokeContext.getContext().getFuture().get());
+    }
+
+    @Test
+    public void testCallbackOpen() throws Exception {
+        InvokeCounterHystrixService service = new InvokeCounterHystrixService(500);
+        providerConfig = defaultServer(service);
+        providerConfig.export();
+
+        final CountDownLatch latch = new CountDownLatch(2);
+        consumerConfig = defaultClient()
+            .setTimeout(100)
+            .setInvokeType(RpcConstants.INVOKER_TYPE_CALLBACK)
+            .setOnReturn(new SofaResponseCallback() {
+                @Override
+                public void onAppResponse(Object appResponse, String methodName, RequestBase request) {
+                    latch.countDown();
+                }
+
+                @Override
+                public void onAppException(Throwable throwable, String methodName, RequestBase request) {
+                    latch.countDown();
+                }
+
+                @Override
+                public void onSofaException(SofaRpcException sofaException, String methodName,
+                                            RequestBase request) {
+                    latch.countDown();
+                }
+            })
+            .setParameter(CircuitBreakerConstants.CIRCUIT_BREAKER_MINIMUM_CALLS, "2")
+            .setParameter(CircuitBreakerConstants.CIRCUIT_BREAKER_OPEN_DURATION, "60000");
+        HystrixService helloService = consumerConfig.refer();
+
+        // 超时在回调里记为失败
+        helloService.sayHello("abc", 24);
+        helloService.sayHello("abc", 24);
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        try {
+            helloService.sayHello("abc", 24);
+            Assert.fail();
+        } catch (SofaRpcException e) {
+            Assert.assertTrue(e.getMessage().contains("020140008"));
+        }
+        Assert.assertEquals(2, service.getExecuteCount());
+    }
+
+    private ProviderConfig<HystrixService> defaultServer(int sleep) {
+        return defaultServer(new InvokeCounterHystrixService(sleep));
+    }
+
+    private ProviderConfig<HystrixService> defaultServer(HystrixService service) {
+        serverConfig = new ServerConfig()
+            .setPort(22223)
+            .setDaemon(false);
+
+        return new ProviderConfig<HystrixService>()
+            .setInterfaceId(HystrixService.class.getName())
+            .setRef(service)
+            .setServer(serverConfig);
+    }
+
+    private ConsumerConfig<HystrixService> defaultClient() {
+        return new ConsumerConfig<HystrixService>()
+            .setInterfaceId(HystrixService.class.getName())
+            .setDirectUrl("bolt://127.0.0.1:22223")
+            .setParameter(CircuitBreakerConstants.SOFA_CIRCUIT_BREAKER_ENABLED, String.valueOf(true));
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.server.rest;
+
+import com.alipay.sofa.rpc.common.RpcConfigs;
+import com.alipay.sofa.rpc.common.RpcConstants;
+import com.alipay.sofa.rpc.common.RpcOptions;
+import com.alipay.sofa.rpc.config.ConsumerConfig;
+import com.alipay.sofa.rpc.config.ProviderConfig;
+import com.alipay.sofa.rpc.config.ServerConfig;
+import com.alipay.sofa.rpc.core.exception.SofaRpcException;
+import com.alipay.sofa.rpc.test.ActivelyDestroyTest;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RestNettyEngineTest extends ActivelyDestroyTest {
+
+    private static RestService restService;
+
+    @BeforeClass
+    public static void before() {
+        RpcConfigs.putValue(RpcOptions.TRANSPORT_CLIENT_REST_ENGINE, "netty");
+        RpcConfigs.putValue(RpcOptions.TRANSPORT_CLIENT_REST_POOL_MAX, 2);
+
+        ServerConfig serverConfig = new ServerConfig()
+            .setStopTimeout(60000)
+            .setPort(8806)
+            .setProtocol(RpcConstants.PROTOCOL_TYPE_REST);
+
+        new ProviderConfig<RestService>()
+            .setInterfaceId(RestService.class.getName())
+            .setRef(new RestServiceImpl())
+            .setServer(serverConfig)
+            .setBootstrap("rest")
+            .setRegister(false)
+            .export();
+
+        ConsumerConfig<RestService> consumerConfig = new ConsumerConfig<RestService>()
+            .setInterfaceId(RestService.class.getName())
+            .setDirectUrl("rest://127.0.0.1:8806")
+            .setProtocol("rest")
+            .setBootstrap("rest")
+            .setTimeout(3000)
+            .setRegister(false);
+        restService = consumerConfig.refer();
+    }
+
+    @AfterClass
+    public static void after() {
+        RpcConfigs.putValue(RpcOptions.TRANSPORT_CLIENT_REST_ENGINE, "default");
+        RpcConfigs.putValue(RpcOptions.TRANSPORT_CLIENT_REST_POOL_MAX, 0);
+    }
+
+    @Test
+    public void testInvoke() {
+        Assert.assertEquals("create ok !61", restService.add(61, "netty"));
+        Assert.assertEquals("hello world !netty", restService.query(61));
+        Assert.assertEquals("update ok !61", restService.update(61, "engine").readEntity(String.class));
+        Assert.assertEquals("engine", restService.delete(61));
+
+        ExampleObj obj = new ExampleObj();
+        obj.setId(1);
+        obj.setName("netty");
+        Assert.assertEquals("netty server", restService.object(obj).getName());
+
+        boolean error = false;
+        try {
+            restService.error("11");
+        } catch (Exception e) {
+            error = true;
+            Assert.assertTrue(e instanceof SofaRpcException);
+        }
+        Assert.assertTrue(error);
+    }
+
+    @Test
+    public void testConcurrentInvoke() throws InterruptedException {
+        int times = 20;
+        final CountDownLatch latch = new CountDownLatch(times);
+        final AtomicInteger count = new AtomicInteger();
+        // 连接池只有2个连接，其它请求排队复用
+        for (int i = 0; i < times; i++) {
+            final int code = 100 + i;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        if (("create ok !" + code).equals(restService.add(code, "v" + code))) {
+                            count.incrementAndGet();
+                        }
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+            }, "rest-netty-" + i).start();
+        }
+        Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+        Assert.assertEquals(times, count.get());
+        Assert.assertEquals("hello world !v105", restService.query(105));
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.test.bootstrap.bolt;
+
+import com.alipay.sofa.rpc.client.ProviderGroup;
+import com.alipay.sofa.rpc.client.ProviderHelper;
+import com.alipay.sofa.rpc.common.RpcConfigs;
+import com.alipay.sofa.rpc.common.RpcConstants;
+import com.alipay.sofa.rpc.common.RpcOptions;
+import com.alipay.sofa.rpc.config.ConsumerConfig;
+import com.alipay.sofa.rpc.config.ProviderConfig;
+import com.alipay.sofa.rpc.config.ServerConfig;
+import com.alipay.sofa.rpc.context.StartupPhase;
+import com.alipay.sofa.rpc.context.StartupProfiler;
+import com.alipay.sofa.rpc.test.ActivelyDestroyTest;
+import com.alipay.sofa.rpc.test.HelloService;
+import com.alipay.sofa.rpc.test.HelloServiceImpl;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class BoltStartupProfileTest extends ActivelyDestroyTest {
+
+    @Before
+    public void setUp() {
+        RpcConfigs.putValue(RpcOptions.STARTUP_PROFILE_ENABLE, true);
+        StartupProfiler.clear();
+    }
+
+    @After
+    public void tearDown() {
+        RpcConfigs.putValue(RpcOptions.STARTUP_PROFILE_ENABLE, false);
+        StartupProfiler.clear();
+    }
+
+    @Test
+    public void testTimeline() {
+        ServerConfig serverConfig = new ServerConfig()
+            .setStopTimeout(0)
+            .setPort(22437)
+            .setProtocol(RpcConstants.PROTOCOL_TYPE_BOLT);
+        ServerConfig serverConfig2 = new ServerConfig()
+            .setStopTimeout(0)
+            .setPort(22438)
+            .setProtocol(RpcConstants.PROTOCOL_TYPE_BOLT);
+        ProviderConfig<HelloService> providerConfig = new ProviderConfig<HelloService>()
+            .setInterfaceId(HelloService.class.getName())
+            .setUniqueId("startup")
+            .setRef(new HelloServiceImpl())
+            .setServer(serverConfig)
+            .setRegister(false);
+        providerConfig.export();
+
+        ConsumerConfig<HelloService> consumerConfig = new ConsumerConfig<HelloService>()
+            .setInterfaceId(HelloService.class.getName())
+            .setUniqueId("startup")
+            .setDirectUrl("bolt://127.0.0.1:22437")
+            .setTimeout(3000);
+        HelloService helloService = consumerConfig.refer();
+        Assert.assertEquals("hello xxx from server! age: 22", helloService.sayHello("xxx", 22));
+
+        List<StartupPhase> exportPhases = StartupProfiler.getTimeline(providerConfig.buildKey());
+        Assert.assertEquals(StartupProfiler.PHASE_EXPORT, exportPhases.get(0).getPhase());
+        Set<String> names = phaseNames(exportPhases);
+        Assert.assertTrue(names.contains(StartupProfiler.PHASE_EXPORT_INVOKER));
+        Assert.assertTrue(names.contains(StartupProfiler.PHASE_SERVER_START));
+
+        List<StartupPhase> referPhases = StartupProfiler.getTimeline(consumerConfig.buildKey());
+        Assert.assertEquals(StartupProfiler.PHASE_REFER, referPhases.get(0).getPhase());
+        names = phaseNames(referPhases);
+        Assert.assertTrue(names.contains(StartupProfiler.PHASE_CLUSTER_INIT));
+        Assert.assertTrue(names.contains(StartupProfiler.PHASE_FILTER_CHAIN));
+        Assert.assertTrue(names.contains(StartupProfiler.PHASE_SUBSCRIBE));
+        Assert.assertTrue(names.contains(StartupProfiler.PHASE_CONNECT));
+        Assert.assertTrue(names.contains(StartupProfiler.PHASE_CONNECT_ONE));
+        Assert.assertTrue(names.contains(StartupProfiler.PHASE_CHECK_ALIVE));
+        Assert.assertTrue(names.contains(StartupProfiler.PHASE_PROXY));
+        for (StartupPhase phase : referPhases) {
+            Assert.assertTrue(phase.isSuccess());
+            Assert.assertTrue(phase.getElapsedMicros() <= referPhases.get(0).getElapsedMicros());
+        }
+
+        // 引用完成后推送的地址建立的连接不算启动耗时
+        serverConfig2.buildIfAbsent().start();
+        ProviderGroup providerGroup = new ProviderGroup(
+            Collections.singletonList(ProviderHelper.toProviderInfo("bolt://127.0.0.1:22438")));
+        consumerConfig.getConsumerBootstrap().getCluster().addProvider(providerGroup);
+        Assert.assertEquals(2, consumerConfig.getConsumerBootstrap().getCluster().getConnectionHolder()
+            .getAvailableConnections().size());
+        Assert.assertEquals(referPhases.size(), StartupProfiler.getTimeline(consumerConfig.buildKey()).size());
+    }
+
+    private Set<String> phaseNames(List<StartupPhase> phases) {
+        Set<String> names = new HashSet<String>();
+        for (StartupPhase phase : phases) {
+            names.add(phase.getPhase());
+        }
+        return names;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.test.client;
+
+import com.alipay.sofa.rpc.client.AdaptiveTimeout;
+import com.alipay.sofa.rpc.client.AdaptiveTimeoutManager;
+import com.alipay.sofa.rpc.common.RpcConfigs;
+import com.alipay.sofa.rpc.common.RpcConstants;
+import com.alipay.sofa.rpc.common.RpcOptions;
+import com.alipay.sofa.rpc.config.ConsumerConfig;
+import com.alipay.sofa.rpc.config.ProviderConfig;
+import com.alipay.sofa.rpc.config.ServerConfig;
+import com.alipay.sofa.rpc.test.ActivelyDestroyTest;
+import com.alipay.sofa.rpc.test.HelloService;
+import com.alipay.sofa.rpc.test.HelloServiceImpl;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+public class AdaptiveTimeoutClusterTest extends ActivelyDestroyTest {
+
+    @Test
+    public void testAdaptiveTimeout() throws InterruptedException {
+        int minSamples = RpcConfigs.getIntValue(RpcOptions.CONSUMER_TIMEOUT_ADAPTIVE_MIN_SAMPLES);
+        RpcConfigs.putValue(RpcOptions.CONSUMER_TIMEOUT_ADAPTIVE_ENABLE, true);
+        RpcConfigs.putValue(RpcOptions.CONSUMER_TIMEOUT_ADAPTIVE_MIN_SAMPLES, 5);
+        try {
+            ServerConfig serverConfig = new ServerConfig()
+                .setStopTimeout(0)
+                .setPort(22240)
+                .setProtocol(RpcConstants.PROTOCOL_TYPE_BOLT);
+            new ProviderConfig<HelloService>()
+                .setInterfaceId(HelloService.class.getName())
+                .setUniqueId("adaptive")
+                .setRef(new HelloServiceImpl())
+                .setServer(serverConfig)
+                .setRegister(false)
+                .export();
+
+            ConsumerConfig<HelloService> consumerConfig = new ConsumerConfig<HelloService>()
+                .setInterfaceId(HelloService.class.getName())
+                .setUniqueId("adaptive")
+                .setDirectUrl("bolt://127.0.0.1:22240")
+                .setRegister(false)
+                .setTimeout(3000);
+            HelloService helloService = consumerConfig.refer();
+            for (int i = 0; i < 10; i++) {
+                helloService.sayHello("xxx", 22);
+            }
+            // 建议超时每秒计算一次
+            Thread.sleep(1100);
+            helloService.sayHello("xxx", 22);
+
+            List<AdaptiveTimeout> timeouts = AdaptiveTimeoutManager.getAdaptiveTimeouts();
+            Assert.assertEquals(1, timeouts.size());
+            AdaptiveTimeout adaptiveTimeout = timeouts.get(0);
+            Assert.assertEquals("sayHello", adaptiveTimeout.getMethod());
+            Assert.assertEquals("127.0.0.1:22240", adaptiveTimeout.getProvider());
+            Assert.assertTrue(adaptiveTimeout.getLatency() >= 0);
+            Assert.assertTrue(adaptiveTimeout.getTimeout() >= 50);
+            Assert.assertTrue(adaptiveTimeout.getTimeout() < 3000);
+
+            consumerConfig.unRefer();
+            Assert.assertTrue(AdaptiveTimeoutManager.getAdaptiveTimeouts().isEmpty());
+        } finally {
+            RpcConfigs.putValue(RpcOptions.CONSUMER_TIMEOUT_ADAPTIVE_ENABLE, false);
+            RpcConfigs.putValue(RpcOptions.CONSUMER_TIMEOUT_ADAPTIVE_MIN_SAMPLES, minSamples);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.test.compress;
+
+import com.alipay.sofa.rpc.common.RemotingConstants;
+import com.alipay.sofa.rpc.common.RpcConstants;
+import com.alipay.sofa.rpc.config.ApplicationConfig;
+import com.alipay.sofa.rpc.config.ConsumerConfig;
+import com.alipay.sofa.rpc.config.MethodConfig;
+import com.alipay.sofa.rpc.config.ProviderConfig;
+import com.alipay.sofa.rpc.config.ServerConfig;
+import com.alipay.sofa.rpc.core.exception.SofaRpcException;
+import com.alipay.sofa.rpc.core.request.SofaRequest;
+import com.alipay.sofa.rpc.core.response.SofaResponse;
+import com.alipay.sofa.rpc.filter.Filter;
+import com.alipay.sofa.rpc.filter.FilterInvoker;
+import com.alipay.sofa.rpc.test.ActivelyDestroyTest;
+import com.alipay.sofa.rpc.test.EchoService;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+
+/**
+ * 测试 bolt 和 h2c 的消息体压缩
+ */
+public class CompressInvokeTest extends ActivelyDestroyTest {
+
+    @Test
+    public void testBolt() {
+        doTest(RpcConstants.PROTOCOL_TYPE_BOLT, 22731, RemotingConstants.HEAD_COMPRESS_TYPE);
+    }
+
+    @Test
+    public void testH2c() {
+        doTest(RpcConstants.PROTOCOL_TYPE_H2C, 22732, "content-encoding");
+    }
+
+    private void doTest(String protocol, int port, String compressKey) {
+        ServerConfig serverConfig = new ServerConfig()
+            .setPort(port)
+            .setProtocol(protocol)
+            .setDaemon(true);
+
+        CompressRecordFilter filter = new CompressRecordFilter(compressKey);
+        ProviderConfig<EchoService> providerConfig = new ProviderConfig<EchoService>()
+            .setInterfaceId(EchoService.class.getName())
+            .setRef(new EchoService() {
+                @Override
+                public String echoStr(String arg) {
+                    return arg;
+                }
+            })
+            .setBootstrap(protocol)
+            .setApplication(new ApplicationConfig().setAppName("serverApp"))
+            .setServer(serverConfig)
+            .setFilterRef(Collections.<Filter> singletonList(filter))
+            .setRegister(false);
+        providerConfig.export();
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            sb.append("compress").append(i % 10);
+        }
+        String large = sb.toString();
+
+        // 接口级别配置
+        ConsumerConfig<EchoService> consumerConfig = new ConsumerConfig<EchoService>()
+            .setInterfaceId(EchoService.class.getName())
+            .setDirectUrl(protocol + "://127.0.0.1:" + port)
+            .setProtocol(protocol)
+            .setBootstrap(protocol)
+            .setApplication(new ApplicationConfig().setAppName("clientApp"))
+            .setCompress("snappy")
+            .setTimeout(3000);
+        EchoService echoService = consumerConfig.refer();
+        // 第一次调用时服务端还没有声明支持压缩算法，请求体不压缩
+        Assert.assertEquals(large, echoService.echoStr(large));
+        Assert.assertEquals("snappy", filter.accept);
+        Assert.assertNull(filter.compress);
+        Assert.assertEquals(large, echoService.echoStr(large));
+        Assert.assertEquals("snappy", filter.accept);
+        Assert.assertEquals("snappy", filter.compress);
+
+        // 小于压缩基线不压缩
+        Assert.assertEquals("small", echoService.echoStr("small"));
+        Assert.assertEquals("snappy", filter.accept);
+        Assert.assertNull(filter.compress);
+
+        // 方法级别配置
+        ConsumerConfig<EchoService> consumerConfig2 = new ConsumerConfig<EchoService>()
+            .setInterfaceId(EchoService.class.getName())
+            .setDirectUrl(protocol + "://127.0.0.1:" + port)
+            .setProtocol(protocol)
+            .setBootstrap(protocol)
+            .setApplication(new ApplicationConfig().setAppName("clientApp"))
+            .setMethods(Collections.singletonList(new MethodConfig().setName("echoStr").setCompress("gzip")))
+            .setRepeatedReferLimit(-1)
+            .setTimeout(3000);
+        EchoService echoService2 = consumerConfig2.refer();
+        Assert.assertEquals(large, echoService2.echoStr(large));
+        Assert.assertEquals(large, echoService2.echoStr(large));
+        Assert.assertEquals("gzip", filter.accept);
+        Assert.assertEquals("gzip", filter.compress);
+
+        // 不配置压缩
+        ConsumerConfig<EchoService> consumerConfig3 = new ConsumerConfig<EchoService>()
+            .setInterfaceId(EchoService.class.getName())
+            .setDirectUrl(protocol + "://127.0.0.1:" + port)
+            .setProtocol(protocol)
+            .setBootstrap(protocol)
+            .setApplication(new ApplicationConfig().setAppName("clientApp"))
+            .setRepeatedReferLimit(-1)
+            .setTimeout(3000);
+        EchoService echoService3 = consumerConfig3.refer();
+        Assert.assertEquals(large, echoService3.echoStr(large));
+        Assert.assertNull(filter.accept);
+        Assert.assertNull(filter.compress);
+    }
+
+    @Test
+    public void testBoltOldProvider() {
+        doTestOldProvider(RpcConstants.PROTOCOL_TYPE_BOLT, 22733, RemotingConstants.HEAD_COMPRESS_TYPE);
+    }
+
+    @Test
+    public void testH2cOldProvider() {
+        doTestOldProvider(RpcConstants.PROTOCOL_TYPE_H2C, 22734, "content-encoding");
+    }
+
+    private void doTestOldProvider(String protocol, int port, String compressKey) {
+        ServerConfig serverConfig = new ServerConfig()
+            .setPort(port)
+            .setProtocol(protocol)
+            .setDaemon(true);
+
+        // 去掉调用方声明的压缩算法，服务端不会在响应里声明支持压缩，和老版本的服务端一样
+        CompressRecordFilter filter = new CompressRecordFilter(compressKey, true);
+        ProviderConfig<EchoService> providerConfig = new ProviderConfig<EchoService>()
+            .setInterfaceId(EchoService.class.getName())
+            .setUniqueId("old")
+            .setRef(new EchoService() {
+                @Override
+                public String echoStr(String arg) {
+                    return arg;
+                }
+            })
+            .setBootstrap(protocol)
+            .setApplication(new ApplicationConfig().setAppName("serverApp"))
+            .setServer(serverConfig)
+            .setFilterRef(Collections.<Filter> singletonList(filter))
+            .setRegister(false);
+        providerConfig.export();
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            sb.append("compress").append(i % 10);
+        }
+        String large = sb.toString();
+
+        ConsumerConfig<EchoService> consumerConfig = new ConsumerConfig<EchoService>()
+            .setInterfaceId(EchoService.class.getName())
+            .setUniqueId("old")
+            .setDirectUrl(protocol + "://127.0.0.1:" + port)
+            .setProtocol(protocol)
+            .setBootstrap(protocol)
+            .setApplication(new ApplicationConfig().setAppName("clientApp"))
+            .setCompress("snappy")
+            .setRepeatedReferLimit(-1)
+            .setTimeout(3000);
+        EchoService echoService = consumerConfig.refer();
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(large, echoService.echoStr(large));
+            Assert.assertEquals("snappy", filter.accept);
+            Assert.assertNull(filter.compress);
+        }
+    }
+
+    private static class CompressRecordFilter extends Filter {
+
+        private final String    compressKey;
+
+        private final boolean   ignoreAccept;
+
+        private volatile String accept;
+
+        private volatile String compress;
+
+        CompressRecordFilter(String compressKey) {
+            this(compressKey, false);
+        }
+
+        CompressRecordFilter(String compressKey, boolean ignoreAccept) {
+            this.compressKey = compressKey;
+            this.ignoreAccept = ignoreAccept;
+        }
+
+        @Override
+        public SofaResponse invoke(FilterInvoker invoker, SofaRequest request) throws SofaRpcException {
+            accept = (String) request.getRequestProp(RemotingConstants.HEAD_ACCEPT_COMPRESS);
+            compress = (String) request.getRequestProp(compressKey);
+            if (ignoreAccept) {
+                request.removeRequestProp(RemotingConstants.HEAD_ACCEPT_COMPRESS);
+            }
+            return invoker.invoke(request);
+        }
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.test.invoke;
+
+import com.alipay.sofa.rpc.api.future.SofaResponseFuture;
+import com.alipay.sofa.rpc.common.RemotingConstants;
+import com.alipay.sofa.rpc.common.RpcConstants;
+import com.alipay.sofa.rpc.config.ConsumerConfig;
+import com.alipay.sofa.rpc.config.ProviderConfig;
+import com.alipay.sofa.rpc.config.ServerConfig;
+import com.alipay.sofa.rpc.context.RpcInvokeContext;
+import com.alipay.sofa.rpc.core.exception.SofaRpcException;
+import com.alipay.sofa.rpc.core.exception.SofaTimeOutException;
+import com.alipay.sofa.rpc.core.invoke.SofaResponseCallback;
+import com.alipay.sofa.rpc.core.request.RequestBase;
+import com.alipay.sofa.rpc.event.Event;
+import com.alipay.sofa.rpc.event.EventBus;
+import com.alipay.sofa.rpc.event.ServerReceiveEvent;
+import com.alipay.sofa.rpc.event.Subscriber;
+import com.alipay.sofa.rpc.test.ActivelyDestroyTest;
+import com.alipay.sofa.rpc.test.HelloService;
+import com.alipay.sofa.rpc.test.HelloServiceImpl;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BatchInvokeTest extends ActivelyDestroyTest {
+
+    private final AtomicInteger batchCount   = new AtomicInteger();
+
+    private final Subscriber    batchCounter = new Subscriber() {
+                                                 @Override
+                                                 public void onEvent(Event event) {
+                                                     if (RemotingConstants.BATCH_METHOD_NAME
+                                                         .equals(((ServerReceiveEvent) event).getRequest()
+                                                             .getMethodName())) {
+                                                         batchCount.incrementAndGet();
+                                                     }
+                                                 }
+                                             };
+
+    @Before
+    public void before() {
+        EventBus.register(ServerReceiveEvent.class, batchCounter);
+    }
+
+    @After
+    public void after() {
+        EventBus.unRegister(ServerReceiveEvent.class, batchCounter);
+    }
+
+    @Test
+    public void testFutureBatch() throws Exception {
+        ServerConfig serverConfig = new ServerConfig()
+            .setPort(22440)
+            .setDaemon(false);
+        new ProviderConfig<HelloService>()
+            .setInterfaceId(HelloService.class.getName())
+            .setRef(new HelloServiceImpl())
+            .setServer(serverConfig)
+            .export();
+
+        ConsumerConfig<HelloService> consumerConfig = new ConsumerConfig<HelloService>()
+            .setInterfaceId(HelloService.class.getName())
+            .setInvokeType(RpcConstants.INVOKER_TYPE_FUTURE)
+            .setTimeout(3000)
+            .setBatchSize(4)
+            .setBatchWindow(1000)
+            .setDirectUrl("bolt://127.0.0.1:22440");
+        HelloService helloService = consumerConfig.refer();
+
+        List<Future> futures = new ArrayList<Future>();
+        for (int i = 0; i < 8; i++) {
+            helloService.sayHello("batch", i);
+            futures.add(SofaResponseFuture.getFuture(true));
+        }
+        for (int i = 0; i < 8; i++) {
+            Assert.assertEquals("hello batch from server! age: " + i, futures.get(i).get(1000, TimeUnit.MILLISECONDS));
+        }
+        Assert.assertEquals(2, batchCount.get());
+
+        // 没攒够的请求在窗口结束后发送
+        helloService.sayHello("alone", 1);
+        Future future = SofaResponseFuture.getFuture(true);
+        Assert.assertEquals("hello alone from server! age: 1", future.get(3000, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(2, batchCount.get());
+    }
+
+    @Test
+    public void testCallbackParallelBatch() throws Exception {
+        ServerConfig serverConfig = new ServerConfig()
+            .setPort(22441)
+            .setDaemon(false);
+        new ProviderConfig<HelloService>()
+            .setInterfaceId(HelloService.class.getName())
+            .setUniqueId("parallel")
+            .setRef(new HelloServiceImpl(300))
+            .setServer(serverConfig)
+            .export();
+
+        final String[] results = new String[4];
+        final CountDownLatch latch = new CountDownLatch(4);
+        ConsumerConfig<HelloService> consumerConfig = new ConsumerConfig<HelloService>()
+            .setInterfaceId(HelloService.class.getName())
+            .setUniqueId("parallel")
+            .setInvokeType(RpcConstants.INVOKER_TYPE_CALLBACK)
+            .setOnReturn(new SofaResponseCallback() {
+                @Override
+                public void onAppResponse(Object appResponse, String methodName, RequestBase request) {
+                    results[(Integer) request.getMethodArgs()[1]] = (String) appResponse;
+                    latch.countDown();
+                }
+
+                @Override
+                public void onAppException(Throwable throwable, String methodName, RequestBase request) {
+                    latch.countDown();
+                }
+
+                @Override
+                public void onSofaException(SofaRpcException sofaException, String methodName,
+                                            RequestBase request) {
+                    latch.countDown();
+                }
+            })
+            .setTimeout(3000)
+            .setBatchSize(4)
+            .setBatchParallel(true)
+            .setDirectUrl("bolt://127.0.0.1:22441");
+        HelloService helloService = consumerConfig.refer();
+
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 4; i++) {
+            helloService.sayHello("parallel", i);
+        }
+        Assert.assertTrue(latch.await(3000, TimeUnit.MILLISECONDS));
+        // 子请求并行执行，总耗时远小于串行的 1200ms
+        Assert.assertTrue(System.currentTimeMillis() - start < 1000);
+        for (int i = 0; i < 4; i++) {
+            Assert.assertEquals("hello parallel from server! age: " + i, results[i]);
+        }
+        Assert.assertEquals(1, batchCount.get());
+    }
+
+    @Test
+    public void testPerCallTimeout() throws Exception {
+        // 服务端一直阻塞到测试放行，调用结果只取决于各自的超时时间，与是否在同一批发送无关
+        final CountDownLatch gate = new CountDownLatch(1);
+        ServerConfig serverConfig = new ServerConfig()
+            .setPort(22442)
+            .setDaemon(false);
+        new ProviderConfig<HelloService>()
+            .setInterfaceId(HelloService.class.getName())
+            .setUniqueId("timeout")
+            .setRef(new HelloService() {
+                @Override
+                public String sayHello(String name, int age) {
+                    try {
+                        gate.await(5000, TimeUnit.MILLISECONDS);
+                    } catch (InterruptedException ignore) {
+                    }
+                    return "hello " + name + " from server! age: " + age;
+                }
+            })
+            .setServer(serverConfig)
+            .export();
+
+        final SofaRpcException[] exceptions = new SofaRpcException[2];
+        final String[] results = new String[2];
+        final long[] finished = new long[2];
+        final CountDownLatch[] latches = new CountDownLatch[] { new CountDownLatch(1), new CountDownLatch(1) };
+        ConsumerConfig<HelloService> consumerConfig = new ConsumerConfig<HelloService>()
+            .setInterfaceId(HelloService.class.getName())
+            .setUniqueId("timeout")
+            .setInvokeType(RpcConstants.INVOKER_TYPE_CALLBACK)
+            .setOnReturn(new SofaResponseCallback() {
+                @Override
+                public void onAppResponse(Object appResponse, String methodName, RequestBase request) {
+                    int index = (Integer) request.getMethodArgs()[1];
+                    results[index] = (String) appResponse;
+                    finished[index] = System.currentTimeMillis();
+                    latches[index].countDown();
+                }
+
+                @Override
+                public void onAppException(Throwable throwable, String methodName, RequestBase request) {
+                    latches[(Integer) request.getMethodArgs()[1]].countDown();
+                }
+
+                @Override
+                public void onSofaException(SofaRpcException sofaException, String methodName,
+                                            RequestBase request) {
+                    int index = (Integer) request.getMethodArgs()[1];
+                    exceptions[index] = sofaException;
+                    finished[index] = System.currentTimeMillis();
+                    latches[index].countDown();
+                }
+            })
+            .setTimeout(5000)
+            .setBatchSize(2)
+            .setDirectUrl("bolt://127.0.0.1:22442");
+        HelloService helloService = consumerConfig.refer();
+
+        long start = System.currentTimeMillis();
+        RpcInvokeContext.getContext().setTimeout(500);
+        helloService.sayHello("timeout", 0);
+        RpcInvokeContext.getContext().setTimeout(null);
+        helloService.sayHello("timeout", 1);
+
+        // 短超时的调用按自己的超时时间失败，长超时的调用不受影响
+        Assert.assertTrue(latches[0].await(3000, TimeUnit.MILLISECONDS));
+        Assert.assertTrue(exceptions[0] instanceof SofaTimeOutException);
+        Assert.assertNull(results[0]);
+        Assert.assertTrue(finished[0] - start >= 400 && finished[0] - start < 3000);
+        Assert.assertEquals(1, latches[1].getCount());
+
+        gate.countDown();
+        Assert.assertTrue(latches[1].await(3000, TimeUnit.MILLISECONDS));
+        Assert.assertNull(exceptions[1]);
+        Assert.assertEquals("hello timeout from server! age: 1", results[1]);
+    }
+}
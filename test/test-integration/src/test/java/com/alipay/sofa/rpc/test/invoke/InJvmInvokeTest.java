@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.test.invoke;
+
+import com.alipay.sofa.rpc.common.RpcConstants;
+import com.alipay.sofa.rpc.config.ConsumerConfig;
+import com.alipay.sofa.rpc.config.ProviderConfig;
+import com.alipay.sofa.rpc.config.ServerConfig;
+import com.alipay.sofa.rpc.context.RpcInternalContext;
+import com.alipay.sofa.rpc.event.ClientSyncReceiveEvent;
+import com.alipay.sofa.rpc.event.Event;
+import com.alipay.sofa.rpc.event.EventBus;
+import com.alipay.sofa.rpc.event.ServerReceiveEvent;
+import com.alipay.sofa.rpc.event.ServerSendEvent;
+import com.alipay.sofa.rpc.event.Subscriber;
+import com.alipay.sofa.rpc.test.ActivelyDestroyTest;
+import com.alipay.sofa.rpc.test.EchoService;
+import com.alipay.sofa.rpc.test.EchoServiceImpl;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class InJvmInvokeTest extends ActivelyDestroyTest {
+
+    @Test
+    public void testInJvm() {
+        // 服务端不启动，只能走JVM内调用
+        ServerConfig serverConfig = new ServerConfig()
+            .setStopTimeout(0)
+            .setPort(22438)
+            .setProtocol(RpcConstants.PROTOCOL_TYPE_BOLT)
+            .setAutoStart(false);
+        ProviderConfig<EchoService> providerConfig = new ProviderConfig<EchoService>()
+            .setInterfaceId(EchoService.class.getName())
+            .setUniqueId("injvm")
+            .setRef(new EchoServiceImpl())
+            .setServer(serverConfig)
+            .setRegister(false);
+        providerConfig.export();
+
+        final AtomicInteger serverEvents = new AtomicInteger();
+        final AtomicInteger clientEvents = new AtomicInteger();
+        Subscriber subscriber = new Subscriber() {
+            @Override
+            public void onEvent(Event event) {
+                if (event instanceof ClientSyncReceiveEvent) {
+                    clientEvents.incrementAndGet();
+                } else {
+                    serverEvents.incrementAndGet();
+                }
+            }
+        };
+        EventBus.register(ServerReceiveEvent.class, subscriber);
+        EventBus.register(ServerSendEvent.class, subscriber);
+        EventBus.register(ClientSyncReceiveEvent.class, subscriber);
+        try {
+            ConsumerConfig<EchoService> consumerConfig = new ConsumerConfig<EchoService>()
+                .setInterfaceId(EchoService.class.getName())
+                .setUniqueId("injvm")
+                .setDirectUrl("bolt://127.0.0.1:22438")
+                .setLazy(true)
+                .setInJVM(true)
+                .setTimeout(3000);
+            EchoService echoService = consumerConfig.refer();
+
+            String arg = new String("injvm");
+            Assert.assertSame(arg, echoService.echoStr(arg));
+            Assert.assertEquals(2, serverEvents.get());
+            Assert.assertEquals(1, clientEvents.get());
+
+            ConsumerConfig<EchoService> copyConsumerConfig = new ConsumerConfig<EchoService>()
+                .setInterfaceId(EchoService.class.getName())
+                .setUniqueId("injvm")
+                .setDirectUrl("bolt://127.0.0.1:22438")
+                .setLazy(true)
+                .setInJVM(true)
+                .setInJVMDeepCopy(true)
+                .setTimeout(3000);
+            EchoService copyEchoService = copyConsumerConfig.refer();
+            String result = copyEchoService.echoStr(arg);
+            Assert.assertEquals(arg, result);
+            Assert.assertNotSame(arg, result);
+
+            // 取消发布后不再走JVM内调用
+            providerConfig.unExport();
+            try {
+                echoService.echoStr(arg);
+                Assert.fail();
+            } catch (Exception e) {
+                // 服务端未启动
+            }
+        } finally {
+            EventBus.unRegister(ServerReceiveEvent.class, subscriber);
+            EventBus.unRegister(ServerSendEvent.class, subscriber);
+            EventBus.unRegister(ClientSyncReceiveEvent.class, subscriber);
+            RpcInternalContext.removeAllContext();
+        }
+    }
+
+    @Test
+    public void testRemoteWhenDisabled() {
+        ServerConfig serverConfig = new ServerConfig()
+            .setStopTimeout(0)
+            .setPort(22439)
+            .setProtocol(RpcConstants.PROTOCOL_TYPE_BOLT);
+        ProviderConfig<EchoService> providerConfig = new ProviderConfig<EchoService>()
+            .setInterfaceId(EchoService.class.getName())
+            .setUniqueId("remote")
+            .setRef(new EchoServiceImpl())
+            .setServer(serverConfig)
+            .setRegister(false);
+        providerConfig.export();
+
+        ConsumerConfig<EchoService> consumerConfig = new ConsumerConfig<EchoService>()
+            .setInterfaceId(EchoService.class.getName())
+            .setUniqueId("remote")
+            .setDirectUrl("bolt://127.0.0.1:22439")
+            .setTimeout(3000);
+        EchoService echoService = consumerConfig.refer();
+
+        String arg = new String("remote");
+        String result = echoService.echoStr(arg);
+        Assert.assertEquals(arg, result);
+        Assert.assertNotSame(arg, result);
+    }
+}
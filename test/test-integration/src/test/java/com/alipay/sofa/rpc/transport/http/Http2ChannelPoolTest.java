@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.transport.http;
+
+import com.alipay.sofa.rpc.common.RpcConfigs;
+import com.alipay.sofa.rpc.common.RpcConstants;
+import com.alipay.sofa.rpc.common.RpcOptions;
+import com.alipay.sofa.rpc.config.ApplicationConfig;
+import com.alipay.sofa.rpc.config.ConsumerConfig;
+import com.alipay.sofa.rpc.config.ProviderConfig;
+import com.alipay.sofa.rpc.config.ServerConfig;
+import com.alipay.sofa.rpc.server.http.HttpService;
+import com.alipay.sofa.rpc.server.http.HttpServiceImpl;
+import com.alipay.sofa.rpc.test.ActivelyDestroyTest;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class Http2ChannelPoolTest extends ActivelyDestroyTest {
+
+    private static final String KEY = "h2c://127.0.0.1:12340";
+
+    @Test
+    public void testSharedPool() throws InterruptedException {
+        int poolMax = RpcConfigs.getIntValue(RpcOptions.TRANSPORT_CLIENT_H2_POOL_MAX);
+        int streamsRatio = RpcConfigs.getIntValue(RpcOptions.TRANSPORT_CLIENT_H2_POOL_STREAMS_RATIO);
+        // 任意活跃流都视为高负载，连接数会增长到上限
+        RpcConfigs.putValue(RpcOptions.TRANSPORT_CLIENT_H2_POOL_MAX, 2);
+        RpcConfigs.putValue(RpcOptions.TRANSPORT_CLIENT_H2_POOL_STREAMS_RATIO, 0);
+        try {
+            ServerConfig serverConfig = new ServerConfig()
+                .setPort(12340)
+                .setProtocol(RpcConstants.PROTOCOL_TYPE_H2C)
+                .setDaemon(true);
+
+            for (String uniqueId : new String[] { "a", "b" }) {
+                new ProviderConfig<HttpService>()
+                    .setInterfaceId(HttpService.class.getName())
+                    .setRef(new HttpServiceImpl())
+                    .setApplication(new ApplicationConfig().setAppName("serverApp"))
+                    .setServer(serverConfig)
+                    .setUniqueId(uniqueId)
+                    .setRegister(false)
+                    .export();
+            }
+            ConsumerConfig<HttpService> consumerA = buildConsumer("a");
+            ConsumerConfig<HttpService> consumerB = buildConsumer("b");
+            HttpService serviceA = consumerA.refer();
+            HttpService serviceB = consumerB.refer();
+
+            Http2ChannelPool pool = Http2ChannelPool.getPools().get(KEY);
+            Assert.assertNotNull(pool);
+
+            for (int i = 0; i < 10; i++) {
+                Assert.assertEquals("xx" + i, serviceA.query(i));
+                Assert.assertEquals("xx" + i, serviceB.query(i));
+            }
+            long start = System.currentTimeMillis();
+            while (pool.getChannels().size() < 2 && System.currentTimeMillis() - start < 3000) {
+                Thread.sleep(10);
+            }
+            for (int i = 0; i < 10; i++) {
+                Assert.assertNotNull(serviceA.query(i));
+            }
+
+            // 两个服务共用同一个地址的连接池，连接数不超过上限
+            Assert.assertEquals(1, Http2ChannelPool.getPools().size());
+            Assert.assertEquals(2, pool.getChannels().size());
+            Assert.assertEquals(2, pool.getOpenedChannels());
+            Assert.assertEquals(0, pool.getDrainingChannels());
+            Assert.assertEquals(30, pool.getStartedStreams());
+            Assert.assertEquals(30, pool.getCompletedStreams());
+            Assert.assertEquals(0, pool.getActiveStreams());
+            Assert.assertEquals(0, pool.getFailedStreams());
+
+            consumerA.unRefer();
+            Assert.assertSame(pool, Http2ChannelPool.getPools().get(KEY));
+            Assert.assertNotNull(serviceB.query(1));
+            consumerB.unRefer();
+            Assert.assertNull(Http2ChannelPool.getPools().get(KEY));
+            Assert.assertFalse(pool.isAvailable());
+        } finally {
+            RpcConfigs.putValue(RpcOptions.TRANSPORT_CLIENT_H2_POOL_MAX, poolMax);
+            RpcConfigs.putValue(RpcOptions.TRANSPORT_CLIENT_H2_POOL_STREAMS_RATIO, streamsRatio);
+        }
+    }
+
+    private ConsumerConfig<HttpService> buildConsumer(String uniqueId) {
+        return new ConsumerConfig<HttpService>()
+            .setInterfaceId(HttpService.class.getName())
+            .setDirectUrl(KEY)
+            .setApplication(new ApplicationConfig().setAppName("clientApp"))
+            .setProtocol(RpcConstants.PROTOCOL_TYPE_H2C)
+            .setUniqueId(uniqueId)
+            .setSerialization(RpcConstants.SERIALIZE_HESSIAN2)
+            .setTimeout(3000);
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.transport.http;
+
+import com.alipay.sofa.rpc.common.RpcConstants;
+import com.alipay.sofa.rpc.config.ApplicationConfig;
+import com.alipay.sofa.rpc.config.ConsumerConfig;
+import com.alipay.sofa.rpc.config.ProviderConfig;
+import com.alipay.sofa.rpc.config.ServerConfig;
+import com.alipay.sofa.rpc.server.http.ExampleObj;
+import com.alipay.sofa.rpc.server.http.HttpService;
+import com.alipay.sofa.rpc.server.http.HttpServiceImpl;
+import com.alipay.sofa.rpc.test.ActivelyDestroyTest;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class Http2ClearTextLargePayloadTest extends ActivelyDestroyTest {
+
+    @Test
+    public void testLargePayload() {
+        ServerConfig serverConfig = new ServerConfig()
+            .setStopTimeout(60000)
+            .setPort(12301)
+            .setProtocol(RpcConstants.PROTOCOL_TYPE_H2C)
+            .setDaemon(true);
+
+        ProviderConfig<HttpService> providerConfig = new ProviderConfig<HttpService>()
+            .setInterfaceId(HttpService.class.getName())
+            .setRef(new HttpServiceImpl())
+            .setApplication(new ApplicationConfig().setAppName("serverApp"))
+            .setServer(serverConfig)
+            .setRegister(false);
+        providerConfig.export();
+
+        ConsumerConfig<HttpService> consumerConfig = new ConsumerConfig<HttpService>()
+            .setInterfaceId(HttpService.class.getName())
+            .setDirectUrl("h2c://127.0.0.1:12301")
+            .setApplication(new ApplicationConfig().setAppName("clientApp"))
+            .setProtocol(RpcConstants.PROTOCOL_TYPE_H2C);
+        HttpService httpService = consumerConfig.refer();
+
+        // 请求体超过默认的帧大小（16K），会被拆成多个 DATA 帧
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < 100 * 1024; i++) {
+            name.append((char) ('a' + i % 26));
+        }
+        for (int i = 0; i < 5; i++) {
+            ExampleObj request = new ExampleObj();
+            request.setId(i);
+            request.setName(name.toString());
+            ExampleObj response = httpService.object(request);
+            Assert.assertEquals(i, response.getId());
+            Assert.assertEquals(name + "xx", response.getName());
+        }
+    }
+}
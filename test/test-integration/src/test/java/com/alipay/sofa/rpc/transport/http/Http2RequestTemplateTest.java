@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.transport.http;
+
+import com.alipay.sofa.rpc.codec.SerializerFactory;
+import com.alipay.sofa.rpc.common.RemotingConstants;
+import com.alipay.sofa.rpc.common.RpcConstants;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.util.AsciiString;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class Http2RequestTemplateTest {
+
+    @Test
+    public void testNewRequest() {
+        byte hessian2 = SerializerFactory.getCodeByAlias(RpcConstants.SERIALIZE_HESSIAN2);
+        byte protobuf = SerializerFactory.getCodeByAlias(RpcConstants.SERIALIZE_PROTOBUF);
+        Http2RequestTemplate template = new Http2RequestTemplate(AsciiString.cached("127.0.0.1:12200"),
+            "com.xx.TestService:1.0", "echo", hessian2, "serverApp");
+        Assert.assertTrue(template.matches(hessian2, "serverApp"));
+        Assert.assertFalse(template.matches(protobuf, "serverApp"));
+        Assert.assertFalse(template.matches(hessian2, null));
+        Assert.assertNotNull(template.getSerializer());
+
+        FullHttpRequest request = template.newRequest(Unpooled.EMPTY_BUFFER);
+        Assert.assertEquals(HttpMethod.POST, request.method());
+        Assert.assertEquals("/com.xx.TestService:1.0/echo", request.uri());
+        Assert.assertSame(template.getPath(), request.uri());
+        Assert.assertEquals("127.0.0.1:12200", request.headers().get(HttpHeaderNames.HOST));
+        Assert.assertEquals("hessian2", request.headers().get(RemotingConstants.HEAD_SERIALIZE_TYPE));
+        Assert.assertEquals("serverApp", request.headers().get(RemotingConstants.HEAD_TARGET_APP));
+        Assert.assertEquals(2, request.headers().getAll(HttpHeaderNames.ACCEPT_ENCODING).size());
+
+        // 动态请求头不会影响模板
+        request.headers().add(RemotingConstants.HEAD_TIMEOUT, "3000");
+        FullHttpRequest request2 = template.newRequest(Unpooled.EMPTY_BUFFER);
+        Assert.assertNull(request2.headers().get(RemotingConstants.HEAD_TIMEOUT));
+        Assert.assertEquals("serverApp", request2.headers().get(RemotingConstants.HEAD_TARGET_APP));
+    }
+}
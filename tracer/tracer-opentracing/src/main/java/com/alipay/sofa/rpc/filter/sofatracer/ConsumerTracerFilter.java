@@ -31,6 +31,7 @@ import com.alipay.sofa.rpc.filter.AutoActive;
 import com.alipay.sofa.rpc.filter.Filter;
 import com.alipay.sofa.rpc.filter.FilterInvoker;
 import com.alipay.sofa.rpc.module.SofaTracerModule;
+import com.alipay.sofa.rpc.tracer.sofatracer.RpcSofaTracer;
 import com.alipay.sofa.rpc.tracer.sofatracer.log.tags.RpcSpanTags;
 
 /**
@@ -54,13 +55,19 @@ public class ConsumerTracerFilter extends Filter {
         clientSpan.setTag(RpcSpanTags.INVOKE_TYPE, request.getInvokeType());
 
         RpcInternalContext context = RpcInternalContext.getContext();
-        clientSpan.setTag(RpcSpanTags.ROUTE_RECORD,
-            (String) context.getAttachment(RpcConstants.INTERNAL_KEY_ROUTER_RECORD));
+        // 未采样的调用只保留统计需要的 tag
+        boolean sampled = RpcSofaTracer.isSampled(clientSpan);
+        if (sampled) {
+            clientSpan.setTag(RpcSpanTags.ROUTE_RECORD,
+                (String) context.getAttachment(RpcConstants.INTERNAL_KEY_ROUTER_RECORD));
+        }
 
         ProviderInfo providerInfo = context.getProviderInfo();
         if (providerInfo != null) {
             clientSpan.setTag(RpcSpanTags.REMOTE_APP, providerInfo.getStaticAttr(ProviderInfoAttrs.ATTR_APP_NAME));
-            clientSpan.setTag(RpcSpanTags.REMOTE_IP, providerInfo.getHost() + ":" + providerInfo.getPort());
+            if (sampled) {
+                clientSpan.setTag(RpcSpanTags.REMOTE_IP, providerInfo.getHost() + ":" + providerInfo.getPort());
+            }
         }
 
         return invoker.invoke(request);
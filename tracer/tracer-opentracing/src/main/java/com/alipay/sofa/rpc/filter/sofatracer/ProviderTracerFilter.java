@@ -30,6 +30,7 @@ import com.alipay.sofa.rpc.filter.AutoActive;
 import com.alipay.sofa.rpc.filter.Filter;
 import com.alipay.sofa.rpc.filter.FilterInvoker;
 import com.alipay.sofa.rpc.module.SofaTracerModule;
+import com.alipay.sofa.rpc.tracer.sofatracer.RpcSofaTracer;
 import com.alipay.sofa.rpc.tracer.sofatracer.log.tags.RpcSpanTags;
 
 import static com.alipay.sofa.rpc.common.RemotingConstants.HEAD_APP_NAME;
@@ -58,7 +59,11 @@ public class ProviderTracerFilter extends Filter {
                 RpcInternalContext context = RpcInternalContext.getContext();
                 serverSpan.setTag(RpcSpanTags.SERVICE, request.getTargetServiceUniqueName());
                 serverSpan.setTag(RpcSpanTags.METHOD, request.getMethodName());
-                serverSpan.setTag(RpcSpanTags.REMOTE_IP, context.getRemoteHostName()); // 客户端地址
+                // 未采样的调用只保留统计需要的 tag
+                boolean sampled = RpcSofaTracer.isSampled(serverSpan);
+                if (sampled) {
+                    serverSpan.setTag(RpcSpanTags.REMOTE_IP, context.getRemoteHostName()); // 客户端地址
+                }
 
                 // 从请求里获取ConsumerTracerFilter额外传递的信息
                 serverSpan.setTag(RpcSpanTags.REMOTE_APP, (String) request.getRequestProp(HEAD_APP_NAME));
@@ -68,12 +73,14 @@ public class ProviderTracerFilter extends Filter {
                 ProviderConfig providerConfig = (ProviderConfig) invoker.getConfig();
                 serverSpan.setTag(RpcSpanTags.LOCAL_APP, providerConfig.getAppName());
 
-                serverSpan.setTag(RpcSpanTags.SERVER_THREAD_POOL_WAIT_TIME,
-                    (Number) context.getAttachment(RpcConstants.INTERNAL_KEY_PROCESS_WAIT_TIME));
+                if (sampled) {
+                    serverSpan.setTag(RpcSpanTags.SERVER_THREAD_POOL_WAIT_TIME,
+                        (Number) context.getAttachment(RpcConstants.INTERNAL_KEY_PROCESS_WAIT_TIME));
+                }
             }
             return invoker.invoke(request);
         } finally {
-            if (serverSpan != null) {
+            if (serverSpan != null && RpcSofaTracer.isSampled(serverSpan)) {
                 serverSpan.setTag(RpcSpanTags.SERVER_BIZ_TIME,
                     (Number) RpcInternalContext.getContext().getAttachment(RpcConstants.INTERNAL_KEY_IMPL_ELAPSE));
             }
@@ -25,12 +25,15 @@ import com.alipay.common.tracer.core.context.trace.SofaTraceContext;
 import com.alipay.common.tracer.core.holder.SofaTraceContextHolder;
 import com.alipay.common.tracer.core.reporter.facade.Reporter;
 import com.alipay.common.tracer.core.reporter.stat.SofaTracerStatisticReporter;
+import com.alipay.common.tracer.core.samplers.Sampler;
 import com.alipay.common.tracer.core.span.LogData;
 import com.alipay.common.tracer.core.span.SofaTracerSpan;
+import com.alipay.sofa.common.config.SofaConfigs;
 import com.alipay.sofa.rpc.client.ProviderInfo;
 import com.alipay.sofa.rpc.common.RemotingConstants;
 import com.alipay.sofa.rpc.common.RpcConstants;
 import com.alipay.sofa.rpc.common.TracerCompatibleConstants;
+import com.alipay.sofa.rpc.common.config.RpcConfigKeys;
 import com.alipay.sofa.rpc.common.utils.ExceptionUtils;
 import com.alipay.sofa.rpc.common.utils.NetUtils;
 import com.alipay.sofa.rpc.common.utils.StringUtils;
@@ -88,9 +91,33 @@ public class RpcSofaTracer extends Tracer {
         Reporter serverReporter = generateReporter(serverStats, RpcTracerLogEnum.RPC_SERVER_DIGEST, serverEncoder);
 
         //构造 RPC 的 tracer 实例
-        sofaTracer = new SofaTracer.Builder(RPC_TRACER_TYPE)
-            .withClientReporter(clientReporter).withServerReporter(serverReporter)
-            .build();
+        Sampler sampler = generateSampler();
+        if (sampler == null) {
+            sofaTracer = new SofaTracer.Builder(RPC_TRACER_TYPE)
+                .withClientReporter(clientReporter).withServerReporter(serverReporter)
+                .build();
+        } else {
+            //Builder 总是使用全局的采样器，这里直接构造
+            sofaTracer = new SampledSofaTracer(clientReporter, serverReporter, sampler);
+        }
+    }
+
+    protected Sampler generateSampler() {
+        //只在根节点采样，下游通过上下文中的采样标记继承
+        int rate = SofaConfigs.getOrDefault(RpcConfigKeys.TRACER_SAMPLE_RATE);
+        int maxPerSecond = SofaConfigs.getOrDefault(RpcConfigKeys.TRACER_SAMPLE_MAX_PER_SECOND);
+        return RpcTracerSampler.isRequired(rate, maxPerSecond) ? new RpcTracerSampler(rate, maxPerSecond) : null;
+    }
+
+    /**
+     * 是否被采样，未采样的 span 只保留统计日志需要的 tag
+     *
+     * @param span span
+     * @return 是否被采样
+     */
+    public static boolean isSampled(SofaTracerSpan span) {
+        SofaTracerSpanContext spanContext = span.getSofaTracerSpanContext();
+        return spanContext == null || spanContext.isSampled();
     }
 
     protected SpanEncoder<SofaTracerSpan> getClientSpanEncoder() {
@@ -161,7 +188,9 @@ public class RpcSofaTracer extends Tracer {
 
         clientSpan.setTag(RpcSpanTags.SERVICE, request.getTargetServiceUniqueName());
         clientSpan.setTag(RpcSpanTags.METHOD, request.getMethodName());
-        clientSpan.setTag(RpcSpanTags.CURRENT_THREAD_NAME, Thread.currentThread().getName());
+        if (isSampled(clientSpan)) {
+            clientSpan.setTag(RpcSpanTags.CURRENT_THREAD_NAME, Thread.currentThread().getName());
+        }
 
         //需要主动缓存自己的 serverSpan,原因是:asChildOf 关注的是 spanContext
         clientSpan.setParentSofaTracerSpan(serverSpan);
@@ -253,7 +282,10 @@ public class RpcSofaTracer extends Tracer {
         RpcInternalContext context = null;
         if (RpcInternalContext.isAttachmentEnable()) {
             context = RpcInternalContext.getContext();
-
+            //adjust for generic invoke
+            clientSpan.setTag(RpcSpanTags.METHOD, request.getMethodName());
+        }
+        if (context != null && isSampled(clientSpan)) {
             if (!clientSpan.getTagsWithStr().containsKey(RpcSpanTags.ROUTE_RECORD)) {
                 clientSpan.setTag(RpcSpanTags.ROUTE_RECORD,
                     (String) context.getAttachment(RpcConstants.INTERNAL_KEY_ROUTER_RECORD));
@@ -278,9 +310,6 @@ public class RpcSofaTracer extends Tracer {
                 clientSpan.setTag(RpcSpanTags.LOCAL_IP, NetUtils.toIpString(address));
                 clientSpan.setTag(RpcSpanTags.LOCAL_PORT, address.getPort());
             }
-
-            //adjust for generic invoke
-            clientSpan.setTag(RpcSpanTags.METHOD, request.getMethodName());
         }
 
         Throwable throwableShow = exceptionThrow;
@@ -426,6 +455,11 @@ public class RpcSofaTracer extends Tracer {
 
         // Record server receive event
         serverSpan.log(LogData.SERVER_RECV_EVENT_VALUE);
+        //JVM内调用时服务端在调用方线程上处理，需要缓存调用方的 span，服务端结束后还原
+        SofaTracerSpan callerSpan = sofaTraceContext.getCurrentSpan();
+        if (callerSpan != null) {
+            serverSpan.setParentSofaTracerSpan(callerSpan);
+        }
         //放到线程上下文
         sofaTraceContext.push(serverSpan);
         //rpc 上下文
@@ -498,15 +532,18 @@ public class RpcSofaTracer extends Tracer {
         // Record server send event
         serverSpan.log(LogData.SERVER_SEND_EVENT_VALUE);
 
-        RpcInternalContext context = RpcInternalContext.getContext();
-        serverSpan.setTag(RpcSpanTags.RESP_SERIALIZE_TIME,
-            (Number) context.getAttachment(RpcConstants.INTERNAL_KEY_RESP_SERIALIZE_TIME));
-        serverSpan.setTag(RpcSpanTags.REQ_DESERIALIZE_TIME,
-            (Number) context.getAttachment(RpcConstants.INTERNAL_KEY_REQ_DESERIALIZE_TIME));
-        serverSpan.setTag(RpcSpanTags.RESP_SIZE, (Number) context.getAttachment(RpcConstants.INTERNAL_KEY_RESP_SIZE));
-        serverSpan.setTag(RpcSpanTags.REQ_SIZE, (Number) context.getAttachment(RpcConstants.INTERNAL_KEY_REQ_SIZE));
-        //当前线程名
-        serverSpan.setTag(RpcSpanTags.CURRENT_THREAD_NAME, Thread.currentThread().getName());
+        if (isSampled(serverSpan)) {
+            RpcInternalContext context = RpcInternalContext.getContext();
+            serverSpan.setTag(RpcSpanTags.RESP_SERIALIZE_TIME,
+                (Number) context.getAttachment(RpcConstants.INTERNAL_KEY_RESP_SERIALIZE_TIME));
+            serverSpan.setTag(RpcSpanTags.REQ_DESERIALIZE_TIME,
+                (Number) context.getAttachment(RpcConstants.INTERNAL_KEY_REQ_DESERIALIZE_TIME));
+            serverSpan.setTag(RpcSpanTags.RESP_SIZE,
+                (Number) context.getAttachment(RpcConstants.INTERNAL_KEY_RESP_SIZE));
+            serverSpan.setTag(RpcSpanTags.REQ_SIZE, (Number) context.getAttachment(RpcConstants.INTERNAL_KEY_REQ_SIZE));
+            //当前线程名
+            serverSpan.setTag(RpcSpanTags.CURRENT_THREAD_NAME, Thread.currentThread().getName());
+        }
 
         Throwable throwableShow = exception;
         String tracerErrorCode = StringUtils.EMPTY;
@@ -553,6 +590,11 @@ public class RpcSofaTracer extends Tracer {
         // 结果码（00=成功/01=业务异常/02=RPC逻辑错误）
         serverSpan.setTag(RpcSpanTags.RESULT_CODE, resultCode);
         serverSpan.finish();
+        //还原调用方的 span
+        SofaTracerSpan callerSpan = serverSpan.getParentSofaTracerSpan();
+        if (callerSpan != null) {
+            sofaTraceContext.push(callerSpan);
+        }
     }
 
     private void generateServerErrorContext(Map<String, String> context, SofaRequest request,
@@ -657,4 +699,14 @@ public class RpcSofaTracer extends Tracer {
     public SofaTracer getSofaTracer() {
         return sofaTracer;
     }
+
+    /**
+     * 使用 RPC 自己的采样器的 tracer
+     */
+    private static class SampledSofaTracer extends SofaTracer {
+
+        SampledSofaTracer(Reporter clientReporter, Reporter serverReporter, Sampler sampler) {
+            super(RPC_TRACER_TYPE, clientReporter, serverReporter, sampler, new HashMap<String, Object>());
+        }
+    }
 }
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.tracer.sofatracer;
+
+import com.alipay.common.tracer.core.context.span.SofaTracerSpanContext;
+import com.alipay.common.tracer.core.samplers.Sampler;
+import com.alipay.common.tracer.core.samplers.SamplingStatus;
+import com.alipay.common.tracer.core.span.SofaTracerSpan;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * RPC 头部采样器：只在根节点做一次采样决定（按比例 + 每个服务每秒最大采样数），
+ * 下游通过 tracer 上下文中的采样标记继承该决定。
+ */
+public class RpcTracerSampler implements Sampler {
+
+    public static final String                      TYPE    = "RpcTracerSampler";
+
+    /**
+     * 采样比例，0-100
+     */
+    private final int                               rate;
+
+    /**
+     * 每个服务每秒最多采样的次数，小于等于 0 表示不限制
+     */
+    private final int                               maxPerSecond;
+
+    /**
+     * 服务 --> 当前秒的采样计数
+     */
+    private final ConcurrentMap<String, RateWindow> windows = new ConcurrentHashMap<String, RateWindow>();
+
+    public RpcTracerSampler(int rate, int maxPerSecond) {
+        this.rate = Math.max(0, Math.min(100, rate));
+        this.maxPerSecond = maxPerSecond;
+    }
+
+    /**
+     * 是否需要安装该采样器，默认配置下保持全量采样
+     *
+     * @param rate         采样比例
+     * @param maxPerSecond 每个服务每秒最大采样数
+     * @return 是否需要采样器
+     */
+    public static boolean isRequired(int rate, int maxPerSecond) {
+        return rate < 100 || maxPerSecond > 0;
+    }
+
+    @Override
+    public SamplingStatus sample(SofaTracerSpan span) {
+        SamplingStatus status = new SamplingStatus();
+        SofaTracerSpanContext spanContext = span.getSofaTracerSpanContext();
+        if (span.getEndTime() > 0 && spanContext != null) {
+            // span 结束时 tracer 会对根 span 重新采样，这里沿用开始时的决定
+            status.setSampled(spanContext.isSampled());
+        } else {
+            status.setSampled(sample(span.getOperationName(), System.currentTimeMillis()));
+        }
+        return status;
+    }
+
+    boolean sample(String service, long now) {
+        if (rate <= 0) {
+            return false;
+        }
+        if (rate < 100 && ThreadLocalRandom.current().nextInt(100) >= rate) {
+            return false;
+        }
+        if (maxPerSecond <= 0) {
+            return true;
+        }
+        String key = service == null ? "" : service;
+        RateWindow window = windows.get(key);
+        if (window == null) {
+            RateWindow old = windows.putIfAbsent(key, window = new RateWindow());
+            if (old != null) {
+                window = old;
+            }
+        }
+        return window.tryAcquire(now / 1000, maxPerSecond);
+    }
+
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+
+    @Override
+    public void close() {
+        windows.clear();
+    }
+
+    /**
+     * 按秒滚动的计数窗口
+     */
+    private static class RateWindow {
+
+        private volatile long       second;
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        boolean tryAcquire(long currentSecond, int limit) {
+            if (currentSecond != second) {
+                synchronized (this) {
+                    if (currentSecond != second) {
+                        count.set(0);
+                        second = currentSecond;
+                    }
+                }
+            }
+            return count.incrementAndGet() <= limit;
+        }
+    }
+}
@@ -0,0 +1,310 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.tracer.sofatracer.factory;
+
+import com.alipay.common.tracer.core.appender.TracerLogRootDaemon;
+import com.alipay.common.tracer.core.appender.encoder.SpanEncoder;
+import com.alipay.common.tracer.core.appender.file.TimedRollingFileAppender;
+import com.alipay.common.tracer.core.appender.self.SelfLog;
+import com.alipay.common.tracer.core.context.span.SofaTracerSpanContext;
+import com.alipay.common.tracer.core.reporter.facade.AbstractReporter;
+import com.alipay.common.tracer.core.reporter.stat.SofaTracerStatisticReporter;
+import com.alipay.common.tracer.core.span.SofaTracerSpan;
+import com.alipay.sofa.common.config.SofaConfigs;
+import com.alipay.sofa.rpc.common.config.RpcConfigKeys;
+import com.alipay.sofa.rpc.common.struct.NamedThreadFactory;
+import com.alipay.sofa.rpc.common.utils.StringUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 批量写摘要日志的 Reporter：调用线程只把 span 放入有界的无锁队列，
+ * 由后台线程批量编码并通过 FileChannel 写入，队列满时丢弃并计数。
+ */
+public class BatchReporterImpl extends AbstractReporter {
+
+    /**
+     * 每批最多处理的 span 数
+     */
+    private static final int                  BATCH_SIZE   = 512;
+
+    /**
+     * 写缓冲区大小
+     */
+    private static final int                  BUFFER_SIZE  = 64 * 1024;
+
+    private final String                      digestLog;
+
+    private final SpanEncoder<SofaTracerSpan> spanEncoder;
+
+    private final SofaTracerStatisticReporter statReporter;
+
+    private final String                      rollingPattern;
+
+    private final int                         capacity;
+
+    private final long                        flushIntervalNanos;
+
+    private final Queue<SofaTracerSpan>       queue        = new ConcurrentLinkedQueue<SofaTracerSpan>();
+
+    private final AtomicInteger               size         = new AtomicInteger();
+
+    /**
+     * 队列满时丢弃的 span 数
+     */
+    private final AtomicLong                  discardCount = new AtomicLong();
+
+    private final AtomicBoolean               started      = new AtomicBoolean();
+
+    private volatile boolean                  running      = true;
+
+    private volatile Thread                   writer;
+
+    /**
+     * 以下字段只在写线程中使用
+     */
+    private final ByteBuffer                  buffer       = ByteBuffer.allocate(BUFFER_SIZE);
+
+    private final CharsetEncoder              charsetEncoder;
+
+    private FileChannel                       channel;
+
+    private String                            currentSuffix;
+
+    private long                              reportedDiscardCount;
+
+    public BatchReporterImpl(String digestLog, String digestRollingPolicy, String digestLogReserveConfig,
+                             SpanEncoder<SofaTracerSpan> spanEncoder, SofaTracerStatisticReporter statReporter) {
+        this(digestLog, digestRollingPolicy, spanEncoder, statReporter,
+            SofaConfigs.getOrDefault(RpcConfigKeys.TRACER_BATCH_QUEUE_SIZE),
+            SofaConfigs.getOrDefault(RpcConfigKeys.TRACER_BATCH_FLUSH_INTERVAL));
+    }
+
+    BatchReporterImpl(String digestLog, String digestRollingPolicy, SpanEncoder<SofaTracerSpan> spanEncoder,
+                      SofaTracerStatisticReporter statReporter, int capacity, int flushInterval) {
+        this.digestLog = digestLog;
+        this.spanEncoder = spanEncoder;
+        this.statReporter = statReporter;
+        this.rollingPattern = StringUtils.isBlank(digestRollingPolicy) ? TimedRollingFileAppender.DAILY_ROLLING_PATTERN
+            : digestRollingPolicy;
+        this.capacity = capacity;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, flushInterval));
+        this.charsetEncoder = TracerLogRootDaemon.DEFAULT_CHARSET.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    @Override
+    public void doReport(SofaTracerSpan span) {
+        if (statReporter != null) {
+            statReporter.reportStat(span);
+        }
+        SofaTracerSpanContext spanContext = span.getSofaTracerSpanContext();
+        if (spanContext == null || !spanContext.isSampled() || !running) {
+            return;
+        }
+        if (size.incrementAndGet() > capacity) {
+            size.decrementAndGet();
+            discardCount.incrementAndGet();
+            return;
+        }
+        queue.offer(span);
+        if (!started.get() && started.compareAndSet(false, true)) {
+            writer = new NamedThreadFactory("TRACER-BATCH-" + digestLog, true).newThread(new Runnable() {
+                @Override
+                public void run() {
+                    writeLoop();
+                }
+            });
+            writer.start();
+        }
+    }
+
+    private void writeLoop() {
+        while (running) {
+            if (writeBatch() == 0) {
+                flush();
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+        }
+        // 关闭前把剩余的写完
+        while (writeBatch() > 0) {
+            // continue
+        }
+        flush();
+        closeChannel();
+    }
+
+    /**
+     * 取出一批 span 编码并写入缓冲区
+     *
+     * @return 本批处理的 span 数
+     */
+    int writeBatch() {
+        int count = 0;
+        SofaTracerSpan span;
+        while (count < BATCH_SIZE && (span = queue.poll()) != null) {
+            size.decrementAndGet();
+            count++;
+            try {
+                append(spanEncoder.encode(span));
+            } catch (Throwable e) {
+                SelfLog.error("Failed to write digest of " + digestLog, e);
+            }
+        }
+        return count;
+    }
+
+    private void append(String content) throws IOException {
+        if (StringUtils.isEmpty(content)) {
+            return;
+        }
+        CharBuffer chars = CharBuffer.wrap(content);
+        charsetEncoder.reset();
+        while (charsetEncoder.encode(chars, buffer, true).isOverflow()) {
+            writeBuffer();
+        }
+        while (charsetEncoder.flush(buffer).isOverflow()) {
+            writeBuffer();
+        }
+    }
+
+    /**
+     * 把缓冲区写入文件，并报告丢弃数
+     */
+    void flush() {
+        try {
+            writeBuffer();
+        } catch (Throwable e) {
+            buffer.clear();
+            SelfLog.error("Failed to flush digest of " + digestLog, e);
+        }
+        long discarded = discardCount.get();
+        if (discarded != reportedDiscardCount) {
+            SelfLog.warn("Digest queue of " + digestLog + " is full, discarded " +
+                (discarded - reportedDiscardCount) + " spans, total " + discarded);
+            reportedDiscardCount = discarded;
+        }
+    }
+
+    private void writeBuffer() throws IOException {
+        if (buffer.position() == 0) {
+            return;
+        }
+        FileChannel fileChannel = getChannel();
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            fileChannel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * 获取当前文件，时间窗口变化时按滚动策略重命名旧文件
+     */
+    private FileChannel getChannel() throws IOException {
+        String suffix = new SimpleDateFormat(rollingPattern).format(new Date());
+        if (channel != null && suffix.equals(currentSuffix)) {
+            return channel;
+        }
+        File file = getLogFile();
+        if (channel != null) {
+            closeChannel();
+            File rolled = new File(file.getPath() + currentSuffix);
+            if (!rolled.exists() && !file.renameTo(rolled)) {
+                SelfLog.warn("Failed to roll over digest file " + file.getPath());
+            }
+        } else {
+            File parent = file.getParentFile();
+            if (parent != null && !parent.exists() && !parent.mkdirs()) {
+                SelfLog.warn("Failed to create digest dir " + parent.getPath());
+            }
+        }
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.APPEND);
+        currentSuffix = suffix;
+        return channel;
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                SelfLog.error("Failed to close digest file of " + digestLog, e);
+            }
+            channel = null;
+        }
+    }
+
+    File getLogFile() {
+        return new File(TracerLogRootDaemon.LOG_FILE_DIR + File.separator + digestLog);
+    }
+
+    @Override
+    public String getReporterType() {
+        return digestLog;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        Thread thread = writer;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos) + 1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        super.close();
+    }
+
+    /**
+     * 队列满时丢弃的 span 数
+     *
+     * @return 丢弃数
+     */
+    public long getDiscardCount() {
+        return discardCount.get();
+    }
+
+    /**
+     * 等待写入的 span 数
+     *
+     * @return 等待数
+     */
+    public int getPendingCount() {
+        return size.get();
+    }
+}
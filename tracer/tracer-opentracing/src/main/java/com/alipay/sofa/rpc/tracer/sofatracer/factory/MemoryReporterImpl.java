@@ -17,6 +17,7 @@
 package com.alipay.sofa.rpc.tracer.sofatracer.factory;
 
 import com.alipay.common.tracer.core.appender.encoder.SpanEncoder;
+import com.alipay.common.tracer.core.context.span.SofaTracerSpanContext;
 import com.alipay.common.tracer.core.reporter.facade.AbstractReporter;
 import com.alipay.common.tracer.core.reporter.stat.SofaTracerStatisticReporter;
 import com.alipay.common.tracer.core.reporter.stat.model.StatKey;
@@ -73,28 +74,33 @@ public class MemoryReporterImpl extends AbstractReporter {
     public void doReport(SofaTracerSpan span) {
 
         lock.lock();
-        if (span.isClient()) {
-            try {
-                String result = clientDigestEncoder.encode(span);
-                clientDigestHolder.add(result);
-            } catch (IOException e) {
-                LOGGER.error("encode error", e);
+        try {
+            // 与磁盘实现保持一致，未采样的 span 只做统计；没有上下文的 span 无法编码，按未采样处理
+            SofaTracerSpanContext spanContext = span.getSofaTracerSpanContext();
+            boolean sampled = spanContext != null && spanContext.isSampled();
+            if (sampled && span.isClient()) {
+                try {
+                    String result = clientDigestEncoder.encode(span);
+                    clientDigestHolder.add(result);
+                } catch (IOException e) {
+                    LOGGER.error("encode error", e);
+                }
+            } else if (sampled) {
+                try {
+                    String result = serverDigestEncoder.encode(span);
+                    serverDigestHolder.add(result);
+
+                } catch (IOException e) {
+                    LOGGER.error("encode error", e);
+                }
             }
-        } else {
-            try {
-                String result = serverDigestEncoder.encode(span);
-                serverDigestHolder.add(result);
 
-            } catch (IOException e) {
-                LOGGER.error("encode error", e);
+            if (statReporter != null) {
+                statisticReport(span);
             }
+        } finally {
+            lock.unlock();
         }
-
-        if (statReporter != null) {
-            statisticReport(span);
-        }
-
-        lock.unlock();
     }
 
     @Override
@@ -41,6 +41,10 @@ public class ReporterFactory {
             //构造实例
             reporter = new MemoryReporterImpl(digestLog, digestRollingPolicy,
                 digestLogReserveConfig, spanEncoder, statReporter);
+        } else if (StringUtils.equals(REPORT_TYPE, "BATCH")) {
+            //后台批量写
+            reporter = new BatchReporterImpl(digestLog, digestRollingPolicy,
+                digestLogReserveConfig, spanEncoder, statReporter);
         } else {
             //构造实例
             reporter = new DiskReporterImpl(digestLog, digestRollingPolicy,
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.tracer.sofatracer;
+
+import com.alipay.common.tracer.core.context.span.SofaTracerSpanContext;
+import com.alipay.common.tracer.core.context.trace.SofaTraceContext;
+import com.alipay.common.tracer.core.holder.SofaTraceContextHolder;
+import com.alipay.common.tracer.core.span.SofaTracerSpan;
+import com.alipay.sofa.rpc.common.config.RpcConfigKeys;
+import com.alipay.sofa.rpc.core.request.SofaRequest;
+import com.alipay.sofa.rpc.tracer.sofatracer.log.tags.RpcSpanTags;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+
+public class RpcTracerSamplerTest {
+
+    @Test
+    public void testRate() {
+        Assert.assertFalse(RpcTracerSampler.isRequired(100, 0));
+        Assert.assertTrue(RpcTracerSampler.isRequired(10, 0));
+        Assert.assertTrue(RpcTracerSampler.isRequired(100, 5));
+
+        RpcTracerSampler none = new RpcTracerSampler(0, 0);
+        RpcTracerSampler all = new RpcTracerSampler(100, 0);
+        for (int i = 0; i < 100; i++) {
+            Assert.assertFalse(none.sample("a", i));
+            Assert.assertTrue(all.sample("a", i));
+        }
+    }
+
+    @Test
+    public void testMaxPerSecond() {
+        RpcTracerSampler sampler = new RpcTracerSampler(100, 2);
+        Assert.assertTrue(sampler.sample("a", 1000));
+        Assert.assertTrue(sampler.sample("a", 1500));
+        Assert.assertFalse(sampler.sample("a", 1999));
+        // 不同服务独立计数
+        Assert.assertTrue(sampler.sample("b", 1999));
+        // 下一秒重新计数
+        Assert.assertTrue(sampler.sample("a", 2000));
+    }
+
+    @Test
+    public void testKeepDecisionWhenFinished() {
+        RpcTracerSampler sampler = new RpcTracerSampler(100, 0);
+        SofaTracerSpanContext spanContext = new SofaTracerSpanContext("traceId", "0");
+        spanContext.setSampled(false);
+        SofaTracerSpan span = new SofaTracerSpan(new RpcSofaTracer().getSofaTracer(),
+            System.currentTimeMillis(), "a", spanContext,
+            new HashMap<String, Object>());
+        Assert.assertTrue(sampler.sample(span).isSampled());
+        span.setEndTime(System.currentTimeMillis());
+        Assert.assertFalse(sampler.sample(span).isSampled());
+    }
+
+    @Test
+    public void testUnsampledSpan() {
+        System.setProperty(RpcConfigKeys.TRACER_SAMPLE_RATE.getKey(), "0");
+        try {
+            RpcSofaTracer tracer = new RpcSofaTracer();
+            SofaRequest request = new SofaRequest();
+            request.setInterfaceName("a");
+            request.setTargetServiceUniqueName("a:1.0");
+            request.setMethodName("m");
+            SofaTraceContext sofaTraceContext = SofaTraceContextHolder.getSofaTraceContext();
+            sofaTraceContext.clear();
+            tracer.startRpc(request);
+
+            SofaTracerSpan span = sofaTraceContext.pop();
+            Assert.assertFalse(span.getSofaTracerSpanContext().isSampled());
+            Assert.assertFalse(RpcSofaTracer.isSampled(span));
+            Assert.assertEquals("a:1.0", span.getTagsWithStr().get(RpcSpanTags.SERVICE));
+            Assert.assertEquals("m", span.getTagsWithStr().get(RpcSpanTags.METHOD));
+            Assert.assertNull(span.getTagsWithStr().get(RpcSpanTags.CURRENT_THREAD_NAME));
+        } finally {
+            System.clearProperty(RpcConfigKeys.TRACER_SAMPLE_RATE.getKey());
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.rpc.tracer.sofatracer.factory;
+
+import com.alipay.common.tracer.core.appender.TracerLogRootDaemon;
+import com.alipay.common.tracer.core.context.span.SofaTracerSpanContext;
+import com.alipay.common.tracer.core.span.SofaTracerSpan;
+import com.alipay.sofa.rpc.tracer.sofatracer.RpcSofaTracer;
+import com.alipay.sofa.rpc.tracer.sofatracer.log.digest.RpcClientDigestSpanJsonEncoder;
+import com.alipay.sofa.rpc.tracer.sofatracer.log.tags.RpcSpanTags;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+
+public class BatchReporterImplTest {
+
+    private String logDir;
+
+    private File   tempDir;
+
+    @Before
+    public void before() throws Exception {
+        logDir = TracerLogRootDaemon.LOG_FILE_DIR;
+        tempDir = Files.createTempDirectory("batch-reporter").toFile();
+        TracerLogRootDaemon.LOG_FILE_DIR = tempDir.getPath();
+    }
+
+    @After
+    public void after() {
+        TracerLogRootDaemon.LOG_FILE_DIR = logDir;
+        File[] files = tempDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        tempDir.delete();
+    }
+
+    @Test
+    public void testWrite() throws Exception {
+        BatchReporterImpl reporter = new BatchReporterImpl("rpc-client-digest.log", null,
+            new RpcClientDigestSpanJsonEncoder(), null, 100, 10);
+        RpcSofaTracer tracer = new RpcSofaTracer();
+        for (int i = 0; i < 3; i++) {
+            reporter.report(newSpan(tracer, "service" + i, true));
+        }
+        reporter.report(newSpan(tracer, "unsampled", false));
+        reporter.close();
+
+        List<String> lines = Files.readAllLines(reporter.getLogFile().toPath());
+        Assert.assertEquals(3, lines.size());
+        for (int i = 0; i < 3; i++) {
+            Assert.assertTrue(lines.get(i).contains("\"service" + i + "\""));
+        }
+        Assert.assertEquals(0, reporter.getPendingCount());
+        Assert.assertEquals(0, reporter.getDiscardCount());
+    }
+
+    @Test
+    public void testDiscard() {
+        BatchReporterImpl reporter = new BatchReporterImpl("rpc-server-digest.log", null,
+            new RpcClientDigestSpanJsonEncoder(), null, 0, 10);
+        RpcSofaTracer tracer = new RpcSofaTracer();
+        for (int i = 0; i < 5; i++) {
+            reporter.report(newSpan(tracer, "service", true));
+        }
+        Assert.assertEquals(5, reporter.getDiscardCount());
+        Assert.assertEquals(0, reporter.getPendingCount());
+        reporter.close();
+        Assert.assertFalse(reporter.getLogFile().exists());
+    }
+
+    @Test
+    public void testWithoutSpanContext() {
+        BatchReporterImpl reporter = new BatchReporterImpl("rpc-client-digest.log", null,
+            new RpcClientDigestSpanJsonEncoder(), null, 100, 10);
+        RpcSofaTracer tracer = new RpcSofaTracer();
+        SofaTracerSpan span = new SofaTracerSpan(tracer.getSofaTracer(), System.currentTimeMillis(), "service",
+            null, new HashMap<String, Object>());
+        reporter.report(span);
+        Assert.assertEquals(0, reporter.getPendingCount());
+        reporter.close();
+        Assert.assertFalse(reporter.getLogFile().exists());
+    }
+
+    private SofaTracerSpan newSpan(RpcSofaTracer tracer, String service, boolean sampled) {
+        SofaTracerSpanContext spanContext = new SofaTracerSpanContext("traceId", "0.1");
+        spanContext.setSampled(sampled);
+        SofaTracerSpan span = new SofaTracerSpan(tracer.getSofaTracer(), System.currentTimeMillis(), service,
+            spanContext, new HashMap<String, Object>());
+        span.setTag(RpcSpanTags.SERVICE, service);
+        span.setEndTime(System.currentTimeMillis());
+        return span;
+    }
+}